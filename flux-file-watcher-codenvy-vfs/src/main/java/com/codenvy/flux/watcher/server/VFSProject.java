@@ -10,14 +10,23 @@
  *******************************************************************************/
 package com.codenvy.flux.watcher.server;
 
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FILE;
 import static com.google.common.base.Preconditions.checkNotNull;
 
-import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,28 +40,73 @@ import com.codenvy.api.project.server.VirtualFileEntry;
 import com.codenvy.api.vfs.server.VirtualFile;
 import com.codenvy.flux.watcher.core.Resource;
 import com.codenvy.flux.watcher.core.Resource.ResourceType;
+import com.codenvy.flux.watcher.core.ResourceIndex;
 import com.codenvy.flux.watcher.core.spi.Project;
+import com.codenvy.flux.watcher.core.utils.ResourceHelper;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.io.ByteSource;
 
 /**
  * {@link com.codenvy.flux.watcher.core.spi.Project} implementation.
+ * <p/>
+ * The base folder of the Codenvy project is resolved once and cached. The {@link VirtualFileEventSubscriber} invalidates it
+ * when the folder of a synchronized project is deleted, moved or renamed, it is also resolved again each time the project is
+ * synchronized.
+ * <p/>
+ * The project is listed by a fork-join walk, the parallelism of the shared pool is configured with the {@value
+ * #PARALLELISM_PROPERTY} system property, the number of processors by default. The files are read and hashed during the walk
+ * unless the {@value #READ_CONTENT_PROPERTY} system property is {@code false}, their hashes are kept in a {@link
+ * com.codenvy.flux.watcher.core.ResourceIndex} so that only the modified files are read again.
  *
  * @author Stéphane Tournié
  */
 public class VFSProject implements Project {
 
-    private static final Logger  LOG = LoggerFactory.getLogger(VFSProject.class);
+    public static final String PARALLELISM_PROPERTY  = "flux.watcher.vfs.parallelism";
+    public static final String READ_CONTENT_PROPERTY = "flux.watcher.vfs.read.content";
+
+    private static final Logger       LOG         = LoggerFactory.getLogger(VFSProject.class);
+    private static final ForkJoinPool SHARED_POOL =
+            new ForkJoinPool(Math.max(1, Integer.getInteger(PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors())));
 
     private final String         id;
     private final String         projectPath;
     private final ProjectManager projectManager;
+    private final ForkJoinPool   pool;
+    private final boolean        readContent;
+    private final ResourceIndex  index;
+    private volatile FolderEntry baseFolder;
     private boolean              sync;
 
     public VFSProject(ProjectManager projectManager,
                       String id,
                       String path) {
+        this(projectManager, id, path, SHARED_POOL, Boolean.parseBoolean(System.getProperty(READ_CONTENT_PROPERTY, "true")));
+    }
+
+    /**
+     * Constructs an instance of {@link VFSProject}.
+     *
+     * @param projectManager
+     *         the Codenvy {@link ProjectManager}.
+     * @param id
+     *         the project id.
+     * @param path
+     *         the project path.
+     * @param pool
+     *         the {@link java.util.concurrent.ForkJoinPool} walking the project folders.
+     * @param readContent
+     *         {@code true} if the files are read and hashed while the project is walked, {@code false} to read them on demand.
+     * @throws java.lang.NullPointerException
+     *         if {@code id}, {@code path} or {@code pool} parameter is {@code null}.
+     */
+    VFSProject(ProjectManager projectManager, String id, String path, ForkJoinPool pool, boolean readContent) {
         this.projectManager = projectManager;
         this.id = checkNotNull(id);
-        projectPath = checkNotNull(path);
+        this.projectPath = checkNotNull(path);
+        this.pool = checkNotNull(pool);
+        this.readContent = readContent;
+        this.index = new ResourceIndex();
     }
 
     @Override
@@ -67,32 +121,88 @@ public class VFSProject implements Project {
 
     @Override
     public Set<Resource> getResources() {
-        final Set<Resource> resources = new HashSet<>();
+        final FolderEntry folder;
         try {
-            // TODO workspace should not be hardcoded
-            com.codenvy.api.project.server.Project project = projectManager.getProject("1q2w3e", projectPath);
-            FolderEntry baseFolder = project.getBaseFolder();
-
-            List<FolderEntry> folders = baseFolder.getChildFolders();
-            for (FolderEntry folder : folders) {
-                VirtualFile vFolder = folder.getVirtualFile();
-                resources.add(Resource.newFolder(relativizeFilePath(vFolder), vFolder.getLastModificationDate()));
-                resources.addAll(getResources(folder));
-            }
-            List<FileEntry> files = baseFolder.getChildFiles();
-            for (FileEntry file : files) {
-                VirtualFile vFile = file.getVirtualFile();
-                byte[] content = IOUtils.toByteArray(vFile.getContent().getStream());
-                Resource newFile = Resource.newFile(relativizeFilePath(vFile), vFile.getLastModificationDate(), content);
-                resources.add(newFile);
-            }
-        } catch (IOException | ServerException | ForbiddenException e) {
+            folder = baseFolder();
+        } catch (ServerException | ForbiddenException e) {
             LOG.error("Couldn't get resources for project " + projectPath, e);
             throw new RuntimeException("Couldn't get resource", e);
         }
+
+        final Set<Resource> resources = Collections.newSetFromMap(new ConcurrentHashMap<Resource, Boolean>());
+        if (walk(folder, resources) && readContent) {
+            // forget the resources deleted since the last listing, unless a folder could not be listed
+            final Set<String> paths = new HashSet<>();
+            for (Resource oneResource : resources) {
+                paths.add(oneResource.path());
+            }
+            index.retain(paths);
+        }
         return resources;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The project tree is walked depth first with the children of each folder sorted by name, the virtual file system doesn't
+     * provide sorted children. Only the children of the folders being walked are held in memory and the folders listed before
+     * the given path are not walked again, so that each page of a listing does not cost a walk of the whole project.
+     */
+    @Override
+    public Iterator<Resource> getResourcesAfter(final String resourcePath) {
+        final FolderEntry folder;
+        try {
+            folder = baseFolder();
+        } catch (ServerException | ForbiddenException e) {
+            LOG.error("Couldn't get resources for project " + projectPath, e);
+            throw new RuntimeException("Couldn't get resource", e);
+        }
+
+        return new AbstractIterator<Resource>() {
+            private final Deque<Iterator<VirtualFileEntry>> folders =
+                    new ArrayDeque<>(Collections.singleton(sortedChildren(folder)));
+
+            @Override
+            protected Resource computeNext() {
+                while (!folders.isEmpty()) {
+                    final Iterator<VirtualFileEntry> children = folders.peek();
+                    if (!children.hasNext()) {
+                        folders.pop();
+                        continue;
+                    }
+
+                    final VirtualFileEntry child = children.next();
+                    final VirtualFile vFile = child.getVirtualFile();
+                    final String relativeResourcePath = relativizeFilePath(vFile);
+
+                    // a listed folder is only walked if it is or contains the last listed resource
+                    final boolean listed =
+                            resourcePath != null && ResourceHelper.comparePaths(relativeResourcePath, resourcePath) <= 0;
+                    if (listed && !(resourcePath + '/').startsWith(relativeResourcePath + '/')) {
+                        continue;
+                    }
+
+                    try {
+
+                        if (child instanceof FolderEntry) {
+                            folders.push(sortedChildren((FolderEntry)child));
+                            if (!listed) {
+                                return readContent ? index.indexFolder(relativeResourcePath, vFile.getLastModificationDate())
+                                                   : Resource.newFolder(relativeResourcePath, vFile.getLastModificationDate());
+                            }
+                        } else if (!listed) {
+                            return toResource(vFile);
+                        }
+
+                    } catch (ServerException | ForbiddenException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                return endOfData();
+            }
+        };
+    }
+
     /**
      * Return the path of the vFile relative to the current project path
      *
@@ -107,28 +217,79 @@ public class VFSProject implements Project {
         return vFile.getPath().substring(toRemoveCharLength);
     }
 
+    /**
+     * Returns the resources of the given folder and of all its sub folders. The sibling folders are walked in parallel in the
+     * {@link java.util.concurrent.ForkJoinPool} of this project and the resources are gathered in a single concurrent set.
+     *
+     * @param folder
+     *         the {@link FolderEntry} to walk.
+     * @return the {@link java.util.Set} of {@link com.codenvy.flux.watcher.core.Resource}, never {@code null}.
+     */
     protected Set<Resource> getResources(FolderEntry folder) {
-        final Set<Resource> resources = new HashSet<>();
+        final Set<Resource> resources = Collections.newSetFromMap(new ConcurrentHashMap<Resource, Boolean>());
+        walk(folder, resources);
+        return resources;
+    }
+
+    /**
+     * Walks the given folder and adds its resources and the resources of all its sub folders to the given set. The sub folders
+     * which cannot be listed are skipped.
+     *
+     * @param folder
+     *         the {@link FolderEntry} to walk.
+     * @param resources
+     *         the concurrent {@link java.util.Set} where the {@link com.codenvy.flux.watcher.core.Resource} are added.
+     * @return {@code true} if all the folders have been listed, {@code false} otherwise.
+     * @throws java.lang.RuntimeException
+     *         if the given folder cannot be listed.
+     */
+    private boolean walk(FolderEntry folder, Set<Resource> resources) {
+        final AtomicBoolean complete = new AtomicBoolean(true);
+        pool.invoke(new FolderTask(folder, resources, complete, true));
+        return complete.get();
+    }
+
+    /**
+     * Returns the children of the given folder sorted by name.
+     *
+     * @param folder
+     *         the {@link FolderEntry}.
+     * @return the {@link java.util.Iterator} over the sorted children, never {@code null}.
+     */
+    private Iterator<VirtualFileEntry> sortedChildren(FolderEntry folder) {
+        final List<VirtualFileEntry> children = new ArrayList<>();
         try {
-            List<FileEntry> files = folder.getChildFiles();
-            for (FileEntry file : files) {
-                VirtualFile vFile = file.getVirtualFile();
-                byte[] content = IOUtils.toByteArray(vFile.getContent().getStream());
-                resources.add(Resource.newFile(relativizeFilePath(vFile), vFile.getLastModificationDate(),
-                                               content));
-            }
-            List<FolderEntry> folders = folder.getChildFolders();
-            for (FolderEntry folderr : folders) {
-                VirtualFile vFile = folderr.getVirtualFile();
-                resources.add(Resource.newFolder(relativizeFilePath(vFile),
-                                                 vFile.getLastModificationDate()));
-                resources.addAll(getResources(folderr));
+            children.addAll(folder.getChildFolders());
+            children.addAll(folder.getChildFiles());
+        } catch (ServerException | ForbiddenException e) {
+            throw new RuntimeException(e);
+        }
 
+        Collections.sort(children, new Comparator<VirtualFileEntry>() {
+            @Override
+            public int compare(VirtualFileEntry first, VirtualFileEntry second) {
+                return ResourceHelper.comparePaths(first.getVirtualFile().getPath(), second.getVirtualFile().getPath());
             }
-        } catch (IOException | ForbiddenException | ServerException e) {
-            LOG.error("Couldn't get resources for folder: " + folder.getPath() + " in project " + projectPath, e);
+        });
+        return children.iterator();
+    }
+
+    /**
+     * Returns the {@link com.codenvy.flux.watcher.core.Resource} of the given file. If the content is read, the file is hashed
+     * unless its {@link com.codenvy.flux.watcher.core.ResourceIndex} entry is up to date. Otherwise the hash of an up to date
+     * entry is reused and the content is left to be read on demand.
+     */
+    private Resource toResource(VirtualFile vFile) throws ServerException, ForbiddenException {
+        final String resourcePath = relativizeFilePath(vFile);
+        final long timestamp = vFile.getLastModificationDate();
+        final ByteSource contentSource = new VirtualFileByteSource(vFile);
+        if (readContent) {
+            return index.indexFile(resourcePath, timestamp, vFile.getLength(), contentSource);
         }
-        return resources;
+
+        final ResourceIndex.Entry entry = index.getIfUpToDate(resourcePath, FILE, timestamp, vFile.getLength());
+        return entry != null ? Resource.newFile(resourcePath, timestamp, entry.hash(), contentSource)
+                             : Resource.newFile(resourcePath, timestamp, contentSource);
     }
 
     @Override
@@ -136,9 +297,7 @@ public class VFSProject implements Project {
         checkNotNull(resourcePath);
 
         try {
-            // TODO workspace should not be hardcoded
-            com.codenvy.api.project.server.Project project = projectManager.getProject("1q2w3e", projectPath);
-            FolderEntry baseFolder = project.getBaseFolder();
+            FolderEntry baseFolder = baseFolder();
             VirtualFileEntry vfEntry = baseFolder.getChild(resourcePath);
 
             if (vfEntry != null) {
@@ -146,11 +305,11 @@ public class VFSProject implements Project {
                 if (vfEntry.isFolder()) {
                     return Resource.newFolder(relativizeFilePath(vFile), vFile.getLastModificationDate());
                 } else if (vfEntry.isFile()) {
-                    byte[] content = IOUtils.toByteArray(vFile.getContent().getStream());
-                    return Resource.newFile(relativizeFilePath(vFile), vFile.getLastModificationDate(), content);
+                    return Resource.newFile(relativizeFilePath(vFile), vFile.getLastModificationDate(),
+                                            new VirtualFileByteSource(vFile));
                 }
             }
-        } catch (IOException | ForbiddenException | ServerException e) {
+        } catch (ForbiddenException | ServerException e) {
             LOG.error("Couldn't get resource: " + resourcePath + ", in project " + projectPath, e);
         }
         return null;
@@ -161,9 +320,7 @@ public class VFSProject implements Project {
         checkNotNull(resource);
 
         try {
-            // TODO workspace should not be hardcoded
-            com.codenvy.api.project.server.Project project = projectManager.getProject("1q2w3e", projectPath);
-            FolderEntry baseFolder = project.getBaseFolder();
+            FolderEntry baseFolder = baseFolder();
             VirtualFileEntry vfEntry = baseFolder.getChild(resource.path());
             if (vfEntry == null) {
                 if (resource.type() == ResourceType.FILE) {
@@ -185,9 +342,7 @@ public class VFSProject implements Project {
         checkNotNull(resource);
 
         try {
-            // TODO workspace should not be hardcoded
-            com.codenvy.api.project.server.Project project = projectManager.getProject("1q2w3e", projectPath);
-            FolderEntry baseFolder = project.getBaseFolder();
+            FolderEntry baseFolder = baseFolder();
             VirtualFileEntry vfEntry = baseFolder.getChild(resource.path());
             if (vfEntry != null) {
                 // TODO
@@ -204,9 +359,7 @@ public class VFSProject implements Project {
         checkNotNull(resource);
 
         try {
-            // TODO workspace should not be hardcoded
-            com.codenvy.api.project.server.Project project = projectManager.getProject("1q2w3e", projectPath);
-            FolderEntry baseFolder = project.getBaseFolder();
+            FolderEntry baseFolder = baseFolder();
             VirtualFileEntry vfEntry = baseFolder.getChild(resource.path());
             if (vfEntry != null) {
                 // TODO
@@ -218,9 +371,37 @@ public class VFSProject implements Project {
         }
     }
 
+    /**
+     * Returns the base folder of the Codenvy project, resolved with the {@link ProjectManager} if it is not cached.
+     *
+     * @return the base {@link FolderEntry}, never {@code null}.
+     * @throws ServerException
+     *         if the project cannot be resolved.
+     * @throws ForbiddenException
+     *         if the project cannot be accessed.
+     */
+    FolderEntry baseFolder() throws ServerException, ForbiddenException {
+        FolderEntry folder = baseFolder;
+        if (folder == null) {
+            // TODO workspace should not be hardcoded
+            folder = projectManager.getProject("1q2w3e", projectPath).getBaseFolder();
+            baseFolder = folder;
+        }
+        return folder;
+    }
+
+    /**
+     * Invalidates the cached base folder of the Codenvy project, it is resolved again on the next access.
+     */
+    void invalidate() {
+        baseFolder = null;
+    }
+
     @Override
     public void setSynchronized(boolean synchronize) {
         if (synchronize) {
+            // the project folder events are not tracked while the project is not synchronized
+            invalidate();
             sync = true;
         } else {
             sync = false;
@@ -231,4 +412,59 @@ public class VFSProject implements Project {
     public boolean getSynchronized() {
         return sync;
     }
+
+    /**
+     * Walks a folder: the tasks of the sub folders are forked before the files of the folder are read, then joined. A failure
+     * to list the root folder is rethrown, a failure to list a sub folder is logged and marks the walk incomplete.
+     */
+    private final class FolderTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final FolderEntry   folder;
+        private final Set<Resource> resources;
+        private final AtomicBoolean complete;
+        private final boolean       root;
+
+        FolderTask(FolderEntry folder, Set<Resource> resources, AtomicBoolean complete, boolean root) {
+            this.folder = folder;
+            this.resources = resources;
+            this.complete = complete;
+            this.root = root;
+        }
+
+        @Override
+        protected void compute() {
+            final List<FolderTask> subTasks = new ArrayList<>();
+            Exception rootFailure = null;
+            try {
+                for (FolderEntry oneFolder : folder.getChildFolders()) {
+                    final VirtualFile vFolder = oneFolder.getVirtualFile();
+                    final String resourcePath = relativizeFilePath(vFolder);
+                    resources.add(readContent ? index.indexFolder(resourcePath, vFolder.getLastModificationDate())
+                                              : Resource.newFolder(resourcePath, vFolder.getLastModificationDate()));
+
+                    final FolderTask subTask = new FolderTask(oneFolder, resources, complete, false);
+                    subTask.fork();
+                    subTasks.add(subTask);
+                }
+                for (FileEntry oneFile : folder.getChildFiles()) {
+                    resources.add(toResource(oneFile.getVirtualFile()));
+                }
+            } catch (ForbiddenException | ServerException e) {
+                if (root) {
+                    rootFailure = e;
+                } else {
+                    LOG.error("Couldn't get resources for folder: " + folder.getPath() + " in project " + projectPath, e);
+                    complete.set(false);
+                }
+            }
+
+            for (int i = subTasks.size() - 1; i >= 0; i--) {
+                subTasks.get(i).join();
+            }
+            if (rootFailure != null) {
+                throw new RuntimeException("Couldn't get resources for project " + projectPath, rootFailure);
+            }
+        }
+    }
 }
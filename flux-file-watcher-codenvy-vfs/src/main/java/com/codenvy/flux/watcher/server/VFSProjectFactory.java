@@ -32,6 +32,10 @@ import com.codenvy.flux.watcher.core.RepositoryEventBus;
 import com.codenvy.flux.watcher.core.spi.Project;
 import com.codenvy.flux.watcher.core.spi.ProjectFactory;
 
+/**
+ * {@link com.codenvy.flux.watcher.core.spi.ProjectFactory} creating {@link VFSProject}. The projects root folder of the
+ * workspace is resolved once and shared with the {@link VirtualFileEventSubscriber}.
+ */
 @Singleton
 public class VFSProjectFactory implements ProjectFactory {
 
@@ -40,6 +44,7 @@ public class VFSProjectFactory implements ProjectFactory {
     private final EventService               eventService;
     private final ProjectManager             projectManager;
     private final VirtualFileEventSubscriber subscriber;
+    private volatile FolderEntry             projectsRoot;
 
     @Inject
     public VFSProjectFactory(EventService eventService,
@@ -48,7 +53,7 @@ public class VFSProjectFactory implements ProjectFactory {
                              Repository repository) {
         this.eventService = eventService;
         this.projectManager = projectManager;
-        subscriber = new VirtualFileEventSubscriber(repositoryEventBus, projectManager, repository);
+        subscriber = new VirtualFileEventSubscriber(repositoryEventBus, this, repository);
     }
 
     @PostConstruct
@@ -69,9 +74,7 @@ public class VFSProjectFactory implements ProjectFactory {
         // make sure that project folder exists in Codenvy
         VirtualFile projectFolder = null;
         try {
-            // TODO workspace should not be hardcoded
-            FolderEntry root = projectManager.getProjectsRoot("1q2w3e");
-            projectFolder = root.getVirtualFile().getChild(projectPath);
+            projectFolder = projectsRoot().getVirtualFile().getChild(projectPath);
         } catch (ServerException | ForbiddenException e) {
             LOG.error(e.getMessage());
         }
@@ -79,4 +82,23 @@ public class VFSProjectFactory implements ProjectFactory {
 
         return new VFSProject(projectManager, projectId, projectPath);
     }
+
+    /**
+     * Returns the projects root folder of the workspace, resolved with the {@link ProjectManager} if it is not cached.
+     *
+     * @return the projects root {@link FolderEntry}, never {@code null}.
+     * @throws ServerException
+     *         if the projects root cannot be resolved.
+     * @throws ForbiddenException
+     *         if the projects root cannot be accessed.
+     */
+    FolderEntry projectsRoot() throws ServerException, ForbiddenException {
+        FolderEntry root = projectsRoot;
+        if (root == null) {
+            // TODO workspace should not be hardcoded
+            root = projectManager.getProjectsRoot("1q2w3e");
+            projectsRoot = root;
+        }
+        return root;
+    }
 }
@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.server;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.codenvy.api.core.ForbiddenException;
+import com.codenvy.api.core.ServerException;
+import com.codenvy.api.vfs.server.VirtualFile;
+import com.google.common.io.ByteSource;
+
+/**
+ * {@link com.google.common.io.ByteSource} reading the content of a Codenvy VFS {@link VirtualFile} on demand, so that a lazy
+ * {@link com.codenvy.flux.watcher.core.Resource} doesn't load the file content until it is needed.
+ */
+class VirtualFileByteSource extends ByteSource {
+
+    private final VirtualFile vFile;
+
+    VirtualFileByteSource(VirtualFile vFile) {
+        this.vFile = checkNotNull(vFile);
+    }
+
+    @Override
+    public InputStream openStream() throws IOException {
+        try {
+            return vFile.getContent().getStream();
+        } catch (ForbiddenException | ServerException e) {
+            throw new IOException("Couldn't read content of " + vFile.getPath(), e);
+        }
+    }
+}
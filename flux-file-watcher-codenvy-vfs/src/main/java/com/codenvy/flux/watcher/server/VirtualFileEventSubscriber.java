@@ -12,10 +12,6 @@ package com.codenvy.flux.watcher.server;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
-import java.io.IOException;
-import java.util.Set;
-
-import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,7 +19,6 @@ import com.codenvy.api.core.ForbiddenException;
 import com.codenvy.api.core.ServerException;
 import com.codenvy.api.core.notification.EventSubscriber;
 import com.codenvy.api.project.server.FolderEntry;
-import com.codenvy.api.project.server.ProjectManager;
 import com.codenvy.api.project.server.VirtualFileEntry;
 import com.codenvy.api.vfs.server.VirtualFile;
 import com.codenvy.api.vfs.server.observation.MoveEvent;
@@ -35,23 +30,23 @@ import com.codenvy.flux.watcher.core.RepositoryEventBus;
 import com.codenvy.flux.watcher.core.RepositoryEventType;
 import com.codenvy.flux.watcher.core.Resource;
 import com.codenvy.flux.watcher.core.spi.Project;
-import com.google.common.base.Predicate;
-import com.google.common.collect.FluentIterable;
+import com.google.common.io.ByteSource;
 
 /**
- * Subscriber receiving notification events from Codenvy VFS.
+ * Subscriber receiving notification events from Codenvy VFS. The events deleting, moving or renaming a project folder invalidate
+ * the handles cached by its {@link VFSProject}.
  */
 public class VirtualFileEventSubscriber implements EventSubscriber<VirtualFileEvent> {
 
     private static final Logger      LOG = LoggerFactory.getLogger(VirtualFileEventSubscriber.class);
 
     private final RepositoryEventBus repositoryEventBus;
-    private final ProjectManager     projectManager;
+    private final VFSProjectFactory  projectFactory;
     private final Repository         repository;
 
-    public VirtualFileEventSubscriber(RepositoryEventBus repositoryEventBus, ProjectManager projectManager, Repository repository) {
+    public VirtualFileEventSubscriber(RepositoryEventBus repositoryEventBus, VFSProjectFactory projectFactory, Repository repository) {
         this.repositoryEventBus = checkNotNull(repositoryEventBus);
-        this.projectManager = checkNotNull(projectManager);
+        this.projectFactory = checkNotNull(projectFactory);
         this.repository = repository;
     }
 
@@ -68,15 +63,22 @@ public class VirtualFileEventSubscriber implements EventSubscriber<VirtualFileEv
 
             final String eventPath = event.getPath();
 
-            Set<Project> projects = repository.getSynchronizedProjects();
-            Project project = FluentIterable.from(projects)
-                                            .firstMatch(new Predicate<Project>() {
-                                                @Override
-                                                public boolean apply(Project project) {
-                                                    return eventPath.startsWith(project.path());
-                                                }
-                                            })
-                                            .orNull();
+            String eventOldPath = null;
+            // rename and move are treated as create and delete
+            if (eventType == VirtualFileEvent.ChangeType.MOVED) {
+                eventOldPath = ((MoveEvent)event).getOldPath();
+            } else if (eventType == VirtualFileEvent.ChangeType.RENAMED) {
+                eventOldPath = ((RenameEvent)event).getOldPath();
+            }
+
+            if (eventType != VirtualFileEvent.ChangeType.CONTENT_UPDATED) {
+                invalidateProject(eventPath);
+                if (eventOldPath != null) {
+                    invalidateProject(eventOldPath);
+                }
+            }
+
+            Project project = repository.getSynchronizedProject(eventPath);
 
             if (project != null) {
                 String projectPath = project.path();
@@ -97,7 +99,7 @@ public class VirtualFileEventSubscriber implements EventSubscriber<VirtualFileEv
 
                     // getting concret resource data from VFS
                     try {
-                        FolderEntry workspaceRootFolder = projectManager.getProjectsRoot(eventWorkspace);
+                        FolderEntry workspaceRootFolder = projectFactory.projectsRoot();
                         VirtualFileEntry vfEntry = workspaceRootFolder.getChild(resourceRelativePath);
 
                         VirtualFile vFile = (vfEntry != null ? vfEntry.getVirtualFile() : null);
@@ -105,37 +107,45 @@ public class VirtualFileEventSubscriber implements EventSubscriber<VirtualFileEv
                             resource = Resource.newFolder(resourceRelativePath,
                                                           (vFile != null ? vFile.getLastModificationDate() : System.currentTimeMillis()));
                         } else {
-                            byte[] content = (vFile != null ? IOUtils.toByteArray(vFile.getContent().getStream()) : new byte[0]);
+                            ByteSource contentSource = (vFile != null ? new VirtualFileByteSource(vFile) : ByteSource.empty());
                             resource = Resource.newFile(resourceRelativePath,
-                                                        (vFile != null ? vFile.getLastModificationDate() : System.currentTimeMillis()), content);
+                                                        (vFile != null ? vFile.getLastModificationDate() : System.currentTimeMillis()),
+                                                        contentSource);
                         }
                         // and firing event to Flux clients
                         if (repositoryEventType != null) {
                             repositoryEventBus.fireRepositoryEvent(new RepositoryEvent(repositoryEventType, resource, project));
                         }
 
-                    } catch (ServerException | ForbiddenException | IOException e) {
+                    } catch (ServerException | ForbiddenException e) {
                         LOG.error("Couldn't get projects", e);
                     }
                 }
 
-                String eventOldPath = null;
-                // rename and move are treated as create and delete
-                if (eventType == VirtualFileEvent.ChangeType.MOVED) {
-                    eventOldPath = ((MoveEvent)event).getOldPath();
-                } else if (eventType == VirtualFileEvent.ChangeType.RENAMED) {
-                    eventOldPath = ((RenameEvent)event).getOldPath();
-                }
-                if (eventOldPath != null && eventOldPath.startsWith(projectPath)) {
+                if (eventOldPath != null && repository.getSynchronizedProject(eventOldPath) == project) {
                     Resource oldResource;
                     if (event.isFolder()) {
                         oldResource = Resource.newFolder(eventOldPath.substring(projectPath.length()), System.currentTimeMillis());
                     } else {
-                        oldResource = Resource.newFile(eventOldPath.substring(projectPath.length()), System.currentTimeMillis(), new byte[0]);
+                        oldResource = Resource.newFile(eventOldPath.substring(projectPath.length()), System.currentTimeMillis(), ByteSource.empty());
                     }
                     repositoryEventBus.fireRepositoryEvent(new RepositoryEvent(RepositoryEventType.PROJECT_RESOURCE_DELETED, oldResource, project));
                 }
             }
         }
     }
+
+    /**
+     * Invalidates the handles cached by the synchronized {@link VFSProject} whose folder has the given path, if any.
+     */
+    private void invalidateProject(String path) {
+        final Project project = repository.getSynchronizedProject(path);
+        if (project instanceof VFSProject && trimSeparator(project.path()).equals(trimSeparator(path))) {
+            ((VFSProject)project).invalidate();
+        }
+    }
+
+    private static String trimSeparator(String path) {
+        return path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    }
 }
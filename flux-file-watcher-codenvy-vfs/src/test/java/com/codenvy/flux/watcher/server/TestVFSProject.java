@@ -10,12 +10,19 @@
  *******************************************************************************/
 package com.codenvy.flux.watcher.server;
 
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -37,6 +44,8 @@ import com.codenvy.api.project.server.Project;
 import com.codenvy.api.project.server.ProjectManager;
 import com.codenvy.api.vfs.server.ContentStream;
 import com.codenvy.flux.watcher.core.Resource;
+import com.codenvy.flux.watcher.core.utils.ResourceHelper;
+import com.google.common.io.ByteStreams;
 
 
 @RunWith(MockitoJUnitRunner.class)
@@ -133,4 +142,102 @@ public class TestVFSProject {
         Assert.assertEquals("number of resources is", 5, resources.size());
 
     }
+
+    @Test
+    public void testBaseFolderIsCached() throws ForbiddenException, ServerException {
+        VFSProject vfsProject = new VFSProject(projectManager, "id", PROJECT_PATH);
+        vfsProject.getResources();
+        vfsProject.getResource("pom.xml");
+
+        verify(projectManager, times(1)).getProject("1q2w3e", PROJECT_PATH);
+
+        vfsProject.invalidate();
+        vfsProject.getResource("pom.xml");
+
+        verify(projectManager, times(2)).getProject("1q2w3e", PROJECT_PATH);
+
+        vfsProject.setSynchronized(true);
+        vfsProject.getResource("pom.xml");
+
+        verify(projectManager, times(3)).getProject("1q2w3e", PROJECT_PATH);
+    }
+
+    @Test
+    public void testGetResourcesReadsContentOnce() throws Exception {
+        VFSProject vfsProject = new VFSProject(projectManager, "id", PROJECT_PATH, new ForkJoinPool(2), true);
+        Set<Resource> resources = vfsProject.getResources();
+        Assert.assertEquals(5, resources.size());
+        Assert.assertEquals(5, vfsProject.getResources().size());
+
+        verify(pomXml.getVirtualFile(), times(1)).getContent();
+        verify(srcMainJavaAClassJava.getVirtualFile(), times(1)).getContent();
+
+        final byte[] pomBytes = ByteStreams.toByteArray(TestVFSProject.class.getResourceAsStream("/pom.xml.resource"));
+        for (Resource resource : resources) {
+            if (resource.path().equals("pom.xml")) {
+                Assert.assertEquals(ResourceHelper.sha1(pomBytes), resource.hash());
+            }
+        }
+    }
+
+    @Test
+    public void testGetResourcesWithoutContent() throws Exception {
+        VFSProject vfsProject = new VFSProject(projectManager, "id", PROJECT_PATH, new ForkJoinPool(2), false);
+        Assert.assertEquals(5, vfsProject.getResources().size());
+
+        verify(pomXml.getVirtualFile(), never()).getContent();
+        verify(srcMainJavaAClassJava.getVirtualFile(), never()).getContent();
+    }
+
+    @Test
+    public void testGetResourcesKeepsIndexOfUnlistedFolder() throws Exception {
+        VFSProject vfsProject = new VFSProject(projectManager, "id", PROJECT_PATH, new ForkJoinPool(2), true);
+        Assert.assertEquals(5, vfsProject.getResources().size());
+
+        when(srcMain.getChildFolders()).thenThrow(ServerException.class);
+        Assert.assertEquals(3, vfsProject.getResources().size());
+
+        doReturn(Arrays.asList(srcMainJava)).when(srcMain).getChildFolders();
+        Assert.assertEquals(5, vfsProject.getResources().size());
+
+        verify(srcMainJavaAClassJava.getVirtualFile(), times(1)).getContent();
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testGetResourcesWithUnlistedBaseFolder() throws Exception {
+        when(baseFolder.getChildFolders()).thenThrow(ForbiddenException.class);
+
+        new VFSProject(projectManager, "id", PROJECT_PATH, new ForkJoinPool(2), true).getResources();
+    }
+
+    @Test
+    public void testGetResourcesAfter() throws Exception {
+        VFSProject vfsProject = new VFSProject(projectManager, "id", PROJECT_PATH, new ForkJoinPool(2), true);
+
+        Assert.assertEquals(Arrays.asList("pom.xml", "src", "src/main", "src/main/java", "src/main/java/AClass.java"),
+                            paths(vfsProject.getResourcesAfter(null)));
+        Assert.assertEquals(Arrays.asList("src/main/java", "src/main/java/AClass.java"),
+                            paths(vfsProject.getResourcesAfter("src/main")));
+        Assert.assertTrue(paths(vfsProject.getResourcesAfter("src/main/java/AClass.java")).isEmpty());
+    }
+
+    @Test
+    public void testGetResourcesAfterSkipsListedFolders() throws Exception {
+        when(baseFolder.getChildFolders()).thenReturn(Arrays.asList(src, srcMain));
+        when(srcMain.getVirtualFile().getPath()).thenReturn("/aProject/lib");
+
+        VFSProject vfsProject = new VFSProject(projectManager, "id", PROJECT_PATH, new ForkJoinPool(2), true);
+
+        Assert.assertEquals(Arrays.asList("src"), paths(vfsProject.getResourcesAfter("pom.xml")));
+        verify(srcMain, never()).getChildFolders();
+        verify(pomXml.getVirtualFile(), never()).getContent();
+    }
+
+    private static List<String> paths(Iterator<Resource> resources) {
+        final List<String> paths = new ArrayList<>();
+        while (resources.hasNext()) {
+            paths.add(resources.next().path());
+        }
+        return paths;
+    }
 }
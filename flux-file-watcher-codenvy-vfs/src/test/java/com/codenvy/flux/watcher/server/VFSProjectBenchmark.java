@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.server;
+
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.codenvy.api.core.ForbiddenException;
+import com.codenvy.api.core.ServerException;
+import com.codenvy.api.project.server.Project;
+import com.codenvy.flux.watcher.core.Resource;
+
+/**
+ * {@link VFSProject} benchmark comparing the resource lookups with the cached base folder and with the base folder resolved
+ * for every lookup, on the virtual file system of {@link TestVFSProject}. The cost of the Codenvy project resolution is
+ * simulated with a number of CPU tokens.
+ * <p/>
+ * Run it with the {@link #main(String[])} method from the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VFSProjectBenchmark {
+    @Param({"0", "1000", "10000"})
+    public long projectLookupTokens;
+
+    private VFSProject vfsProject;
+
+    @Setup
+    public void setUp() throws ForbiddenException, ServerException {
+        final TestVFSProject fixture = new TestVFSProject();
+        MockitoAnnotations.initMocks(fixture);
+        fixture.initMocks();
+
+        final Project codenvyProject = fixture.codenvyProject;
+        when(fixture.projectManager.getProject("1q2w3e", TestVFSProject.PROJECT_PATH)).thenAnswer(new Answer<Project>() {
+            @Override
+            public Project answer(InvocationOnMock invocation) {
+                Blackhole.consumeCPU(projectLookupTokens);
+                return codenvyProject;
+            }
+        });
+
+        vfsProject = new VFSProject(fixture.projectManager, "id", TestVFSProject.PROJECT_PATH);
+    }
+
+    @Benchmark
+    public Resource getResourceCached() {
+        return vfsProject.getResource("src/main/java/AClass.java");
+    }
+
+    @Benchmark
+    public Resource getResourceUncached() {
+        vfsProject.invalidate();
+        return vfsProject.getResource("src/main/java/AClass.java");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(VFSProjectBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core;
+
+/**
+ * Policy applied when the outbound {@link com.codenvy.flux.watcher.core.FluxMessage} queue of a {@link
+ * com.codenvy.flux.watcher.core.FluxConnection} is full.
+ *
+ * @author Kevin Pollet
+ */
+public enum BackPressurePolicy {
+    /**
+     * The sending thread waits until there is room in the queue.
+     */
+    BLOCK,
+    /**
+     * The oldest queued message is dropped to make room for the new one.
+     */
+    DROP_OLDEST,
+    /**
+     * A resource notification ({@code resourceChanged}, {@code resourceCreated}, {@code resourceDeleted} or {@code
+     * resourceStored}) replaces in place the queued notification of the same type for the same resource, if no other message
+     * for this resource has been queued after it except the {@code resourceStored} notification following it. The other
+     * messages are never coalesced. The sending thread waits if the message cannot be coalesced and the queue is full.
+     */
+    COALESCE
+}
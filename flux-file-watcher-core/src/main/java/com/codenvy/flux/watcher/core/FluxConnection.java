@@ -15,32 +15,130 @@ import io.socket.IOCallback;
 import io.socket.SocketIO;
 import io.socket.SocketIOException;
 
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.net.URL;
+import java.util.List;
+import java.util.zip.Deflater;
 
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.ACCEPT_CHUNKS;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.ACCEPT_ENCODING;
 import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CALLBACK_ID;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CAPABILITIES;
 import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CHANNEL;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CHANNEL_CAPABILITIES;
 import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CONNECTED_TO_CHANNEL;
 import static com.codenvy.flux.watcher.core.FluxMessage.Fields.USERNAME;
+import static com.codenvy.flux.watcher.core.FluxMessageCompressor.DEFLATE_ENCODING;
+import static com.codenvy.flux.watcher.core.FluxMessageType.COMPRESSED_MESSAGE;
 import static com.codenvy.flux.watcher.core.FluxMessageType.CONNECT_TO_CHANNEL;
 import static com.codenvy.flux.watcher.core.FluxMessageType.GET_PROJECT_REQUEST;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_PROJECT_SUMMARY_REQUEST;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_RESOURCE_CHUNK_REQUEST;
 import static com.codenvy.flux.watcher.core.FluxMessageType.GET_RESOURCE_REQUEST;
+import static com.codenvy.flux.watcher.core.FluxMessageType.RESOURCES_BATCH;
+import static com.codenvy.flux.watcher.core.utils.ContentEncoding.BASE64;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * Represents a connection to a Flux remote.
+ * <p/>
+ * The messages sent on a connection are queued and emitted by a dedicated writer thread, so that a slow remote doesn't stall
+ * the thread producing the messages. The queue capacity and the {@link com.codenvy.flux.watcher.core.BackPressurePolicy}
+ * applied when it is full are configured with the {@value #QUEUE_CAPACITY_PROPERTY} and {@value #BACK_PRESSURE_POLICY_PROPERTY}
+ * system properties.
+ * <p/>
+ * When the {@value #BATCH_CAPABILITY} capability offered while connecting to the channel is supported by the whole channel,
+ * consecutive resource notifications are packed into {@link com.codenvy.flux.watcher.core.FluxMessageType#RESOURCES_BATCH}
+ * messages, which are limited by the {@value #BATCH_MAX_MESSAGES_PROPERTY}, {@value #BATCH_MAX_BYTES_PROPERTY} and {@value
+ * #BATCH_LINGER_PROPERTY} system properties.
+ * <p/>
+ * In the same way, when the {@value #COMPRESSION_CAPABILITY} capability is supported by the whole channel, the messages larger
+ * than the {@value #COMPRESSION_THRESHOLD_PROPERTY} system property are deflated into {@link
+ * com.codenvy.flux.watcher.core.FluxMessageType#COMPRESSED_MESSAGE} messages with the level configured with the {@value
+ * #COMPRESSION_LEVEL_PROPERTY} system property. The compression ratio and CPU time are exposed to tune them.
+ * <p/>
+ * The messages are relayed by the server to every client of the channel, a capability acknowledged by the server for this
+ * connection only is thus not enough: a client which never negotiated it would lose the batched or compressed messages. A
+ * capability is used only if it is also listed in the {@code channelCapabilities} of the acknowledgement, the capabilities
+ * shared by all the clients of the channel, and while the {@link
+ * com.codenvy.flux.watcher.core.FluxMessageType#CHANNEL_CAPABILITIES} messages, sent by the server when a client joins or
+ * leaves the channel, keep listing it. Otherwise one plain message per resource is sent.
  *
  * @author Kevin Pollet
  */
 public class FluxConnection {
+    /**
+     * The system property used to configure the outbound queue capacity, {@value #DEFAULT_QUEUE_CAPACITY} by default.
+     */
+    public static final String QUEUE_CAPACITY_PROPERTY       = "flux.watcher.connection.queue.capacity";
+    /**
+     * The system property used to configure the {@link com.codenvy.flux.watcher.core.BackPressurePolicy}, {@link
+     * com.codenvy.flux.watcher.core.BackPressurePolicy#BLOCK} by default.
+     */
+    public static final String BACK_PRESSURE_POLICY_PROPERTY = "flux.watcher.connection.queue.policy";
+    public static final int    DEFAULT_QUEUE_CAPACITY        = 1024;
+    /**
+     * The system property used to disable the batching capability offer, {@code true} by default.
+     */
+    public static final String BATCH_ENABLED_PROPERTY        = "flux.watcher.connection.batch.enabled";
+    /**
+     * The system property used to configure the maximum number of messages in a batch, {@value #DEFAULT_BATCH_MAX_MESSAGES} by
+     * default.
+     */
+    public static final String BATCH_MAX_MESSAGES_PROPERTY   = "flux.watcher.connection.batch.max.messages";
+    /**
+     * The system property used to configure the maximum serialized size of a batch, {@value #DEFAULT_BATCH_MAX_BYTES} by
+     * default.
+     */
+    public static final String BATCH_MAX_BYTES_PROPERTY      = "flux.watcher.connection.batch.max.bytes";
+    /**
+     * The system property used to configure the time in milliseconds to wait for the next message of a batch, {@value
+     * #DEFAULT_BATCH_LINGER} by default.
+     */
+    public static final String BATCH_LINGER_PROPERTY         = "flux.watcher.connection.batch.linger";
+    public static final int    DEFAULT_BATCH_MAX_MESSAGES    = 256;
+    public static final int    DEFAULT_BATCH_MAX_BYTES       = 256 * 1024;
+    public static final long   DEFAULT_BATCH_LINGER          = 20;
+    public static final String BATCH_CAPABILITY              = "batch";
+    /**
+     * The system property used to disable the compression capability offer, {@code true} by default.
+     */
+    public static final String COMPRESSION_ENABLED_PROPERTY   = "flux.watcher.connection.compression.enabled";
+    /**
+     * The system property used to configure the minimum serialized size of a compressed message, {@value
+     * #DEFAULT_COMPRESSION_THRESHOLD} by default.
+     */
+    public static final String COMPRESSION_THRESHOLD_PROPERTY = "flux.watcher.connection.compression.threshold";
+    /**
+     * The system property used to configure the deflate compression level from 0 to 9, the deflate default level by default.
+     */
+    public static final String COMPRESSION_LEVEL_PROPERTY     = "flux.watcher.connection.compression.level";
+    public static final int    DEFAULT_COMPRESSION_THRESHOLD  = 1024;
+    public static final String COMPRESSION_CAPABILITY         = DEFLATE_ENCODING;
+
+    private static final Logger LOG                        = LoggerFactory.getLogger(FluxConnection.class);
     private static final String FLUX_USER_NAME_HEADER_KEY  = "X-flux-user-name";
     private static final String FLUX_USER_TOKEN_HEADER_KEY = "X-flux-user-token";
 
-    private final SocketIO       socket;
-    private final FluxMessageBus messageBus;
-    private final Credentials    credentials;
+    private final SocketIO              socket;
+    private final FluxMessageBus        messageBus;
+    private final Credentials           credentials;
+    private final FluxMessageQueue      outboundQueue;
+    private final FluxMessageBatcher    batcher;
+    private final FluxMessageCompressor compressor;
+    private final boolean               batchOffered;
+    private final boolean               compressionOffered;
+    private final Thread                writer;
+    private volatile boolean            batchAcknowledged;
+    private volatile boolean            compressionAcknowledged;
+    private volatile boolean            batching;
+    private volatile boolean            compressing;
 
     /**
      * Constructs an instance of {@code FluxConnection}.
@@ -63,6 +161,27 @@ public class FluxConnection {
             this.socket.addHeader(FLUX_USER_NAME_HEADER_KEY, credentials.username());
             this.socket.addHeader(FLUX_USER_TOKEN_HEADER_KEY, credentials.token());
         }
+
+        final int queueCapacity = Integer.getInteger(QUEUE_CAPACITY_PROPERTY, DEFAULT_QUEUE_CAPACITY);
+        final BackPressurePolicy policy =
+                BackPressurePolicy.valueOf(System.getProperty(BACK_PRESSURE_POLICY_PROPERTY, BackPressurePolicy.BLOCK.name()).toUpperCase());
+
+        this.outboundQueue = new FluxMessageQueue(queueCapacity, policy);
+        this.batcher = new FluxMessageBatcher(outboundQueue,
+                                              Integer.getInteger(BATCH_MAX_MESSAGES_PROPERTY, DEFAULT_BATCH_MAX_MESSAGES),
+                                              Integer.getInteger(BATCH_MAX_BYTES_PROPERTY, DEFAULT_BATCH_MAX_BYTES),
+                                              Long.getLong(BATCH_LINGER_PROPERTY, DEFAULT_BATCH_LINGER));
+        this.batchOffered = Boolean.parseBoolean(System.getProperty(BATCH_ENABLED_PROPERTY, "true"));
+        this.compressor = new FluxMessageCompressor(Integer.getInteger(COMPRESSION_THRESHOLD_PROPERTY, DEFAULT_COMPRESSION_THRESHOLD),
+                                                    Integer.getInteger(COMPRESSION_LEVEL_PROPERTY, Deflater.DEFAULT_COMPRESSION));
+        this.compressionOffered = Boolean.parseBoolean(System.getProperty(COMPRESSION_ENABLED_PROPERTY, "true"));
+        this.writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeMessages();
+            }
+        }, "flux-connection-writer-" + serverURL);
+        this.writer.setDaemon(true);
     }
 
     /**
@@ -71,11 +190,18 @@ public class FluxConnection {
      * @return the opened {@link com.codenvy.flux.watcher.core.FluxConnection} instance.
      */
     FluxConnection open() {
+        if (writer.getState() == Thread.State.NEW) {
+            writer.start();
+        }
+
         if (!socket.isConnected()) {
             socket.connect(new IOCallback() {
                 @Override
                 public void onDisconnect() {
-
+                    batchAcknowledged = false;
+                    compressionAcknowledged = false;
+                    batching = false;
+                    compressing = false;
                 }
 
                 @Override
@@ -83,6 +209,17 @@ public class FluxConnection {
                     try {
 
                         final JSONObject content = new JSONObject().put(CHANNEL.value(), credentials.username());
+                        final JSONArray capabilities = new JSONArray();
+                        if (batchOffered) {
+                            capabilities.put(BATCH_CAPABILITY);
+                        }
+                        if (compressionOffered) {
+                            capabilities.put(COMPRESSION_CAPABILITY);
+                        }
+                        if (capabilities.length() > 0) {
+                            content.put(CAPABILITIES.value(), capabilities);
+                        }
+
                         socket.emit(CONNECT_TO_CHANNEL.value(), new IOAcknowledge() {
                             @Override
                             public void ack(Object... objects) {
@@ -91,6 +228,7 @@ public class FluxConnection {
                                     try {
 
                                         if (ack.has(CONNECTED_TO_CHANNEL.value()) && ack.getBoolean(CONNECTED_TO_CHANNEL.value())) {
+                                            channelConnected(ack);
                                             return;
                                         }
 
@@ -122,8 +260,19 @@ public class FluxConnection {
                 public void on(String name, IOAcknowledge ioAcknowledge, Object... objects) {
                     final FluxMessageType messageType = FluxMessageType.fromType(name);
                     if (messageType != null && objects.length > 0 && objects[0] instanceof JSONObject) {
-                        final FluxMessage message = new FluxMessage(FluxConnection.this, messageType, (JSONObject)objects[0]);
-                        messageBus.messageReceived(message);
+                        try {
+
+                            if (messageType == FluxMessageType.CHANNEL_CAPABILITIES) {
+                                channelCapabilitiesChanged((JSONObject)objects[0]);
+                                return;
+                            }
+
+                            final FluxMessage message = new FluxMessage(FluxConnection.this, messageType, (JSONObject)objects[0]);
+                            messageReceived(messageType == COMPRESSED_MESSAGE ? compressor.decompress(message) : message);
+
+                        } catch (JSONException e) {
+                            throw new RuntimeException(e);
+                        }
                     }
                 }
 
@@ -140,13 +289,18 @@ public class FluxConnection {
      * Close the connection.
      */
     void close() {
+        writer.interrupt();
+        outboundQueue.clear();
+        compressor.close();
+
         if (socket.isConnected()) {
             socket.disconnect();
         }
     }
 
     /**
-     * Sends a {@link FluxMessage} on this connection
+     * Sends a {@link FluxMessage} on this connection. The message is queued and emitted asynchronously, the caller may block
+     * or the message may be dropped or coalesced according to the configured {@link com.codenvy.flux.watcher.core.BackPressurePolicy}.
      *
      * @param message
      *         the {@link FluxMessage} instance to send.
@@ -156,23 +310,216 @@ public class FluxConnection {
     public void sendMessage(FluxMessage message) {
         checkNotNull(message);
 
-        final JSONObject content = message.content();
-
         try {
+
+            // the same message can be sent on several connections, each one completes its own copy
+            final JSONObject content = copyOf(message.headers());
             if (!content.has(USERNAME.value())) {
                 content.put(USERNAME.value(), credentials.username());
             }
 
             if (!content.has(CALLBACK_ID.value())) {
-                if (message.type() == GET_RESOURCE_REQUEST || message.type() == GET_PROJECT_REQUEST) {
+                if (message.type() == GET_RESOURCE_REQUEST || message.type() == GET_RESOURCE_CHUNK_REQUEST
+                    || message.type() == GET_PROJECT_REQUEST || message.type() == GET_PROJECT_SUMMARY_REQUEST) {
                     content.put(CALLBACK_ID.value(), messageBus.id());
                 }
             }
 
+            // the remotes which don't understand the binary safe encoding and the chunked transfer ignore these fields and answer
+            // with the whole text content
+            if (message.type() == GET_RESOURCE_REQUEST) {
+                if (!content.has(ACCEPT_ENCODING.value())) {
+                    content.put(ACCEPT_ENCODING.value(), BASE64.value());
+                }
+                if (!content.has(ACCEPT_CHUNKS.value())) {
+                    content.put(ACCEPT_CHUNKS.value(), true);
+                }
+            }
+
+            outboundQueue.put(message.withHeaders(this, content));
+
         } catch (JSONException e) {
             throw new RuntimeException(e);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
         }
+    }
+
+    /**
+     * Returns the number of messages waiting to be emitted on this connection.
+     *
+     * @return the outbound queue depth.
+     */
+    public int queueDepth() {
+        return outboundQueue.size();
+    }
+
+    /**
+     * Returns the number of messages dropped because the outbound queue was full.
+     *
+     * @return the dropped messages count.
+     */
+    public long droppedMessageCount() {
+        return outboundQueue.droppedMessageCount();
+    }
+
+    /**
+     * Returns the number of messages coalesced with a message already queued for the same resource.
+     *
+     * @return the coalesced messages count.
+     */
+    public long coalescedMessageCount() {
+        return outboundQueue.coalescedMessageCount();
+    }
+
+    /**
+     * Returns if the resource notifications are batched on this connection.
+     *
+     * @return {@code true} if the {@value #BATCH_CAPABILITY} capability is supported by the whole channel, {@code false}
+     * otherwise.
+     */
+    public boolean isBatching() {
+        return batching;
+    }
+
+    /**
+     * Returns if the large messages are compressed on this connection.
+     *
+     * @return {@code true} if the {@value #COMPRESSION_CAPABILITY} capability is supported by the whole channel, {@code false}
+     * otherwise.
+     */
+    public boolean isCompressing() {
+        return compressing;
+    }
+
+    /**
+     * Returns the number of messages compressed on this connection.
+     *
+     * @return the compressed messages count.
+     */
+    public long compressedMessageCount() {
+        return compressor.compressedMessageCount();
+    }
+
+    /**
+     * Returns the ratio between the size of the messages compressed on this connection before and after their compression.
+     *
+     * @return the compression ratio, {@code 1} if no message has been compressed.
+     */
+    public double compressionRatio() {
+        return compressor.compressionRatio();
+    }
+
+    /**
+     * Returns the CPU time spent to compress the messages sent on this connection.
+     *
+     * @return the CPU time in nanoseconds.
+     */
+    public long compressionCpuTime() {
+        return compressor.compressionCpuTime();
+    }
+
+    /**
+     * Returns the number of compressed messages received on this connection.
+     *
+     * @return the decompressed messages count.
+     */
+    public long decompressedMessageCount() {
+        return compressor.decompressedMessageCount();
+    }
+
+    /**
+     * Returns the CPU time spent to decompress the messages received on this connection.
+     *
+     * @return the CPU time in nanoseconds.
+     */
+    public long decompressionCpuTime() {
+        return compressor.decompressionCpuTime();
+    }
+
+    /**
+     * Enables the capabilities acknowledged by the server for this connection and supported by the whole channel.
+     *
+     * @param ack
+     *         the {@link com.codenvy.flux.watcher.core.FluxMessageType#CONNECT_TO_CHANNEL} acknowledgement.
+     * @throws org.json.JSONException
+     *         if the capabilities cannot be read.
+     */
+    void channelConnected(JSONObject ack) throws JSONException {
+        batchAcknowledged = batchOffered && hasCapability(ack, CAPABILITIES, BATCH_CAPABILITY);
+        compressionAcknowledged = compressionOffered && hasCapability(ack, CAPABILITIES, COMPRESSION_CAPABILITY);
+        channelCapabilitiesChanged(ack);
+    }
+
+    /**
+     * Updates the acknowledged capabilities used on this connection with the capabilities supported by the whole channel, for
+     * example when a client which doesn't support them joins it.
+     *
+     * @param content
+     *         the {@link com.codenvy.flux.watcher.core.FluxMessageType#CHANNEL_CAPABILITIES} message content.
+     * @throws org.json.JSONException
+     *         if the capabilities cannot be read.
+     */
+    void channelCapabilitiesChanged(JSONObject content) throws JSONException {
+        batching = batchAcknowledged && hasCapability(content, CHANNEL_CAPABILITIES, BATCH_CAPABILITY);
+        compressing = compressionAcknowledged && hasCapability(content, CHANNEL_CAPABILITIES, COMPRESSION_CAPABILITY);
+    }
+
+    /**
+     * Dispatches a received message to the {@link com.codenvy.flux.watcher.core.FluxMessageBus}, unpacking it if it is a batch.
+     */
+    private void messageReceived(FluxMessage message) throws JSONException {
+        if (message.type() != RESOURCES_BATCH) {
+            messageBus.messageReceived(message);
+            return;
+        }
+
+        for (FluxMessage oneMessage : FluxMessageBatcher.unpack(message)) {
+            messageBus.messageReceived(oneMessage);
+        }
+    }
+
+    /**
+     * Emits the queued messages until the writer thread is interrupted.
+     */
+    private void writeMessages() {
+        try {
+
+            while (!Thread.currentThread().isInterrupted()) {
+                final List<FluxMessage> messages = batcher.next(1, SECONDS, batching);
+                for (FluxMessage oneMessage : messages) {
+                    final FluxMessage message = compressing ? compressor.compress(oneMessage) : oneMessage;
+                    try {
+
+                        socket.emit(message.type().value(), message.payload());
+
+                    } catch (RuntimeException e) {
+                        LOG.error("Unable to emit message " + message.type().value(), e);
+                    }
+                }
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean hasCapability(JSONObject content, FluxMessage.Fields field, String capability) throws JSONException {
+        final JSONArray capabilities = content.optJSONArray(field.value());
+        if (capabilities != null) {
+            for (int i = 0; i < capabilities.length(); i++) {
+                if (capability.equals(capabilities.getString(i))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
 
-        socket.emit(message.type().value(), message.content());
+    private static JSONObject copyOf(JSONObject content) throws JSONException {
+        final String[] names = JSONObject.getNames(content);
+        return names == null ? new JSONObject() : new JSONObject(content, names);
     }
 }
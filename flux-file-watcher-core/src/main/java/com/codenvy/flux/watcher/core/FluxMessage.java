@@ -10,19 +10,35 @@
  *******************************************************************************/
 package com.codenvy.flux.watcher.core;
 
+import com.codenvy.flux.watcher.core.codec.FluxMessageCodec;
+import com.codenvy.flux.watcher.core.codec.JsonReader;
+import com.codenvy.flux.watcher.core.codec.JsonWriter;
+
+import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONString;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Class representing a Flux message.
+ * <p/>
+ * The content of a message is either a {@link org.json.JSONObject} or a typed record with its {@link
+ * com.codenvy.flux.watcher.core.codec.FluxMessageCodec}. A record is streamed when the message is serialized by the socket.io
+ * transport, after the header fields used to route the message. Its {@link org.json.JSONObject} content is only built if it is
+ * requested.
  *
  * @author Kevin Pollet
  */
 public class FluxMessage {
-    private final FluxConnection  source;
-    private final FluxMessageType type;
-    private final JSONObject      content;
+    private final FluxConnection           source;
+    private final FluxMessageType          type;
+    private final JSONObject               headers;
+    private final Object                   record;
+    private final FluxMessageCodec<Object> codec;
+    private volatile JSONObject            content;
+    private volatile String                encodedContent;
 
     /**
      * Constructs an instance of {@link FluxMessage}.
@@ -53,7 +69,49 @@ public class FluxMessage {
     public FluxMessage(FluxConnection source, FluxMessageType type, JSONObject content) {
         this.source = source;
         this.type = checkNotNull(type);
-        this.content = checkNotNull(content);
+        this.headers = checkNotNull(content);
+        this.content = content;
+        this.record = null;
+        this.codec = null;
+    }
+
+    /**
+     * Constructs an instance of {@link FluxMessage} with a typed record content.
+     *
+     * @param headers
+     *         the {@link org.json.JSONObject} of the fields written before the record fields, like the callback id.
+     * @param record
+     *         the message record.
+     * @param codec
+     *         the record {@link com.codenvy.flux.watcher.core.codec.FluxMessageCodec}, its type is the message type.
+     * @throws java.lang.NullPointerException
+     *         if {@code headers}, {@code record} or {@code codec} parameter is {@code null}.
+     */
+    public <T> FluxMessage(JSONObject headers, T record, FluxMessageCodec<T> codec) {
+        this(null, headers, record, codec);
+    }
+
+    /**
+     * Constructs an instance of {@link FluxMessage} with a typed record content.
+     *
+     * @param source
+     *         the {@code FluxConnection} where the {@link FluxMessage} comes from.
+     * @param headers
+     *         the {@link org.json.JSONObject} of the fields written before the record fields, like the callback id.
+     * @param record
+     *         the message record.
+     * @param codec
+     *         the record {@link com.codenvy.flux.watcher.core.codec.FluxMessageCodec}, its type is the message type.
+     * @throws java.lang.NullPointerException
+     *         if {@code headers}, {@code record} or {@code codec} parameter is {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> FluxMessage(FluxConnection source, JSONObject headers, T record, FluxMessageCodec<T> codec) {
+        this.source = source;
+        this.type = checkNotNull(codec).type();
+        this.headers = checkNotNull(headers);
+        this.record = checkNotNull(record);
+        this.codec = (FluxMessageCodec<Object>)codec;
     }
 
     /**
@@ -75,12 +133,111 @@ public class FluxMessage {
     }
 
     /**
-     * Returns the {@link FluxMessage} content.
+     * Returns the {@link FluxMessage} content. The content of a message with a typed record is built from the encoded record
+     * the first time it is requested, the record is still the one sent.
      *
      * @return the {@link FluxMessage} content, never {@code null}.
      */
     public JSONObject content() {
-        return content;
+        JSONObject result = content;
+        if (result == null) {
+            synchronized (this) {
+                result = content;
+                if (result == null) {
+                    try {
+
+                        content = result = new JSONObject(encode());
+
+                    } catch (JSONException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the typed record of this {@link FluxMessage}, decoded from its content if the message has been built from a
+     * {@link org.json.JSONObject}.
+     *
+     * @param codec
+     *         the record {@link com.codenvy.flux.watcher.core.codec.FluxMessageCodec}.
+     * @return the record, never {@code null}.
+     * @throws java.lang.NullPointerException
+     *         if {@code codec} parameter is {@code null}.
+     * @throws java.lang.IllegalArgumentException
+     *         if the codec type is not the message type.
+     * @throws org.json.JSONException
+     *         if the content cannot be decoded.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T record(FluxMessageCodec<T> codec) throws JSONException {
+        checkArgument(checkNotNull(codec).type() == type);
+
+        if (this.codec == codec) {
+            return (T)record;
+        }
+        return codec.decode(JsonReader.of(content()));
+    }
+
+    /**
+     * Returns the fields readable without building the content: the whole content of a {@link org.json.JSONObject} message or
+     * the header fields of a typed record message.
+     */
+    JSONObject headers() {
+        return headers;
+    }
+
+    /**
+     * Returns a copy of this {@link FluxMessage} with the given source and header fields, the whole content of a {@link
+     * org.json.JSONObject} message.
+     */
+    FluxMessage withHeaders(FluxConnection source, JSONObject headers) {
+        return codec == null ? new FluxMessage(source, type, headers) : new FluxMessage(source, headers, record, codec);
+    }
+
+    /**
+     * Returns the object serialized by the socket.io transport, the {@link org.json.JSONObject} content or a {@link
+     * org.json.JSONString} streaming the headers and the record.
+     */
+    Object payload() {
+        if (codec == null) {
+            return content;
+        }
+
+        return new JSONString() {
+            @Override
+            public String toJSONString() {
+                return encode();
+            }
+
+            @Override
+            public String toString() {
+                return encode();
+            }
+        };
+    }
+
+    private String encode() {
+        String result = encodedContent;
+        if (result == null) {
+            final StringBuilder builder = new StringBuilder(256);
+            final JsonWriter writer = new JsonWriter(builder).beginObject();
+            for (String oneName : headerNames()) {
+                writer.name(oneName).value(headers.opt(oneName));
+            }
+            codec.encode(record, writer);
+            writer.endObject();
+
+            encodedContent = result = builder.toString();
+        }
+        return result;
+    }
+
+    private String[] headerNames() {
+        final String[] names = JSONObject.getNames(headers);
+        return names == null ? new String[0] : names;
     }
 
     /**
@@ -89,18 +246,34 @@ public class FluxMessage {
      * @author Kevin Pollet
      */
     public enum Fields {
+        ACCEPT_CHUNKS("acceptChunks"),
+        ACCEPT_ENCODING("acceptEncoding"),
+        BLOCK_SIZE("blockSize"),
         CALLBACK_ID("callback_id"),
+        CAPABILITIES("capabilities"),
         CHANNEL("channel"),
+        CHANNEL_CAPABILITIES("channelCapabilities"),
+        CHUNK_HASH("chunkHash"),
+        CHUNKED("chunked"),
         CONNECTED_TO_CHANNEL("connectedToChannel"),
         CONTENT("content"),
+        CONTENT_LENGTH("contentLength"),
+        CONTINUATION("continuation"),
         DELETED("deleted"),
+        DELTA("delta"),
+        ENCODING("encoding"),
         FILES("files"),
         HASH("hash"),
         INCLUDE_DELETED("includeDeleted"),
+        LENGTH("length"),
+        MESSAGES("messages"),
+        OFFSET("offset"),
+        PAGE_SIZE("pageSize"),
         PATH("path"),
         PROJECT("project"),
         REQUEST_SENDER_ID("requestSenderID"),
         RESOURCE("resource"),
+        SIGNATURES("signatures"),
         TIMESTAMP("timestamp"),
         TYPE("type"),
         USERNAME("username");
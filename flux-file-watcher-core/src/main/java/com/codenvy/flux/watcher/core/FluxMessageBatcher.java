@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CONTENT;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.MESSAGES;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.TYPE;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.USERNAME;
+import static com.codenvy.flux.watcher.core.FluxMessageType.RESOURCES_BATCH;
+import static com.codenvy.flux.watcher.core.FluxMessageType.RESOURCE_CHANGED;
+import static com.codenvy.flux.watcher.core.FluxMessageType.RESOURCE_CREATED;
+import static com.codenvy.flux.watcher.core.FluxMessageType.RESOURCE_DELETED;
+import static com.codenvy.flux.watcher.core.FluxMessageType.RESOURCE_STORED;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Takes the messages of a {@link com.codenvy.flux.watcher.core.FluxMessageQueue} and packs consecutive resource notifications
+ * into {@link com.codenvy.flux.watcher.core.FluxMessageType#RESOURCES_BATCH} messages. A batch is closed when it reaches the
+ * maximum number of messages, the maximum serialized size or when no other resource notification is queued before the linger
+ * time elapses. The other messages are never batched and keep their order relative to the batches.
+ * <p/>
+ * This class is not thread safe, it is meant to be used by the connection writer thread only.
+ *
+ * @author Kevin Pollet
+ */
+final class FluxMessageBatcher {
+    private static final Set<FluxMessageType> BATCHABLE_TYPES = EnumSet.of(RESOURCE_CHANGED, RESOURCE_CREATED, RESOURCE_DELETED, RESOURCE_STORED);
+
+    private final FluxMessageQueue queue;
+    private final int              maxMessages;
+    private final int              maxBytes;
+    private final long             lingerMillis;
+    private FluxMessage            carriedMessage;
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.core.FluxMessageBatcher}.
+     *
+     * @param queue
+     *         the {@link com.codenvy.flux.watcher.core.FluxMessageQueue} to take the messages from.
+     * @param maxMessages
+     *         the maximum number of messages in a batch.
+     * @param maxBytes
+     *         the maximum serialized size of the messages in a batch.
+     * @param lingerMillis
+     *         the maximum time in milliseconds to wait for the next message of a batch.
+     * @throws java.lang.NullPointerException
+     *         if {@code queue} parameter is {@code null}.
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code maxMessages} or {@code maxBytes} is not positive or if {@code lingerMillis} is negative.
+     */
+    FluxMessageBatcher(FluxMessageQueue queue, int maxMessages, int maxBytes, long lingerMillis) {
+        checkArgument(maxMessages > 0 && maxBytes > 0 && lingerMillis >= 0);
+
+        this.queue = checkNotNull(queue);
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+        this.lingerMillis = lingerMillis;
+    }
+
+    /**
+     * Returns the next messages to emit, waiting up to the given time for a first message.
+     *
+     * @param timeout
+     *         the maximum time to wait for a first message.
+     * @param unit
+     *         the {@link java.util.concurrent.TimeUnit} of the {@code timeout} parameter.
+     * @param batching
+     *         {@code true} if the resource notifications can be batched, {@code false} otherwise.
+     * @return the {@link java.util.List} of {@link com.codenvy.flux.watcher.core.FluxMessage} to emit in order, empty if no
+     * message has been queued in time.
+     * @throws java.lang.InterruptedException
+     *         if the thread is interrupted while waiting.
+     */
+    List<FluxMessage> next(long timeout, TimeUnit unit, boolean batching) throws InterruptedException {
+        final FluxMessage first = carriedMessage != null ? carriedMessage : queue.poll(timeout, unit);
+        carriedMessage = null;
+
+        if (first == null) {
+            return Collections.emptyList();
+        }
+        if (!batching || !isBatchable(first)) {
+            return Collections.singletonList(first);
+        }
+
+        final List<FluxMessage> batch = new ArrayList<>();
+        batch.add(first);
+        int batchBytes = sizeOf(first);
+
+        final long deadline = System.nanoTime() + MILLISECONDS.toNanos(lingerMillis);
+        while (batch.size() < maxMessages) {
+            final FluxMessage message = queue.poll(deadline - System.nanoTime(), NANOSECONDS);
+            if (message == null) {
+                break;
+            }
+            if (!isBatchable(message)) {
+                return asList(toBatchMessage(batch), message);
+            }
+
+            final int messageBytes = sizeOf(message);
+            if (batchBytes + messageBytes > maxBytes) {
+                carriedMessage = message;
+                break;
+            }
+
+            batch.add(message);
+            batchBytes += messageBytes;
+        }
+        return Collections.singletonList(toBatchMessage(batch));
+    }
+
+    /**
+     * Unpacks the messages of a {@link com.codenvy.flux.watcher.core.FluxMessageType#RESOURCES_BATCH} message.
+     *
+     * @param batchMessage
+     *         the batch {@link com.codenvy.flux.watcher.core.FluxMessage}.
+     * @return the {@link java.util.List} of unpacked {@link com.codenvy.flux.watcher.core.FluxMessage}, never {@code null}.
+     * @throws java.lang.NullPointerException
+     *         if {@code batchMessage} parameter is {@code null}.
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code batchMessage} is not a {@link com.codenvy.flux.watcher.core.FluxMessageType#RESOURCES_BATCH} message.
+     * @throws org.json.JSONException
+     *         if the batch content is malformed.
+     */
+    static List<FluxMessage> unpack(FluxMessage batchMessage) throws JSONException {
+        checkNotNull(batchMessage);
+        checkArgument(batchMessage.type() == RESOURCES_BATCH);
+
+        final JSONArray messages = batchMessage.content().getJSONArray(MESSAGES.value());
+        final List<FluxMessage> unpackedMessages = new ArrayList<>(messages.length());
+        for (int i = 0; i < messages.length(); i++) {
+            final JSONObject oneMessage = messages.getJSONObject(i);
+            final FluxMessageType type = FluxMessageType.fromType(oneMessage.getString(TYPE.value()));
+
+            unpackedMessages.add(new FluxMessage(batchMessage.source(), type, oneMessage.getJSONObject(CONTENT.value())));
+        }
+        return unpackedMessages;
+    }
+
+    private static boolean isBatchable(FluxMessage message) {
+        return BATCHABLE_TYPES.contains(message.type());
+    }
+
+    private static int sizeOf(FluxMessage message) {
+        return message.content().toString().length();
+    }
+
+    private static List<FluxMessage> asList(FluxMessage first, FluxMessage second) {
+        final List<FluxMessage> messages = new ArrayList<>(2);
+        messages.add(first);
+        messages.add(second);
+        return messages;
+    }
+
+    private static FluxMessage toBatchMessage(List<FluxMessage> batch) {
+        final FluxMessage first = batch.get(0);
+        if (batch.size() == 1) {
+            return first;
+        }
+
+        try {
+
+            final JSONArray messages = new JSONArray();
+            for (FluxMessage oneMessage : batch) {
+                messages.put(new JSONObject()
+                                     .put(TYPE.value(), oneMessage.type().value())
+                                     .put(CONTENT.value(), oneMessage.content()));
+            }
+
+            final JSONObject content = new JSONObject().put(MESSAGES.value(), messages);
+            if (first.content().has(USERNAME.value())) {
+                content.put(USERNAME.value(), first.content().get(USERNAME.value()));
+            }
+            return new FluxMessage(first.source(), RESOURCES_BATCH, content);
+
+        } catch (JSONException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -12,13 +12,18 @@ package com.codenvy.flux.watcher.core;
 
 import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CALLBACK_ID;
 import static com.codenvy.flux.watcher.core.FluxMessageType.GET_PROJECT_RESPONSE;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_PROJECT_SUMMARY_RESPONSE;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_RESOURCE_CHUNK_RESPONSE;
 import static com.codenvy.flux.watcher.core.FluxMessageType.GET_RESOURCE_RESPONSE;
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.base.Predicates.notNull;
-import static java.util.Collections.emptySet;
 
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -31,12 +36,6 @@ import javax.inject.Singleton;
 
 import org.json.JSONObject;
 
-import com.google.common.base.Function;
-import com.google.common.base.Predicate;
-import com.google.common.base.Predicates;
-import com.google.common.collect.FluentIterable;
-import com.google.common.collect.ImmutableSet;
-
 /**
  * Message bus connected to Flux instance.
  *
@@ -44,11 +43,18 @@ import com.google.common.collect.ImmutableSet;
  */
 @Singleton
 public class FluxMessageBus {
+    // the responses broadcast by the Flux server, only the ones answering the requests of this bus are processed
+    private static final Set<FluxMessageType> RESPONSE_TYPES = EnumSet.of(GET_RESOURCE_RESPONSE, GET_PROJECT_RESPONSE,
+                                                                          GET_RESOURCE_CHUNK_RESPONSE, GET_PROJECT_SUMMARY_RESPONSE);
+
     private final int                                id;
     private final ConcurrentMap<URL, FluxConnection> connections;
     private final Provider<Repository>               repository;
     private final Set<FluxMessageHandler>            messageHandlers;
 
+    // dispatch table rebuilt on each handler registration change, read without allocation for each received message
+    private volatile EnumMap<FluxMessageType, FluxMessageHandler[]> messageHandlersByType;
+
     /**
      * Constructs an instance of {@link com.codenvy.flux.watcher.core.FluxMessageBus}.
      *
@@ -65,6 +71,7 @@ public class FluxMessageBus {
         this.repository = repository;
         this.messageHandlers = new CopyOnWriteArraySet<>(checkNotNull(messageHandlers));
         connections = new ConcurrentHashMap<>();
+        updateMessageHandlersByType();
     }
 
     /**
@@ -128,8 +135,12 @@ public class FluxMessageBus {
      * @throws java.lang.NullPointerException
      *         if {@code handler} parameter is {@code null}.
      */
-    public boolean addMessageHandler(FluxMessageHandler handler) {
-        return messageHandlers.add(checkNotNull(handler));
+    public synchronized boolean addMessageHandler(FluxMessageHandler handler) {
+        final boolean added = messageHandlers.add(checkNotNull(handler));
+        if (added) {
+            updateMessageHandlersByType();
+        }
+        return added;
     }
 
     /**
@@ -141,8 +152,12 @@ public class FluxMessageBus {
      * @throws java.lang.NullPointerException
      *         if {@code handler} parameter is {@code null}.
      */
-    public boolean removeMessageHandler(FluxMessageHandler handler) {
-        return messageHandlers.remove(checkNotNull(handler));
+    public synchronized boolean removeMessageHandler(FluxMessageHandler handler) {
+        final boolean removed = messageHandlers.remove(checkNotNull(handler));
+        if (removed) {
+            updateMessageHandlersByType();
+        }
+        return removed;
     }
 
     /**
@@ -177,14 +192,18 @@ public class FluxMessageBus {
     public void messageReceived(FluxMessage message) {
         checkNotNull(message);
 
-        if (message.type() == GET_RESOURCE_RESPONSE || message.type() == GET_PROJECT_RESPONSE) {
+        if (RESPONSE_TYPES.contains(message.type())) {
             final JSONObject content = message.content();
             if (content.optInt(CALLBACK_ID.value()) != id) {
                 return;
             }
         }
 
-        final Set<FluxMessageHandler> messageHandlers = getMessageHandlersFor(message.type().value());
+        final FluxMessageHandler[] messageHandlers = messageHandlersByType.get(message.type());
+        if (messageHandlers == null) {
+            return;
+        }
+
         for (FluxMessageHandler oneMessageHandler : messageHandlers) {
             try {
 
@@ -196,31 +215,36 @@ public class FluxMessageBus {
         }
     }
 
-    private Set<FluxMessageHandler> getMessageHandlersFor(final String messageType) {
-        return ImmutableSet.copyOf(FluentIterable.from(messageHandlers)
-                             .filter(notNull())
-                             .filter(new Predicate<FluxMessageHandler>() {
-                                 @Override
-                                 public boolean apply(FluxMessageHandler messageHandler) {
-                                     final Set<String> supportedTypes = getMessageTypesFor(messageHandler);
-                                     return supportedTypes.contains(messageType);
-                                 }
-                             }));
-    }
+    /**
+     * Rebuilds the {@link FluxMessageHandler} dispatch table from the registered {@link FluxMessageHandler}. The {@link
+     * FluxMessageTypes} annotation of each handler is read once here instead of on each received message.
+     */
+    private void updateMessageHandlersByType() {
+        final Map<FluxMessageType, List<FluxMessageHandler>> handlersByType = new EnumMap<>(FluxMessageType.class);
+        for (FluxMessageHandler oneMessageHandler : messageHandlers) {
+            final FluxMessageTypes types = oneMessageHandler.getClass().getAnnotation(FluxMessageTypes.class);
+            if (types == null) {
+                continue;
+            }
 
-    private Set<String> getMessageTypesFor(FluxMessageHandler messageHandler) {
-        final FluxMessageTypes types = messageHandler.getClass().getAnnotation(FluxMessageTypes.class);
-        if (types == null) {
-            return emptySet();
+            final Set<FluxMessageType> supportedTypes = EnumSet.noneOf(FluxMessageType.class);
+            supportedTypes.addAll(Arrays.asList(types.value()));
+
+            for (FluxMessageType oneType : supportedTypes) {
+                List<FluxMessageHandler> handlers = handlersByType.get(oneType);
+                if (handlers == null) {
+                    handlers = new ArrayList<>();
+                    handlersByType.put(oneType, handlers);
+                }
+                handlers.add(oneMessageHandler);
+            }
         }
 
-        return ImmutableSet.copyOf(FluentIterable.from(Arrays.asList(types.value()))
-                             .filter(Predicates.notNull())
-                             .transform(new Function<FluxMessageType, String>() {
-                                 @Override
-                                 public String apply(FluxMessageType messageType) {
-                                     return messageType.value();
-                                 }
-                             }));
+        final EnumMap<FluxMessageType, FluxMessageHandler[]> newMessageHandlersByType = new EnumMap<>(FluxMessageType.class);
+        for (Map.Entry<FluxMessageType, List<FluxMessageHandler>> oneEntry : handlersByType.entrySet()) {
+            final List<FluxMessageHandler> handlers = oneEntry.getValue();
+            newMessageHandlersByType.put(oneEntry.getKey(), handlers.toArray(new FluxMessageHandler[handlers.size()]));
+        }
+        messageHandlersByType = newMessageHandlersByType;
     }
 }
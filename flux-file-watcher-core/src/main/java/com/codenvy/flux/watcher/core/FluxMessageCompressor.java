@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.BaseEncoding;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CALLBACK_ID;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CONTENT;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CONTENT_LENGTH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.ENCODING;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PROJECT;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.REQUEST_SENDER_ID;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.TYPE;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.USERNAME;
+import static com.codenvy.flux.watcher.core.FluxMessageType.COMPRESSED_MESSAGE;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Compresses the content of the {@link com.codenvy.flux.watcher.core.FluxMessage} larger than a threshold with deflate into
+ * {@link com.codenvy.flux.watcher.core.FluxMessageType#COMPRESSED_MESSAGE} messages, and decompresses them. The compressed
+ * content is base64 encoded because the socket.io transport only carries JSON. The fields used to route a message are copied
+ * in the clear, a message which doesn't shrink is sent as is.
+ * <p/>
+ * The compression ratio and the CPU time spent to compress and decompress are recorded. The compression is meant to be done by
+ * the connection writer thread only, the decompression is thread safe. The native memory of the compressor is released by
+ * {@link #close()}, the messages are then sent as is.
+ *
+ * @author Kevin Pollet
+ */
+final class FluxMessageCompressor {
+    /**
+     * The encoding of the compressed messages, also used as connection capability.
+     */
+    static final String DEFLATE_ENCODING = "deflate";
+
+    private static final FluxMessage.Fields[] ROUTING_FIELDS = {USERNAME, CALLBACK_ID, REQUEST_SENDER_ID, PROJECT};
+    private static final BaseEncoding         BASE64         = BaseEncoding.base64();
+    private static final int                  BUFFER_SIZE    = 8192;
+    private static final int                  MAX_LENGTH     = 128 * 1024 * 1024;
+    private static final ThreadMXBean         THREAD_BEAN    = ManagementFactory.getThreadMXBean();
+
+    private final int        threshold;
+    private final Deflater   deflater;
+    private final byte[]     buffer;
+    private final AtomicLong compressedMessageCount;
+    private final AtomicLong uncompressedBytes;
+    private final AtomicLong compressedBytes;
+    private final AtomicLong compressionNanos;
+    private final AtomicLong decompressedMessageCount;
+    private final AtomicLong decompressionNanos;
+    private boolean          closed;
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.core.FluxMessageCompressor}.
+     *
+     * @param threshold
+     *         the minimum serialized size in bytes of a message content to be compressed.
+     * @param level
+     *         the deflate compression level, from 0 to 9 or -1 for the default level.
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code threshold} is negative or if {@code level} is not a valid compression level.
+     */
+    FluxMessageCompressor(int threshold, int level) {
+        checkArgument(threshold >= 0);
+        checkArgument(level >= Deflater.DEFAULT_COMPRESSION && level <= Deflater.BEST_COMPRESSION);
+
+        this.threshold = threshold;
+        this.deflater = new Deflater(level);
+        this.buffer = new byte[BUFFER_SIZE];
+        this.compressedMessageCount = new AtomicLong();
+        this.uncompressedBytes = new AtomicLong();
+        this.compressedBytes = new AtomicLong();
+        this.compressionNanos = new AtomicLong();
+        this.decompressedMessageCount = new AtomicLong();
+        this.decompressionNanos = new AtomicLong();
+    }
+
+    /**
+     * Compresses the given {@link com.codenvy.flux.watcher.core.FluxMessage} if its content is larger than the threshold and
+     * shrinks.
+     *
+     * @param message
+     *         the {@link com.codenvy.flux.watcher.core.FluxMessage} to compress.
+     * @return the {@link com.codenvy.flux.watcher.core.FluxMessageType#COMPRESSED_MESSAGE} message or the given message if it
+     * is not compressed, never {@code null}.
+     * @throws java.lang.NullPointerException
+     *         if {@code message} parameter is {@code null}.
+     */
+    synchronized FluxMessage compress(FluxMessage message) {
+        checkNotNull(message);
+
+        final byte[] content = message.payload().toString().getBytes(Charsets.UTF_8);
+        if (closed || content.length < threshold || message.type() == COMPRESSED_MESSAGE) {
+            return message;
+        }
+
+        final long startTime = cpuTime();
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(content.length / 4);
+        deflater.reset();
+        deflater.setInput(content);
+        deflater.finish();
+        while (!deflater.finished()) {
+            output.write(buffer, 0, deflater.deflate(buffer));
+        }
+        final String encodedContent = BASE64.encode(output.toByteArray());
+        compressionNanos.addAndGet(cpuTime() - startTime);
+
+        if (encodedContent.length() >= content.length) {
+            return message;
+        }
+
+        try {
+
+            final JSONObject compressedContent = new JSONObject()
+                    .put(TYPE.value(), message.type().value())
+                    .put(ENCODING.value(), DEFLATE_ENCODING)
+                    .put(CONTENT_LENGTH.value(), content.length)
+                    .put(CONTENT.value(), encodedContent);
+
+            for (FluxMessage.Fields oneField : ROUTING_FIELDS) {
+                if (message.headers().has(oneField.value())) {
+                    compressedContent.put(oneField.value(), message.headers().get(oneField.value()));
+                }
+            }
+
+            compressedMessageCount.incrementAndGet();
+            uncompressedBytes.addAndGet(content.length);
+            compressedBytes.addAndGet(encodedContent.length());
+
+            return new FluxMessage(message.source(), COMPRESSED_MESSAGE, compressedContent);
+
+        } catch (JSONException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Decompresses the given {@link com.codenvy.flux.watcher.core.FluxMessageType#COMPRESSED_MESSAGE} message.
+     *
+     * @param compressedMessage
+     *         the compressed {@link com.codenvy.flux.watcher.core.FluxMessage}.
+     * @return the decompressed {@link com.codenvy.flux.watcher.core.FluxMessage}, never {@code null}.
+     * @throws java.lang.NullPointerException
+     *         if {@code compressedMessage} parameter is {@code null}.
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code compressedMessage} is not a {@link com.codenvy.flux.watcher.core.FluxMessageType#COMPRESSED_MESSAGE}
+     *         message, if its encoding is unknown or if its content is corrupted or too large.
+     * @throws org.json.JSONException
+     *         if the compressed content is malformed.
+     */
+    FluxMessage decompress(FluxMessage compressedMessage) throws JSONException {
+        checkNotNull(compressedMessage);
+        checkArgument(compressedMessage.type() == COMPRESSED_MESSAGE);
+
+        final JSONObject compressedContent = compressedMessage.content();
+        checkArgument(DEFLATE_ENCODING.equals(compressedContent.optString(ENCODING.value())), "Unknown encoding");
+
+        final int contentLength = compressedContent.getInt(CONTENT_LENGTH.value());
+        checkArgument(contentLength >= 0 && contentLength <= MAX_LENGTH, "Invalid content length");
+
+        final long startTime = cpuTime();
+        final byte[] content = new byte[contentLength];
+        final Inflater inflater = new Inflater();
+        try {
+
+            inflater.setInput(BASE64.decode(compressedContent.getString(CONTENT.value())));
+            // the content must end exactly at the announced length
+            final byte[] extraByte = new byte[1];
+            int length = 0;
+            while (!inflater.finished()) {
+                final int inflatedLength = length < content.length ? inflater.inflate(content, length, content.length - length)
+                                                                   : inflater.inflate(extraByte);
+                checkArgument(length < content.length || inflatedLength == 0, "Corrupted content");
+                if (inflatedLength == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflatedLength;
+            }
+            checkArgument(length == content.length && inflater.finished(), "Corrupted content");
+
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupted content", e);
+
+        } finally {
+            inflater.end();
+        }
+
+        final FluxMessageType type = FluxMessageType.fromType(compressedContent.getString(TYPE.value()));
+        final FluxMessage message = new FluxMessage(compressedMessage.source(), type, new JSONObject(new String(content, Charsets.UTF_8)));
+
+        decompressionNanos.addAndGet(cpuTime() - startTime);
+        decompressedMessageCount.incrementAndGet();
+
+        return message;
+    }
+
+    /**
+     * Returns the number of compressed messages.
+     *
+     * @return the compressed messages count.
+     */
+    long compressedMessageCount() {
+        return compressedMessageCount.get();
+    }
+
+    /**
+     * Returns the ratio between the serialized size of the compressed messages before and after their compression.
+     *
+     * @return the compression ratio, {@code 1} if no message has been compressed.
+     */
+    double compressionRatio() {
+        final long compressed = compressedBytes.get();
+        return compressed == 0 ? 1 : (double)uncompressedBytes.get() / compressed;
+    }
+
+    /**
+     * Returns the CPU time spent to compress the messages, including the messages sent as is because they don't shrink.
+     *
+     * @return the CPU time in nanoseconds.
+     */
+    long compressionCpuTime() {
+        return compressionNanos.get();
+    }
+
+    /**
+     * Returns the number of decompressed messages.
+     *
+     * @return the decompressed messages count.
+     */
+    long decompressedMessageCount() {
+        return decompressedMessageCount.get();
+    }
+
+    /**
+     * Returns the CPU time spent to decompress the messages.
+     *
+     * @return the CPU time in nanoseconds.
+     */
+    long decompressionCpuTime() {
+        return decompressionNanos.get();
+    }
+
+    /**
+     * Releases the native memory of the compressor, the next messages are not compressed anymore.
+     */
+    synchronized void close() {
+        if (!closed) {
+            closed = true;
+            deflater.end();
+        }
+    }
+
+    private static long cpuTime() {
+        return THREAD_BEAN.isCurrentThreadCpuTimeSupported() ? THREAD_BEAN.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+}
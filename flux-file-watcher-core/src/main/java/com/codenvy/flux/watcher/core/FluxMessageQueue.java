@@ -0,0 +1,278 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core;
+
+import org.json.JSONObject;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.codenvy.flux.watcher.core.BackPressurePolicy.COALESCE;
+import static com.codenvy.flux.watcher.core.BackPressurePolicy.DROP_OLDEST;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PROJECT;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.RESOURCE;
+import static com.codenvy.flux.watcher.core.FluxMessageType.RESOURCE_CHANGED;
+import static com.codenvy.flux.watcher.core.FluxMessageType.RESOURCE_CREATED;
+import static com.codenvy.flux.watcher.core.FluxMessageType.RESOURCE_DELETED;
+import static com.codenvy.flux.watcher.core.FluxMessageType.RESOURCE_STORED;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Bounded queue of outbound {@link com.codenvy.flux.watcher.core.FluxMessage} applying a {@link
+ * com.codenvy.flux.watcher.core.BackPressurePolicy} when full.
+ * <p/>
+ * Only the resource notifications are coalesced: the requests and responses are addressed to a given offset or requester and
+ * are all delivered. A notification is merged with the queued notification of the same type for the same resource if it is
+ * the last message queued for the resource, or if it is only followed by its {@code resourceStored} notification, so that the
+ * changed and stored pairs sent for each modification of a resource are coalesced too.
+ *
+ * @author Kevin Pollet
+ */
+final class FluxMessageQueue {
+    private static final Set<FluxMessageType> NOTIFICATION_TYPES = EnumSet.of(RESOURCE_CHANGED, RESOURCE_CREATED, RESOURCE_DELETED,
+                                                                              RESOURCE_STORED);
+
+    private final int                        capacity;
+    private final BackPressurePolicy         policy;
+    private final Deque<QueuedMessage>       messages;
+    private final Map<String, QueuedMessage> lastMessageByResource;
+    private final Map<String, QueuedMessage> lastNotificationByResourceAndType;
+    private final ReentrantLock              lock;
+    private final Condition                  notEmpty;
+    private final Condition                  notFull;
+    private final AtomicLong                 droppedMessageCount;
+    private final AtomicLong                 coalescedMessageCount;
+    private long                             sequence;
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.core.FluxMessageQueue}.
+     *
+     * @param capacity
+     *         the maximum number of queued messages.
+     * @param policy
+     *         the {@link com.codenvy.flux.watcher.core.BackPressurePolicy} applied when the queue is full.
+     * @throws java.lang.NullPointerException
+     *         if {@code policy} parameter is {@code null}.
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code capacity} parameter is not positive.
+     */
+    FluxMessageQueue(int capacity, BackPressurePolicy policy) {
+        checkArgument(capacity > 0);
+
+        this.capacity = capacity;
+        this.policy = checkNotNull(policy);
+        this.messages = new ArrayDeque<>();
+        this.lastMessageByResource = new HashMap<>();
+        this.lastNotificationByResourceAndType = new HashMap<>();
+        this.lock = new ReentrantLock();
+        this.notEmpty = lock.newCondition();
+        this.notFull = lock.newCondition();
+        this.droppedMessageCount = new AtomicLong();
+        this.coalescedMessageCount = new AtomicLong();
+    }
+
+    /**
+     * Queues the given {@link com.codenvy.flux.watcher.core.FluxMessage}, applying the {@link
+     * com.codenvy.flux.watcher.core.BackPressurePolicy} if the queue is full.
+     *
+     * @param message
+     *         the {@link com.codenvy.flux.watcher.core.FluxMessage} to queue.
+     * @throws java.lang.NullPointerException
+     *         if {@code message} parameter is {@code null}.
+     * @throws java.lang.InterruptedException
+     *         if the thread is interrupted while waiting for room in the queue.
+     */
+    void put(FluxMessage message) throws InterruptedException {
+        checkNotNull(message);
+
+        final String resourceKey = resourceKeyOf(message);
+        final String notificationKey =
+                resourceKey != null && NOTIFICATION_TYPES.contains(message.type()) ? resourceKey + '\u0000' + message.type() : null;
+
+        lock.lockInterruptibly();
+        try {
+
+            if (policy == COALESCE && notificationKey != null) {
+                final QueuedMessage lastNotification = lastNotificationByResourceAndType.get(notificationKey);
+                if (lastNotification != null && isLastOfResource(lastNotification)) {
+                    lastNotification.message = message;
+                    coalescedMessageCount.incrementAndGet();
+                    return;
+                }
+            }
+
+            while (messages.size() >= capacity) {
+                if (policy == DROP_OLDEST) {
+                    forget(messages.pollFirst());
+                    droppedMessageCount.incrementAndGet();
+                } else {
+                    notFull.await();
+                }
+            }
+
+            final QueuedMessage previousMessage = resourceKey != null ? lastMessageByResource.get(resourceKey) : null;
+            final QueuedMessage queuedMessage = new QueuedMessage(resourceKey, notificationKey, message, ++sequence,
+                                                                  previousMessage != null ? previousMessage.sequence : 0);
+            messages.addLast(queuedMessage);
+            if (resourceKey != null) {
+                lastMessageByResource.put(resourceKey, queuedMessage);
+            }
+            if (notificationKey != null) {
+                lastNotificationByResourceAndType.put(notificationKey, queuedMessage);
+            }
+            notEmpty.signal();
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves and removes the head of the queue, waiting up to the given time if the queue is empty.
+     *
+     * @param timeout
+     *         the maximum time to wait.
+     * @param unit
+     *         the {@link java.util.concurrent.TimeUnit} of the {@code timeout} parameter.
+     * @return the head {@link com.codenvy.flux.watcher.core.FluxMessage} or {@code null} if the queue is still empty.
+     * @throws java.lang.InterruptedException
+     *         if the thread is interrupted while waiting.
+     */
+    FluxMessage poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+
+        lock.lockInterruptibly();
+        try {
+
+            while (messages.isEmpty()) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+
+            final QueuedMessage queuedMessage = messages.pollFirst();
+            forget(queuedMessage);
+            notFull.signal();
+
+            return queuedMessage.message;
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all queued messages.
+     */
+    void clear() {
+        lock.lock();
+        try {
+
+            messages.clear();
+            lastMessageByResource.clear();
+            lastNotificationByResourceAndType.clear();
+            notFull.signalAll();
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of queued messages.
+     *
+     * @return the queue depth.
+     */
+    int size() {
+        lock.lock();
+        try {
+
+            return messages.size();
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of messages dropped with the {@link com.codenvy.flux.watcher.core.BackPressurePolicy#DROP_OLDEST}
+     * policy.
+     *
+     * @return the dropped messages count.
+     */
+    long droppedMessageCount() {
+        return droppedMessageCount.get();
+    }
+
+    /**
+     * Returns the number of messages replaced in place with the {@link com.codenvy.flux.watcher.core.BackPressurePolicy#COALESCE}
+     * policy.
+     *
+     * @return the coalesced messages count.
+     */
+    long coalescedMessageCount() {
+        return coalescedMessageCount.get();
+    }
+
+    /**
+     * Returns if the given queued notification is the last message queued for its resource, or if it is only followed by its
+     * {@code resourceStored} notification.
+     */
+    private boolean isLastOfResource(QueuedMessage notification) {
+        final QueuedMessage lastMessage = lastMessageByResource.get(notification.resourceKey);
+        return lastMessage == notification
+               || lastMessage.message.type() == RESOURCE_STORED && lastMessage.previousSequence == notification.sequence;
+    }
+
+    private void forget(QueuedMessage queuedMessage) {
+        if (queuedMessage.resourceKey != null && lastMessageByResource.get(queuedMessage.resourceKey) == queuedMessage) {
+            lastMessageByResource.remove(queuedMessage.resourceKey);
+        }
+        if (queuedMessage.notificationKey != null
+            && lastNotificationByResourceAndType.get(queuedMessage.notificationKey) == queuedMessage) {
+            lastNotificationByResourceAndType.remove(queuedMessage.notificationKey);
+        }
+    }
+
+    private static String resourceKeyOf(FluxMessage message) {
+        final JSONObject content = message.headers();
+        if (!content.has(PROJECT.value()) || !content.has(RESOURCE.value())) {
+            return null;
+        }
+        return content.optString(PROJECT.value()) + '\u0000' + content.optString(RESOURCE.value());
+    }
+
+    private static final class QueuedMessage {
+        private final String resourceKey;
+        private final String notificationKey;
+        private final long   sequence;
+        private final long   previousSequence;
+        private FluxMessage  message;
+
+        QueuedMessage(String resourceKey, String notificationKey, FluxMessage message, long sequence, long previousSequence) {
+            this.resourceKey = resourceKey;
+            this.notificationKey = notificationKey;
+            this.message = message;
+            this.sequence = sequence;
+            this.previousSequence = previousSequence;
+        }
+    }
+}
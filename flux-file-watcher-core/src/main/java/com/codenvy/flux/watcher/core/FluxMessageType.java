@@ -18,9 +18,15 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * @author Kevin Pollet
  */
 public enum FluxMessageType {
+    CHANNEL_CAPABILITIES("channelCapabilities"),
+    COMPRESSED_MESSAGE("compressedMessage"),
     CONNECT_TO_CHANNEL("connectToChannel"),
     GET_PROJECT_REQUEST("getProjectRequest"),
     GET_PROJECT_RESPONSE("getProjectResponse"),
+    GET_PROJECT_SUMMARY_REQUEST("getProjectSummaryRequest"),
+    GET_PROJECT_SUMMARY_RESPONSE("getProjectSummaryResponse"),
+    GET_RESOURCE_CHUNK_REQUEST("getResourceChunkRequest"),
+    GET_RESOURCE_CHUNK_RESPONSE("getResourceChunkResponse"),
     GET_RESOURCE_REQUEST("getResourceRequest"),
     GET_RESOURCE_RESPONSE("getResourceResponse"),
     PROJECT_CONNECTED("projectConnected"),
@@ -28,7 +34,8 @@ public enum FluxMessageType {
     RESOURCE_CHANGED("resourceChanged"),
     RESOURCE_CREATED("resourceCreated"),
     RESOURCE_DELETED("resourceDeleted"),
-    RESOURCE_STORED("resourceStored");
+    RESOURCE_STORED("resourceStored"),
+    RESOURCES_BATCH("resourcesBatch");
 
     private final String value;
 
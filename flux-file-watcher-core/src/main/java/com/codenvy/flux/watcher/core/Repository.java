@@ -10,18 +10,15 @@
  *******************************************************************************/
 package com.codenvy.flux.watcher.core;
 
-import static com.codenvy.flux.watcher.core.FluxMessage.Fields.INCLUDE_DELETED;
 import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PROJECT;
-import static com.codenvy.flux.watcher.core.FluxMessageType.GET_PROJECT_REQUEST;
 import static com.codenvy.flux.watcher.core.FluxMessageType.PROJECT_CONNECTED;
 import static com.codenvy.flux.watcher.core.FluxMessageType.PROJECT_DISCONNECTED;
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.base.Predicates.notNull;
 
 import java.net.URL;
-import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -29,8 +26,10 @@ import javax.inject.Singleton;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import com.codenvy.flux.watcher.core.internal.ProjectSummaries;
 import com.codenvy.flux.watcher.core.spi.Project;
 import com.codenvy.flux.watcher.core.spi.ProjectFactory;
+import com.codenvy.flux.watcher.core.utils.PathTrie;
 import com.google.common.base.Predicate;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableSet;
@@ -42,10 +41,13 @@ import com.google.common.collect.ImmutableSet;
  */
 @Singleton
 public class Repository {
-    private final Set<Project>       projects;
-    private final FluxMessageBus     messageBus;
-    private final RepositoryEventBus repositoryEventBus;
-    private final ProjectFactory     projectFactory;
+    private final ConcurrentMap<String, Project> projects;
+    private final FluxMessageBus                 messageBus;
+    private final RepositoryEventBus             repositoryEventBus;
+    private final ProjectFactory                 projectFactory;
+    private final ProjectSummaries               projectSummaries;
+    private volatile Set<Project>                synchronizedProjects;
+    private volatile PathTrie<Project>           synchronizedProjectRoots;
 
     /**
      * Constructs an instance of {@link Repository}.
@@ -56,15 +58,22 @@ public class Repository {
      *         the {@link com.codenvy.flux.watcher.core.spi.ProjectFactory} instance.
      * @param repositoryEventBus
      *         the {@link com.codenvy.flux.watcher.core.RepositoryEventBus} instance.
+     * @param projectSummaries
+     *         the {@link com.codenvy.flux.watcher.core.internal.ProjectSummaries} instance.
      * @throws java.lang.NullPointerException
-     *         if {@code messageBus}, {@code projectFactory} or {@code repositoryEventBus} parameter is {@code null}.
+     *         if {@code messageBus}, {@code projectFactory}, {@code repositoryEventBus} or {@code projectSummaries} parameter is
+     *         {@code null}.
      */
     @Inject
-    Repository(FluxMessageBus messageBus, ProjectFactory projectFactory, RepositoryEventBus repositoryEventBus) {
+    Repository(FluxMessageBus messageBus, ProjectFactory projectFactory, RepositoryEventBus repositoryEventBus,
+               ProjectSummaries projectSummaries) {
         this.repositoryEventBus = checkNotNull(repositoryEventBus);
         this.messageBus = checkNotNull(messageBus);
         this.projectFactory = checkNotNull(projectFactory);
-        this.projects = new CopyOnWriteArraySet<>();
+        this.projectSummaries = checkNotNull(projectSummaries);
+        this.projects = new ConcurrentHashMap<>();
+        this.synchronizedProjects = ImmutableSet.of();
+        this.synchronizedProjectRoots = new PathTrie<>();
     }
 
     /**
@@ -111,19 +120,25 @@ public class Repository {
         checkNotNull(projectId);
         checkNotNull(projectPath);
 
-        Project project = getProject(projectId);
+        Project project = projects.get(projectId);
         if (project == null) {
-            project = projectFactory.newProject(projectId, projectPath);
+            final Project newProject = projectFactory.newProject(projectId, projectPath);
+            project = projects.putIfAbsent(projectId, newProject);
+            if (project != null) {
+                return project;
+            }
+
+            project = newProject;
             project.setSynchronized(true);
-            projects.add(project);
+            updateSynchronizedProjects();
 
             try {
 
-                JSONObject content = new JSONObject().put(PROJECT.value(), projectId);
+                final JSONObject content = new JSONObject().put(PROJECT.value(), projectId);
                 messageBus.sendMessages(new FluxMessage(PROJECT_CONNECTED, content));
 
-                content = new JSONObject().put(PROJECT.value(), projectId).put(INCLUDE_DELETED.value(), true);
-                messageBus.sendMessages(new FluxMessage(GET_PROJECT_REQUEST, content));
+                // only the subtrees which differ from the remote are walked, the full listing is requested as a fallback
+                projectSummaries.requestSummary(project);
 
             } catch (JSONException e) {
                 throw new RuntimeException(e);
@@ -140,10 +155,10 @@ public class Repository {
      * @return the removed {@link com.codenvy.flux.watcher.core.spi.Project} instance or {@code null} if none.
      */
     public Project removeProject(String projectId) {
-        final Project project = getProject(projectId);
+        final Project project = projectId == null ? null : projects.remove(projectId);
         if (project != null) {
-            projects.remove(project);
             project.setSynchronized(false);
+            updateSynchronizedProjects();
 
             try {
 
@@ -162,33 +177,56 @@ public class Repository {
      *
      * @return the {@link com.codenvy.flux.watcher.core.spi.Project} or {@code null} if none.
      */
-    public Project getProject(final String projectId) {
-        return FluentIterable.from(projects)
-                             .firstMatch(new Predicate<Project>() {
-                                 @Override
-                                 public boolean apply(Project project) {
-                                     return Objects.equals(projectId, project.id());
-                                 }
-                             })
-                             .orNull();
+    public Project getProject(String projectId) {
+        return projectId == null ? null : projects.get(projectId);
     }
 
     /**
-     * Returns all synchronized {@link com.codenvy.flux.watcher.core.spi.Project}.
+     * Returns all synchronized {@link com.codenvy.flux.watcher.core.spi.Project}. The returned view is cached, it is rebuilt
+     * each time a {@link com.codenvy.flux.watcher.core.spi.Project} is added to or removed from this {@link Repository}.
      *
-     * @return a {@link java.util.Set} of all synchronized {@link com.codenvy.flux.watcher.core.spi.Project}.
+     * @return an immutable {@link java.util.Set} of all synchronized {@link com.codenvy.flux.watcher.core.spi.Project}, never
+     * {@code null}.
      */
     public Set<Project> getSynchronizedProjects() {
-        return ImmutableSet.copyOf(FluentIterable.from(projects)
-                                   .filter(notNull())
-                                   .filter(new Predicate<Project>() {
-                                       @Override
-                                       public boolean apply(Project project) {
-                                           return project.getSynchronized();
-                                       }
-                                   }));
+        return synchronizedProjects;
     }
-    
+
+    /**
+     * Returns the synchronized {@link com.codenvy.flux.watcher.core.spi.Project} containing the resource with the given
+     * absolute path. The project paths are matched segment by segment, the deepest project wins if they are nested.
+     *
+     * @param path
+     *         the absolute resource path.
+     * @return the {@link com.codenvy.flux.watcher.core.spi.Project} or {@code null} if none.
+     * @throws java.lang.NullPointerException
+     *         if {@code path} parameter is {@code null}.
+     */
+    public Project getSynchronizedProject(String path) {
+        return synchronizedProjectRoots.getClosest(checkNotNull(path));
+    }
+
+    /**
+     * Rebuilds the cached views of the synchronized {@link com.codenvy.flux.watcher.core.spi.Project}.
+     */
+    private synchronized void updateSynchronizedProjects() {
+        final Set<Project> projects = ImmutableSet.copyOf(FluentIterable.from(this.projects.values())
+                                                                        .filter(new Predicate<Project>() {
+                                                                            @Override
+                                                                            public boolean apply(Project project) {
+                                                                                return project.getSynchronized();
+                                                                            }
+                                                                        }));
+
+        final PathTrie<Project> projectRoots = new PathTrie<>();
+        for (Project oneProject : projects) {
+            projectRoots.put(oneProject.path(), oneProject);
+        }
+
+        synchronizedProjects = projects;
+        synchronizedProjectRoots = projectRoots;
+    }
+
     /**
      * Returns the {@link com.codenvy.flux.watcher.core.RepositoryEventBus}.
      *
@@ -12,9 +12,13 @@ package com.codenvy.flux.watcher.core;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
-import static com.google.common.base.Predicates.notNull;
 import static java.util.Arrays.asList;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 
@@ -22,10 +26,6 @@ import javax.inject.Inject;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
-import com.google.common.base.Predicate;
-import com.google.common.collect.FluentIterable;
-import com.google.common.collect.ImmutableSet;
-
 /**
  * Event bus to listen and fire {@link com.codenvy.flux.watcher.core.Repository} events.
  *
@@ -37,6 +37,9 @@ public class RepositoryEventBus {
     private final Provider<Repository>    repository;
     private final Set<RepositoryListener> repositoryListeners;
 
+    // routing table rebuilt on each listener registration change, read without allocation for each fired event
+    private volatile EnumMap<RepositoryEventType, RepositoryListener[]> repositoryListenersByType;
+
     /**
      * Constructs an instance of {@link com.codenvy.flux.watcher.core.RepositoryEventBus}.
      *
@@ -51,6 +54,7 @@ public class RepositoryEventBus {
     public RepositoryEventBus(Set<RepositoryListener> repositoryListeners, Provider<Repository> repository) {
         this.repository = checkNotNull(repository);
         this.repositoryListeners = new CopyOnWriteArraySet<>(checkNotNull(repositoryListeners));
+        updateRepositoryListenersByType();
     }
 
     /**
@@ -62,8 +66,12 @@ public class RepositoryEventBus {
      * @throws java.lang.NullPointerException
      *         if {@code listener} parameter is {@code null}.
      */
-    public boolean addRepositoryListener(RepositoryListener listener) {
-        return repositoryListeners.add(checkNotNull(listener));
+    public synchronized boolean addRepositoryListener(RepositoryListener listener) {
+        final boolean added = repositoryListeners.add(checkNotNull(listener));
+        if (added) {
+            updateRepositoryListenersByType();
+        }
+        return added;
     }
 
     /**
@@ -75,8 +83,12 @@ public class RepositoryEventBus {
      * @throws java.lang.NullPointerException
      *         if {@code listener} parameter is {@code null}.
      */
-    public boolean removeRepositoryListener(RepositoryListener listener) {
-        return repositoryListeners.remove(checkNotNull(listener));
+    public synchronized boolean removeRepositoryListener(RepositoryListener listener) {
+        final boolean removed = repositoryListeners.remove(checkNotNull(listener));
+        if (removed) {
+            updateRepositoryListenersByType();
+        }
+        return removed;
     }
 
     /**
@@ -91,20 +103,14 @@ public class RepositoryEventBus {
      *         if the {@link com.codenvy.flux.watcher.core.spi.Project} concerned by the event is not in the {@link
      *         com.codenvy.flux.watcher.core.Repository}.
      */
-    public void fireRepositoryEvent(final RepositoryEvent event) {
+    public void fireRepositoryEvent(RepositoryEvent event) {
         checkNotNull(event);
         checkState(repository.get().getProject(event.project().id()) != null);
 
-        final Set<RepositoryListener> filteredRepositoryListeners = ImmutableSet.copyOf(FluentIterable
-                .from(repositoryListeners)
-                .filter(notNull())
-                .filter(new Predicate<RepositoryListener>() {
-                    @Override
-                    public boolean apply(RepositoryListener listener) {
-                        final RepositoryEventTypes repositoryEventTypes = listener.getClass().getAnnotation(RepositoryEventTypes.class);
-                        return asList(repositoryEventTypes.value()).contains(event.type());
-                    }
-                }));;
+        final RepositoryListener[] filteredRepositoryListeners = repositoryListenersByType.get(event.type());
+        if (filteredRepositoryListeners == null) {
+            return;
+        }
 
         for (RepositoryListener oneRepositoryListener : filteredRepositoryListeners) {
             try {
@@ -116,4 +122,38 @@ public class RepositoryEventBus {
             }
         }
     }
+
+    /**
+     * Rebuilds the {@link com.codenvy.flux.watcher.core.RepositoryListener} routing table from the registered {@link
+     * com.codenvy.flux.watcher.core.RepositoryListener}. The {@link com.codenvy.flux.watcher.core.RepositoryEventTypes} annotation
+     * of each listener is read once here instead of on each fired event.
+     */
+    private void updateRepositoryListenersByType() {
+        final Map<RepositoryEventType, List<RepositoryListener>> listenersByType = new EnumMap<>(RepositoryEventType.class);
+        for (RepositoryListener oneRepositoryListener : repositoryListeners) {
+            final RepositoryEventTypes types = oneRepositoryListener.getClass().getAnnotation(RepositoryEventTypes.class);
+            if (types == null) {
+                continue;
+            }
+
+            final Set<RepositoryEventType> supportedTypes = EnumSet.noneOf(RepositoryEventType.class);
+            supportedTypes.addAll(asList(types.value()));
+
+            for (RepositoryEventType oneType : supportedTypes) {
+                List<RepositoryListener> listeners = listenersByType.get(oneType);
+                if (listeners == null) {
+                    listeners = new ArrayList<>();
+                    listenersByType.put(oneType, listeners);
+                }
+                listeners.add(oneRepositoryListener);
+            }
+        }
+
+        final EnumMap<RepositoryEventType, RepositoryListener[]> newRepositoryListenersByType = new EnumMap<>(RepositoryEventType.class);
+        for (Map.Entry<RepositoryEventType, List<RepositoryListener>> oneEntry : listenersByType.entrySet()) {
+            final List<RepositoryListener> listeners = oneEntry.getValue();
+            newRepositoryListenersByType.put(oneEntry.getKey(), listeners.toArray(new RepositoryListener[listeners.size()]));
+        }
+        repositoryListenersByType = newRepositoryListenersByType;
+    }
 }
@@ -12,11 +12,16 @@ package com.codenvy.flux.watcher.core;
 
 import com.codenvy.flux.watcher.core.internal.GetProjectRequestHandler;
 import com.codenvy.flux.watcher.core.internal.GetProjectResponseHandler;
+import com.codenvy.flux.watcher.core.internal.GetProjectSummaryRequestHandler;
+import com.codenvy.flux.watcher.core.internal.GetProjectSummaryResponseHandler;
+import com.codenvy.flux.watcher.core.internal.GetResourceChunkRequestHandler;
+import com.codenvy.flux.watcher.core.internal.GetResourceChunkResponseHandler;
 import com.codenvy.flux.watcher.core.internal.GetResourceRequestHandler;
 import com.codenvy.flux.watcher.core.internal.GetResourceResponseHandler;
 import com.codenvy.flux.watcher.core.internal.ProjectResourceCreatedListener;
 import com.codenvy.flux.watcher.core.internal.ProjectResourceDeletedListener;
 import com.codenvy.flux.watcher.core.internal.ProjectResourceModifiedListener;
+import com.codenvy.flux.watcher.core.internal.ProjectSummaries;
 import com.codenvy.flux.watcher.core.internal.ResourceChangedHandler;
 import com.codenvy.flux.watcher.core.internal.ResourceCreatedHandler;
 import com.codenvy.flux.watcher.core.internal.ResourceDeletedHandler;
@@ -39,8 +44,12 @@ public class RepositoryModule extends AbstractModule {
         final Multibinder<FluxMessageHandler> messageHandlers = Multibinder.newSetBinder(binder(), FluxMessageHandler.class);
         messageHandlers.addBinding().to(GetResourceRequestHandler.class);
         messageHandlers.addBinding().to(GetResourceResponseHandler.class);
+        messageHandlers.addBinding().to(GetResourceChunkRequestHandler.class);
+        messageHandlers.addBinding().to(GetResourceChunkResponseHandler.class);
         messageHandlers.addBinding().to(GetProjectRequestHandler.class);
         messageHandlers.addBinding().to(GetProjectResponseHandler.class);
+        messageHandlers.addBinding().to(GetProjectSummaryRequestHandler.class);
+        messageHandlers.addBinding().to(GetProjectSummaryResponseHandler.class);
         messageHandlers.addBinding().to(ResourceCreatedHandler.class);
         messageHandlers.addBinding().to(ResourceDeletedHandler.class);
         messageHandlers.addBinding().to(ResourceChangedHandler.class);
@@ -50,5 +59,6 @@ public class RepositoryModule extends AbstractModule {
         repositoryListeners.addBinding().to(ProjectResourceCreatedListener.class);
         repositoryListeners.addBinding().to(ProjectResourceDeletedListener.class);
         repositoryListeners.addBinding().to(ProjectResourceModifiedListener.class);
+        repositoryListeners.addBinding().to(ProjectSummaries.class);
     }
 }
@@ -11,6 +11,9 @@
 package com.codenvy.flux.watcher.core;
 
 import com.codenvy.flux.watcher.core.utils.ResourceHelper;
+import com.google.common.io.ByteSource;
+
+import java.io.IOException;
 
 import static com.codenvy.flux.watcher.core.Resource.ResourceType.FILE;
 import static com.codenvy.flux.watcher.core.Resource.ResourceType.FOLDER;
@@ -27,9 +30,10 @@ public class Resource {
 
     private final String       path;
     private final long         timestamp;
-    private final String       hash;
     private final ResourceType type;
     private final byte[]       content;
+    private final ByteSource   contentSource;
+    private volatile String    hash;
 
     /**
      * Constructs an instance of {@link com.codenvy.flux.watcher.core.Resource} representing a {@link
@@ -81,6 +85,46 @@ public class Resource {
         return new Resource(path, timestamp, FILE, content);
     }
 
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.core.Resource} representing a {@link
+     * Resource.ResourceType#FILE} whose content is read lazily from the given {@link com.google.common.io.ByteSource}. The
+     * content is not loaded and the sha1 hash is computed on first access only.
+     *
+     * @param path
+     *         the {@link com.codenvy.flux.watcher.core.Resource} relative path.
+     * @param timestamp
+     *         the {@link com.codenvy.flux.watcher.core.Resource} timestamp.
+     * @param contentSource
+     *         the {@link com.google.common.io.ByteSource} supplying the {@link com.codenvy.flux.watcher.core.Resource} content.
+     * @return the new {@link com.codenvy.flux.watcher.core.Resource} instance.
+     * @throws java.lang.NullPointerException
+     *         if {@code path} or {@code contentSource} parameter is {@code null}.
+     */
+    public static Resource newFile(String path, long timestamp, ByteSource contentSource) {
+        return new Resource(path, timestamp, FILE, null, null, checkNotNull(contentSource));
+    }
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.core.Resource} representing a {@link
+     * Resource.ResourceType#FILE} with an already known hash, for example from a {@link com.codenvy.flux.watcher.core.ResourceIndex},
+     * and whose content is read lazily from the given {@link com.google.common.io.ByteSource}.
+     *
+     * @param path
+     *         the {@link com.codenvy.flux.watcher.core.Resource} relative path.
+     * @param timestamp
+     *         the {@link com.codenvy.flux.watcher.core.Resource} timestamp.
+     * @param hash
+     *         the {@link com.codenvy.flux.watcher.core.Resource} content hash.
+     * @param contentSource
+     *         the {@link com.google.common.io.ByteSource} supplying the {@link com.codenvy.flux.watcher.core.Resource} content.
+     * @return the new {@link com.codenvy.flux.watcher.core.Resource} instance.
+     * @throws java.lang.NullPointerException
+     *         if {@code path}, {@code hash} or {@code contentSource} parameter is {@code null}.
+     */
+    public static Resource newFile(String path, long timestamp, String hash, ByteSource contentSource) {
+        return new Resource(path, timestamp, FILE, checkNotNull(hash), null, checkNotNull(contentSource));
+    }
+
     /**
      * Constructs an instance of {@link com.codenvy.flux.watcher.core.Resource}.
      *
@@ -96,11 +140,35 @@ public class Resource {
      *         if {@code path} or {@code type} parameter is {@code null}.
      */
     private Resource(String path, long timestamp, ResourceType type, byte[] content) {
+        this(path, timestamp, type, content != null ? null : NULL_CONTENT_HASH, content, content != null ? ByteSource.wrap(content) : null);
+    }
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.core.Resource}.
+     *
+     * @param path
+     *         the {@link com.codenvy.flux.watcher.core.Resource} relative path.
+     * @param timestamp
+     *         the {@link com.codenvy.flux.watcher.core.Resource} timestamp.
+     * @param type
+     *         the {@link com.codenvy.flux.watcher.core.Resource} {@link Resource.ResourceType}.
+     * @param hash
+     *         the {@link com.codenvy.flux.watcher.core.Resource} content hash or {@code null} to compute it on first access.
+     * @param content
+     *         the {@link com.codenvy.flux.watcher.core.Resource} content or {@code null} if not loaded.
+     * @param contentSource
+     *         the {@link com.google.common.io.ByteSource} supplying the {@link com.codenvy.flux.watcher.core.Resource} content
+     *         or {@code null} if none.
+     * @throws java.lang.NullPointerException
+     *         if {@code path} or {@code type} parameter is {@code null}.
+     */
+    private Resource(String path, long timestamp, ResourceType type, String hash, byte[] content, ByteSource contentSource) {
         this.path = checkNotNull(path);
         this.timestamp = timestamp;
         this.type = checkNotNull(type);
+        this.hash = hash;
         this.content = content;
-        hash = content != null ? ResourceHelper.sha1(content) : NULL_CONTENT_HASH;
+        this.contentSource = contentSource;
     }
 
     /**
@@ -122,12 +190,18 @@ public class Resource {
     }
 
     /**
-     * Returns the type hash this {@link com.codenvy.flux.watcher.core.Resource}.
+     * Returns the hash of this {@link com.codenvy.flux.watcher.core.Resource}. For a lazy {@link
+     * com.codenvy.flux.watcher.core.Resource} the content is streamed to compute the hash on first access.
      *
      * @return this {@link com.codenvy.flux.watcher.core.Resource} hash, never {@code null}.
      */
     public String hash() {
-        return hash;
+        // racy single-check idiom, computing the hash twice is harmless
+        String result = hash;
+        if (result == null) {
+            hash = result = ResourceHelper.sha1(contentSource);
+        }
+        return result;
     }
 
     /**
@@ -140,12 +214,35 @@ public class Resource {
     }
 
     /**
-     * Returns the content of this {@link com.codenvy.flux.watcher.core.Resource}.
+     * Returns the content of this {@link com.codenvy.flux.watcher.core.Resource}. For a lazy {@link
+     * com.codenvy.flux.watcher.core.Resource} the content is read from its {@link com.google.common.io.ByteSource} on each
+     * call, prefer {@link #contentSource()} to stream it.
      *
      * @return this {@link com.codenvy.flux.watcher.core.Resource} content, {@code null} if none.
      */
     public byte[] content() {
-        return content;
+        if (content != null || contentSource == null) {
+            return content;
+        }
+
+        try {
+
+            return contentSource.read();
+
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Returns the {@link com.google.common.io.ByteSource} supplying the content of this {@link
+     * com.codenvy.flux.watcher.core.Resource}.
+     *
+     * @return this {@link com.codenvy.flux.watcher.core.Resource} content {@link com.google.common.io.ByteSource}, {@code null}
+     * if none.
+     */
+    public ByteSource contentSource() {
+        return contentSource;
     }
 
     /**
@@ -0,0 +1,548 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core;
+
+import com.codenvy.flux.watcher.core.utils.ResourceHelper;
+import com.codenvy.flux.watcher.core.utils.ResourceHelper.HashAlgorithm;
+import com.google.common.io.ByteSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static com.codenvy.flux.watcher.core.Resource.ResourceType;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FILE;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FOLDER;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.exists;
+import static java.nio.file.Files.move;
+import static java.nio.file.Files.newInputStream;
+import static java.nio.file.Files.newOutputStream;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Metadata index of the {@link com.codenvy.flux.watcher.core.Resource} of a project. Each relative resource path is mapped to
+ * its type, timestamp, size, hash and checksum, so that listing a project does not require to read and hash every file again.
+ * <p/>
+ * A file hash stays valid as long as the file timestamp and size are unchanged. The hash is the sha1 exchanged with the other
+ * Flux participants, the checksum is computed with the configured {@link
+ * com.codenvy.flux.watcher.core.utils.ResourceHelper.HashAlgorithm} and only detects local changes: when an outdated file has
+ * the same size and checksum as before, its sha1 is reused instead of being computed again. The index can be persisted to
+ * disk, so that after a restart only the files modified in the meantime have to be hashed again. The checksums of a persisted
+ * index computed with another {@link com.codenvy.flux.watcher.core.utils.ResourceHelper.HashAlgorithm} are dropped.
+ *
+ * @author Kevin Pollet
+ */
+public class ResourceIndex {
+    private static final Logger LOG = LoggerFactory.getLogger(ResourceIndex.class);
+
+    private static final int  FORMAT_MAGIC     = 0x464c5849;
+    private static final int  FORMAT_VERSION   = 3;
+    private static final char PATH_SEPARATOR   = '/';
+    private static final char PATH_UPPER_BOUND = '\uffff';
+
+    private final ConcurrentNavigableMap<String, Entry> entries;
+    private final Path                                  indexFile;
+    private final HashAlgorithm                         checksumAlgorithm;
+    private volatile boolean                            dirty;
+
+    /**
+     * Constructs an in-memory instance of {@link com.codenvy.flux.watcher.core.ResourceIndex}.
+     */
+    public ResourceIndex() {
+        this(null);
+    }
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.core.ResourceIndex} persisted in the given file.
+     *
+     * @param indexFile
+     *         the {@link java.nio.file.Path} of the file used to persist the index or {@code null} to keep it in memory only.
+     */
+    public ResourceIndex(Path indexFile) {
+        this(indexFile, ResourceHelper.checksumAlgorithm());
+    }
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.core.ResourceIndex} persisted in the given file and computing
+     * the checksums with the given {@link com.codenvy.flux.watcher.core.utils.ResourceHelper.HashAlgorithm}.
+     *
+     * @param indexFile
+     *         the {@link java.nio.file.Path} of the file used to persist the index or {@code null} to keep it in memory only.
+     * @param checksumAlgorithm
+     *         the {@link com.codenvy.flux.watcher.core.utils.ResourceHelper.HashAlgorithm} of the checksums.
+     * @throws java.lang.NullPointerException
+     *         if {@code checksumAlgorithm} parameter is {@code null}.
+     */
+    ResourceIndex(Path indexFile, HashAlgorithm checksumAlgorithm) {
+        this.indexFile = indexFile;
+        this.checksumAlgorithm = checkNotNull(checksumAlgorithm);
+        this.entries = new ConcurrentSkipListMap<>();
+        this.dirty = false;
+    }
+
+    /**
+     * Returns the {@link com.codenvy.flux.watcher.core.ResourceIndex.Entry} for the given relative resource path.
+     *
+     * @param path
+     *         the relative resource path.
+     * @return the {@link com.codenvy.flux.watcher.core.ResourceIndex.Entry} or {@code null} if none.
+     * @throws java.lang.NullPointerException
+     *         if {@code path} parameter is {@code null}.
+     */
+    public Entry get(String path) {
+        return entries.get(checkNotNull(path));
+    }
+
+    /**
+     * Returns the {@link com.codenvy.flux.watcher.core.ResourceIndex.Entry} for the given relative resource path if it is still
+     * up to date with the given type, timestamp and size.
+     *
+     * @param path
+     *         the relative resource path.
+     * @param type
+     *         the current resource {@link com.codenvy.flux.watcher.core.Resource.ResourceType}.
+     * @param timestamp
+     *         the current resource timestamp.
+     * @param size
+     *         the current resource size.
+     * @return the {@link com.codenvy.flux.watcher.core.ResourceIndex.Entry} or {@code null} if none or outdated.
+     * @throws java.lang.NullPointerException
+     *         if {@code path} or {@code type} parameter is {@code null}.
+     */
+    public Entry getIfUpToDate(String path, ResourceType type, long timestamp, long size) {
+        checkNotNull(type);
+
+        final Entry entry = get(path);
+        if (entry != null && entry.type == type && entry.timestamp == timestamp && entry.size == size) {
+            return entry;
+        }
+        return null;
+    }
+
+    /**
+     * Adds or replaces the given {@link com.codenvy.flux.watcher.core.ResourceIndex.Entry}.
+     *
+     * @param entry
+     *         the {@link com.codenvy.flux.watcher.core.ResourceIndex.Entry} to add.
+     * @return the added {@link com.codenvy.flux.watcher.core.ResourceIndex.Entry}, never {@code null}.
+     * @throws java.lang.NullPointerException
+     *         if {@code entry} parameter is {@code null}.
+     */
+    public Entry put(Entry entry) {
+        checkNotNull(entry);
+
+        final Entry previous = entries.put(entry.path, entry);
+        if (!entry.equals(previous)) {
+            dirty = true;
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the {@link com.codenvy.flux.watcher.core.Resource} of the folder with the given relative path, its entry is
+     * added or replaced if it is not up to date.
+     *
+     * @param path
+     *         the relative folder path.
+     * @param timestamp
+     *         the folder timestamp.
+     * @return the folder {@link com.codenvy.flux.watcher.core.Resource}, never {@code null}.
+     * @throws java.lang.NullPointerException
+     *         if {@code path} parameter is {@code null}.
+     */
+    public Resource indexFolder(String path, long timestamp) {
+        final Resource folder = Resource.newFolder(path, timestamp);
+        if (getIfUpToDate(path, FOLDER, timestamp, 0) == null) {
+            put(new Entry(path, FOLDER, timestamp, 0, folder.hash()));
+        }
+        return folder;
+    }
+
+    /**
+     * Returns the {@link com.codenvy.flux.watcher.core.Resource} of the file with the given relative path. The content is read
+     * only if the entry of the file is not up to date, the entry is then added or replaced. The sha1 of the previous entry is
+     * kept if the content checksum is unchanged.
+     *
+     * @param path
+     *         the relative file path.
+     * @param timestamp
+     *         the file timestamp.
+     * @param size
+     *         the file size.
+     * @param contentSource
+     *         the {@link com.google.common.io.ByteSource} supplying the file content.
+     * @return the file {@link com.codenvy.flux.watcher.core.Resource}, never {@code null}.
+     * @throws java.lang.NullPointerException
+     *         if {@code path} or {@code contentSource} parameter is {@code null}.
+     */
+    public Resource indexFile(String path, long timestamp, long size, ByteSource contentSource) {
+        checkNotNull(contentSource);
+
+        Entry entry = getIfUpToDate(path, FILE, timestamp, size);
+        if (entry == null) {
+            entry = put(newFileEntry(path, timestamp, size, contentSource));
+        }
+        return Resource.newFile(path, timestamp, entry.hash(), contentSource);
+    }
+
+    /**
+     * Returns a new file {@link com.codenvy.flux.watcher.core.ResourceIndex.Entry} for the given content. A file with the same
+     * size as its previous entry may only have been touched, its checksum is computed first and the previous sha1 is reused if
+     * the checksum is unchanged. Otherwise the sha1 and the checksum are computed in a single read of the content.
+     */
+    private Entry newFileEntry(String path, long timestamp, long size, ByteSource contentSource) {
+        if (checksumAlgorithm == HashAlgorithm.SHA1) {
+            final String hash = ResourceHelper.sha1(contentSource);
+            return new Entry(path, FILE, timestamp, size, hash, hash);
+        }
+
+        final Entry previous = get(path);
+        if (previous != null && previous.type == FILE && previous.size == size && previous.checksum != null) {
+            final String checksum = ResourceHelper.hash(checksumAlgorithm, contentSource);
+            if (checksum.equals(previous.checksum)) {
+                return new Entry(path, FILE, timestamp, size, previous.hash, checksum);
+            }
+            return new Entry(path, FILE, timestamp, size, ResourceHelper.sha1(contentSource), checksum);
+        }
+
+        final List<String> hashes = ResourceHelper.hash(contentSource, HashAlgorithm.SHA1, checksumAlgorithm);
+        return new Entry(path, FILE, timestamp, size, hashes.get(0), hashes.get(1));
+    }
+
+    /**
+     * Removes the entry for the given relative resource path and the entries of all its children.
+     *
+     * @param path
+     *         the relative resource path.
+     * @throws java.lang.NullPointerException
+     *         if {@code path} parameter is {@code null}.
+     */
+    public void remove(String path) {
+        checkNotNull(path);
+
+        boolean removed = entries.remove(path) != null;
+
+        final ConcurrentNavigableMap<String, Entry> children = entries.subMap(path + PATH_SEPARATOR, path + PATH_SEPARATOR + PATH_UPPER_BOUND);
+        if (!children.isEmpty()) {
+            children.clear();
+            removed = true;
+        }
+
+        if (removed) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Retains only the entries for the given relative resource paths.
+     *
+     * @param paths
+     *         the {@link java.util.Set} of relative resource paths to retain.
+     * @throws java.lang.NullPointerException
+     *         if {@code paths} parameter is {@code null}.
+     */
+    public void retain(Set<String> paths) {
+        checkNotNull(paths);
+
+        if (entries.keySet().retainAll(paths)) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Returns the entries of the direct children of the given relative folder path.
+     *
+     * @param path
+     *         the relative folder path, the empty path for the project root.
+     * @return the {@link java.util.List} of {@link com.codenvy.flux.watcher.core.ResourceIndex.Entry} sorted by path, never
+     * {@code null}.
+     * @throws java.lang.NullPointerException
+     *         if {@code path} parameter is {@code null}.
+     */
+    public List<Entry> children(String path) {
+        final String prefix = checkNotNull(path).isEmpty() ? "" : path + PATH_SEPARATOR;
+        final Collection<Entry> descendants = prefix.isEmpty() ? entries.values()
+                                                               : entries.subMap(prefix, prefix + PATH_UPPER_BOUND).values();
+
+        final List<Entry> children = new ArrayList<>();
+        for (Entry oneEntry : descendants) {
+            if (oneEntry.path.indexOf(PATH_SEPARATOR, prefix.length()) < 0) {
+                children.add(oneEntry);
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Returns all entries of this index sorted by path.
+     *
+     * @return an unmodifiable {@link java.util.Collection} of {@link com.codenvy.flux.watcher.core.ResourceIndex.Entry}, never
+     * {@code null}.
+     */
+    public Collection<Entry> entries() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    /**
+     * Returns the number of entries in this index.
+     *
+     * @return the number of entries.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Loads this index from its file. Does nothing if the index is not persisted or the file doesn't exist. A corrupted file
+     * is ignored and the index is left empty.
+     */
+    public void load() {
+        if (indexFile == null || !exists(indexFile)) {
+            return;
+        }
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(newInputStream(indexFile)))) {
+            if (input.readInt() != FORMAT_MAGIC || input.readInt() != FORMAT_VERSION) {
+                LOG.warn("Ignoring index file {} with unknown format", indexFile);
+                return;
+            }
+            final boolean sameChecksumAlgorithm = input.readUTF().equals(checksumAlgorithm.name());
+            if (!sameChecksumAlgorithm) {
+                LOG.info("Dropping the checksums of index file {} computed with another algorithm", indexFile);
+            }
+
+            final int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                final String path = input.readUTF();
+                final ResourceType type = ResourceType.values()[input.readByte()];
+                final long timestamp = input.readLong();
+                final long size = input.readLong();
+                final String hash = input.readUTF();
+                final String checksum = input.readUTF();
+
+                entries.put(path, new Entry(path, type, timestamp, size, hash,
+                                            sameChecksumAlgorithm && !checksum.isEmpty() ? checksum : null));
+            }
+            dirty = false;
+
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Ignoring corrupted index file " + indexFile, e);
+            entries.clear();
+        }
+    }
+
+    /**
+     * Saves this index to its file if it has been modified since the last load or save. The file is replaced atomically. Does
+     * nothing if the index is not persisted.
+     */
+    public void save() {
+        if (indexFile == null || !dirty) {
+            return;
+        }
+
+        final Path tempIndexFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try {
+
+            if (indexFile.getParent() != null) {
+                createDirectories(indexFile.getParent());
+            }
+
+            dirty = false;
+            final List<Entry> snapshot = new ArrayList<>(entries.values());
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(newOutputStream(tempIndexFile)))) {
+                output.writeInt(FORMAT_MAGIC);
+                output.writeInt(FORMAT_VERSION);
+                output.writeUTF(checksumAlgorithm.name());
+                output.writeInt(snapshot.size());
+
+                for (Entry oneEntry : snapshot) {
+                    output.writeUTF(oneEntry.path);
+                    output.writeByte(oneEntry.type.ordinal());
+                    output.writeLong(oneEntry.timestamp);
+                    output.writeLong(oneEntry.size);
+                    output.writeUTF(oneEntry.hash);
+                    output.writeUTF(oneEntry.checksum == null ? "" : oneEntry.checksum);
+                }
+            }
+
+            move(tempIndexFile, indexFile, REPLACE_EXISTING, ATOMIC_MOVE);
+
+        } catch (IOException e) {
+            dirty = true;
+            LOG.warn("Unable to save index file " + indexFile, e);
+            try {
+                deleteIfExists(tempIndexFile);
+            } catch (IOException ignored) {
+                // best effort
+            }
+        }
+    }
+
+    /**
+     * An entry of a {@link com.codenvy.flux.watcher.core.ResourceIndex}.
+     *
+     * @author Kevin Pollet
+     */
+    public static final class Entry {
+        private final String       path;
+        private final ResourceType type;
+        private final long         timestamp;
+        private final long         size;
+        private final String       hash;
+        private final String       checksum;
+
+        /**
+         * Constructs an instance of {@link com.codenvy.flux.watcher.core.ResourceIndex.Entry} without checksum.
+         *
+         * @param path
+         *         the relative resource path.
+         * @param type
+         *         the resource {@link com.codenvy.flux.watcher.core.Resource.ResourceType}.
+         * @param timestamp
+         *         the resource timestamp.
+         * @param size
+         *         the resource size.
+         * @param hash
+         *         the resource hash.
+         * @throws java.lang.NullPointerException
+         *         if {@code path}, {@code type} or {@code hash} parameter is {@code null}.
+         */
+        public Entry(String path, ResourceType type, long timestamp, long size, String hash) {
+            this(path, type, timestamp, size, hash, null);
+        }
+
+        /**
+         * Constructs an instance of {@link com.codenvy.flux.watcher.core.ResourceIndex.Entry}.
+         *
+         * @param path
+         *         the relative resource path.
+         * @param type
+         *         the resource {@link com.codenvy.flux.watcher.core.Resource.ResourceType}.
+         * @param timestamp
+         *         the resource timestamp.
+         * @param size
+         *         the resource size.
+         * @param hash
+         *         the resource sha1 hash.
+         * @param checksum
+         *         the resource checksum or {@code null} if unknown.
+         * @throws java.lang.NullPointerException
+         *         if {@code path}, {@code type} or {@code hash} parameter is {@code null}.
+         */
+        public Entry(String path, ResourceType type, long timestamp, long size, String hash, String checksum) {
+            this.path = checkNotNull(path);
+            this.type = checkNotNull(type);
+            this.timestamp = timestamp;
+            this.size = size;
+            this.hash = checkNotNull(hash);
+            this.checksum = checksum;
+        }
+
+        /**
+         * Returns the relative resource path.
+         *
+         * @return the relative resource path, never {@code null}.
+         */
+        public String path() {
+            return path;
+        }
+
+        /**
+         * Returns the resource {@link com.codenvy.flux.watcher.core.Resource.ResourceType}.
+         *
+         * @return the resource {@link com.codenvy.flux.watcher.core.Resource.ResourceType}, never {@code null}.
+         */
+        public ResourceType type() {
+            return type;
+        }
+
+        /**
+         * Returns the resource timestamp.
+         *
+         * @return the resource timestamp.
+         */
+        public long timestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Returns the resource size.
+         *
+         * @return the resource size.
+         */
+        public long size() {
+            return size;
+        }
+
+        /**
+         * Returns the resource sha1 hash.
+         *
+         * @return the resource sha1 hash, never {@code null}.
+         */
+        public String hash() {
+            return hash;
+        }
+
+        /**
+         * Returns the resource checksum, only meaningful for local change detection.
+         *
+         * @return the resource checksum or {@code null} if unknown.
+         */
+        public String checksum() {
+            return checksum;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Entry that = (Entry)o;
+
+            if (timestamp != that.timestamp) return false;
+            if (size != that.size) return false;
+            if (!path.equals(that.path)) return false;
+            if (type != that.type) return false;
+            if (!hash.equals(that.hash)) return false;
+            if (checksum != null ? !checksum.equals(that.checksum) : that.checksum != null) return false;
+
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = path.hashCode();
+            result = 31 * result + type.hashCode();
+            result = 31 * result + (int)(timestamp ^ (timestamp >>> 32));
+            result = 31 * result + (int)(size ^ (size >>> 32));
+            result = 31 * result + hash.hashCode();
+            result = 31 * result + (checksum != null ? checksum.hashCode() : 0);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.codec;
+
+import com.codenvy.flux.watcher.core.FluxMessageType;
+
+import org.json.JSONException;
+
+/**
+ * Codec between the content of a {@link com.codenvy.flux.watcher.core.FluxMessage} and a typed record.
+ * <p/>
+ * The record fields are streamed into an object opened by the caller, so that the fields used to route the message, like the
+ * username or the callback id, can be written along by the connection. The decoding reads the whole content object and skips
+ * the fields unknown to the record.
+ *
+ * @param <T>
+ *         the record type.
+ * @author Kevin Pollet
+ */
+public interface FluxMessageCodec<T> {
+    /**
+     * Returns the type of the messages encoded by this codec.
+     *
+     * @return the {@link com.codenvy.flux.watcher.core.FluxMessageType}, never {@code null}.
+     */
+    FluxMessageType type();
+
+    /**
+     * Writes the fields of the given record into the current object of the given writer.
+     *
+     * @param record
+     *         the record to encode.
+     * @param writer
+     *         the {@link com.codenvy.flux.watcher.core.codec.JsonWriter}.
+     * @throws java.lang.NullPointerException
+     *         if {@code record} or {@code writer} parameter is {@code null}.
+     */
+    void encode(T record, JsonWriter writer);
+
+    /**
+     * Reads a record from the message content object of the given reader.
+     *
+     * @param reader
+     *         the {@link com.codenvy.flux.watcher.core.codec.JsonReader}.
+     * @return the decoded record, never {@code null}.
+     * @throws java.lang.NullPointerException
+     *         if {@code reader} parameter is {@code null}.
+     * @throws org.json.JSONException
+     *         if the content is malformed or if a required field is missing.
+     */
+    T decode(JsonReader reader) throws JSONException;
+}
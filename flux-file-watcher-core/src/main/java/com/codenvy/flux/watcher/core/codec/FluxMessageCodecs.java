@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.codec;
+
+import com.codenvy.flux.watcher.core.FluxMessageType;
+
+import org.json.JSONException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CONTINUATION;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.DELETED;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.FILES;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.HASH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.INCLUDE_DELETED;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PAGE_SIZE;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PATH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PROJECT;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.TIMESTAMP;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.TYPE;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.UNKNOWN;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The {@link com.codenvy.flux.watcher.core.codec.FluxMessageCodec} of the typed Flux messages. The project listing messages
+ * are the largest ones, their codecs stream the resources without building a {@link org.json.JSONObject} per resource.
+ *
+ * @author Kevin Pollet
+ */
+public final class FluxMessageCodecs {
+    /**
+     * The {@link com.codenvy.flux.watcher.core.FluxMessageType#GET_PROJECT_REQUEST} codec.
+     */
+    public static final FluxMessageCodec<GetProjectRequest>  GET_PROJECT_REQUEST  = new GetProjectRequestCodec();
+    /**
+     * The {@link com.codenvy.flux.watcher.core.FluxMessageType#GET_PROJECT_RESPONSE} codec.
+     */
+    public static final FluxMessageCodec<GetProjectResponse> GET_PROJECT_RESPONSE = new GetProjectResponseCodec();
+
+    /**
+     * Disable instantiation.
+     */
+    private FluxMessageCodecs() {
+    }
+
+    private static final class GetProjectRequestCodec implements FluxMessageCodec<GetProjectRequest> {
+        @Override
+        public FluxMessageType type() {
+            return FluxMessageType.GET_PROJECT_REQUEST;
+        }
+
+        @Override
+        public void encode(GetProjectRequest record, JsonWriter writer) {
+            checkNotNull(record);
+            checkNotNull(writer);
+
+            writer.name(PROJECT.value()).value(record.project());
+            if (record.includeDeleted()) {
+                writer.name(INCLUDE_DELETED.value()).value(true);
+            }
+            if (record.pageSize() > 0) {
+                writer.name(PAGE_SIZE.value()).value(record.pageSize());
+            }
+            if (record.continuation() != null) {
+                writer.name(CONTINUATION.value()).value(record.continuation());
+            }
+        }
+
+        @Override
+        public GetProjectRequest decode(JsonReader reader) throws JSONException {
+            checkNotNull(reader);
+
+            String project = null;
+            boolean includeDeleted = false;
+            String continuation = null;
+            long pageSize = 0;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                final String name = reader.nextName();
+                if (PROJECT.value().equals(name)) {
+                    project = reader.nextString();
+                } else if (INCLUDE_DELETED.value().equals(name) && reader.peek() == JsonReader.Token.BOOLEAN) {
+                    includeDeleted = reader.nextBoolean();
+                } else if (CONTINUATION.value().equals(name) && reader.peek() == JsonReader.Token.STRING) {
+                    continuation = reader.nextString();
+                } else if (PAGE_SIZE.value().equals(name)) {
+                    pageSize = reader.nextLong();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (pageSize < 0 || pageSize > Integer.MAX_VALUE) {
+                throw new JSONException("Invalid page size " + pageSize);
+            }
+            return new GetProjectRequest(required(project, PROJECT.value()), includeDeleted, continuation, (int)pageSize);
+        }
+    }
+
+    private static final class GetProjectResponseCodec implements FluxMessageCodec<GetProjectResponse> {
+        @Override
+        public FluxMessageType type() {
+            return FluxMessageType.GET_PROJECT_RESPONSE;
+        }
+
+        @Override
+        public void encode(GetProjectResponse record, JsonWriter writer) {
+            checkNotNull(record);
+            checkNotNull(writer);
+
+            writer.name(PROJECT.value()).value(record.project());
+            writer.name(FILES.value());
+            encodeEntries(record.files(), writer);
+
+            // the remotes consider a missing deleted list as empty
+            if (!record.deleted().isEmpty()) {
+                writer.name(DELETED.value());
+                encodeEntries(record.deleted(), writer);
+            }
+            if (record.continuation() != null) {
+                writer.name(CONTINUATION.value()).value(record.continuation());
+            }
+        }
+
+        @Override
+        public GetProjectResponse decode(JsonReader reader) throws JSONException {
+            checkNotNull(reader);
+
+            String project = null;
+            List<ResourceEntry> files = null;
+            List<ResourceEntry> deleted = Collections.emptyList();
+            String continuation = null;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                final String name = reader.nextName();
+                if (PROJECT.value().equals(name)) {
+                    project = reader.nextString();
+                } else if (FILES.value().equals(name)) {
+                    files = decodeEntries(reader);
+                } else if (DELETED.value().equals(name) && reader.peek() == JsonReader.Token.BEGIN_ARRAY) {
+                    deleted = decodeEntries(reader);
+                } else if (CONTINUATION.value().equals(name) && reader.peek() == JsonReader.Token.STRING) {
+                    continuation = reader.nextString();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            return new GetProjectResponse(required(project, PROJECT.value()), required(files, FILES.value()), deleted,
+                                          continuation);
+        }
+
+        private static void encodeEntries(List<ResourceEntry> entries, JsonWriter writer) {
+            writer.beginArray();
+            for (ResourceEntry oneEntry : entries) {
+                writer.beginObject()
+                      .name(PATH.value()).value(oneEntry.path())
+                      .name(TIMESTAMP.value()).value(oneEntry.timestamp())
+                      .name(HASH.value()).value(oneEntry.hash())
+                      .name(TYPE.value()).value(oneEntry.type().name().toLowerCase(Locale.ENGLISH))
+                      .endObject();
+            }
+            writer.endArray();
+        }
+
+        private static List<ResourceEntry> decodeEntries(JsonReader reader) throws JSONException {
+            final List<ResourceEntry> entries = new ArrayList<>();
+
+            reader.beginArray();
+            while (reader.hasNext()) {
+                String path = null;
+                Long timestamp = null;
+                ResourceType type = UNKNOWN;
+                String hash = "0";
+
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    final String name = reader.nextName();
+                    if (PATH.value().equals(name)) {
+                        path = reader.nextString();
+                    } else if (TIMESTAMP.value().equals(name)) {
+                        timestamp = reader.nextLong();
+                    } else if (TYPE.value().equals(name)) {
+                        type = typeOf(reader.nextString());
+                    } else if (HASH.value().equals(name)) {
+                        hash = reader.nextString();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+
+                entries.add(new ResourceEntry(required(path, PATH.value()), required(timestamp, TIMESTAMP.value()), type, hash));
+            }
+            reader.endArray();
+
+            return entries;
+        }
+
+        private static ResourceType typeOf(String type) throws JSONException {
+            try {
+
+                return ResourceType.valueOf(type.toUpperCase(Locale.ENGLISH));
+
+            } catch (IllegalArgumentException e) {
+                throw new JSONException("Unknown resource type " + type);
+            }
+        }
+    }
+
+    private static <T> T required(T value, String name) throws JSONException {
+        if (value == null) {
+            throw new JSONException("JSONObject[\"" + name + "\"] not found.");
+        }
+        return value;
+    }
+}
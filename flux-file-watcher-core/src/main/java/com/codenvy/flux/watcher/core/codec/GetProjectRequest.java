@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.codec;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Record of a {@link com.codenvy.flux.watcher.core.FluxMessageType#GET_PROJECT_REQUEST} message.
+ *
+ * @author Kevin Pollet
+ */
+public final class GetProjectRequest {
+    private final String  project;
+    private final boolean includeDeleted;
+    private final String  continuation;
+    private final int     pageSize;
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.core.codec.GetProjectRequest}.
+     *
+     * @param project
+     *         the project id.
+     * @param includeDeleted
+     *         {@code true} if the deleted resources are requested, {@code false} otherwise.
+     * @throws java.lang.NullPointerException
+     *         if {@code project} parameter is {@code null}.
+     */
+    public GetProjectRequest(String project, boolean includeDeleted) {
+        this(project, includeDeleted, null, 0);
+    }
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.core.codec.GetProjectRequest} requesting a page of the project
+     * listing.
+     *
+     * @param project
+     *         the project id.
+     * @param includeDeleted
+     *         {@code true} if the deleted resources are requested, {@code false} otherwise.
+     * @param continuation
+     *         the continuation token of the previous page or {@code null} for the first page.
+     * @param pageSize
+     *         the maximum number of resources in the page or {@code 0} for the whole listing.
+     * @throws java.lang.NullPointerException
+     *         if {@code project} parameter is {@code null}.
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code pageSize} is negative.
+     */
+    public GetProjectRequest(String project, boolean includeDeleted, String continuation, int pageSize) {
+        checkArgument(pageSize >= 0);
+
+        this.project = checkNotNull(project);
+        this.includeDeleted = includeDeleted;
+        this.continuation = continuation;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Returns the project id.
+     *
+     * @return the project id, never {@code null}.
+     */
+    public String project() {
+        return project;
+    }
+
+    /**
+     * Returns if the deleted resources are requested.
+     *
+     * @return {@code true} if the deleted resources are requested, {@code false} otherwise.
+     */
+    public boolean includeDeleted() {
+        return includeDeleted;
+    }
+
+    /**
+     * Returns the continuation token of the previous page.
+     *
+     * @return the continuation token or {@code null} for the first page.
+     */
+    public String continuation() {
+        return continuation;
+    }
+
+    /**
+     * Returns the maximum number of resources in the page.
+     *
+     * @return the page size or {@code 0} for the whole listing.
+     */
+    public int pageSize() {
+        return pageSize;
+    }
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.codec;
+
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Record of a {@link com.codenvy.flux.watcher.core.FluxMessageType#GET_PROJECT_RESPONSE} message.
+ *
+ * @author Kevin Pollet
+ */
+public final class GetProjectResponse {
+    private final String              project;
+    private final List<ResourceEntry> files;
+    private final List<ResourceEntry> deleted;
+    private final String              continuation;
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.core.codec.GetProjectResponse}.
+     *
+     * @param project
+     *         the project id.
+     * @param files
+     *         the project resources.
+     * @param deleted
+     *         the project deleted resources.
+     * @throws java.lang.NullPointerException
+     *         if {@code project}, {@code files} or {@code deleted} parameter is {@code null}.
+     */
+    public GetProjectResponse(String project, List<ResourceEntry> files, List<ResourceEntry> deleted) {
+        this(project, files, deleted, null);
+    }
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.core.codec.GetProjectResponse} for a page of the project
+     * listing.
+     *
+     * @param project
+     *         the project id.
+     * @param files
+     *         the project resources of the page.
+     * @param deleted
+     *         the project deleted resources.
+     * @param continuation
+     *         the token to request the next page or {@code null} if this page is the last one.
+     * @throws java.lang.NullPointerException
+     *         if {@code project}, {@code files} or {@code deleted} parameter is {@code null}.
+     */
+    public GetProjectResponse(String project, List<ResourceEntry> files, List<ResourceEntry> deleted, String continuation) {
+        this.project = checkNotNull(project);
+        this.files = checkNotNull(files);
+        this.deleted = checkNotNull(deleted);
+        this.continuation = continuation;
+    }
+
+    /**
+     * Returns the project id.
+     *
+     * @return the project id, never {@code null}.
+     */
+    public String project() {
+        return project;
+    }
+
+    /**
+     * Returns the project resources.
+     *
+     * @return an unmodifiable {@link java.util.List} of {@link com.codenvy.flux.watcher.core.codec.ResourceEntry}, never
+     * {@code null}.
+     */
+    public List<ResourceEntry> files() {
+        return Collections.unmodifiableList(files);
+    }
+
+    /**
+     * Returns the project deleted resources.
+     *
+     * @return an unmodifiable {@link java.util.List} of {@link com.codenvy.flux.watcher.core.codec.ResourceEntry}, never
+     * {@code null}.
+     */
+    public List<ResourceEntry> deleted() {
+        return Collections.unmodifiableList(deleted);
+    }
+
+    /**
+     * Returns the token to request the next page of the listing.
+     *
+     * @return the continuation token or {@code null} if this page is the last one.
+     */
+    public String continuation() {
+        return continuation;
+    }
+}
@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.codec;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Pull reader of the tokens of a Flux message content. A {@link com.codenvy.flux.watcher.core.codec.FluxMessageCodec} decodes
+ * a message with a {@link com.codenvy.flux.watcher.core.codec.JsonReader} whatever the message source: the reader returned by
+ * {@link #of(String)} parses the serialized content as a stream, the reader returned by {@link #of(org.json.JSONObject)} walks
+ * the content already parsed by the socket.io transport.
+ *
+ * @author Kevin Pollet
+ */
+public abstract class JsonReader {
+    /**
+     * The tokens returned by {@link #peek()}.
+     */
+    public enum Token {
+        BEGIN_OBJECT,
+        END_OBJECT,
+        BEGIN_ARRAY,
+        END_ARRAY,
+        NAME,
+        STRING,
+        NUMBER,
+        BOOLEAN,
+        NULL,
+        END_DOCUMENT
+    }
+
+    /**
+     * Returns a {@link com.codenvy.flux.watcher.core.codec.JsonReader} parsing the given serialized JSON value.
+     *
+     * @param json
+     *         the serialized JSON value.
+     * @return the {@link com.codenvy.flux.watcher.core.codec.JsonReader}, never {@code null}.
+     * @throws java.lang.NullPointerException
+     *         if {@code json} parameter is {@code null}.
+     */
+    public static JsonReader of(String json) {
+        return new StringJsonReader(checkNotNull(json));
+    }
+
+    /**
+     * Returns a {@link com.codenvy.flux.watcher.core.codec.JsonReader} walking the given {@link org.json.JSONObject}.
+     *
+     * @param content
+     *         the {@link org.json.JSONObject}.
+     * @return the {@link com.codenvy.flux.watcher.core.codec.JsonReader}, never {@code null}.
+     * @throws java.lang.NullPointerException
+     *         if {@code content} parameter is {@code null}.
+     */
+    public static JsonReader of(JSONObject content) {
+        return new TreeJsonReader(checkNotNull(content));
+    }
+
+    /**
+     * Returns the next token without consuming it.
+     *
+     * @return the next {@link com.codenvy.flux.watcher.core.codec.JsonReader.Token}, never {@code null}.
+     * @throws org.json.JSONException
+     *         if the JSON is malformed.
+     */
+    public abstract Token peek() throws JSONException;
+
+    /**
+     * Consumes the beginning of an object.
+     *
+     * @throws org.json.JSONException
+     *         if the next token is not {@link com.codenvy.flux.watcher.core.codec.JsonReader.Token#BEGIN_OBJECT}.
+     */
+    public abstract void beginObject() throws JSONException;
+
+    /**
+     * Consumes the end of an object.
+     *
+     * @throws org.json.JSONException
+     *         if the next token is not {@link com.codenvy.flux.watcher.core.codec.JsonReader.Token#END_OBJECT}.
+     */
+    public abstract void endObject() throws JSONException;
+
+    /**
+     * Consumes the beginning of an array.
+     *
+     * @throws org.json.JSONException
+     *         if the next token is not {@link com.codenvy.flux.watcher.core.codec.JsonReader.Token#BEGIN_ARRAY}.
+     */
+    public abstract void beginArray() throws JSONException;
+
+    /**
+     * Consumes the end of an array.
+     *
+     * @throws org.json.JSONException
+     *         if the next token is not {@link com.codenvy.flux.watcher.core.codec.JsonReader.Token#END_ARRAY}.
+     */
+    public abstract void endArray() throws JSONException;
+
+    /**
+     * Consumes the name of the next field of the current object.
+     *
+     * @return the field name, never {@code null}.
+     * @throws org.json.JSONException
+     *         if the next token is not {@link com.codenvy.flux.watcher.core.codec.JsonReader.Token#NAME}.
+     */
+    public abstract String nextName() throws JSONException;
+
+    /**
+     * Consumes a string value, a number value is returned as its text.
+     *
+     * @return the string value, never {@code null}.
+     * @throws org.json.JSONException
+     *         if the next token is not {@link com.codenvy.flux.watcher.core.codec.JsonReader.Token#STRING} or {@link
+     *         com.codenvy.flux.watcher.core.codec.JsonReader.Token#NUMBER}.
+     */
+    public abstract String nextString() throws JSONException;
+
+    /**
+     * Consumes a number value, a string value is parsed as a number.
+     *
+     * @return the number value.
+     * @throws org.json.JSONException
+     *         if the next token is not a number or a string containing a number.
+     */
+    public abstract long nextLong() throws JSONException;
+
+    /**
+     * Consumes a boolean value.
+     *
+     * @return the boolean value.
+     * @throws org.json.JSONException
+     *         if the next token is not {@link com.codenvy.flux.watcher.core.codec.JsonReader.Token#BOOLEAN}.
+     */
+    public abstract boolean nextBoolean() throws JSONException;
+
+    /**
+     * Consumes a null value.
+     *
+     * @throws org.json.JSONException
+     *         if the next token is not {@link com.codenvy.flux.watcher.core.codec.JsonReader.Token#NULL}.
+     */
+    public abstract void nextNull() throws JSONException;
+
+    /**
+     * Returns if the current object or array has another field or element.
+     *
+     * @return {@code true} if the next token is neither the end of an object nor the end of an array, {@code false} otherwise.
+     * @throws org.json.JSONException
+     *         if the JSON is malformed.
+     */
+    public boolean hasNext() throws JSONException {
+        final Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    /**
+     * Consumes the next value, with all its fields or elements if it is an object or an array. The unknown fields of a
+     * message are skipped with this method.
+     *
+     * @throws org.json.JSONException
+     *         if the next token is not a value or if the JSON is malformed.
+     */
+    public void skipValue() throws JSONException {
+        final Token token = peek();
+        if (token == Token.END_OBJECT || token == Token.END_ARRAY || token == Token.NAME || token == Token.END_DOCUMENT) {
+            throw new JSONException("Expected a value but was " + token);
+        }
+
+        int depth = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_OBJECT:
+                    beginObject();
+                    depth++;
+                    break;
+                case BEGIN_ARRAY:
+                    beginArray();
+                    depth++;
+                    break;
+                case END_OBJECT:
+                    endObject();
+                    depth--;
+                    break;
+                case END_ARRAY:
+                    endArray();
+                    depth--;
+                    break;
+                case NAME:
+                    nextName();
+                    break;
+                case STRING:
+                case NUMBER:
+                    nextString();
+                    break;
+                case BOOLEAN:
+                    nextBoolean();
+                    break;
+                case NULL:
+                    nextNull();
+                    break;
+                default:
+                    throw new JSONException("Unexpected " + Token.END_DOCUMENT);
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * Returns a {@link org.json.JSONException} reporting an unexpected token.
+     */
+    JSONException unexpected(Token expected, Token actual) {
+        return new JSONException("Expected " + expected + " but was " + actual);
+    }
+}
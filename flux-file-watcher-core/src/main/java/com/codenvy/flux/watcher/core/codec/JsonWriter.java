@@ -0,0 +1,295 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.codec;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONString;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Streaming JSON writer appending the tokens of a Flux message content directly to a {@link java.lang.StringBuilder}, without
+ * building an intermediate {@link org.json.JSONObject} tree. The writer only checks that a name is written before each value of
+ * an object, the nesting of the objects and arrays is the responsibility of the caller.
+ *
+ * @author Kevin Pollet
+ */
+public final class JsonWriter {
+    private static final char[] HEX_DIGITS          = "0123456789abcdef".toCharArray();
+    // valid in JSON strings but not in javascript ones, they are escaped for the socket.io transport
+    private static final char   LINE_SEPARATOR      = 0x2028;
+    private static final char   PARAGRAPH_SEPARATOR = 0x2029;
+
+    private final StringBuilder builder;
+    private boolean[]           firstValues;
+    private boolean[]           objects;
+    private int                 depth;
+    private boolean             nameWritten;
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.core.codec.JsonWriter}.
+     *
+     * @param builder
+     *         the {@link java.lang.StringBuilder} where the tokens are appended.
+     * @throws java.lang.NullPointerException
+     *         if {@code builder} parameter is {@code null}.
+     */
+    public JsonWriter(StringBuilder builder) {
+        this.builder = checkNotNull(builder);
+        this.firstValues = new boolean[8];
+        this.objects = new boolean[8];
+    }
+
+    /**
+     * Begins an object, its fields are written with {@link #name(String)} followed by a value.
+     *
+     * @return this {@link com.codenvy.flux.watcher.core.codec.JsonWriter}.
+     */
+    public JsonWriter beginObject() {
+        return open(true, '{');
+    }
+
+    /**
+     * Ends the current object.
+     *
+     * @return this {@link com.codenvy.flux.watcher.core.codec.JsonWriter}.
+     * @throws java.lang.IllegalStateException
+     *         if there is no object to end.
+     */
+    public JsonWriter endObject() {
+        return close(true, '}');
+    }
+
+    /**
+     * Begins an array.
+     *
+     * @return this {@link com.codenvy.flux.watcher.core.codec.JsonWriter}.
+     */
+    public JsonWriter beginArray() {
+        return open(false, '[');
+    }
+
+    /**
+     * Ends the current array.
+     *
+     * @return this {@link com.codenvy.flux.watcher.core.codec.JsonWriter}.
+     * @throws java.lang.IllegalStateException
+     *         if there is no array to end.
+     */
+    public JsonWriter endArray() {
+        return close(false, ']');
+    }
+
+    /**
+     * Writes the name of the next field of the current object.
+     *
+     * @param name
+     *         the field name.
+     * @return this {@link com.codenvy.flux.watcher.core.codec.JsonWriter}.
+     * @throws java.lang.NullPointerException
+     *         if {@code name} parameter is {@code null}.
+     * @throws java.lang.IllegalStateException
+     *         if the current value is not an object or if a name has already been written.
+     */
+    public JsonWriter name(String name) {
+        checkNotNull(name);
+        checkState(depth > 0 && objects[depth - 1] && !nameWritten);
+
+        separate();
+        quote(name);
+        builder.append(':');
+        nameWritten = true;
+        return this;
+    }
+
+    /**
+     * Writes a string value, {@code null} is written as the JSON null value.
+     *
+     * @param value
+     *         the value.
+     * @return this {@link com.codenvy.flux.watcher.core.codec.JsonWriter}.
+     */
+    public JsonWriter value(String value) {
+        beforeValue();
+        if (value == null) {
+            builder.append("null");
+        } else {
+            quote(value);
+        }
+        return this;
+    }
+
+    /**
+     * Writes a number value.
+     *
+     * @param value
+     *         the value.
+     * @return this {@link com.codenvy.flux.watcher.core.codec.JsonWriter}.
+     */
+    public JsonWriter value(long value) {
+        beforeValue();
+        builder.append(value);
+        return this;
+    }
+
+    /**
+     * Writes a boolean value.
+     *
+     * @param value
+     *         the value.
+     * @return this {@link com.codenvy.flux.watcher.core.codec.JsonWriter}.
+     */
+    public JsonWriter value(boolean value) {
+        beforeValue();
+        builder.append(value);
+        return this;
+    }
+
+    /**
+     * Writes a value of a {@link org.json.JSONObject}: a string, a number, a boolean, a {@link org.json.JSONObject}, a {@link
+     * org.json.JSONArray}, a {@link org.json.JSONString} or the null value.
+     *
+     * @param value
+     *         the value.
+     * @return this {@link com.codenvy.flux.watcher.core.codec.JsonWriter}.
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code value} is a non finite number.
+     */
+    public JsonWriter value(Object value) {
+        if (value == null || JSONObject.NULL.equals(value)) {
+            return value((String)null);
+        }
+        if (value instanceof Boolean) {
+            return value(((Boolean)value).booleanValue());
+        }
+        if (value instanceof Integer || value instanceof Long) {
+            return value(((Number)value).longValue());
+        }
+        if (value instanceof JSONString) {
+            return rawValue(((JSONString)value).toJSONString());
+        }
+        if (value instanceof JSONObject || value instanceof JSONArray) {
+            return rawValue(value.toString());
+        }
+        if (value instanceof Number) {
+            try {
+
+                return rawValue(JSONObject.numberToString((Number)value));
+
+            } catch (JSONException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+        return value(value.toString());
+    }
+
+    /**
+     * Writes an already serialized JSON value as is, like a {@link org.json.JSONObject} or a {@link org.json.JSONArray}.
+     *
+     * @param json
+     *         the serialized JSON value.
+     * @return this {@link com.codenvy.flux.watcher.core.codec.JsonWriter}.
+     * @throws java.lang.NullPointerException
+     *         if {@code json} parameter is {@code null}.
+     */
+    public JsonWriter rawValue(CharSequence json) {
+        checkNotNull(json);
+
+        beforeValue();
+        builder.append(json);
+        return this;
+    }
+
+    private JsonWriter open(boolean object, char token) {
+        beforeValue();
+        if (depth == objects.length) {
+            objects = Arrays.copyOf(objects, depth * 2);
+            firstValues = Arrays.copyOf(firstValues, depth * 2);
+        }
+        objects[depth] = object;
+        firstValues[depth] = true;
+        depth++;
+        builder.append(token);
+        return this;
+    }
+
+    private JsonWriter close(boolean object, char token) {
+        checkState(depth > 0 && objects[depth - 1] == object && !nameWritten);
+
+        depth--;
+        builder.append(token);
+        return this;
+    }
+
+    private void beforeValue() {
+        if (depth == 0) {
+            return;
+        }
+
+        if (objects[depth - 1]) {
+            checkState(nameWritten, "A name must be written before a value in an object");
+            nameWritten = false;
+        } else {
+            separate();
+        }
+    }
+
+    private void separate() {
+        if (firstValues[depth - 1]) {
+            firstValues[depth - 1] = false;
+        } else {
+            builder.append(',');
+        }
+    }
+
+    private void quote(String value) {
+        builder.append('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\' && c != LINE_SEPARATOR && c != PARAGRAPH_SEPARATOR) {
+                continue;
+            }
+
+            builder.append(value, start, i);
+            start = i + 1;
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    builder.append("\\u")
+                           .append(HEX_DIGITS[c >> 12 & 0xf])
+                           .append(HEX_DIGITS[c >> 8 & 0xf])
+                           .append(HEX_DIGITS[c >> 4 & 0xf])
+                           .append(HEX_DIGITS[c & 0xf]);
+            }
+        }
+        builder.append(value, start, value.length()).append('"');
+    }
+}
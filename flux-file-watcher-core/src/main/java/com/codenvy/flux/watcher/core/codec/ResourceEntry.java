@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.codec;
+
+import static com.codenvy.flux.watcher.core.Resource.ResourceType;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A resource listed in a {@link com.codenvy.flux.watcher.core.codec.GetProjectResponse}.
+ *
+ * @author Kevin Pollet
+ */
+public final class ResourceEntry {
+    private final String       path;
+    private final long         timestamp;
+    private final ResourceType type;
+    private final String       hash;
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.core.codec.ResourceEntry}.
+     *
+     * @param path
+     *         the resource relative path.
+     * @param timestamp
+     *         the resource timestamp.
+     * @param type
+     *         the resource {@link com.codenvy.flux.watcher.core.Resource.ResourceType}.
+     * @param hash
+     *         the resource hash.
+     * @throws java.lang.NullPointerException
+     *         if {@code path}, {@code type} or {@code hash} parameter is {@code null}.
+     */
+    public ResourceEntry(String path, long timestamp, ResourceType type, String hash) {
+        this.path = checkNotNull(path);
+        this.timestamp = timestamp;
+        this.type = checkNotNull(type);
+        this.hash = checkNotNull(hash);
+    }
+
+    /**
+     * Returns the resource relative path.
+     *
+     * @return the resource relative path, never {@code null}.
+     */
+    public String path() {
+        return path;
+    }
+
+    /**
+     * Returns the resource timestamp.
+     *
+     * @return the resource timestamp.
+     */
+    public long timestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the resource {@link com.codenvy.flux.watcher.core.Resource.ResourceType}.
+     *
+     * @return the resource {@link com.codenvy.flux.watcher.core.Resource.ResourceType}, never {@code null}.
+     */
+    public ResourceType type() {
+        return type;
+    }
+
+    /**
+     * Returns the resource hash.
+     *
+     * @return the resource hash, never {@code null}.
+     */
+    public String hash() {
+        return hash;
+    }
+}
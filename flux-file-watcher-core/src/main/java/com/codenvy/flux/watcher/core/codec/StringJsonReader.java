@@ -0,0 +1,343 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.codec;
+
+import org.json.JSONException;
+
+import java.util.Arrays;
+
+/**
+ * {@link com.codenvy.flux.watcher.core.codec.JsonReader} parsing a serialized JSON value character by character. The strings
+ * without escape sequences are returned as substrings of the parsed value.
+ *
+ * @author Kevin Pollet
+ */
+final class StringJsonReader extends JsonReader {
+    private static final int EMPTY_DOCUMENT    = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_OBJECT      = 2;
+    private static final int NONEMPTY_OBJECT   = 3;
+    private static final int DANGLING_NAME     = 4;
+    private static final int EMPTY_ARRAY       = 5;
+    private static final int NONEMPTY_ARRAY    = 6;
+
+    private final String json;
+    private int[]        stack;
+    private int          size;
+    private int          position;
+    private Token        peeked;
+
+    StringJsonReader(String json) {
+        this.json = json;
+        this.stack = new int[16];
+        this.stack[0] = EMPTY_DOCUMENT;
+        this.size = 1;
+    }
+
+    @Override
+    public Token peek() throws JSONException {
+        if (peeked != null) {
+            return peeked;
+        }
+
+        switch (stack[size - 1]) {
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                char c = nextNonWhitespace();
+                if (c == '}') {
+                    return peeked = Token.END_OBJECT;
+                }
+                if (stack[size - 1] == NONEMPTY_OBJECT) {
+                    consume(',');
+                    c = nextNonWhitespace();
+                }
+                if (c != '"') {
+                    throw syntaxError("Expected a name");
+                }
+                return peeked = Token.NAME;
+
+            case EMPTY_ARRAY:
+            case NONEMPTY_ARRAY:
+                if (nextNonWhitespace() == ']') {
+                    return peeked = Token.END_ARRAY;
+                }
+                if (stack[size - 1] == NONEMPTY_ARRAY) {
+                    consume(',');
+                }
+                return peeked = peekValue();
+
+            case NONEMPTY_DOCUMENT:
+                if (nextNonWhitespace() != 0) {
+                    throw syntaxError("Expected the end of the document");
+                }
+                return peeked = Token.END_DOCUMENT;
+
+            default:
+                return peeked = peekValue();
+        }
+    }
+
+    @Override
+    public void beginObject() throws JSONException {
+        expect(Token.BEGIN_OBJECT);
+        position++;
+        push(EMPTY_OBJECT);
+    }
+
+    @Override
+    public void endObject() throws JSONException {
+        expect(Token.END_OBJECT);
+        position++;
+        size--;
+    }
+
+    @Override
+    public void beginArray() throws JSONException {
+        expect(Token.BEGIN_ARRAY);
+        position++;
+        push(EMPTY_ARRAY);
+    }
+
+    @Override
+    public void endArray() throws JSONException {
+        expect(Token.END_ARRAY);
+        position++;
+        size--;
+    }
+
+    @Override
+    public String nextName() throws JSONException {
+        expect(Token.NAME);
+        final String name = readString();
+        consume(':');
+        stack[size - 1] = DANGLING_NAME;
+        return name;
+    }
+
+    @Override
+    public String nextString() throws JSONException {
+        final Token token = peek();
+        if (token != Token.STRING && token != Token.NUMBER) {
+            throw unexpected(Token.STRING, token);
+        }
+
+        peeked = null;
+        afterValue();
+        return token == Token.STRING ? readString() : readNumber();
+    }
+
+    @Override
+    public long nextLong() throws JSONException {
+        final String number = nextString();
+        try {
+
+            return Long.parseLong(number);
+
+        } catch (NumberFormatException e) {
+            try {
+
+                final double value = Double.parseDouble(number);
+                if (value != (long)value) {
+                    throw new JSONException("Expected a long but was " + number);
+                }
+                return (long)value;
+
+            } catch (NumberFormatException ignored) {
+                throw new JSONException("Expected a long but was " + number);
+            }
+        }
+    }
+
+    @Override
+    public boolean nextBoolean() throws JSONException {
+        expect(Token.BOOLEAN);
+        final boolean value = json.charAt(position) == 't';
+        position += value ? 4 : 5;
+        return value;
+    }
+
+    @Override
+    public void nextNull() throws JSONException {
+        expect(Token.NULL);
+        position += 4;
+    }
+
+    private void expect(Token expected) throws JSONException {
+        final Token token = peek();
+        if (token != expected) {
+            throw unexpected(expected, token);
+        }
+
+        peeked = null;
+        if (token != Token.NAME && token != Token.END_OBJECT && token != Token.END_ARRAY) {
+            afterValue();
+        }
+    }
+
+    private void afterValue() {
+        switch (stack[size - 1]) {
+            case EMPTY_DOCUMENT:
+                stack[size - 1] = NONEMPTY_DOCUMENT;
+                break;
+            case DANGLING_NAME:
+                stack[size - 1] = NONEMPTY_OBJECT;
+                break;
+            case EMPTY_ARRAY:
+                stack[size - 1] = NONEMPTY_ARRAY;
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void push(int scope) {
+        if (size == stack.length) {
+            stack = Arrays.copyOf(stack, size * 2);
+        }
+        stack[size++] = scope;
+    }
+
+    private Token peekValue() throws JSONException {
+        final char c = nextNonWhitespace();
+        switch (c) {
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case '"':
+                return Token.STRING;
+            case 't':
+                return literal("true", Token.BOOLEAN);
+            case 'f':
+                return literal("false", Token.BOOLEAN);
+            case 'n':
+                return literal("null", Token.NULL);
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return Token.NUMBER;
+                }
+                throw syntaxError("Expected a value");
+        }
+    }
+
+    private Token literal(String literal, Token token) throws JSONException {
+        if (!json.startsWith(literal, position)) {
+            throw syntaxError("Expected " + literal);
+        }
+        return token;
+    }
+
+    /**
+     * Skips the whitespaces and returns the next character without consuming it, {@code 0} at the end of the document.
+     */
+    private char nextNonWhitespace() throws JSONException {
+        while (position < json.length()) {
+            final char c = json.charAt(position);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+            position++;
+        }
+
+        if (stack[size - 1] != NONEMPTY_DOCUMENT) {
+            throw syntaxError("Unexpected end of document");
+        }
+        return 0;
+    }
+
+    private void consume(char expected) throws JSONException {
+        if (nextNonWhitespace() != expected) {
+            throw syntaxError("Expected '" + expected + "'");
+        }
+        position++;
+    }
+
+    private String readString() throws JSONException {
+        // the opening quote is at the current position
+        final int start = ++position;
+        StringBuilder builder = null;
+        int chunkStart = start;
+        while (position < json.length()) {
+            final char c = json.charAt(position++);
+            if (c == '"') {
+                return builder == null ? json.substring(start, position - 1)
+                                       : builder.append(json, chunkStart, position - 1).toString();
+            }
+
+            if (c == '\\') {
+                if (builder == null) {
+                    builder = new StringBuilder();
+                }
+                builder.append(json, chunkStart, position - 1).append(readEscapedCharacter());
+                chunkStart = position;
+
+            } else if (c < 0x20) {
+                throw syntaxError("Unescaped control character");
+            }
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    private char readEscapedCharacter() throws JSONException {
+        if (position == json.length()) {
+            throw syntaxError("Unterminated escape sequence");
+        }
+
+        final char c = json.charAt(position++);
+        switch (c) {
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                if (position + 4 > json.length()) {
+                    throw syntaxError("Unterminated escape sequence");
+                }
+                try {
+
+                    final char unicode = (char)Integer.parseInt(json.substring(position, position + 4), 16);
+                    position += 4;
+                    return unicode;
+
+                } catch (NumberFormatException e) {
+                    throw syntaxError("Invalid escape sequence");
+                }
+            case '"':
+            case '\\':
+            case '/':
+                return c;
+            default:
+                throw syntaxError("Invalid escape sequence");
+        }
+    }
+
+    private String readNumber() throws JSONException {
+        final int start = position;
+        while (position < json.length()) {
+            final char c = json.charAt(position);
+            if ((c < '0' || c > '9') && c != '-' && c != '+' && c != '.' && c != 'e' && c != 'E') {
+                break;
+            }
+            position++;
+        }
+        return json.substring(start, position);
+    }
+
+    private JSONException syntaxError(String message) {
+        return new JSONException(message + " at character " + position);
+    }
+}
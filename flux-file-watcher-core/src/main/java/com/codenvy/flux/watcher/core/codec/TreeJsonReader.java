@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.codec;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONString;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * {@link com.codenvy.flux.watcher.core.codec.JsonReader} walking a {@link org.json.JSONObject}, it adapts the contents parsed
+ * by the socket.io transport to the {@link com.codenvy.flux.watcher.core.codec.FluxMessageCodec}.
+ *
+ * @author Kevin Pollet
+ */
+final class TreeJsonReader extends JsonReader {
+    private Object[] stack;
+    private int      size;
+    private Token    peeked;
+
+    TreeJsonReader(JSONObject content) {
+        this.stack = new Object[16];
+        this.stack[0] = content;
+        this.size = 1;
+    }
+
+    @Override
+    public Token peek() throws JSONException {
+        if (peeked != null) {
+            return peeked;
+        }
+        if (size == 0) {
+            return peeked = Token.END_DOCUMENT;
+        }
+
+        final Object top = stack[size - 1];
+        if (top instanceof ObjectFrame) {
+            return peeked = ((ObjectFrame)top).names.hasNext() ? Token.NAME : Token.END_OBJECT;
+        }
+
+        if (top instanceof ArrayFrame) {
+            final ArrayFrame frame = (ArrayFrame)top;
+            if (frame.index == frame.array.length()) {
+                return peeked = Token.END_ARRAY;
+            }
+            // the element is pushed so that it is consumed as a value
+            push(frame.array.opt(frame.index++));
+        }
+
+        return peeked = tokenOf(stack[size - 1]);
+    }
+
+    @Override
+    public void beginObject() throws JSONException {
+        final JSONObject object = (JSONObject)pop(Token.BEGIN_OBJECT);
+        push(new ObjectFrame(object));
+    }
+
+    @Override
+    public void endObject() throws JSONException {
+        pop(Token.END_OBJECT);
+    }
+
+    @Override
+    public void beginArray() throws JSONException {
+        final JSONArray array = (JSONArray)pop(Token.BEGIN_ARRAY);
+        push(new ArrayFrame(array));
+    }
+
+    @Override
+    public void endArray() throws JSONException {
+        pop(Token.END_ARRAY);
+    }
+
+    @Override
+    public String nextName() throws JSONException {
+        final Token token = peek();
+        if (token != Token.NAME) {
+            throw unexpected(Token.NAME, token);
+        }
+
+        peeked = null;
+        final ObjectFrame frame = (ObjectFrame)stack[size - 1];
+        final String name = (String)frame.names.next();
+        push(frame.object.opt(name));
+        return name;
+    }
+
+    @Override
+    public String nextString() throws JSONException {
+        final Token token = peek();
+        if (token != Token.STRING && token != Token.NUMBER) {
+            throw unexpected(Token.STRING, token);
+        }
+
+        final Object value = pop(token);
+        return value instanceof JSONString ? ((JSONString)value).toJSONString() : value.toString();
+    }
+
+    @Override
+    public long nextLong() throws JSONException {
+        if (peek() == Token.NUMBER) {
+            return ((Number)pop(Token.NUMBER)).longValue();
+        }
+
+        final String number = nextString();
+        try {
+
+            return Long.parseLong(number);
+
+        } catch (NumberFormatException e) {
+            throw new JSONException("Expected a long but was " + number);
+        }
+    }
+
+    @Override
+    public boolean nextBoolean() throws JSONException {
+        return (Boolean)pop(Token.BOOLEAN);
+    }
+
+    @Override
+    public void nextNull() throws JSONException {
+        pop(Token.NULL);
+    }
+
+    private static Token tokenOf(Object value) throws JSONException {
+        if (value instanceof String) {
+            return Token.STRING;
+        }
+        if (value instanceof Number) {
+            return Token.NUMBER;
+        }
+        if (value instanceof JSONObject) {
+            return Token.BEGIN_OBJECT;
+        }
+        if (value instanceof JSONArray) {
+            return Token.BEGIN_ARRAY;
+        }
+        if (value instanceof Boolean) {
+            return Token.BOOLEAN;
+        }
+        if (value instanceof JSONString) {
+            return Token.STRING;
+        }
+        if (value == null || JSONObject.NULL.equals(value)) {
+            return Token.NULL;
+        }
+        throw new JSONException("Unexpected value " + value);
+    }
+
+    private void push(Object value) {
+        if (size == stack.length) {
+            stack = Arrays.copyOf(stack, size * 2);
+        }
+        stack[size++] = value;
+    }
+
+    private Object pop(Token expected) throws JSONException {
+        final Token token = peek();
+        if (token != expected) {
+            throw unexpected(expected, token);
+        }
+
+        peeked = null;
+        final Object value = stack[--size];
+        stack[size] = null;
+        return value;
+    }
+
+    private static final class ObjectFrame {
+        private final JSONObject  object;
+        private final Iterator<?> names;
+
+        ObjectFrame(JSONObject object) {
+            this.object = object;
+            this.names = object.keys();
+        }
+    }
+
+    private static final class ArrayFrame {
+        private final JSONArray array;
+        private int             index;
+
+        ArrayFrame(JSONArray array) {
+            this.array = array;
+        }
+    }
+}
@@ -15,59 +15,69 @@ import com.codenvy.flux.watcher.core.FluxMessageHandler;
 import com.codenvy.flux.watcher.core.FluxMessageTypes;
 import com.codenvy.flux.watcher.core.Repository;
 import com.codenvy.flux.watcher.core.Resource;
+import com.codenvy.flux.watcher.core.codec.FluxMessageCodecs;
+import com.codenvy.flux.watcher.core.codec.GetProjectRequest;
+import com.codenvy.flux.watcher.core.codec.GetProjectResponse;
+import com.codenvy.flux.watcher.core.codec.ResourceEntry;
 import com.codenvy.flux.watcher.core.spi.Project;
 
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 
 import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CALLBACK_ID;
-import static com.codenvy.flux.watcher.core.FluxMessage.Fields.FILES;
-import static com.codenvy.flux.watcher.core.FluxMessage.Fields.HASH;
-import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PATH;
-import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PROJECT;
 import static com.codenvy.flux.watcher.core.FluxMessage.Fields.REQUEST_SENDER_ID;
-import static com.codenvy.flux.watcher.core.FluxMessage.Fields.TIMESTAMP;
-import static com.codenvy.flux.watcher.core.FluxMessage.Fields.TYPE;
 import static com.codenvy.flux.watcher.core.FluxMessageType.GET_PROJECT_REQUEST;
-import static com.codenvy.flux.watcher.core.FluxMessageType.GET_PROJECT_RESPONSE;
 
 /**
- * Handler replying to a {@link com.codenvy.flux.watcher.core.FluxMessageType#GET_PROJECT_REQUEST}.
+ * Handler replying to a {@link com.codenvy.flux.watcher.core.FluxMessageType#GET_PROJECT_REQUEST}. The project resources are
+ * streamed into the response when it is sent, without building a {@link org.json.JSONObject} per resource.
+ * <p/>
+ * A request with a page size is answered with a page of the listing, read lazily from the project. The page carries a
+ * continuation token, the relative path of its last resource, if the listing is not complete. The next page is requested with
+ * this token. The page size is capped to {@value #MAX_PAGE_SIZE} resources.
  *
  * @author Kevin Pollet
  */
 @Singleton
 @FluxMessageTypes(GET_PROJECT_REQUEST)
 public final class GetProjectRequestHandler implements FluxMessageHandler {
+    public static final int MAX_PAGE_SIZE = 10000;
+
     @Override
     public void onMessage(FluxMessage message, Repository repository) throws JSONException {
         final JSONObject request = message.content();
         final int callbackId = request.getInt(CALLBACK_ID.value());
         final String requestSenderId = request.getString(REQUEST_SENDER_ID.value());
-        final String projectName = request.getString(PROJECT.value());
+        final GetProjectRequest projectRequest = message.record(FluxMessageCodecs.GET_PROJECT_REQUEST);
 
-        final Project project = repository.getProject(projectName);
+        final Project project = repository.getProject(projectRequest.project());
         if (project != null) {
-            final JSONArray files = new JSONArray();
-            for (Resource oneResource : project.getResources()) {
-                files.put(new JSONObject()
-                                  .put(PATH.value(), oneResource.path())
-                                  .put(TIMESTAMP.value(), oneResource.timestamp())
-                                  .put(HASH.value(), oneResource.hash())
-                                  .put(TYPE.value(), oneResource.type().name().toLowerCase()));
+            final int pageSize = projectRequest.pageSize() == 0 ? Integer.MAX_VALUE
+                                                                : Math.min(projectRequest.pageSize(), MAX_PAGE_SIZE);
+            final Iterator<Resource> resources = project.getResourcesAfter(projectRequest.continuation());
+
+            final List<ResourceEntry> files = new ArrayList<>(Math.min(pageSize, MAX_PAGE_SIZE));
+            while (files.size() < pageSize && resources.hasNext()) {
+                final Resource oneResource = resources.next();
+                files.add(new ResourceEntry(oneResource.path(), oneResource.timestamp(), oneResource.type(), oneResource.hash()));
             }
+            final String continuation = resources.hasNext() ? files.get(files.size() - 1).path() : null;
 
-            final JSONObject content = new JSONObject()
+            final JSONObject headers = new JSONObject()
                     .put(CALLBACK_ID.value(), callbackId)
-                    .put(REQUEST_SENDER_ID.value(), requestSenderId)
-                    .put(PROJECT.value(), projectName)
-                    .put(FILES.value(), files);
+                    .put(REQUEST_SENDER_ID.value(), requestSenderId);
+
+            final GetProjectResponse response =
+                    new GetProjectResponse(projectRequest.project(), files, Collections.<ResourceEntry>emptyList(), continuation);
 
             message.source()
-                   .sendMessage(new FluxMessage(GET_PROJECT_RESPONSE, content));
+                   .sendMessage(new FluxMessage(headers, response, FluxMessageCodecs.GET_PROJECT_RESPONSE));
         }
     }
 }
@@ -14,89 +14,95 @@ import com.codenvy.flux.watcher.core.FluxMessage;
 import com.codenvy.flux.watcher.core.FluxMessageHandler;
 import com.codenvy.flux.watcher.core.FluxMessageTypes;
 import com.codenvy.flux.watcher.core.Repository;
-import com.codenvy.flux.watcher.core.Resource;
+import com.codenvy.flux.watcher.core.codec.FluxMessageCodecs;
+import com.codenvy.flux.watcher.core.codec.GetProjectRequest;
+import com.codenvy.flux.watcher.core.codec.GetProjectResponse;
+import com.codenvy.flux.watcher.core.codec.ResourceEntry;
 import com.codenvy.flux.watcher.core.spi.Project;
 
-import org.json.JSONArray;
 import org.json.JSONObject;
 
+import javax.inject.Inject;
 import javax.inject.Singleton;
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.List;
 
-import static com.codenvy.flux.watcher.core.FluxMessage.Fields.DELETED;
-import static com.codenvy.flux.watcher.core.FluxMessage.Fields.FILES;
-import static com.codenvy.flux.watcher.core.FluxMessage.Fields.HASH;
-import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PATH;
-import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PROJECT;
-import static com.codenvy.flux.watcher.core.FluxMessage.Fields.RESOURCE;
-import static com.codenvy.flux.watcher.core.FluxMessage.Fields.TIMESTAMP;
-import static com.codenvy.flux.watcher.core.FluxMessage.Fields.TYPE;
 import static com.codenvy.flux.watcher.core.FluxMessageType.GET_PROJECT_RESPONSE;
-import static com.codenvy.flux.watcher.core.FluxMessageType.GET_RESOURCE_REQUEST;
-import static com.codenvy.flux.watcher.core.Resource.ResourceType;
-import static com.codenvy.flux.watcher.core.Resource.ResourceType.FILE;
-import static com.codenvy.flux.watcher.core.Resource.ResourceType.FOLDER;
-import static com.codenvy.flux.watcher.core.Resource.ResourceType.UNKNOWN;
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
- * Handler replying to a {@link com.codenvy.flux.watcher.core.FluxMessageType#GET_PROJECT_RESPONSE}.
+ * Handler replying to a {@link com.codenvy.flux.watcher.core.FluxMessageType#GET_PROJECT_RESPONSE}. The reconciliation of the
+ * project with the listed resources is delegated to the {@link com.codenvy.flux.watcher.core.internal.ProjectSynchronizer}, so
+ * that the connection thread is not blocked while the local resources are compared and fetched.
+ * <p/>
+ * The next page of a listing is requested to the whole channel, thus answered by every remote holding the project. It is
+ * requested once per continuation token, so that the answers of several remotes don't multiply the requests at each page.
  *
  * @author Kevin Pollet
  */
 @Singleton
 @FluxMessageTypes(GET_PROJECT_RESPONSE)
 public final class GetProjectResponseHandler implements FluxMessageHandler {
-    @Override
-    public void onMessage(FluxMessage message, Repository repository) throws Exception {
-        final JSONObject request = message.content();
-        final String projectName = request.getString(PROJECT.value());
-        final JSONArray files = request.getJSONArray(FILES.value());
-        final JSONArray deleted = request.optJSONArray(DELETED.value());
+    /**
+     * The system property used to configure the number of resources requested per page of a project listing, {@value
+     * #DEFAULT_PAGE_SIZE} by default. The remotes which don't page the listings answer with the whole listing.
+     */
+    public static final String PAGE_SIZE_PROPERTY = "flux.watcher.project.page.size";
+    public static final int    DEFAULT_PAGE_SIZE  = 1000;
 
-        final Project project = repository.getProject(projectName);
-        if (project != null) {
-            // new files
-            for (int i = 0; i < files.length(); i++) {
-                final JSONObject resource = files.getJSONObject(i);
-                final String resourcePath = resource.getString(PATH.value());
-                final long resourceTimestamp = resource.getLong(TIMESTAMP.value());
-                final ResourceType resourceType = ResourceType.valueOf(resource.optString(TYPE.value(), UNKNOWN.name()).toUpperCase());
-                final String resourceHash = resource.optString(HASH.value(), "0");
+    private final ProjectSynchronizer projectSynchronizer;
+    private final int                 pageSize;
+    private final SentRequests        sentPageRequests;
 
-                final Resource localResource = project.getResource(resourcePath);
-                if (resourceType == FILE) {
-                    if (localResource == null
-                        || localResource.timestamp() < resourceTimestamp
-                           && !Objects.equals(resourceHash, localResource.hash())) {
+    /**
+     * Constructs an instance of {@code GetProjectResponseHandler}.
+     *
+     * @param projectSynchronizer
+     *         the {@link com.codenvy.flux.watcher.core.internal.ProjectSynchronizer}.
+     * @throws NullPointerException
+     *         if {@code projectSynchronizer} parameter is {@code null}.
+     */
+    @Inject
+    GetProjectResponseHandler(ProjectSynchronizer projectSynchronizer) {
+        this.projectSynchronizer = checkNotNull(projectSynchronizer);
+        this.pageSize = pageSize();
+        this.sentPageRequests = new SentRequests(projectSynchronizer.requestTimeout());
+    }
 
-                        final JSONObject content = new JSONObject()
-                                .put(PROJECT.value(), projectName)
-                                .put(RESOURCE.value(), resourcePath)
-                                .put(TIMESTAMP.value(), resourceTimestamp)
-                                .put(HASH.value(), resourceHash);
+    /**
+     * Returns the number of resources requested per page of a project listing.
+     *
+     * @return the configured page size, at least one resource.
+     */
+    static int pageSize() {
+        return Math.max(1, Integer.getInteger(PAGE_SIZE_PROPERTY, DEFAULT_PAGE_SIZE));
+    }
 
-                        message.source()
-                               .sendMessage(new FluxMessage(GET_RESOURCE_REQUEST, content));
-                    }
+    @Override
+    public void onMessage(FluxMessage message, Repository repository) throws Exception {
+        final GetProjectResponse response = message.record(FluxMessageCodecs.GET_PROJECT_RESPONSE);
 
-                } else if (resourceType == FOLDER && localResource == null) {
-                    project.createResource(Resource.newFolder(resourcePath, resourceTimestamp));
-                }
+        final Project project = repository.getProject(response.project());
+        if (project != null) {
+            // the next page is requested first, so that the remote reads it while this one is compared
+            if (response.continuation() != null
+                && sentPageRequests.markSent(message.source(), project.id(), response.continuation())) {
+                final GetProjectRequest nextPageRequest = new GetProjectRequest(project.id(), true, response.continuation(), pageSize);
+                message.source()
+                       .sendMessage(new FluxMessage(new JSONObject(), nextPageRequest, FluxMessageCodecs.GET_PROJECT_REQUEST));
             }
 
-            // deleted files
-            if (deleted != null) {
-                for (int i = 0; i < deleted.length(); i++) {
-                    final JSONObject resource = deleted.getJSONObject(i);
-                    final String resourcePath = resource.getString(PATH.value());
-                    final long resourceTimestamp = resource.getLong(TIMESTAMP.value());
+            projectSynchronizer.synchronize(message.source(), project, toRemoteResources(response.files()),
+                                            toRemoteResources(response.deleted()));
+        }
+    }
 
-                    final Resource localResource = project.getResource(resourcePath);
-                    if (localResource != null && localResource.timestamp() < resourceTimestamp) {
-                        project.deleteResource(Resource.newUnknown(resourcePath, resourceTimestamp));
-                    }
-                }
-            }
+    private static List<ProjectSynchronizer.RemoteResource> toRemoteResources(List<ResourceEntry> resources) {
+        final List<ProjectSynchronizer.RemoteResource> remoteResources = new ArrayList<>(resources.size());
+        for (ResourceEntry oneResource : resources) {
+            remoteResources.add(new ProjectSynchronizer.RemoteResource(oneResource.path(), oneResource.timestamp(), oneResource.type(),
+                                                                       oneResource.hash()));
         }
+        return remoteResources;
     }
 }
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.internal;
+
+import com.codenvy.flux.watcher.core.FluxMessage;
+import com.codenvy.flux.watcher.core.FluxMessageHandler;
+import com.codenvy.flux.watcher.core.FluxMessageTypes;
+import com.codenvy.flux.watcher.core.Repository;
+import com.codenvy.flux.watcher.core.spi.Project;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CALLBACK_ID;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.FILES;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.HASH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PATH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PROJECT;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.REQUEST_SENDER_ID;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.TIMESTAMP;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.TYPE;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_PROJECT_SUMMARY_REQUEST;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_PROJECT_SUMMARY_RESPONSE;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Handler replying to a {@link com.codenvy.flux.watcher.core.FluxMessageType#GET_PROJECT_SUMMARY_REQUEST} with the hash of the
+ * requested folder and, if it differs from the hash of the requester, with the hashes of its direct children.
+ *
+ * @author Kevin Pollet
+ */
+@Singleton
+@FluxMessageTypes(GET_PROJECT_SUMMARY_REQUEST)
+public final class GetProjectSummaryRequestHandler implements FluxMessageHandler {
+    private final ProjectSummaries projectSummaries;
+
+    /**
+     * Constructs an instance of {@code GetProjectSummaryRequestHandler}.
+     *
+     * @param projectSummaries
+     *         the {@link com.codenvy.flux.watcher.core.internal.ProjectSummaries}.
+     * @throws NullPointerException
+     *         if {@code projectSummaries} parameter is {@code null}.
+     */
+    @Inject
+    GetProjectSummaryRequestHandler(ProjectSummaries projectSummaries) {
+        this.projectSummaries = checkNotNull(projectSummaries);
+    }
+
+    @Override
+    public void onMessage(FluxMessage message, Repository repository) throws JSONException {
+        final JSONObject request = message.content();
+        final int callbackId = request.getInt(CALLBACK_ID.value());
+        final String requestSenderId = request.getString(REQUEST_SENDER_ID.value());
+        final String projectName = request.getString(PROJECT.value());
+        final String resourcePath = request.optString(PATH.value());
+
+        final Project project = repository.getProject(projectName);
+        if (project != null) {
+            final ResourceTree.Summary summary = projectSummaries.summary(project, resourcePath);
+            if (summary != null) {
+                final JSONObject content = new JSONObject()
+                        .put(CALLBACK_ID.value(), callbackId)
+                        .put(REQUEST_SENDER_ID.value(), requestSenderId)
+                        .put(PROJECT.value(), projectName)
+                        .put(PATH.value(), resourcePath)
+                        .put(HASH.value(), summary.hash());
+
+                if (!summary.hash().equals(request.optString(HASH.value()))) {
+                    final JSONArray files = new JSONArray();
+                    for (ResourceTree.Summary oneChild : summary.children()) {
+                        files.put(new JSONObject()
+                                          .put(PATH.value(), oneChild.path())
+                                          .put(TIMESTAMP.value(), oneChild.timestamp())
+                                          .put(HASH.value(), oneChild.hash())
+                                          .put(TYPE.value(), oneChild.type().name().toLowerCase()));
+                    }
+                    content.put(FILES.value(), files);
+                }
+
+                message.source()
+                       .sendMessage(new FluxMessage(GET_PROJECT_SUMMARY_RESPONSE, content));
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.internal;
+
+import com.codenvy.flux.watcher.core.FluxMessage;
+import com.codenvy.flux.watcher.core.FluxMessageHandler;
+import com.codenvy.flux.watcher.core.FluxMessageTypes;
+import com.codenvy.flux.watcher.core.Repository;
+import com.codenvy.flux.watcher.core.spi.Project;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.FILES;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.HASH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PATH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PROJECT;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.TIMESTAMP;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.TYPE;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_PROJECT_SUMMARY_REQUEST;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_PROJECT_SUMMARY_RESPONSE;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FILE;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FOLDER;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.UNKNOWN;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Handler replying to a {@link com.codenvy.flux.watcher.core.FluxMessageType#GET_PROJECT_SUMMARY_RESPONSE}. The children of the
+ * summarized folder are compared with the local ones: the files which differ are reconciled by the {@link
+ * com.codenvy.flux.watcher.core.internal.ProjectSynchronizer} and the summaries of the folders which differ are requested in
+ * turn. The local resources missing on the remote are left untouched.
+ * <p/>
+ * The summary requests are sent to the whole channel, thus answered by every remote holding the project. A subtree summary is
+ * requested once for a given local hash, so that the answers of several remotes don't multiply the requests at each level.
+ *
+ * @author Kevin Pollet
+ */
+@Singleton
+@FluxMessageTypes(GET_PROJECT_SUMMARY_RESPONSE)
+public final class GetProjectSummaryResponseHandler implements FluxMessageHandler {
+    private final ProjectSummaries    projectSummaries;
+    private final ProjectSynchronizer projectSynchronizer;
+    private final SentRequests        sentSummaryRequests;
+
+    /**
+     * Constructs an instance of {@code GetProjectSummaryResponseHandler}.
+     *
+     * @param projectSummaries
+     *         the {@link com.codenvy.flux.watcher.core.internal.ProjectSummaries}.
+     * @param projectSynchronizer
+     *         the {@link com.codenvy.flux.watcher.core.internal.ProjectSynchronizer}.
+     * @throws NullPointerException
+     *         if {@code projectSummaries} or {@code projectSynchronizer} parameter is {@code null}.
+     */
+    @Inject
+    GetProjectSummaryResponseHandler(ProjectSummaries projectSummaries, ProjectSynchronizer projectSynchronizer) {
+        this.projectSummaries = checkNotNull(projectSummaries);
+        this.projectSynchronizer = checkNotNull(projectSynchronizer);
+        this.sentSummaryRequests = new SentRequests(projectSynchronizer.requestTimeout());
+    }
+
+    @Override
+    public void onMessage(FluxMessage message, Repository repository) throws JSONException {
+        final JSONObject request = message.content();
+        final String projectName = request.getString(PROJECT.value());
+        final String resourcePath = request.optString(PATH.value());
+        final String resourceHash = request.getString(HASH.value());
+        final JSONArray files = request.optJSONArray(FILES.value());
+
+        final Project project = repository.getProject(projectName);
+        if (project == null) {
+            return;
+        }
+
+        projectSummaries.summaryReceived(project);
+
+        final ResourceTree.Summary localSummary = projectSummaries.summary(project, resourcePath);
+        if (files == null || localSummary != null && localSummary.hash().equals(resourceHash)) {
+            return;
+        }
+
+        final Map<String, ResourceTree.Summary> localChildren = new HashMap<>();
+        if (localSummary != null) {
+            for (ResourceTree.Summary oneChild : localSummary.children()) {
+                localChildren.put(oneChild.path(), oneChild);
+            }
+        }
+
+        final List<ProjectSynchronizer.RemoteResource> remoteResources = new ArrayList<>();
+        final List<JSONObject> summaryRequests = new ArrayList<>();
+        for (int i = 0; i < files.length(); i++) {
+            final JSONObject file = files.getJSONObject(i);
+            final String childPath = file.getString(PATH.value());
+            final long childTimestamp = file.getLong(TIMESTAMP.value());
+            final String childHash = file.getString(HASH.value());
+            final ResourceType childType = ResourceType.valueOf(file.optString(TYPE.value(), UNKNOWN.name()).toUpperCase());
+            final ResourceTree.Summary localChild = localChildren.get(childPath);
+
+            if (localChild != null && localChild.type() == childType && localChild.hash().equals(childHash)) {
+                continue;
+            }
+
+            if (childType == FILE) {
+                remoteResources.add(new ProjectSynchronizer.RemoteResource(childPath, childTimestamp, FILE, childHash));
+
+            } else if (childType == FOLDER) {
+                final JSONObject summaryRequest = new JSONObject().put(PROJECT.value(), projectName).put(PATH.value(), childPath);
+                if (localChild == null) {
+                    remoteResources.add(new ProjectSynchronizer.RemoteResource(childPath, childTimestamp, FOLDER, childHash));
+                } else {
+                    summaryRequest.put(HASH.value(), localChild.hash());
+                }
+                summaryRequests.add(summaryRequest);
+            }
+        }
+
+        if (!remoteResources.isEmpty()) {
+            projectSynchronizer.synchronize(message.source(), project, remoteResources,
+                                            Collections.<ProjectSynchronizer.RemoteResource>emptyList());
+        }
+
+        for (JSONObject oneSummaryRequest : summaryRequests) {
+            final String requestKey = oneSummaryRequest.getString(PATH.value()) + '\u0000' + oneSummaryRequest.optString(HASH.value());
+            if (sentSummaryRequests.markSent(message.source(), projectName, requestKey)) {
+                message.source()
+                       .sendMessage(new FluxMessage(GET_PROJECT_SUMMARY_REQUEST, oneSummaryRequest));
+            }
+        }
+    }
+}
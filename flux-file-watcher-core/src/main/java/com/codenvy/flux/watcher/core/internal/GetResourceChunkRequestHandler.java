@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.internal;
+
+import com.codenvy.flux.watcher.core.FluxMessage;
+import com.codenvy.flux.watcher.core.FluxMessageHandler;
+import com.codenvy.flux.watcher.core.FluxMessageTypes;
+import com.codenvy.flux.watcher.core.Repository;
+import com.codenvy.flux.watcher.core.Resource;
+import com.codenvy.flux.watcher.core.spi.Project;
+import com.codenvy.flux.watcher.core.utils.ResourceHelper;
+import com.google.common.io.ByteSource;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import javax.inject.Singleton;
+import java.io.IOException;
+
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CALLBACK_ID;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CHUNK_HASH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CONTENT;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.ENCODING;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.HASH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.LENGTH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.OFFSET;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PROJECT;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.REQUEST_SENDER_ID;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.RESOURCE;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_RESOURCE_CHUNK_REQUEST;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_RESOURCE_CHUNK_RESPONSE;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FILE;
+import static com.codenvy.flux.watcher.core.utils.ContentEncoding.BASE64;
+
+/**
+ * Handler replying to a {@link com.codenvy.flux.watcher.core.FluxMessageType#GET_RESOURCE_CHUNK_REQUEST}. Only the requested
+ * range of the file is read, the chunk is not sent if the file changed since the transfer started.
+ *
+ * @author Kevin Pollet
+ */
+@Singleton
+@FluxMessageTypes(GET_RESOURCE_CHUNK_REQUEST)
+public final class GetResourceChunkRequestHandler implements FluxMessageHandler {
+    private static final int MAX_CHUNK_LENGTH = 16 * 1024 * 1024;
+
+    @Override
+    public void onMessage(FluxMessage message, Repository repository) throws JSONException {
+        final JSONObject request = message.content();
+        final int callbackId = request.getInt(CALLBACK_ID.value());
+        final String requestSenderId = request.getString(REQUEST_SENDER_ID.value());
+        final String projectName = request.getString(PROJECT.value());
+        final String resourcePath = request.getString(RESOURCE.value());
+        final String resourceHash = request.getString(HASH.value());
+        final long offset = request.getLong(OFFSET.value());
+        final long length = Math.min(request.getLong(LENGTH.value()), MAX_CHUNK_LENGTH);
+
+        final Project project = repository.getProject(projectName);
+        if (project != null && offset >= 0 && length > 0) {
+            final Resource resource = project.getResource(resourcePath);
+            if (resource == null || resource.type() != FILE || !resource.hash().equals(resourceHash)) {
+                return;
+            }
+
+            try {
+
+                final byte[] chunk = resource.contentSource().slice(offset, length).read();
+                final JSONObject content = new JSONObject()
+                        .put(CALLBACK_ID.value(), callbackId)
+                        .put(REQUEST_SENDER_ID.value(), requestSenderId)
+                        .put(PROJECT.value(), projectName)
+                        .put(RESOURCE.value(), resourcePath)
+                        .put(HASH.value(), resourceHash)
+                        .put(OFFSET.value(), offset)
+                        .put(LENGTH.value(), chunk.length)
+                        .put(CONTENT.value(), BASE64.encode(ByteSource.wrap(chunk)))
+                        .put(ENCODING.value(), BASE64.value())
+                        .put(CHUNK_HASH.value(), ResourceHelper.sha1(chunk));
+
+                message.source()
+                       .sendMessage(new FluxMessage(GET_RESOURCE_CHUNK_RESPONSE, content));
+
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
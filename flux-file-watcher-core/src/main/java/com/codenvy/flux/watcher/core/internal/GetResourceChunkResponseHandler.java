@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.internal;
+
+import com.codenvy.flux.watcher.core.FluxMessage;
+import com.codenvy.flux.watcher.core.FluxMessageHandler;
+import com.codenvy.flux.watcher.core.FluxMessageTypes;
+import com.codenvy.flux.watcher.core.Repository;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CHUNK_HASH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CONTENT;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.HASH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.OFFSET;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PROJECT;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.RESOURCE;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_RESOURCE_CHUNK_RESPONSE;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Handler replying to a {@link com.codenvy.flux.watcher.core.FluxMessageType#GET_RESOURCE_CHUNK_RESPONSE}, the chunk is
+ * written by the {@link com.codenvy.flux.watcher.core.internal.ResourceTransfers}.
+ *
+ * @author Kevin Pollet
+ */
+@Singleton
+@FluxMessageTypes(GET_RESOURCE_CHUNK_RESPONSE)
+public final class GetResourceChunkResponseHandler implements FluxMessageHandler {
+    private final ResourceTransfers resourceTransfers;
+
+    /**
+     * Constructs an instance of {@code GetResourceChunkResponseHandler}.
+     *
+     * @param resourceTransfers
+     *         the {@link com.codenvy.flux.watcher.core.internal.ResourceTransfers}.
+     * @throws NullPointerException
+     *         if {@code resourceTransfers} parameter is {@code null}.
+     */
+    @Inject
+    GetResourceChunkResponseHandler(ResourceTransfers resourceTransfers) {
+        this.resourceTransfers = checkNotNull(resourceTransfers);
+    }
+
+    @Override
+    public void onMessage(FluxMessage message, Repository repository) throws JSONException {
+        final JSONObject request = message.content();
+        final String projectName = request.getString(PROJECT.value());
+        final String resourcePath = request.getString(RESOURCE.value());
+        final String resourceHash = request.getString(HASH.value());
+        final long offset = request.getLong(OFFSET.value());
+        final String content = request.getString(CONTENT.value());
+        final String chunkHash = request.getString(CHUNK_HASH.value());
+
+        resourceTransfers.chunkReceived(message.source(), projectName, resourcePath, resourceHash, offset, content, chunkHash);
+    }
+}
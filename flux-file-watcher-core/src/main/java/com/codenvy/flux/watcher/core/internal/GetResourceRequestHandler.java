@@ -16,32 +16,73 @@ import com.codenvy.flux.watcher.core.FluxMessageTypes;
 import com.codenvy.flux.watcher.core.Repository;
 import com.codenvy.flux.watcher.core.Resource;
 import com.codenvy.flux.watcher.core.spi.Project;
+import com.codenvy.flux.watcher.core.utils.ContentEncoding;
+import com.codenvy.flux.watcher.core.utils.ResourceDelta;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteSource;
 
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.io.IOException;
 
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.ACCEPT_CHUNKS;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.ACCEPT_ENCODING;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.BLOCK_SIZE;
 import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CALLBACK_ID;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CHUNKED;
 import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CONTENT;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CONTENT_LENGTH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.DELTA;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.ENCODING;
 import static com.codenvy.flux.watcher.core.FluxMessage.Fields.HASH;
 import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PROJECT;
 import static com.codenvy.flux.watcher.core.FluxMessage.Fields.REQUEST_SENDER_ID;
 import static com.codenvy.flux.watcher.core.FluxMessage.Fields.RESOURCE;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.SIGNATURES;
 import static com.codenvy.flux.watcher.core.FluxMessage.Fields.TIMESTAMP;
 import static com.codenvy.flux.watcher.core.FluxMessage.Fields.TYPE;
 import static com.codenvy.flux.watcher.core.FluxMessageType.GET_RESOURCE_REQUEST;
 import static com.codenvy.flux.watcher.core.FluxMessageType.GET_RESOURCE_RESPONSE;
 import static com.codenvy.flux.watcher.core.Resource.ResourceType.FILE;
+import static com.codenvy.flux.watcher.core.utils.ContentEncoding.BASE64;
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
- * Handler replying to a {@link com.codenvy.flux.watcher.core.FluxMessageType#GET_RESOURCE_REQUEST}.
+ * Handler replying to a {@link com.codenvy.flux.watcher.core.FluxMessageType#GET_RESOURCE_REQUEST}. The file content is
+ * encoded in base64 if the requester accepts it, as UTF-8 text otherwise. A file larger than the chunk size is only announced
+ * to a requester accepting chunks, its content is then fetched with {@link
+ * com.codenvy.flux.watcher.core.FluxMessageType#GET_RESOURCE_CHUNK_REQUEST}.
+ * <p/>
+ * A requester sending the signatures of its local copy of the file gets a {@link
+ * com.codenvy.flux.watcher.core.utils.ResourceDelta} instead, if it is smaller than the content and than a chunk.
  *
  * @author Kevin Pollet
  */
 @Singleton
 @FluxMessageTypes(GET_RESOURCE_REQUEST)
 public final class GetResourceRequestHandler implements FluxMessageHandler {
+    private static final Logger LOG = LoggerFactory.getLogger(GetResourceRequestHandler.class);
+
+    private final ResourceTransfers resourceTransfers;
+
+    /**
+     * Constructs an instance of {@code GetResourceRequestHandler}.
+     *
+     * @param resourceTransfers
+     *         the {@link com.codenvy.flux.watcher.core.internal.ResourceTransfers} providing the chunk size.
+     * @throws NullPointerException
+     *         if {@code resourceTransfers} parameter is {@code null}.
+     */
+    @Inject
+    GetResourceRequestHandler(ResourceTransfers resourceTransfers) {
+        this.resourceTransfers = checkNotNull(resourceTransfers);
+    }
+
     @Override
     public void onMessage(FluxMessage message, Repository repository) throws JSONException {
         final JSONObject request = message.content();
@@ -68,7 +109,42 @@ public final class GetResourceRequestHandler implements FluxMessageHandler {
                                                            .put(TYPE.value(), resource.type().name().toLowerCase());
 
                 if (resource.type() == FILE) {
-                    content.put(CONTENT.value(), new String(resource.content()));
+                    final ContentEncoding encoding = ContentEncoding.fromValue(request.optString(ACCEPT_ENCODING.value()));
+                    try {
+
+                        final long contentLength = resource.contentSource().size();
+                        if (request.has(SIGNATURES.value()) && request.has(BLOCK_SIZE.value())) {
+                            final byte[] delta = delta(request, resource.contentSource(), contentLength);
+                            if (delta != null) {
+                                content.put(DELTA.value(), BASE64.encode(ByteSource.wrap(delta)))
+                                       .put(BLOCK_SIZE.value(), request.getInt(BLOCK_SIZE.value()))
+                                       .put(CONTENT_LENGTH.value(), contentLength);
+
+                                message.source()
+                                       .sendMessage(new FluxMessage(GET_RESOURCE_RESPONSE, content));
+                                return;
+                            }
+                        }
+
+                        if (request.optBoolean(ACCEPT_CHUNKS.value())) {
+                            if (contentLength > resourceTransfers.chunkSize()) {
+                                content.put(CHUNKED.value(), true)
+                                       .put(CONTENT_LENGTH.value(), contentLength);
+
+                                message.source()
+                                       .sendMessage(new FluxMessage(GET_RESOURCE_RESPONSE, content));
+                                return;
+                            }
+                        }
+
+                        final String encodedContent = encoding.encode(resource.contentSource());
+                        content.put(CONTENT.value(), encodedContent)
+                               .put(ENCODING.value(), encoding.value())
+                               .put(CONTENT_LENGTH.value(), encoding.decodedLength(encodedContent));
+
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
                 }
 
                 message.source()
@@ -76,4 +152,23 @@ public final class GetResourceRequestHandler implements FluxMessageHandler {
             }
         }
     }
+
+    /**
+     * Computes the delta rebuilding the given content from the copy signed in the request.
+     *
+     * @return the delta or {@code null} if it is not smaller than the content and than a chunk or if the signatures are
+     * malformed.
+     */
+    private byte[] delta(JSONObject request, ByteSource contentSource, long contentLength) throws JSONException, IOException {
+        final int maxLength = (int)Math.min(contentLength - 1, resourceTransfers.chunkSize());
+        try {
+
+            final byte[] signatures = BaseEncoding.base64().decode(request.getString(SIGNATURES.value()));
+            return ResourceDelta.delta(contentSource, signatures, request.getInt(BLOCK_SIZE.value()), maxLength);
+
+        } catch (IllegalArgumentException e) {
+            LOG.warn("Ignoring malformed signatures for resource {}", request.optString(RESOURCE.value()));
+            return null;
+        }
+    }
 }
@@ -10,76 +10,288 @@
  *******************************************************************************/
 package com.codenvy.flux.watcher.core.internal;
 
+import com.codenvy.flux.watcher.core.FluxConnection;
 import com.codenvy.flux.watcher.core.FluxMessage;
 import com.codenvy.flux.watcher.core.FluxMessageHandler;
 import com.codenvy.flux.watcher.core.FluxMessageTypes;
 import com.codenvy.flux.watcher.core.Repository;
 import com.codenvy.flux.watcher.core.Resource;
 import com.codenvy.flux.watcher.core.spi.Project;
+import com.codenvy.flux.watcher.core.utils.ContentEncoding;
+import com.codenvy.flux.watcher.core.utils.ResourceDelta;
+import com.codenvy.flux.watcher.core.utils.ResourceHelper;
+import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
 
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.io.IOException;
+import java.nio.file.Path;
 
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.BLOCK_SIZE;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CHUNKED;
 import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CONTENT;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CONTENT_LENGTH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.DELTA;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.ENCODING;
 import static com.codenvy.flux.watcher.core.FluxMessage.Fields.HASH;
 import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PROJECT;
 import static com.codenvy.flux.watcher.core.FluxMessage.Fields.RESOURCE;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.SIGNATURES;
 import static com.codenvy.flux.watcher.core.FluxMessage.Fields.TIMESTAMP;
 import static com.codenvy.flux.watcher.core.FluxMessage.Fields.TYPE;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_RESOURCE_REQUEST;
 import static com.codenvy.flux.watcher.core.FluxMessageType.GET_RESOURCE_RESPONSE;
 import static com.codenvy.flux.watcher.core.FluxMessageType.RESOURCE_STORED;
 import static com.codenvy.flux.watcher.core.Resource.ResourceType;
 import static com.codenvy.flux.watcher.core.Resource.ResourceType.FILE;
+import static com.codenvy.flux.watcher.core.utils.ContentEncoding.BASE64;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.deleteIfExists;
 
 /**
- * Handler replying to a {@link com.codenvy.flux.watcher.core.FluxMessageType#GET_RESOURCE_RESPONSE}.
+ * Handler replying to a {@link com.codenvy.flux.watcher.core.FluxMessageType#GET_RESOURCE_RESPONSE}. The file content is
+ * decoded according to its {@link com.codenvy.flux.watcher.core.utils.ContentEncoding} while it is written, a content which
+ * doesn't match the announced length is discarded. A large file announced as chunked is fetched by the {@link
+ * com.codenvy.flux.watcher.core.internal.ResourceTransfers}, which then holds the slot of the file in the {@link
+ * com.codenvy.flux.watcher.core.internal.ProjectSynchronizer} window until the transfer ends.
+ * <p/>
+ * A {@link com.codenvy.flux.watcher.core.utils.ResourceDelta} is applied to the local copy of the file into a temporary file,
+ * the whole content is requested again if the rebuilt file doesn't match the announced length and hash.
  *
  * @author Kevin Pollet
  */
 @Singleton
 @FluxMessageTypes(GET_RESOURCE_RESPONSE)
 public final class GetResourceResponseHandler implements FluxMessageHandler {
+    private static final Logger LOG = LoggerFactory.getLogger(GetResourceResponseHandler.class);
+
+    private final ProjectSynchronizer projectSynchronizer;
+    private final ResourceTransfers   resourceTransfers;
+
+    /**
+     * Constructs an instance of {@code GetResourceResponseHandler}.
+     *
+     * @param projectSynchronizer
+     *         the {@link com.codenvy.flux.watcher.core.internal.ProjectSynchronizer} notified of the received resources.
+     * @param resourceTransfers
+     *         the {@link com.codenvy.flux.watcher.core.internal.ResourceTransfers} fetching the chunked resources.
+     * @throws NullPointerException
+     *         if {@code projectSynchronizer} or {@code resourceTransfers} parameter is {@code null}.
+     */
+    @Inject
+    GetResourceResponseHandler(ProjectSynchronizer projectSynchronizer, ResourceTransfers resourceTransfers) {
+        this.projectSynchronizer = checkNotNull(projectSynchronizer);
+        this.resourceTransfers = checkNotNull(resourceTransfers);
+    }
+
     @Override
     public void onMessage(FluxMessage message, Repository repository) throws JSONException {
+        boolean isTransferStarted = false;
+        try {
+
+            isTransferStarted = storeResource(message, repository);
+
+        } finally {
+            // a started transfer releases the window slot itself once the file is completed or cancelled
+            final JSONObject request = message.content();
+            if (!isTransferStarted && message.source() != null && request.has(PROJECT.value()) && request.has(RESOURCE.value())) {
+                projectSynchronizer.resourceFetched(message.source(), request.optString(PROJECT.value()), request.optString(RESOURCE.value()));
+            }
+        }
+    }
+
+    private boolean storeResource(FluxMessage message, Repository repository) throws JSONException {
         final JSONObject request = message.content();
         final String projectName = request.getString(PROJECT.value());
         final String resourcePath = request.getString(RESOURCE.value());
         final long resourceTimestamp = request.getLong(TIMESTAMP.value());
         final String resourceHash = request.getString(HASH.value());
-        final String resourceContent = request.getString(CONTENT.value());
 
         final Project project = repository.getProject(projectName);
         if (project != null) {
             final ResourceType resourceType = ResourceType.valueOf(request.getString(TYPE.value()).toUpperCase());
 
             if (resourceType == FILE) {
-                boolean isResourceStored = false;
-                final Resource localResource = project.getResource(resourcePath);
-                final Resource resource = Resource.newFile(resourcePath, resourceTimestamp, resourceContent.getBytes());
+                if (request.optBoolean(CHUNKED.value())) {
+                    final long resourceLength = request.getLong(CONTENT_LENGTH.value());
+                    resourceTransfers.start(message.source(), project, resourcePath, resourceTimestamp, resourceHash, resourceLength);
+                    return true;
+                }
 
-                if (localResource == null) {
-                    project.createResource(resource);
-                    isResourceStored = true;
+                if (request.has(DELTA.value())) {
+                    storeDelta(message.source(), project, resourcePath, resourceTimestamp, resourceHash, request);
+                    return false;
+                }
 
-                } else if (!localResource.hash().equals(resourceHash) && localResource.timestamp() < resourceTimestamp) {
-                    project.updateResource(resource);
-                    isResourceStored = true;
+                final String resourceContent = request.getString(CONTENT.value());
+                final ContentEncoding encoding = ContentEncoding.fromValue(request.optString(ENCODING.value()));
+                if (request.has(CONTENT_LENGTH.value())
+                    && request.getLong(CONTENT_LENGTH.value()) != encoding.decodedLength(resourceContent)) {
+
+                    LOG.warn("Discarding resource {} of project {} with an unexpected content length", resourcePath, projectName);
+                    return false;
                 }
 
-                if (isResourceStored) {
-                    final JSONObject content = new JSONObject()
-                            .put(PROJECT.value(), projectName)
-                            .put(RESOURCE.value(), resourcePath)
-                            .put(TIMESTAMP.value(), resourceTimestamp)
-                            .put(HASH.value(), resourceHash)
-                            .put(TYPE.value(), resourceType.name().toLowerCase());
+                final Resource resource = Resource.newFile(resourcePath, resourceTimestamp, encoding.decode(resourceContent));
+                storeFile(message.source(), project, resource, resourceHash);
+            }
+        }
+        return false;
+    }
+
+    private void storeDelta(FluxConnection source, Project project, String resourcePath, long resourceTimestamp,
+                            String resourceHash, JSONObject request) throws JSONException {
+        final Resource localResource = project.getResource(resourcePath);
+        if (localResource == null || localResource.type() != FILE) {
+            LOG.warn("No local copy of resource {} of project {} to apply the delta", resourcePath, project.id());
+            requestContent(source, project, resourcePath, resourceTimestamp, resourceHash);
+            return;
+        }
 
-                    message.source()
-                           .sendMessage(new FluxMessage(RESOURCE_STORED, content));
+        Path rebuiltFile = null;
+        try {
+
+            final byte[] delta = BASE64.decode(request.getString(DELTA.value())).read();
+            final ByteSource patchedContent = ResourceDelta.patch(localResource.contentSource(), delta, request.getInt(BLOCK_SIZE.value()));
+
+            rebuiltFile = createTempFile("flux-delta", null);
+            patchedContent.copyTo(Files.asByteSink(rebuiltFile.toFile()));
+
+            final ByteSource rebuiltContent = Files.asByteSource(rebuiltFile.toFile());
+            if (rebuiltContent.size() != request.getLong(CONTENT_LENGTH.value())
+                || !ResourceHelper.sha1(rebuiltContent).equalsIgnoreCase(resourceHash)) {
+
+                LOG.warn("Delta of resource {} of project {} doesn't match its hash, fetching its whole content", resourcePath, project.id());
+                requestContent(source, project, resourcePath, resourceTimestamp, resourceHash);
+                return;
+            }
+
+            // the rebuilt content has been checked against the announced hash, no need to hash it again
+            final Resource rebuiltResource = Resource.newFile(resourcePath, resourceTimestamp, resourceHash, rebuiltContent);
+            storeFile(source, project, rebuiltResource, resourceHash);
+
+        } catch (IOException | IllegalArgumentException e) {
+            LOG.warn("Unable to apply the delta of resource " + resourcePath + " of project " + project.id(), e);
+            requestContent(source, project, resourcePath, resourceTimestamp, resourceHash);
+
+        } finally {
+            if (rebuiltFile != null) {
+                try {
+                    deleteIfExists(rebuiltFile);
+                } catch (IOException e) {
+                    LOG.warn("Unable to delete temporary file " + rebuiltFile, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Requests the whole content of the given file, without signatures.
+     *
+     * @param source
+     *         the {@link com.codenvy.flux.watcher.core.FluxConnection} to request the file from.
+     * @param project
+     *         the {@link com.codenvy.flux.watcher.core.spi.Project} of the file.
+     * @param resourcePath
+     *         the file path.
+     * @param resourceTimestamp
+     *         the file timestamp.
+     * @param resourceHash
+     *         the file hash.
+     * @throws org.json.JSONException
+     *         if the {@link com.codenvy.flux.watcher.core.FluxMessageType#GET_RESOURCE_REQUEST} message cannot be built.
+     */
+    static void requestContent(FluxConnection source, Project project, String resourcePath, long resourceTimestamp,
+                               String resourceHash) throws JSONException {
+        final JSONObject content = new JSONObject()
+                .put(PROJECT.value(), project.id())
+                .put(RESOURCE.value(), resourcePath)
+                .put(TIMESTAMP.value(), resourceTimestamp)
+                .put(HASH.value(), resourceHash);
+
+        source.sendMessage(new FluxMessage(GET_RESOURCE_REQUEST, content));
+    }
+
+    /**
+     * Adds to the given {@link com.codenvy.flux.watcher.core.FluxMessageType#GET_RESOURCE_REQUEST} content the signatures of
+     * the local copy of the requested file, so that the remote can answer with a {@link
+     * com.codenvy.flux.watcher.core.utils.ResourceDelta}. Nothing is added if there is no local copy or if it is too small to be
+     * worth a delta.
+     *
+     * @param request
+     *         the request content.
+     * @param localResource
+     *         the local copy of the requested {@link com.codenvy.flux.watcher.core.Resource} or {@code null} if none.
+     * @return the given request content, never {@code null}.
+     * @throws org.json.JSONException
+     *         if the signatures cannot be added.
+     */
+    static JSONObject withSignatures(JSONObject request, Resource localResource) throws JSONException {
+        if (localResource != null && localResource.type() == FILE) {
+            try {
+
+                final ByteSource localContent = localResource.contentSource();
+                final long localLength = localContent.size();
+                if (localLength >= ResourceDelta.minSize()) {
+                    final int blockSize = ResourceDelta.blockSize(localLength);
+                    request.put(BLOCK_SIZE.value(), blockSize)
+                           .put(SIGNATURES.value(), BASE64.encode(ByteSource.wrap(ResourceDelta.signatures(localContent, blockSize))));
                 }
+
+            } catch (IOException e) {
+                LOG.warn("Unable to sign resource " + localResource.path(), e);
             }
         }
+        return request;
+    }
+
+    /**
+     * Creates or updates the given file in the project if it is missing or outdated, and notifies the connection that it has
+     * been stored.
+     *
+     * @param source
+     *         the {@link com.codenvy.flux.watcher.core.FluxConnection} where the file comes from.
+     * @param project
+     *         the {@link com.codenvy.flux.watcher.core.spi.Project} to store the file in.
+     * @param resource
+     *         the file {@link com.codenvy.flux.watcher.core.Resource}, built with its hash if it has already been checked.
+     * @param resourceHash
+     *         the announced file hash.
+     * @throws org.json.JSONException
+     *         if the {@link com.codenvy.flux.watcher.core.FluxMessageType#RESOURCE_STORED} message cannot be built.
+     */
+    static void storeFile(FluxConnection source, Project project, Resource resource, String resourceHash) throws JSONException {
+        final String resourcePath = resource.path();
+        final long resourceTimestamp = resource.timestamp();
+
+        boolean isResourceStored = false;
+        final Resource localResource = project.getResource(resourcePath);
+
+        if (localResource == null) {
+            project.createResource(resource);
+            isResourceStored = true;
+
+        } else if (!localResource.hash().equals(resourceHash) && localResource.timestamp() < resourceTimestamp) {
+            project.updateResource(resource);
+            isResourceStored = true;
+        }
+
+        if (isResourceStored) {
+            final JSONObject content = new JSONObject()
+                    .put(PROJECT.value(), project.id())
+                    .put(RESOURCE.value(), resourcePath)
+                    .put(TIMESTAMP.value(), resourceTimestamp)
+                    .put(HASH.value(), resourceHash)
+                    .put(TYPE.value(), FILE.name().toLowerCase());
+
+            source.sendMessage(new FluxMessage(RESOURCE_STORED, content));
+        }
     }
 }
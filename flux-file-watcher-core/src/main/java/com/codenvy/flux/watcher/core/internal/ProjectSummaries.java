@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.internal;
+
+import com.codenvy.flux.watcher.core.FluxMessage;
+import com.codenvy.flux.watcher.core.FluxMessageBus;
+import com.codenvy.flux.watcher.core.RepositoryEvent;
+import com.codenvy.flux.watcher.core.RepositoryEventTypes;
+import com.codenvy.flux.watcher.core.RepositoryListener;
+import com.codenvy.flux.watcher.core.Resource;
+import com.codenvy.flux.watcher.core.codec.FluxMessageCodecs;
+import com.codenvy.flux.watcher.core.codec.GetProjectRequest;
+import com.codenvy.flux.watcher.core.spi.Project;
+import com.google.common.collect.MapMaker;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.HASH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PATH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PROJECT;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_PROJECT_SUMMARY_REQUEST;
+import static com.codenvy.flux.watcher.core.RepositoryEventType.PROJECT_RESOURCE_CREATED;
+import static com.codenvy.flux.watcher.core.RepositoryEventType.PROJECT_RESOURCE_DELETED;
+import static com.codenvy.flux.watcher.core.RepositoryEventType.PROJECT_RESOURCE_MODIFIED;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FILE;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FOLDER;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Maintains a {@link com.codenvy.flux.watcher.core.internal.ResourceTree} per project, so that a project can be reconciled
+ * with a remote by exchanging the hashes of its subtrees instead of listing all its resources.
+ * <p/>
+ * The tree of a project is built from its resources the first time it is needed, then it is kept up to date with the
+ * repository events. When a project is connected its root hash is sent in a {@link
+ * com.codenvy.flux.watcher.core.FluxMessageType#GET_PROJECT_SUMMARY_REQUEST}, only the subtrees whose hash differs are then
+ * walked down. The full listing is requested with a {@link com.codenvy.flux.watcher.core.FluxMessageType#GET_PROJECT_REQUEST}
+ * if no remote answers within the time configured with the {@value #SUMMARY_TIMEOUT_PROPERTY} system property, {@value
+ * #DEFAULT_SUMMARY_TIMEOUT} milliseconds by default.
+ *
+ * @author Kevin Pollet
+ */
+@Singleton
+@RepositoryEventTypes({PROJECT_RESOURCE_CREATED, PROJECT_RESOURCE_MODIFIED, PROJECT_RESOURCE_DELETED})
+public class ProjectSummaries implements RepositoryListener {
+    public static final String SUMMARY_TIMEOUT_PROPERTY = "flux.watcher.summary.timeout";
+    public static final long   DEFAULT_SUMMARY_TIMEOUT  = 10000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProjectSummaries.class);
+
+    private final Provider<FluxMessageBus>                  messageBus;
+    private final ConcurrentMap<Project, ResourceTree>      trees;
+    private final ConcurrentMap<String, ScheduledFuture<?>> fallbackTasks;
+    private final ScheduledExecutorService                  executor;
+    private final long                                      summaryTimeout;
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.core.internal.ProjectSummaries} configured with the system
+     * properties.
+     *
+     * @param messageBus
+     *         the {@link com.codenvy.flux.watcher.core.FluxMessageBus} {@link javax.inject.Provider}.
+     * @throws java.lang.NullPointerException
+     *         if {@code messageBus} parameter is {@code null}.
+     */
+    @Inject
+    public ProjectSummaries(Provider<FluxMessageBus> messageBus) {
+        this(messageBus, Long.getLong(SUMMARY_TIMEOUT_PROPERTY, DEFAULT_SUMMARY_TIMEOUT));
+    }
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.core.internal.ProjectSummaries}.
+     *
+     * @param messageBus
+     *         the {@link com.codenvy.flux.watcher.core.FluxMessageBus} {@link javax.inject.Provider}.
+     * @param summaryTimeout
+     *         the time in milliseconds after which the full listing of a project is requested.
+     * @throws java.lang.NullPointerException
+     *         if {@code messageBus} parameter is {@code null}.
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code summaryTimeout} is not positive.
+     */
+    ProjectSummaries(Provider<FluxMessageBus> messageBus, long summaryTimeout) {
+        checkArgument(summaryTimeout > 0);
+
+        this.messageBus = checkNotNull(messageBus);
+        this.summaryTimeout = summaryTimeout;
+        this.trees = new MapMaker().weakKeys().makeMap();
+        this.fallbackTasks = new ConcurrentHashMap<>();
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("flux-project-summaries")
+                                                                                              .setDaemon(true)
+                                                                                              .build());
+    }
+
+    /**
+     * Requests the summary of the given project root to the remotes. The full listing of the project is requested instead if
+     * no summary is received in time.
+     *
+     * @param project
+     *         the {@link com.codenvy.flux.watcher.core.spi.Project}.
+     * @throws java.lang.NullPointerException
+     *         if {@code project} parameter is {@code null}.
+     */
+    public void requestSummary(final Project project) {
+        checkNotNull(project);
+
+        try {
+
+            final JSONObject content = new JSONObject().put(PROJECT.value(), project.id())
+                                                       .put(PATH.value(), "")
+                                                       .put(HASH.value(), summary(project, "").hash());
+
+            final ScheduledFuture<?> previousTask = fallbackTasks.put(project.id(), executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    if (fallbackTasks.remove(project.id()) != null) {
+                        LOG.info("No summary received for project {}, requesting its full listing", project.id());
+                        requestListing(project);
+                    }
+                }
+            }, summaryTimeout, MILLISECONDS));
+
+            if (previousTask != null) {
+                previousTask.cancel(false);
+            }
+
+            messageBus.get().sendMessages(new FluxMessage(GET_PROJECT_SUMMARY_REQUEST, content));
+
+        } catch (JSONException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Notifies that a summary of the given project has been received from a remote, so that its full listing is not requested.
+     *
+     * @param project
+     *         the {@link com.codenvy.flux.watcher.core.spi.Project}.
+     * @throws java.lang.NullPointerException
+     *         if {@code project} parameter is {@code null}.
+     */
+    public void summaryReceived(Project project) {
+        final ScheduledFuture<?> fallbackTask = fallbackTasks.remove(checkNotNull(project).id());
+        if (fallbackTask != null) {
+            fallbackTask.cancel(false);
+        }
+    }
+
+    /**
+     * Returns the summary of the resource with the given path in the given project.
+     *
+     * @param project
+     *         the {@link com.codenvy.flux.watcher.core.spi.Project}.
+     * @param path
+     *         the relative resource path, the empty path for the project root.
+     * @return the {@link com.codenvy.flux.watcher.core.internal.ResourceTree.Summary} or {@code null} if there is no resource
+     * with the given path.
+     * @throws java.lang.NullPointerException
+     *         if {@code project} or {@code path} parameter is {@code null}.
+     */
+    ResourceTree.Summary summary(Project project, String path) {
+        return tree(checkNotNull(project)).summary(checkNotNull(path));
+    }
+
+    @Override
+    public void onEvent(RepositoryEvent event) {
+        // a tree not built yet will be built from the up to date project resources
+        final ResourceTree tree = trees.get(event.project());
+        if (tree == null) {
+            return;
+        }
+
+        final Resource resource = event.resource();
+        if (event.type() == PROJECT_RESOURCE_DELETED) {
+            tree.remove(resource.path());
+
+        } else if (resource.type() == FILE || resource.type() == FOLDER) {
+            tree.put(resource.path(), resource.type(), resource.timestamp(), resource.type() == FILE ? resource.hash() : null);
+        }
+    }
+
+    private ResourceTree tree(Project project) {
+        ResourceTree tree = trees.get(project);
+        if (tree == null) {
+            final ResourceTree newTree = new ResourceTree();
+            tree = trees.putIfAbsent(project, newTree);
+            if (tree == null) {
+                tree = newTree;
+
+                // the events fired while the tree is built wait for it and are applied afterwards
+                synchronized (newTree) {
+                    for (Resource oneResource : project.getResources()) {
+                        if (oneResource.type() == FILE || oneResource.type() == FOLDER) {
+                            newTree.put(oneResource.path(), oneResource.type(), oneResource.timestamp(),
+                                        oneResource.type() == FILE ? oneResource.hash() : null);
+                        }
+                    }
+                }
+            }
+        }
+        return tree;
+    }
+
+    private void requestListing(Project project) {
+        final GetProjectRequest request = new GetProjectRequest(project.id(), true, null, GetProjectResponseHandler.pageSize());
+        messageBus.get().sendMessages(new FluxMessage(new JSONObject(), request, FluxMessageCodecs.GET_PROJECT_REQUEST));
+    }
+}
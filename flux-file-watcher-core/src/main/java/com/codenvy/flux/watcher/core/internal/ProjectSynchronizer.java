@@ -0,0 +1,601 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.internal;
+
+import com.codenvy.flux.watcher.core.FluxConnection;
+import com.codenvy.flux.watcher.core.FluxMessage;
+import com.codenvy.flux.watcher.core.Resource;
+import com.codenvy.flux.watcher.core.spi.Project;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.HASH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PROJECT;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.RESOURCE;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.TIMESTAMP;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_RESOURCE_REQUEST;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FILE;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FOLDER;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Reconciles a local project with the resources listed by a remote in a
+ * {@link com.codenvy.flux.watcher.core.FluxMessageType#GET_PROJECT_RESPONSE}.
+ * <p/>
+ * The remote resources are compared with the local ones in parallel chunks. The missing folders are then created in the
+ * listing order and the outdated files are fetched with {@link com.codenvy.flux.watcher.core.FluxMessageType#GET_RESOURCE_REQUEST},
+ * keeping at most a window of requests in flight per project and connection. A request which is not answered in time releases
+ * its slot in the window. The synchronization is configured with the following system properties:
+ * <ul>
+ * <li>{@value #THREADS_PROPERTY}: the number of threads comparing the resources, the number of processors by default.</li>
+ * <li>{@value #WINDOW_PROPERTY}: the maximum number of in-flight requests, {@value #DEFAULT_WINDOW} by default.</li>
+ * <li>{@value #REQUEST_TIMEOUT_PROPERTY}: the time in milliseconds after which an in-flight request is given up, {@value
+ * #DEFAULT_REQUEST_TIMEOUT} by default.</li>
+ * </ul>
+ *
+ * @author Kevin Pollet
+ */
+@Singleton
+public final class ProjectSynchronizer {
+    public static final String THREADS_PROPERTY         = "flux.watcher.sync.threads";
+    public static final String WINDOW_PROPERTY          = "flux.watcher.sync.window";
+    public static final String REQUEST_TIMEOUT_PROPERTY = "flux.watcher.sync.request.timeout";
+    public static final int    DEFAULT_WINDOW           = 64;
+    public static final long   DEFAULT_REQUEST_TIMEOUT  = 30000;
+
+    private static final Logger LOG               = LoggerFactory.getLogger(ProjectSynchronizer.class);
+    private static final int    CHUNK_SIZE        = 512;
+    private static final int    PROGRESS_LOG_STEP = 1000;
+
+    private final ScheduledExecutorService          executor;
+    private final ConcurrentMap<SessionKey, Session> sessions;
+    private final int                                window;
+    private final long                               requestTimeout;
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.core.internal.ProjectSynchronizer} configured with the system
+     * properties.
+     */
+    @Inject
+    ProjectSynchronizer() {
+        this(Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()),
+             Integer.getInteger(WINDOW_PROPERTY, DEFAULT_WINDOW),
+             Long.getLong(REQUEST_TIMEOUT_PROPERTY, DEFAULT_REQUEST_TIMEOUT));
+    }
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.core.internal.ProjectSynchronizer}.
+     *
+     * @param threads
+     *         the number of threads comparing the resources.
+     * @param window
+     *         the maximum number of in-flight requests per project and connection.
+     * @param requestTimeout
+     *         the time in milliseconds after which an in-flight request is given up.
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code threads}, {@code window} or {@code requestTimeout} is not positive.
+     */
+    ProjectSynchronizer(int threads, int window, long requestTimeout) {
+        checkArgument(threads > 0 && window > 0 && requestTimeout > 0);
+
+        this.executor = Executors.newScheduledThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("flux-project-synchronizer-%d")
+                                                                                             .setDaemon(true)
+                                                                                             .build());
+        this.sessions = new ConcurrentHashMap<>();
+        this.window = window;
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Returns the time after which an in-flight request is given up.
+     *
+     * @return the request timeout in milliseconds.
+     */
+    long requestTimeout() {
+        return requestTimeout;
+    }
+
+    /**
+     * Starts the synchronization of the given project with the resources listed by a remote. This method returns immediately,
+     * the comparison and the requests are done asynchronously.
+     *
+     * @param connection
+     *         the {@link com.codenvy.flux.watcher.core.FluxConnection} of the remote.
+     * @param project
+     *         the {@link com.codenvy.flux.watcher.core.spi.Project} to synchronize.
+     * @param files
+     *         the resources listed by the remote.
+     * @param deleted
+     *         the resources deleted on the remote.
+     * @throws java.lang.NullPointerException
+     *         if {@code connection}, {@code project}, {@code files} or {@code deleted} parameter is {@code null}.
+     */
+    public void synchronize(FluxConnection connection, Project project, final List<RemoteResource> files,
+                            final List<RemoteResource> deleted) {
+        checkNotNull(connection);
+        checkNotNull(project);
+        checkNotNull(files);
+        checkNotNull(deleted);
+
+        final Session session = startSubmission(connection, project, files.size());
+
+        final Action[] actions = new Action[files.size()];
+        final int chunks = (files.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        final AtomicInteger remainingChunks = new AtomicInteger(chunks);
+
+        if (chunks == 0) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    session.apply(files, actions, deleted);
+                }
+            });
+        }
+
+        for (int i = 0; i < chunks; i++) {
+            final int from = i * CHUNK_SIZE;
+            final int to = Math.min(from + CHUNK_SIZE, files.size());
+
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    session.compare(files, actions, from, to);
+                    if (remainingChunks.decrementAndGet() == 0) {
+                        session.apply(files, actions, deleted);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Notifies that a resource requested by a synchronization has been received, releasing its slot in the window.
+     *
+     * @param connection
+     *         the {@link com.codenvy.flux.watcher.core.FluxConnection} where the resource comes from.
+     * @param projectId
+     *         the project id.
+     * @param resourcePath
+     *         the resource path.
+     * @throws java.lang.NullPointerException
+     *         if {@code connection}, {@code projectId} or {@code resourcePath} parameter is {@code null}.
+     */
+    public void resourceFetched(FluxConnection connection, String projectId, String resourcePath) {
+        checkNotNull(connection);
+        checkNotNull(projectId);
+        checkNotNull(resourcePath);
+
+        final Session session = sessions.get(new SessionKey(connection, projectId));
+        if (session != null) {
+            session.resourceFetched(resourcePath);
+        }
+    }
+
+    /**
+     * Returns the progress of the last synchronization of the given project with the given connection.
+     *
+     * @param connection
+     *         the {@link com.codenvy.flux.watcher.core.FluxConnection}.
+     * @param projectId
+     *         the project id.
+     * @return the {@link com.codenvy.flux.watcher.core.internal.ProjectSynchronizer.Progress} or {@code null} if the project has
+     * never been synchronized with this connection.
+     * @throws java.lang.NullPointerException
+     *         if {@code connection} or {@code projectId} parameter is {@code null}.
+     */
+    public Progress progress(FluxConnection connection, String projectId) {
+        checkNotNull(connection);
+        checkNotNull(projectId);
+
+        final Session session = sessions.get(new SessionKey(connection, projectId));
+        return session == null ? null : session.progress();
+    }
+
+    /**
+     * Registers a submission of resources in the running session of the given project and connection, a new session is started
+     * if the last one is done.
+     */
+    private Session startSubmission(FluxConnection connection, Project project, int resourceCount) {
+        final SessionKey key = new SessionKey(connection, project.id());
+        while (true) {
+            final Session session = sessions.get(key);
+            if (session != null && session.submissionStarted(resourceCount)) {
+                return session;
+            }
+
+            final Session newSession = new Session(connection, project, resourceCount);
+            if (session == null ? sessions.putIfAbsent(key, newSession) == null : sessions.replace(key, session, newSession)) {
+                return newSession;
+            }
+        }
+    }
+
+    private enum Action {
+        NONE, CREATE_FOLDER, FETCH
+    }
+
+    /**
+     * A resource listed by a remote.
+     *
+     * @author Kevin Pollet
+     */
+    public static final class RemoteResource {
+        private final String       path;
+        private final long         timestamp;
+        private final ResourceType type;
+        private final String       hash;
+
+        /**
+         * Constructs an instance of {@link com.codenvy.flux.watcher.core.internal.ProjectSynchronizer.RemoteResource}.
+         *
+         * @param path
+         *         the resource path.
+         * @param timestamp
+         *         the resource timestamp.
+         * @param type
+         *         the resource {@link com.codenvy.flux.watcher.core.Resource.ResourceType}.
+         * @param hash
+         *         the resource hash.
+         * @throws java.lang.NullPointerException
+         *         if {@code path}, {@code type} or {@code hash} parameter is {@code null}.
+         */
+        public RemoteResource(String path, long timestamp, ResourceType type, String hash) {
+            this.path = checkNotNull(path);
+            this.timestamp = timestamp;
+            this.type = checkNotNull(type);
+            this.hash = checkNotNull(hash);
+        }
+    }
+
+    /**
+     * Snapshot of the progress of a synchronization.
+     *
+     * @author Kevin Pollet
+     */
+    public static final class Progress {
+        private final long    total;
+        private final long    compared;
+        private final long    requested;
+        private final long    fetched;
+        private final long    expired;
+        private final long    elapsedMillis;
+        private final boolean done;
+
+        Progress(long total, long compared, long requested, long fetched, long expired, long elapsedMillis, boolean done) {
+            this.total = total;
+            this.compared = compared;
+            this.requested = requested;
+            this.fetched = fetched;
+            this.expired = expired;
+            this.elapsedMillis = elapsedMillis;
+            this.done = done;
+        }
+
+        /**
+         * Returns the number of resources listed by the remote.
+         *
+         * @return the number of listed resources.
+         */
+        public long total() {
+            return total;
+        }
+
+        /**
+         * Returns the number of resources compared with the local ones.
+         *
+         * @return the number of compared resources.
+         */
+        public long compared() {
+            return compared;
+        }
+
+        /**
+         * Returns the number of resources requested to the remote.
+         *
+         * @return the number of requested resources.
+         */
+        public long requested() {
+            return requested;
+        }
+
+        /**
+         * Returns the number of requested resources received from the remote.
+         *
+         * @return the number of fetched resources.
+         */
+        public long fetched() {
+            return fetched;
+        }
+
+        /**
+         * Returns the number of requests given up because the remote didn't answer in time.
+         *
+         * @return the number of expired requests.
+         */
+        public long expired() {
+            return expired;
+        }
+
+        /**
+         * Returns the time elapsed since the synchronization started, until it completed if it is done.
+         *
+         * @return the elapsed time in milliseconds.
+         */
+        public long elapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * Returns if the synchronization is done.
+         *
+         * @return {@code true} if all resources have been compared and all requests are answered or expired, {@code false}
+         * otherwise.
+         */
+        public boolean isDone() {
+            return done;
+        }
+
+        /**
+         * Returns the number of resources fetched per second.
+         *
+         * @return the fetch throughput.
+         */
+        public double throughput() {
+            return elapsedMillis == 0 ? 0 : fetched * 1000d / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d/%d compared, %d/%d fetched, %d expired in %d ms (%.1f resources/s)",
+                                 compared, total, fetched, requested, expired, elapsedMillis, throughput());
+        }
+    }
+
+    private static final class SessionKey {
+        private final FluxConnection connection;
+        private final String         projectId;
+
+        SessionKey(FluxConnection connection, String projectId) {
+            this.connection = connection;
+            this.projectId = projectId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            SessionKey that = (SessionKey)o;
+
+            return connection == that.connection && projectId.equals(that.projectId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(connection) + projectId.hashCode();
+        }
+    }
+
+    /**
+     * The synchronization state of a project with a connection. The comparison counter is updated by the comparing threads,
+     * the remaining state is guarded by the session monitor.
+     */
+    private final class Session {
+        private final FluxConnection    connection;
+        private final Project           project;
+        private final long              startTime;
+        private final AtomicLong        compared;
+        private final Deque<JSONObject> pendingRequests;
+        private final Map<String, Long> inFlightRequests;
+        private long                    total;
+        private long                    requested;
+        private long                    fetched;
+        private long                    expired;
+        private int                     pendingSubmissions;
+        private long                    endTime;
+        private ScheduledFuture<?>      expirationTask;
+
+        Session(FluxConnection connection, Project project, int resourceCount) {
+            this.connection = connection;
+            this.project = project;
+            this.startTime = System.nanoTime();
+            this.compared = new AtomicLong();
+            this.pendingRequests = new ArrayDeque<>();
+            this.inFlightRequests = new LinkedHashMap<>();
+            this.total = resourceCount;
+            this.pendingSubmissions = 1;
+        }
+
+        synchronized boolean submissionStarted(int resourceCount) {
+            if (endTime != 0) {
+                return false;
+            }
+
+            total += resourceCount;
+            pendingSubmissions++;
+            return true;
+        }
+
+        void compare(List<RemoteResource> files, Action[] actions, int from, int to) {
+            for (int i = from; i < to; i++) {
+                final RemoteResource remoteResource = files.get(i);
+                try {
+
+                    final Resource localResource = project.getResource(remoteResource.path);
+                    if (remoteResource.type == FILE) {
+                        if (localResource == null
+                            || localResource.timestamp() < remoteResource.timestamp
+                               && !Objects.equals(remoteResource.hash, localResource.hash())) {
+                            actions[i] = Action.FETCH;
+                        }
+
+                    } else if (remoteResource.type == FOLDER && localResource == null) {
+                        actions[i] = Action.CREATE_FOLDER;
+                    }
+
+                } catch (RuntimeException e) {
+                    LOG.error("Unable to compare resource " + remoteResource.path + " of project " + project.id(), e);
+                }
+                compared.incrementAndGet();
+            }
+        }
+
+        void apply(List<RemoteResource> files, Action[] actions, List<RemoteResource> deleted) {
+            final Deque<JSONObject> requests = new ArrayDeque<>();
+            try {
+
+                for (int i = 0; i < files.size(); i++) {
+                    final RemoteResource remoteResource = files.get(i);
+                    if (actions[i] == Action.CREATE_FOLDER) {
+                        project.createResource(Resource.newFolder(remoteResource.path, remoteResource.timestamp));
+
+                    } else if (actions[i] == Action.FETCH) {
+                        requests.add(new JSONObject().put(PROJECT.value(), project.id())
+                                                     .put(RESOURCE.value(), remoteResource.path)
+                                                     .put(TIMESTAMP.value(), remoteResource.timestamp)
+                                                     .put(HASH.value(), remoteResource.hash));
+                    }
+                }
+
+                for (RemoteResource oneDeletedResource : deleted) {
+                    final Resource localResource = project.getResource(oneDeletedResource.path);
+                    if (localResource != null && localResource.timestamp() < oneDeletedResource.timestamp) {
+                        project.deleteResource(Resource.newUnknown(oneDeletedResource.path, oneDeletedResource.timestamp));
+                    }
+                }
+
+            } catch (JSONException | RuntimeException e) {
+                LOG.error("Unable to synchronize project " + project.id(), e);
+
+            } finally {
+                synchronized (this) {
+                    pendingRequests.addAll(requests);
+                    pendingSubmissions--;
+                    sendRequests();
+                }
+            }
+        }
+
+        synchronized void resourceFetched(String resourcePath) {
+            if (inFlightRequests.remove(resourcePath) != null) {
+                fetched++;
+                if (fetched % PROGRESS_LOG_STEP == 0) {
+                    LOG.info("Synchronizing project {}: {}", project.id(), progress());
+                }
+                sendRequests();
+            }
+        }
+
+        synchronized void expireRequests() {
+            final long expirationTime = System.nanoTime() - MILLISECONDS.toNanos(requestTimeout);
+            final Iterator<Map.Entry<String, Long>> iterator = inFlightRequests.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<String, Long> oneRequest = iterator.next();
+                if (oneRequest.getValue() - expirationTime > 0) {
+                    break;
+                }
+
+                LOG.warn("No answer for resource {} of project {}", oneRequest.getKey(), project.id());
+                iterator.remove();
+                expired++;
+            }
+            sendRequests();
+        }
+
+        synchronized Progress progress() {
+            final long elapsedTime = (endTime != 0 ? endTime : System.nanoTime()) - startTime;
+            return new Progress(total, compared.get(), requested, fetched, expired, NANOSECONDS.toMillis(elapsedTime), endTime != 0);
+        }
+
+        /**
+         * Sends the pending requests while the window is not full and completes the session if there is nothing left to do. The
+         * requests are signed and sent by the executor, the local files are never read with the session monitor held.
+         */
+        private void sendRequests() {
+            if (endTime != 0) {
+                return;
+            }
+
+            if (expirationTask == null && !pendingRequests.isEmpty()) {
+                expirationTask = executor.scheduleWithFixedDelay(new Runnable() {
+                    @Override
+                    public void run() {
+                        expireRequests();
+                    }
+                }, 1, 1, SECONDS);
+            }
+
+            while (inFlightRequests.size() < window && !pendingRequests.isEmpty()) {
+                final JSONObject content = pendingRequests.poll();
+                inFlightRequests.put(content.optString(RESOURCE.value()), System.nanoTime());
+                requested++;
+
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        sendRequest(content);
+                    }
+                });
+            }
+
+            if (pendingSubmissions == 0 && pendingRequests.isEmpty() && inFlightRequests.isEmpty()) {
+                endTime = System.nanoTime();
+                if (expirationTask != null) {
+                    expirationTask.cancel(false);
+                }
+                LOG.info("Project {} synchronized: {}", project.id(), progress());
+            }
+        }
+
+        /**
+         * Signs the given request with the local content of the requested resource and sends it.
+         *
+         * @param content
+         *         the request content.
+         */
+        private void sendRequest(JSONObject content) {
+            final String resourcePath = content.optString(RESOURCE.value());
+            try {
+                GetResourceResponseHandler.withSignatures(content, project.getResource(resourcePath));
+            } catch (JSONException | RuntimeException e) {
+                LOG.warn("Unable to sign resource " + resourcePath + " of project " + project.id(), e);
+            }
+
+            connection.sendMessage(new FluxMessage(GET_RESOURCE_REQUEST, content));
+        }
+    }
+}
@@ -53,7 +53,7 @@ public final class ResourceChangedHandler implements FluxMessageHandler {
                 && !localResource.hash().equals(resourceHash)
                 && localResource.timestamp() < resourceTimestamp) {
 
-                final JSONObject content = new JSONObject()
+                final JSONObject content = GetResourceResponseHandler.withSignatures(new JSONObject(), localResource)
                         .put(PROJECT.value(), projectName)
                         .put(RESOURCE.value(), resourcePath)
                         .put(TIMESTAMP.value(), resourceTimestamp)
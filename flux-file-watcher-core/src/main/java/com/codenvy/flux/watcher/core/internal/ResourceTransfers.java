@@ -0,0 +1,512 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.internal;
+
+import com.codenvy.flux.watcher.core.FluxConnection;
+import com.codenvy.flux.watcher.core.FluxMessage;
+import com.codenvy.flux.watcher.core.Resource;
+import com.codenvy.flux.watcher.core.spi.Project;
+import com.codenvy.flux.watcher.core.utils.ResourceHelper;
+import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.HASH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.LENGTH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.OFFSET;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PROJECT;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.RESOURCE;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_RESOURCE_CHUNK_REQUEST;
+import static com.codenvy.flux.watcher.core.utils.ContentEncoding.BASE64;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Fetches the large files in chunks with {@link com.codenvy.flux.watcher.core.FluxMessageType#GET_RESOURCE_CHUNK_REQUEST}.
+ * <p/>
+ * Each chunk carries its own sha1 and is written at its offset in a temporary file as soon as it is received, so that a file
+ * is never held in memory at once. A few chunks are kept in flight per file. When no chunk is received for a while, for
+ * example because the connection dropped, the missing chunks are requested again and the transfer resumes where it stopped. A
+ * complete file is checked against its announced length and hash before being stored in the project from the temporary file,
+ * a file which doesn't match is requested again with a {@link
+ * com.codenvy.flux.watcher.core.FluxMessageType#GET_RESOURCE_REQUEST}. The transfers are configured with the following system
+ * properties:
+ * <ul>
+ * <li>{@value #CHUNK_SIZE_PROPERTY}: the chunk size in bytes, files larger than this size are transferred in chunks.
+ * Defaults to {@value #DEFAULT_CHUNK_SIZE}.</li>
+ * <li>{@value #TRANSFER_DIRECTORY_PROPERTY}: the directory of the temporary files, {@code flux-transfers} in the
+ * {@code java.io.tmpdir} directory by default.</li>
+ * <li>{@value #CHUNK_TIMEOUT_PROPERTY}: the time in milliseconds without chunk after which the missing chunks are requested
+ * again. Defaults to {@value #DEFAULT_CHUNK_TIMEOUT}.</li>
+ * </ul>
+ * <p/>
+ * The slot of a file in the {@link com.codenvy.flux.watcher.core.internal.ProjectSynchronizer} window is held until its
+ * transfer is completed or cancelled, so that a synchronization doesn't start more large files than its window. The stalled
+ * transfers are checked by a daemon thread, stopped with the running transfers by {@link #close()}.
+ *
+ * @author Kevin Pollet
+ */
+@Singleton
+public final class ResourceTransfers {
+    public static final String CHUNK_SIZE_PROPERTY         = "flux.watcher.transfer.chunk.size";
+    public static final String TRANSFER_DIRECTORY_PROPERTY = "flux.watcher.transfer.dir";
+    public static final String CHUNK_TIMEOUT_PROPERTY      = "flux.watcher.transfer.chunk.timeout";
+    public static final int    DEFAULT_CHUNK_SIZE          = 1024 * 1024;
+    public static final long   DEFAULT_CHUNK_TIMEOUT       = 30000;
+
+    private static final Logger LOG          = LoggerFactory.getLogger(ResourceTransfers.class);
+    private static final int    CHUNK_WINDOW = 4;
+    private static final int    MAX_ATTEMPTS = 10;
+
+    private final ProjectSynchronizer             projectSynchronizer;
+    private final ConcurrentMap<String, Transfer> transfers;
+    private final int                             chunkSize;
+    private final Path                            transferDirectory;
+    private final long                            chunkTimeout;
+    private final ScheduledExecutorService        scheduler;
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.core.internal.ResourceTransfers} configured with the system
+     * properties.
+     *
+     * @param projectSynchronizer
+     *         the {@link com.codenvy.flux.watcher.core.internal.ProjectSynchronizer} notified of the transferred resources.
+     * @throws java.lang.NullPointerException
+     *         if {@code projectSynchronizer} parameter is {@code null}.
+     */
+    @Inject
+    ResourceTransfers(ProjectSynchronizer projectSynchronizer) {
+        this(projectSynchronizer,
+             Integer.getInteger(CHUNK_SIZE_PROPERTY, DEFAULT_CHUNK_SIZE),
+             Paths.get(System.getProperty(TRANSFER_DIRECTORY_PROPERTY, Paths.get(System.getProperty("java.io.tmpdir"), "flux-transfers").toString())),
+             Long.getLong(CHUNK_TIMEOUT_PROPERTY, DEFAULT_CHUNK_TIMEOUT));
+    }
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.core.internal.ResourceTransfers}.
+     *
+     * @param projectSynchronizer
+     *         the {@link com.codenvy.flux.watcher.core.internal.ProjectSynchronizer} notified of the transferred resources.
+     * @param chunkSize
+     *         the chunk size in bytes.
+     * @param transferDirectory
+     *         the directory of the temporary files.
+     * @param chunkTimeout
+     *         the time in milliseconds without chunk after which the missing chunks are requested again.
+     * @throws java.lang.NullPointerException
+     *         if {@code projectSynchronizer} or {@code transferDirectory} parameter is {@code null}.
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code chunkSize} or {@code chunkTimeout} is not positive.
+     */
+    ResourceTransfers(ProjectSynchronizer projectSynchronizer, int chunkSize, Path transferDirectory, long chunkTimeout) {
+        checkArgument(chunkSize > 0 && chunkTimeout > 0);
+
+        this.projectSynchronizer = checkNotNull(projectSynchronizer);
+        this.transfers = new ConcurrentHashMap<>();
+        this.chunkSize = chunkSize;
+        this.transferDirectory = checkNotNull(transferDirectory);
+        this.chunkTimeout = chunkTimeout;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("flux-resource-transfers")
+                                                                                              .setDaemon(true)
+                                                                                              .build());
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                resumeStalledTransfers();
+            }
+        }, 1, 1, SECONDS);
+    }
+
+    /**
+     * Returns the chunk size, files larger than this size are transferred in chunks.
+     *
+     * @return the chunk size in bytes.
+     */
+    public int chunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Starts the chunked transfer of a file. If a transfer of the same file version is already running, it is resumed on the
+     * given connection. Once this method returns, the {@link com.codenvy.flux.watcher.core.internal.ProjectSynchronizer} is
+     * notified that the file has been fetched when its transfer is completed or cancelled.
+     *
+     * @param connection
+     *         the {@link com.codenvy.flux.watcher.core.FluxConnection} to fetch the chunks from.
+     * @param project
+     *         the {@link com.codenvy.flux.watcher.core.spi.Project} to store the file in.
+     * @param resourcePath
+     *         the file path.
+     * @param resourceTimestamp
+     *         the file timestamp.
+     * @param resourceHash
+     *         the file hash.
+     * @param resourceLength
+     *         the file length in bytes.
+     * @throws java.lang.NullPointerException
+     *         if {@code connection}, {@code project}, {@code resourcePath} or {@code resourceHash} parameter is {@code null}.
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code resourceLength} is negative.
+     */
+    public void start(FluxConnection connection, Project project, String resourcePath, long resourceTimestamp, String resourceHash,
+                      long resourceLength) {
+        checkNotNull(connection);
+        checkNotNull(project);
+        checkNotNull(resourcePath);
+        checkNotNull(resourceHash);
+        checkArgument(resourceLength >= 0);
+
+        final String key = keyOf(project.id(), resourcePath);
+        final Transfer transfer = transfers.get(key);
+        if (transfer != null) {
+            if (transfer.resourceHash.equals(resourceHash) && transfer.resourceTimestamp == resourceTimestamp) {
+                transfer.addRequester(connection);
+                transfer.resume(connection);
+                return;
+            }
+            cancel(transfer);
+        }
+
+        try {
+
+            createDirectories(transferDirectory);
+            final Transfer newTransfer = new Transfer(key, connection, project, resourcePath, resourceTimestamp, resourceHash, resourceLength,
+                                                      createTempFile(transferDirectory, "flux-", ".part"));
+            if (transfers.putIfAbsent(key, newTransfer) != null) {
+                // a concurrent response started the same transfer, this one is done
+                newTransfer.close();
+                deleteIfExists(newTransfer.file);
+                projectSynchronizer.resourceFetched(connection, project.id(), resourcePath);
+
+            } else if (newTransfer.chunkCount == 0) {
+                complete(newTransfer);
+
+            } else {
+                newTransfer.requestChunks();
+            }
+
+        } catch (IOException | JSONException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Writes a received chunk in its transfer. A chunk which doesn't belong to a running transfer or whose hash doesn't match
+     * its content is ignored, it will be requested again.
+     *
+     * @param connection
+     *         the {@link com.codenvy.flux.watcher.core.FluxConnection} where the chunk comes from.
+     * @param projectId
+     *         the project id.
+     * @param resourcePath
+     *         the file path.
+     * @param resourceHash
+     *         the file hash.
+     * @param offset
+     *         the chunk offset in the file.
+     * @param encodedContent
+     *         the base64 encoded chunk content.
+     * @param chunkHash
+     *         the sha1 of the chunk content.
+     * @throws java.lang.NullPointerException
+     *         if {@code connection}, {@code projectId}, {@code resourcePath}, {@code resourceHash}, {@code encodedContent} or
+     *         {@code chunkHash} parameter is {@code null}.
+     */
+    public void chunkReceived(FluxConnection connection, String projectId, String resourcePath, String resourceHash, long offset,
+                              String encodedContent, String chunkHash) {
+        checkNotNull(connection);
+        checkNotNull(projectId);
+        checkNotNull(resourcePath);
+        checkNotNull(resourceHash);
+        checkNotNull(encodedContent);
+        checkNotNull(chunkHash);
+
+        final Transfer transfer = transfers.get(keyOf(projectId, resourcePath));
+        if (transfer == null || !transfer.resourceHash.equals(resourceHash)) {
+            return;
+        }
+
+        try {
+
+            // a chunk is bounded by the chunk size, it can be decoded in memory
+            final byte[] content = BASE64.decode(encodedContent).read();
+            if (!ResourceHelper.sha1(content).equalsIgnoreCase(chunkHash)) {
+                LOG.warn("Ignoring corrupted chunk at offset {} of resource {} in project {}", offset, resourcePath, projectId);
+                return;
+            }
+
+            if (transfer.write(offset, content)) {
+                complete(transfer);
+            }
+
+        } catch (IOException | JSONException | RuntimeException e) {
+            LOG.error("Unable to transfer resource " + resourcePath + " of project " + projectId, e);
+            cancel(transfer);
+        }
+    }
+
+    /**
+     * Returns the number of running transfers.
+     *
+     * @return the number of running transfers.
+     */
+    public int size() {
+        return transfers.size();
+    }
+
+    /**
+     * Stops checking the stalled transfers and cancels the running transfers.
+     */
+    public void close() {
+        scheduler.shutdownNow();
+        for (Transfer oneTransfer : transfers.values()) {
+            cancel(oneTransfer);
+        }
+    }
+
+    private void complete(Transfer transfer) throws IOException, JSONException {
+        if (transfers.remove(transfer.key, transfer)) {
+            try {
+
+                transfer.close();
+
+                final ByteSource content = Files.asByteSource(transfer.file.toFile());
+                if (content.size() != transfer.resourceLength
+                    || !ResourceHelper.sha1(content).equalsIgnoreCase(transfer.resourceHash)) {
+                    LOG.warn("Resource {} of project {} doesn't match its hash, fetching it again", transfer.resourcePath,
+                             transfer.project.id());
+                    GetResourceResponseHandler.requestContent(transfer.connection, transfer.project, transfer.resourcePath,
+                                                              transfer.resourceTimestamp, transfer.resourceHash);
+                    return;
+                }
+
+                // the content has been checked against the announced hash, no need to hash it again
+                GetResourceResponseHandler.storeFile(transfer.connection, transfer.project,
+                                                     Resource.newFile(transfer.resourcePath, transfer.resourceTimestamp,
+                                                                      transfer.resourceHash, content),
+                                                     transfer.resourceHash);
+
+            } finally {
+                deleteIfExists(transfer.file);
+                release(transfer);
+            }
+        }
+    }
+
+    private void cancel(Transfer transfer) {
+        if (transfers.remove(transfer.key, transfer)) {
+            try {
+
+                transfer.close();
+                deleteIfExists(transfer.file);
+
+            } catch (IOException e) {
+                LOG.warn("Unable to delete transfer file " + transfer.file, e);
+
+            } finally {
+                release(transfer);
+            }
+        }
+    }
+
+    private void release(Transfer transfer) {
+        for (FluxConnection oneRequester : transfer.requesters()) {
+            projectSynchronizer.resourceFetched(oneRequester, transfer.project.id(), transfer.resourcePath);
+        }
+    }
+
+    private void resumeStalledTransfers() {
+        for (Transfer oneTransfer : transfers.values()) {
+            try {
+
+                if (oneTransfer.isStalled()) {
+                    if (oneTransfer.attempts >= MAX_ATTEMPTS) {
+                        LOG.warn("Giving up transfer of resource {} in project {}", oneTransfer.resourcePath, oneTransfer.project.id());
+                        cancel(oneTransfer);
+                    } else {
+                        oneTransfer.resume(oneTransfer.connection);
+                    }
+                }
+
+            } catch (RuntimeException e) {
+                LOG.error("Unable to resume transfer of resource " + oneTransfer.resourcePath, e);
+            }
+        }
+    }
+
+    private static String keyOf(String projectId, String resourcePath) {
+        return projectId + '\u0000' + resourcePath;
+    }
+
+    /**
+     * The state of a chunked file transfer, guarded by its monitor.
+     */
+    private final class Transfer {
+        private final String              key;
+        private final Project             project;
+        private final String              resourcePath;
+        private final long                resourceTimestamp;
+        private final String              resourceHash;
+        private final long                resourceLength;
+        private final int                 chunkCount;
+        private final Path                file;
+        private final FileChannel         channel;
+        private final BitSet              receivedChunks;
+        private final BitSet              requestedChunks;
+        private final Set<FluxConnection> requesters;
+        private volatile FluxConnection   connection;
+        private int                       nextChunk;
+        private int                       attempts;
+        private long                      lastActivity;
+
+        Transfer(String key, FluxConnection connection, Project project, String resourcePath, long resourceTimestamp,
+                 String resourceHash, long resourceLength, Path file) throws IOException {
+            this.key = key;
+            this.connection = connection;
+            this.project = project;
+            this.resourcePath = resourcePath;
+            this.resourceTimestamp = resourceTimestamp;
+            this.resourceHash = resourceHash;
+            this.resourceLength = resourceLength;
+            this.chunkCount = (int)((resourceLength + chunkSize - 1) / chunkSize);
+            this.file = file;
+            this.channel = FileChannel.open(file, WRITE);
+            this.receivedChunks = new BitSet(chunkCount);
+            this.requestedChunks = new BitSet(chunkCount);
+            this.requesters = new HashSet<>();
+            this.requesters.add(connection);
+            this.lastActivity = System.nanoTime();
+        }
+
+        /**
+         * Writes a chunk at its offset.
+         *
+         * @return {@code true} if all chunks have been received, {@code false} otherwise.
+         */
+        synchronized boolean write(long offset, byte[] content) throws IOException {
+            final int chunk = (int)(offset / chunkSize);
+            if (offset % chunkSize != 0 || chunk >= chunkCount || receivedChunks.get(chunk)
+                || content.length != Math.min(chunkSize, resourceLength - offset)) {
+                return false;
+            }
+
+            final ByteBuffer buffer = ByteBuffer.wrap(content);
+            long position = offset;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+
+            receivedChunks.set(chunk);
+            requestedChunks.clear(chunk);
+            lastActivity = System.nanoTime();
+
+            if (receivedChunks.cardinality() == chunkCount) {
+                return true;
+            }
+            requestChunks();
+            return false;
+        }
+
+        /**
+         * Requests the missing chunks while the window is not full.
+         */
+        synchronized void requestChunks() {
+            while (requestedChunks.cardinality() < CHUNK_WINDOW) {
+                int chunk = nextChunk;
+                while (chunk < chunkCount && (receivedChunks.get(chunk) || requestedChunks.get(chunk))) {
+                    chunk++;
+                }
+                if (chunk >= chunkCount) {
+                    return;
+                }
+
+                nextChunk = chunk + 1;
+                requestedChunks.set(chunk);
+
+                final long offset = (long)chunk * chunkSize;
+                try {
+
+                    final JSONObject content = new JSONObject().put(PROJECT.value(), project.id())
+                                                               .put(RESOURCE.value(), resourcePath)
+                                                               .put(HASH.value(), resourceHash)
+                                                               .put(OFFSET.value(), offset)
+                                                               .put(LENGTH.value(), Math.min(chunkSize, resourceLength - offset));
+
+                    connection.sendMessage(new FluxMessage(GET_RESOURCE_CHUNK_REQUEST, content));
+
+                } catch (JSONException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+
+        /**
+         * Requests again all the missing chunks on the given connection.
+         */
+        synchronized void resume(FluxConnection connection) {
+            this.connection = connection;
+            requestedChunks.clear();
+            nextChunk = 0;
+            attempts++;
+            lastActivity = System.nanoTime();
+
+            requestChunks();
+        }
+
+        /**
+         * Adds a connection whose response asked for this transfer, it is notified when the transfer ends.
+         */
+        synchronized void addRequester(FluxConnection connection) {
+            requesters.add(connection);
+        }
+
+        synchronized List<FluxConnection> requesters() {
+            return new ArrayList<>(requesters);
+        }
+
+        synchronized boolean isStalled() {
+            return System.nanoTime() - lastActivity > MILLISECONDS.toNanos(chunkTimeout);
+        }
+
+        synchronized void close() throws IOException {
+            channel.close();
+        }
+    }
+}
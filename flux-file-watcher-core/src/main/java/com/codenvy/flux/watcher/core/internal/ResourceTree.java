@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.internal;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.codenvy.flux.watcher.core.Resource.ResourceType;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FILE;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FOLDER;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Merkle tree of the resources of a project. The hash of a file is its content hash, the hash of a folder is computed from the
+ * names, types and hashes of its children, so that two projects with the same content have the same root hash whatever the
+ * timestamps of their resources.
+ * <p/>
+ * The tree is updated resource by resource. An update only invalidates the hashes of the ancestor folders, they are computed
+ * again when they are requested.
+ *
+ * @author Kevin Pollet
+ */
+final class ResourceTree {
+    private static final char PATH_SEPARATOR = '/';
+
+    private final Node root;
+
+    /**
+     * Constructs an empty instance of {@code ResourceTree}.
+     */
+    ResourceTree() {
+        this.root = new Node("", FOLDER, 0, null);
+    }
+
+    /**
+     * Adds or replaces the resource with the given relative path. The missing parent folders are added.
+     *
+     * @param path
+     *         the relative resource path.
+     * @param type
+     *         the resource type, {@link com.codenvy.flux.watcher.core.Resource.ResourceType#FILE} or {@link
+     *         com.codenvy.flux.watcher.core.Resource.ResourceType#FOLDER}.
+     * @param timestamp
+     *         the resource timestamp.
+     * @param hash
+     *         the file hash, ignored for a folder.
+     * @throws java.lang.NullPointerException
+     *         if {@code path} or {@code type} parameter is {@code null} or if {@code hash} parameter is {@code null} for a file.
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code type} parameter is not a file or a folder.
+     */
+    synchronized void put(String path, ResourceType type, long timestamp, String hash) {
+        checkNotNull(path);
+        checkArgument(checkNotNull(type) == FILE || type == FOLDER);
+        checkArgument(type == FOLDER || hash != null);
+
+        if (path.isEmpty()) {
+            return;
+        }
+
+        Node parent = root;
+        parent.hash = null;
+
+        final String[] names = path.split(String.valueOf(PATH_SEPARATOR));
+        for (int i = 0; i < names.length - 1; i++) {
+            Node child = parent.children.get(names[i]);
+            if (child == null || child.type != FOLDER) {
+                child = new Node(names[i], FOLDER, timestamp, null);
+                parent.children.put(names[i], child);
+            }
+            child.hash = null;
+            parent = child;
+        }
+
+        final String name = names[names.length - 1];
+        final Node node = parent.children.get(name);
+        if (node != null && node.type == FOLDER && type == FOLDER) {
+            node.timestamp = timestamp;
+        } else {
+            parent.children.put(name, new Node(name, type, timestamp, type == FILE ? hash : null));
+        }
+    }
+
+    /**
+     * Removes the resource with the given relative path and all its children.
+     *
+     * @param path
+     *         the relative resource path.
+     * @throws java.lang.NullPointerException
+     *         if {@code path} parameter is {@code null}.
+     */
+    synchronized void remove(String path) {
+        checkNotNull(path);
+
+        final int separatorIndex = path.lastIndexOf(PATH_SEPARATOR);
+        final Node parent = separatorIndex < 0 ? root : find(path.substring(0, separatorIndex));
+        if (parent != null && parent.type == FOLDER && parent.children.remove(path.substring(separatorIndex + 1)) != null) {
+            invalidate(path);
+        }
+    }
+
+    /**
+     * Returns the {@link com.codenvy.flux.watcher.core.internal.ResourceTree.Summary} of the resource with the given relative
+     * path, with the summaries of its direct children.
+     *
+     * @param path
+     *         the relative resource path, the empty path for the project root.
+     * @return the {@link com.codenvy.flux.watcher.core.internal.ResourceTree.Summary} or {@code null} if there is no resource
+     * with the given path.
+     * @throws java.lang.NullPointerException
+     *         if {@code path} parameter is {@code null}.
+     */
+    synchronized Summary summary(String path) {
+        final Node node = find(checkNotNull(path));
+        if (node == null) {
+            return null;
+        }
+
+        final List<Summary> children = new ArrayList<>(node.children.size());
+        for (Node oneChild : node.children.values()) {
+            final String childPath = path.isEmpty() ? oneChild.name : path + PATH_SEPARATOR + oneChild.name;
+            children.add(new Summary(childPath, oneChild.type, oneChild.timestamp, hash(oneChild), Collections.<Summary>emptyList()));
+        }
+        return new Summary(path, node.type, node.timestamp, hash(node), children);
+    }
+
+    private Node find(String path) {
+        if (path.isEmpty()) {
+            return root;
+        }
+
+        Node node = root;
+        for (String oneName : path.split(String.valueOf(PATH_SEPARATOR))) {
+            node = node.children.get(oneName);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    private void invalidate(String path) {
+        Node node = root;
+        node.hash = null;
+        for (String oneName : path.split(String.valueOf(PATH_SEPARATOR))) {
+            node = node.children.get(oneName);
+            if (node == null) {
+                return;
+            }
+            node.hash = null;
+        }
+    }
+
+    private static String hash(Node node) {
+        if (node.hash == null) {
+            final Hasher hasher = Hashing.sha1().newHasher();
+            for (Node oneChild : node.children.values()) {
+                hasher.putString(oneChild.name, Charsets.UTF_8)
+                      .putByte((byte)0)
+                      .putByte((byte)oneChild.type.ordinal())
+                      .putString(hash(oneChild), Charsets.UTF_8)
+                      .putByte((byte)'\n');
+            }
+            node.hash = hasher.hash().toString();
+        }
+        return node.hash;
+    }
+
+    /**
+     * A node of a {@link com.codenvy.flux.watcher.core.internal.ResourceTree}. The hash of a folder is {@code null} until it is
+     * computed.
+     */
+    private static final class Node {
+        private final String            name;
+        private final ResourceType      type;
+        private final Map<String, Node> children;
+        private long                    timestamp;
+        private String                  hash;
+
+        Node(String name, ResourceType type, long timestamp, String hash) {
+            this.name = name;
+            this.type = type;
+            this.timestamp = timestamp;
+            this.hash = hash;
+            this.children = type == FOLDER ? new TreeMap<String, Node>() : Collections.<String, Node>emptyMap();
+        }
+    }
+
+    /**
+     * The summary of a resource in a {@link com.codenvy.flux.watcher.core.internal.ResourceTree}.
+     *
+     * @author Kevin Pollet
+     */
+    static final class Summary {
+        private final String        path;
+        private final ResourceType  type;
+        private final long          timestamp;
+        private final String        hash;
+        private final List<Summary> children;
+
+        Summary(String path, ResourceType type, long timestamp, String hash, List<Summary> children) {
+            this.path = path;
+            this.type = type;
+            this.timestamp = timestamp;
+            this.hash = hash;
+            this.children = children;
+        }
+
+        /**
+         * Returns the relative resource path.
+         *
+         * @return the relative resource path, never {@code null}.
+         */
+        String path() {
+            return path;
+        }
+
+        /**
+         * Returns the resource type.
+         *
+         * @return the resource type, never {@code null}.
+         */
+        ResourceType type() {
+            return type;
+        }
+
+        /**
+         * Returns the resource timestamp.
+         *
+         * @return the resource timestamp.
+         */
+        long timestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Returns the resource hash, the Merkle hash of its subtree for a folder.
+         *
+         * @return the resource hash, never {@code null}.
+         */
+        String hash() {
+            return hash;
+        }
+
+        /**
+         * Returns the summaries of the direct children of the resource.
+         *
+         * @return an unmodifiable {@link java.util.List} of summaries, never {@code null}.
+         */
+        List<Summary> children() {
+            return Collections.unmodifiableList(children);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.internal;
+
+import com.codenvy.flux.watcher.core.FluxConnection;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Remembers the requests sent to the remotes of a connection. A request broadcast to the channel is answered by every remote
+ * holding the project, the requests following from these answers are thus sent once instead of once per answer. A request is
+ * forgotten after the given time, so that it can be sent again if it was not answered.
+ *
+ * @author Kevin Pollet
+ */
+final class SentRequests {
+    private final Cache<Key, Boolean> requests;
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.core.internal.SentRequests}.
+     *
+     * @param expiration
+     *         the time in milliseconds after which a sent request is forgotten.
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code expiration} is not positive.
+     */
+    SentRequests(long expiration) {
+        checkArgument(expiration > 0);
+
+        this.requests = CacheBuilder.newBuilder().expireAfterWrite(expiration, MILLISECONDS).build();
+    }
+
+    /**
+     * Marks the request identified by the given project and key as sent on the given connection.
+     *
+     * @param connection
+     *         the {@link com.codenvy.flux.watcher.core.FluxConnection}.
+     * @param projectId
+     *         the project id.
+     * @param requestKey
+     *         the key identifying the request in the project.
+     * @return {@code true} if the request has to be sent, {@code false} if it has already been sent.
+     * @throws java.lang.NullPointerException
+     *         if {@code connection}, {@code projectId} or {@code requestKey} parameter is {@code null}.
+     */
+    boolean markSent(FluxConnection connection, String projectId, String requestKey) {
+        return requests.asMap().putIfAbsent(new Key(connection, projectId, requestKey), Boolean.TRUE) == null;
+    }
+
+    private static final class Key {
+        private final FluxConnection connection;
+        private final String         projectId;
+        private final String         requestKey;
+
+        Key(FluxConnection connection, String projectId, String requestKey) {
+            this.connection = checkNotNull(connection);
+            this.projectId = checkNotNull(projectId);
+            this.requestKey = checkNotNull(requestKey);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key that = (Key)o;
+
+            return connection == that.connection && projectId.equals(that.projectId) && requestKey.equals(that.requestKey);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(connection);
+            result = 31 * result + projectId.hashCode();
+            result = 31 * result + requestKey.hashCode();
+            return result;
+        }
+    }
+}
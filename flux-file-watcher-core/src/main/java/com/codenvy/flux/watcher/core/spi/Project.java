@@ -12,6 +12,7 @@ package com.codenvy.flux.watcher.core.spi;
 
 import com.codenvy.flux.watcher.core.Resource;
 
+import java.util.Iterator;
 import java.util.Set;
 
 /**
@@ -58,6 +59,18 @@ public interface Project {
      */
     Set<Resource> getResources();
 
+    /**
+     * Returns a lazy {@link java.util.Iterator} over the project {@link com.codenvy.flux.watcher.core.Resource} ordered with
+     * {@link com.codenvy.flux.watcher.core.utils.ResourceHelper#comparePaths(String, String)}, starting after the given
+     * relative resource path. The resources are read while iterating, so that a listing can be sent page by page and resumed.
+     *
+     * @param resourcePath
+     *         the relative path of the last resource already listed, which may have been deleted since, or {@code null} to
+     *         start from the first resource.
+     * @return the {@link com.codenvy.flux.watcher.core.Resource} {@link java.util.Iterator}, never {@code null}.
+     */
+    Iterator<Resource> getResourcesAfter(String resourcePath);
+
     /**
      * Returns the {@link com.codenvy.flux.watcher.core.Resource} with the given relative resource path.
      *
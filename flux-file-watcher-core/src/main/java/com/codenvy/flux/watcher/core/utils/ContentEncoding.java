@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.utils;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Utf8;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteSource;
+import com.google.common.io.CharSource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The encodings of a file content in the Flux messages.
+ *
+ * @author Kevin Pollet
+ */
+public enum ContentEncoding {
+    /**
+     * The content is sent as an UTF-8 string, this is the historical Flux encoding which is only safe for text files.
+     */
+    TEXT("text") {
+        @Override
+        public String encode(ByteSource source) throws IOException {
+            return checkNotNull(source).asCharSource(Charsets.UTF_8).read();
+        }
+
+        @Override
+        public ByteSource decode(String content) {
+            return ByteSource.wrap(checkNotNull(content).getBytes(Charsets.UTF_8));
+        }
+
+        @Override
+        public long decodedLength(String content) {
+            return Utf8.encodedLength(checkNotNull(content));
+        }
+    },
+
+    /**
+     * The content is sent as a base64 string, safe for any file.
+     */
+    BASE64("base64") {
+        @Override
+        public String encode(ByteSource source) throws IOException {
+            checkNotNull(source);
+
+            final StringWriter writer = new StringWriter();
+            try (OutputStream output = BASE64_ENCODING.encodingStream(writer)) {
+                source.copyTo(output);
+            }
+            return writer.toString();
+        }
+
+        @Override
+        public ByteSource decode(String content) {
+            return BASE64_ENCODING.decodingSource(CharSource.wrap(checkNotNull(content)));
+        }
+
+        @Override
+        public long decodedLength(String content) {
+            final int length = checkNotNull(content).length();
+
+            int padding = 0;
+            while (padding < 2 && length - padding > 0 && content.charAt(length - padding - 1) == '=') {
+                padding++;
+            }
+            return length / 4 * 3 - padding;
+        }
+    };
+
+    private static final BaseEncoding BASE64_ENCODING = BaseEncoding.base64();
+
+    private final String value;
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.core.utils.ContentEncoding}.
+     *
+     * @param value
+     *         the {@link com.codenvy.flux.watcher.core.utils.ContentEncoding} value.
+     */
+    ContentEncoding(String value) {
+        this.value = value;
+    }
+
+    /**
+     * Returns the {@link com.codenvy.flux.watcher.core.utils.ContentEncoding} corresponding to the given value.
+     *
+     * @param value
+     *         the {@link com.codenvy.flux.watcher.core.utils.ContentEncoding} value.
+     * @return the {@link com.codenvy.flux.watcher.core.utils.ContentEncoding} corresponding to the given value or {@link #TEXT}
+     * if none.
+     */
+    public static ContentEncoding fromValue(String value) {
+        for (ContentEncoding oneEncoding : values()) {
+            if (oneEncoding.value.equals(value)) {
+                return oneEncoding;
+            }
+        }
+        return TEXT;
+    }
+
+    /**
+     * Returns the {@link com.codenvy.flux.watcher.core.utils.ContentEncoding} value.
+     *
+     * @return the {@link com.codenvy.flux.watcher.core.utils.ContentEncoding} value, never {@code null}.
+     */
+    public String value() {
+        return value;
+    }
+
+    /**
+     * Encodes the content supplied by the given {@link com.google.common.io.ByteSource}. The content is streamed into the
+     * encoded string, it is never copied in an intermediate array.
+     *
+     * @param source
+     *         the {@link com.google.common.io.ByteSource} supplying the content.
+     * @return the encoded content, never {@code null}.
+     * @throws java.lang.NullPointerException
+     *         if {@code source} parameter is {@code null}.
+     * @throws java.io.IOException
+     *         if the content cannot be read.
+     */
+    public abstract String encode(ByteSource source) throws IOException;
+
+    /**
+     * Returns a {@link com.google.common.io.ByteSource} decoding the given content when it is read.
+     *
+     * @param content
+     *         the encoded content.
+     * @return the decoding {@link com.google.common.io.ByteSource}, never {@code null}.
+     * @throws java.lang.NullPointerException
+     *         if {@code content} parameter is {@code null}.
+     */
+    public abstract ByteSource decode(String content);
+
+    /**
+     * Returns the length in bytes of the given content once decoded, without decoding it.
+     *
+     * @param content
+     *         the encoded content.
+     * @return the decoded length.
+     * @throws java.lang.NullPointerException
+     *         if {@code content} parameter is {@code null}.
+     */
+    public abstract long decodedLength(String content);
+}
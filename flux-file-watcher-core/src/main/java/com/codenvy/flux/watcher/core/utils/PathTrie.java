@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Trie mapping '/' separated paths to values segment by segment, so that the value of the closest ancestor of a path is found
+ * in a number of steps bounded by the path depth. The paths are compared at segment boundaries, {@code /foo} is an ancestor of
+ * {@code /foo/bar} but not of {@code /foobar}. Empty segments are ignored, {@code /foo/} and {@code /foo} are the same path.
+ * <p/>
+ * This class is not thread safe, an instance updated by a thread must be safely published to be read by other threads.
+ *
+ * @param <V>
+ *         the value type.
+ * @author Kevin Pollet
+ */
+public final class PathTrie<V> {
+    private static final char PATH_SEPARATOR = '/';
+
+    private final Node<V> root;
+    private int           size;
+
+    /**
+     * Constructs an empty instance of {@link com.codenvy.flux.watcher.core.utils.PathTrie}.
+     */
+    public PathTrie() {
+        this.root = new Node<>();
+    }
+
+    /**
+     * Maps the given path to the given value.
+     *
+     * @param path
+     *         the path.
+     * @param value
+     *         the value.
+     * @return the value previously mapped to the path or {@code null} if none.
+     * @throws java.lang.NullPointerException
+     *         if {@code path} or {@code value} parameter is {@code null}.
+     */
+    public V put(String path, V value) {
+        checkNotNull(path);
+        checkNotNull(value);
+
+        Node<V> node = root;
+        for (int start = 0, end; start < path.length(); start = end + 1) {
+            end = segmentEnd(path, start);
+            if (end > start) {
+                final String segment = path.substring(start, end);
+                Node<V> child = node.children.get(segment);
+                if (child == null) {
+                    child = new Node<>();
+                    node.children.put(segment, child);
+                }
+                node = child;
+            }
+        }
+
+        final V previous = node.value;
+        node.value = value;
+        if (previous == null) {
+            size++;
+        }
+        return previous;
+    }
+
+    /**
+     * Removes the value mapped to the given path, the values mapped to its descendants are kept.
+     *
+     * @param path
+     *         the path.
+     * @return the removed value or {@code null} if none.
+     * @throws java.lang.NullPointerException
+     *         if {@code path} parameter is {@code null}.
+     */
+    public V remove(String path) {
+        return remove(root, checkNotNull(path), 0);
+    }
+
+    /**
+     * Returns the value mapped to the given path.
+     *
+     * @param path
+     *         the path.
+     * @return the value or {@code null} if none.
+     * @throws java.lang.NullPointerException
+     *         if {@code path} parameter is {@code null}.
+     */
+    public V get(String path) {
+        checkNotNull(path);
+
+        Node<V> node = root;
+        for (int start = 0, end; start < path.length() && node != null; start = end + 1) {
+            end = segmentEnd(path, start);
+            if (end > start) {
+                node = node.children.get(path.substring(start, end));
+            }
+        }
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Returns the value mapped to the given path or to its closest ancestor.
+     *
+     * @param path
+     *         the path.
+     * @return the value or {@code null} if neither the path nor any of its ancestors is mapped.
+     * @throws java.lang.NullPointerException
+     *         if {@code path} parameter is {@code null}.
+     */
+    public V getClosest(String path) {
+        checkNotNull(path);
+
+        Node<V> node = root;
+        V closest = root.value;
+        for (int start = 0, end; start < path.length(); start = end + 1) {
+            end = segmentEnd(path, start);
+            if (end > start) {
+                node = node.children.get(path.substring(start, end));
+                if (node == null) {
+                    break;
+                }
+                if (node.value != null) {
+                    closest = node.value;
+                }
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Returns the number of mapped paths.
+     *
+     * @return the number of mapped paths.
+     */
+    public int size() {
+        return size;
+    }
+
+    private V remove(Node<V> node, String path, int start) {
+        while (start < path.length() && path.charAt(start) == PATH_SEPARATOR) {
+            start++;
+        }
+
+        if (start >= path.length()) {
+            final V previous = node.value;
+            node.value = null;
+            if (previous != null) {
+                size--;
+            }
+            return previous;
+        }
+
+        final int end = segmentEnd(path, start);
+        final String segment = path.substring(start, end);
+        final Node<V> child = node.children.get(segment);
+        if (child == null) {
+            return null;
+        }
+
+        final V previous = remove(child, path, end + 1);
+        // the branches left without value are pruned
+        if (child.value == null && child.children.isEmpty()) {
+            node.children.remove(segment);
+        }
+        return previous;
+    }
+
+    private static int segmentEnd(String path, int start) {
+        final int end = path.indexOf(PATH_SEPARATOR, start);
+        return end < 0 ? path.length() : end;
+    }
+
+    /**
+     * A node of a {@link com.codenvy.flux.watcher.core.utils.PathTrie}, the value is {@code null} if the path is not mapped.
+     */
+    private static final class Node<V> {
+        private final Map<String, Node<V>> children = new HashMap<>();
+        private V                          value;
+    }
+}
@@ -0,0 +1,401 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.utils;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Helper computing the differences between two versions of a file content, in the manner of rsync.
+ * <p/>
+ * The holder of the old content splits it in blocks and computes their {@link #signatures(com.google.common.io.ByteSource, int)
+ * signatures}, a weak rolling checksum and a strong hash for each block. The holder of the new content finds these blocks at
+ * any offset of its content by rolling the weak checksum over it and computes a {@link #delta(com.google.common.io.ByteSource,
+ * byte[], int, int) delta} made of references to the old blocks and of the new data only. The holder of the old content then
+ * {@link #patch(com.google.common.io.ByteSource, byte[], int) patches} it with the delta to rebuild the new content.
+ * <p/>
+ * Only the files larger than the {@value #DELTA_MIN_SIZE_PROPERTY} system property, {@value #DEFAULT_DELTA_MIN_SIZE} bytes by
+ * default, are worth a delta.
+ *
+ * @author Kevin Pollet
+ */
+public final class ResourceDelta {
+    /**
+     * The system property used to configure the minimum size of a file to be synchronized with a delta.
+     */
+    public static final String DELTA_MIN_SIZE_PROPERTY = "flux.watcher.delta.min.size";
+
+    /**
+     * The default minimum size of a file to be synchronized with a delta.
+     */
+    public static final long DEFAULT_DELTA_MIN_SIZE = 64 * 1024;
+
+    private static final int          MIN_BLOCK_SIZE  = 2 * 1024;
+    private static final int          MAX_BLOCK_SIZE  = 64 * 1024;
+    private static final int          BUFFER_SIZE     = 256 * 1024;
+    private static final int          SIGNATURE_SIZE  = 12;
+    private static final byte         COPY_OPERATION  = 1;
+    private static final byte         DATA_OPERATION  = 2;
+    private static final HashFunction STRONG_FUNCTION = Hashing.murmur3_128();
+    private static final long         minSize         = Long.getLong(DELTA_MIN_SIZE_PROPERTY, DEFAULT_DELTA_MIN_SIZE);
+
+    private ResourceDelta() {
+    }
+
+    /**
+     * Returns the minimum size of a file to be synchronized with a delta.
+     *
+     * @return the minimum size in bytes.
+     */
+    public static long minSize() {
+        return minSize;
+    }
+
+    /**
+     * Returns the block size suited to a content of the given length, close to its square root so that the signatures and the
+     * delta stay small.
+     *
+     * @param length
+     *         the content length.
+     * @return the block size in bytes.
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code length} parameter is negative.
+     */
+    public static int blockSize(long length) {
+        checkArgument(length >= 0);
+
+        final long blockSize = ((long)Math.sqrt(length) + 1023) / 1024 * 1024;
+        return (int)Math.max(MIN_BLOCK_SIZE, Math.min(MAX_BLOCK_SIZE, blockSize));
+    }
+
+    /**
+     * Computes the signatures of the blocks of the content supplied by the given {@link com.google.common.io.ByteSource}. The
+     * trailing partial block is not signed, it is always sent again as data.
+     *
+     * @param source
+     *         the {@link com.google.common.io.ByteSource} supplying the content.
+     * @param blockSize
+     *         the block size.
+     * @return the packed signatures, never {@code null}.
+     * @throws java.lang.NullPointerException
+     *         if {@code source} parameter is {@code null}.
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code blockSize} parameter is negative, zero or greater than the maximum block size.
+     * @throws java.io.IOException
+     *         if the content cannot be read.
+     */
+    public static byte[] signatures(ByteSource source, int blockSize) throws IOException {
+        checkNotNull(source);
+        checkArgument(blockSize > 0 && blockSize <= MAX_BLOCK_SIZE);
+
+        final ByteArrayOutputStream signatures = new ByteArrayOutputStream();
+        try (InputStream input = source.openStream();
+             DataOutputStream output = new DataOutputStream(signatures)) {
+
+            final byte[] block = new byte[blockSize];
+            while (ByteStreams.read(input, block, 0, blockSize) == blockSize) {
+                output.writeInt(weakChecksum(block, 0, blockSize));
+                output.writeLong(STRONG_FUNCTION.hashBytes(block, 0, blockSize).asLong());
+            }
+        }
+        return signatures.toByteArray();
+    }
+
+    /**
+     * Computes the delta rebuilding the content supplied by the given {@link com.google.common.io.ByteSource} from the content
+     * having the given signatures. The content is streamed, only the data missing from the signed content is kept in memory.
+     *
+     * @param source
+     *         the {@link com.google.common.io.ByteSource} supplying the new content.
+     * @param signatures
+     *         the packed signatures of the old content.
+     * @param blockSize
+     *         the block size of the signatures.
+     * @param maxLength
+     *         the maximum length of the delta.
+     * @return the packed delta or {@code null} if it would be longer than {@code maxLength}.
+     * @throws java.lang.NullPointerException
+     *         if {@code source} or {@code signatures} parameter is {@code null}.
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code blockSize} parameter is negative, zero or greater than the maximum block size or if {@code signatures} parameter is malformed.
+     * @throws java.io.IOException
+     *         if the content cannot be read.
+     */
+    public static byte[] delta(ByteSource source, byte[] signatures, int blockSize, int maxLength) throws IOException {
+        checkNotNull(source);
+        checkNotNull(signatures);
+        checkArgument(blockSize > 0 && blockSize <= MAX_BLOCK_SIZE);
+        checkArgument(signatures.length % SIGNATURE_SIZE == 0, "Malformed signatures");
+
+        final BlockIndex index = new BlockIndex(signatures);
+        final DeltaWriter writer = new DeltaWriter();
+        final byte[] buffer = new byte[Math.max(BUFFER_SIZE, 4 * blockSize)];
+
+        try (InputStream input = source.openStream()) {
+            int start = 0;
+            int end = 0;
+            boolean endOfStream = false;
+            boolean rolling = false;
+            int a = 0;
+            int b = 0;
+
+            while (true) {
+                // one byte more than a block is needed to roll the checksum
+                if (end - start <= blockSize && !endOfStream) {
+                    System.arraycopy(buffer, start, buffer, 0, end - start);
+                    end -= start;
+                    start = 0;
+
+                    final int read = ByteStreams.read(input, buffer, end, buffer.length - end);
+                    endOfStream = read < buffer.length - end;
+                    end += read;
+                }
+
+                if (end - start < blockSize) {
+                    writer.data(buffer, start, end - start);
+                    break;
+                }
+
+                if (!rolling) {
+                    final int checksum = weakChecksum(buffer, start, blockSize);
+                    a = checksum & 0xffff;
+                    b = checksum >>> 16;
+                    rolling = true;
+                }
+
+                final int block = index.find(b << 16 | a, buffer, start, blockSize);
+                if (block >= 0) {
+                    writer.copy(block);
+                    start += blockSize;
+                    rolling = false;
+
+                } else if (end - start == blockSize) {
+                    writer.data(buffer, start, blockSize);
+                    break;
+
+                } else {
+                    final int removed = buffer[start] & 0xff;
+                    final int added = buffer[start + blockSize] & 0xff;
+                    a = (a - removed + added) & 0xffff;
+                    b = (b - blockSize * removed + a) & 0xffff;
+
+                    writer.data(buffer, start, 1);
+                    start++;
+                }
+
+                if (writer.length() > maxLength) {
+                    return null;
+                }
+            }
+        }
+
+        final byte[] delta = writer.toByteArray();
+        return delta.length > maxLength ? null : delta;
+    }
+
+    /**
+     * Returns a {@link com.google.common.io.ByteSource} supplying the content rebuilt from the given old content and delta. The
+     * old content is read block by block each time the returned {@link com.google.common.io.ByteSource} is read, it must not be
+     * modified in the meantime.
+     *
+     * @param source
+     *         the {@link com.google.common.io.ByteSource} supplying the old content.
+     * @param delta
+     *         the packed delta.
+     * @param blockSize
+     *         the block size of the delta.
+     * @return the {@link com.google.common.io.ByteSource} supplying the new content, never {@code null}.
+     * @throws java.lang.NullPointerException
+     *         if {@code source} or {@code delta} parameter is {@code null}.
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code blockSize} parameter is negative, zero or greater than the maximum block size or if {@code delta} parameter is malformed.
+     */
+    public static ByteSource patch(ByteSource source, byte[] delta, int blockSize) {
+        checkNotNull(source);
+        checkNotNull(delta);
+        checkArgument(blockSize > 0 && blockSize <= MAX_BLOCK_SIZE);
+
+        final List<ByteSource> parts = new ArrayList<>();
+        final ByteSource deltaSource = ByteSource.wrap(delta);
+        final ByteBuffer buffer = ByteBuffer.wrap(delta);
+        try {
+
+            while (buffer.hasRemaining()) {
+                final byte operation = buffer.get();
+                final int first = buffer.getInt();
+                final int count = buffer.getInt();
+                checkArgument(first >= 0 && count >= 0, "Malformed delta");
+
+                if (operation == COPY_OPERATION) {
+                    parts.add(source.slice((long)first * blockSize, (long)count * blockSize));
+
+                } else if (operation == DATA_OPERATION) {
+                    checkArgument(first == buffer.position() && count <= buffer.remaining(), "Malformed delta");
+                    parts.add(deltaSource.slice(first, count));
+                    buffer.position(first + count);
+
+                } else {
+                    throw new IllegalArgumentException("Malformed delta");
+                }
+            }
+
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Malformed delta", e);
+        }
+        return ByteSource.concat(parts);
+    }
+
+    /**
+     * Computes the weak checksum of the given block, the sum of its bytes in the low 16 bits and the sum of its prefix sums in
+     * the high 16 bits. Both sums can be rolled one byte at a time.
+     */
+    private static int weakChecksum(byte[] bytes, int offset, int length) {
+        int a = 0;
+        int b = 0;
+        for (int i = 0; i < length; i++) {
+            a += bytes[offset + i] & 0xff;
+            b += a;
+        }
+        return (b & 0xffff) << 16 | a & 0xffff;
+    }
+
+    /**
+     * Index of the signed blocks by weak checksum. The blocks sharing the same weak checksum are chained.
+     */
+    private static final class BlockIndex {
+        private final Map<Integer, Integer> heads;
+        private final int[]                 next;
+        private final long[]                strongHashes;
+
+        BlockIndex(byte[] signatures) {
+            final int count = signatures.length / SIGNATURE_SIZE;
+            final ByteBuffer buffer = ByteBuffer.wrap(signatures);
+
+            this.heads = new HashMap<>(count * 2);
+            this.next = new int[count];
+            this.strongHashes = new long[count];
+
+            // chains are built backward so that the first block of a chain is the first one in the content
+            Arrays.fill(next, -1);
+            final int[] weakChecksums = new int[count];
+            for (int i = 0; i < count; i++) {
+                weakChecksums[i] = buffer.getInt();
+                strongHashes[i] = buffer.getLong();
+            }
+            for (int i = count - 1; i >= 0; i--) {
+                final Integer head = heads.put(weakChecksums[i], i);
+                if (head != null) {
+                    next[i] = head;
+                }
+            }
+        }
+
+        int find(int weakChecksum, byte[] bytes, int offset, int length) {
+            final Integer head = heads.get(weakChecksum);
+            if (head == null) {
+                return -1;
+            }
+
+            final long strongHash = STRONG_FUNCTION.hashBytes(bytes, offset, length).asLong();
+            for (int block = head; block >= 0; block = next[block]) {
+                if (strongHashes[block] == strongHash) {
+                    return block;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Writer of the packed delta. A run of consecutive blocks is written as a single copy, consecutive data are merged up to
+     * the next copy.
+     */
+    private static final class DeltaWriter {
+        private final ByteArrayOutputStream operations;
+        private final ByteArrayOutputStream data;
+        private int                         copyFirst;
+        private int                         copyCount;
+
+        DeltaWriter() {
+            this.operations = new ByteArrayOutputStream();
+            this.data = new ByteArrayOutputStream();
+            this.copyCount = 0;
+        }
+
+        void copy(int block) {
+            flushData();
+            if (copyCount > 0 && copyFirst + copyCount == block) {
+                copyCount++;
+            } else {
+                flushCopy();
+                copyFirst = block;
+                copyCount = 1;
+            }
+        }
+
+        void data(byte[] bytes, int offset, int length) {
+            if (length > 0) {
+                flushCopy();
+                data.write(bytes, offset, length);
+            }
+        }
+
+        int length() {
+            return operations.size() + data.size() + 9;
+        }
+
+        byte[] toByteArray() {
+            flushCopy();
+            flushData();
+            return operations.toByteArray();
+        }
+
+        private void flushCopy() {
+            if (copyCount > 0) {
+                writeOperation(COPY_OPERATION, copyFirst, copyCount);
+                copyCount = 0;
+            }
+        }
+
+        private void flushData() {
+            if (data.size() > 0) {
+                // the data offset in the delta follows the operation header
+                writeOperation(DATA_OPERATION, operations.size() + 9, data.size());
+                final byte[] bytes = data.toByteArray();
+                operations.write(bytes, 0, bytes.length);
+                data.reset();
+            }
+        }
+
+        private void writeOperation(byte operation, int first, int count) {
+            final ByteBuffer header = ByteBuffer.allocate(9);
+            header.put(operation).putInt(first).putInt(count);
+            operations.write(header.array(), 0, 9);
+        }
+    }
+}
@@ -10,28 +10,50 @@
  *******************************************************************************/
 package com.codenvy.flux.watcher.core.utils;
 
-import javax.xml.bind.DatatypeConverter;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Helper providing methods to work with {@link com.codenvy.flux.watcher.core.Resource}.
+ * <p/>
+ * All the methods are thread safe, each call hashes with its own hasher. The hashes exchanged with the other Flux participants
+ * are always SHA-1, the {@code checksum} methods use the faster algorithm selected with the {@value
+ * #CHECKSUM_ALGORITHM_PROPERTY} system property to detect local changes only, see {@link HashAlgorithm}.
  *
  * @author Kevin Pollet
  */
 public final class ResourceHelper {
-    private static final MessageDigest messageDigest;
-
-    static {
-        try {
+    /**
+     * The system property used to select the {@link HashAlgorithm} of the {@code checksum} methods, {@link HashAlgorithm#SHA1}
+     * by default.
+     */
+    public static final String CHECKSUM_ALGORITHM_PROPERTY = "flux.watcher.checksum.algorithm";
 
-            messageDigest = MessageDigest.getInstance("SHA-1");
+    private static final int                     BUFFER_SIZE = 64 * 1024;
+    private static final BaseEncoding            HEX         = BaseEncoding.base16();
+    private static final HashAlgorithm           checksumAlgorithm;
+    private static final ThreadLocal<ByteBuffer> buffers;
 
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
-        }
+    static {
+        checksumAlgorithm = HashAlgorithm.valueOf(System.getProperty(CHECKSUM_ALGORITHM_PROPERTY, HashAlgorithm.SHA1.name())
+                                                        .toUpperCase());
+        buffers = new ThreadLocal<ByteBuffer>() {
+            @Override
+            protected ByteBuffer initialValue() {
+                return ByteBuffer.allocate(BUFFER_SIZE);
+            }
+        };
     }
 
     /**
@@ -44,8 +66,196 @@ public final class ResourceHelper {
      *         if {@code bytes} parameter is {@code null}.
      */
     public static String sha1(byte[] bytes) {
-        final byte[] digest = messageDigest.digest(checkNotNull(bytes));
-        return DatatypeConverter.printHexBinary(digest);
+        return hash(HashAlgorithm.SHA1, bytes);
+    }
+
+    /**
+     * Calculates the sha1 of the content supplied by the given {@link com.google.common.io.ByteSource}. The content is
+     * streamed, it is never loaded in memory at once.
+     *
+     * @param source
+     *         the {@link com.google.common.io.ByteSource}.
+     * @return the sha1 as an hexadecimal {@link String}, never {@code null}.
+     * @throws java.lang.NullPointerException
+     *         if {@code source} parameter is {@code null}.
+     */
+    public static String sha1(ByteSource source) {
+        return hash(HashAlgorithm.SHA1, source);
+    }
+
+    /**
+     * Returns the {@link HashAlgorithm} used by the {@code checksum} methods.
+     *
+     * @return the configured {@link HashAlgorithm}, never {@code null}.
+     */
+    public static HashAlgorithm checksumAlgorithm() {
+        return checksumAlgorithm;
+    }
+
+    /**
+     * Calculates the checksum for the given {@link java.lang.Byte} array with the configured {@link HashAlgorithm}.
+     *
+     * @param bytes
+     *         the {@link java.lang.Byte} array.
+     * @return the checksum as an hexadecimal {@link String}, never {@code null}.
+     * @throws java.lang.NullPointerException
+     *         if {@code bytes} parameter is {@code null}.
+     */
+    public static String checksum(byte[] bytes) {
+        return hash(checksumAlgorithm, bytes);
+    }
+
+    /**
+     * Calculates the checksum of the content supplied by the given {@link com.google.common.io.ByteSource} with the configured
+     * {@link HashAlgorithm}. The content is streamed, it is never loaded in memory at once.
+     *
+     * @param source
+     *         the {@link com.google.common.io.ByteSource}.
+     * @return the checksum as an hexadecimal {@link String}, never {@code null}.
+     * @throws java.lang.NullPointerException
+     *         if {@code source} parameter is {@code null}.
+     */
+    public static String checksum(ByteSource source) {
+        return hash(checksumAlgorithm, source);
+    }
+
+    /**
+     * Calculates the hash for the given {@link java.lang.Byte} array.
+     *
+     * @param algorithm
+     *         the {@link HashAlgorithm}.
+     * @param bytes
+     *         the {@link java.lang.Byte} array.
+     * @return the hash as an hexadecimal {@link String}, never {@code null}.
+     * @throws java.lang.NullPointerException
+     *         if {@code algorithm} or {@code bytes} parameter is {@code null}.
+     */
+    public static String hash(HashAlgorithm algorithm, byte[] bytes) {
+        checkNotNull(bytes);
+
+        return HEX.encode(checkNotNull(algorithm).function.hashBytes(bytes).asBytes());
+    }
+
+    /**
+     * Calculates the hash of the content supplied by the given {@link com.google.common.io.ByteSource}.
+     *
+     * @param algorithm
+     *         the {@link HashAlgorithm}.
+     * @param source
+     *         the {@link com.google.common.io.ByteSource}.
+     * @return the hash as an hexadecimal {@link String}, never {@code null}.
+     * @throws java.lang.NullPointerException
+     *         if {@code algorithm} or {@code source} parameter is {@code null}.
+     */
+    public static String hash(HashAlgorithm algorithm, ByteSource source) {
+        checkNotNull(algorithm);
+        checkNotNull(source);
+
+        try {
+
+            return HEX.encode(source.hash(algorithm.function).asBytes());
+
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Calculates the hashes of the content supplied by the given {@link com.google.common.io.ByteSource} with several {@link
+     * HashAlgorithm} at once. The content is read only once, through a per-thread buffer, and is never loaded in memory at once.
+     *
+     * @param source
+     *         the {@link com.google.common.io.ByteSource}.
+     * @param algorithms
+     *         the {@link HashAlgorithm}.
+     * @return the hashes as hexadecimal {@link String}, in the order of the given {@link HashAlgorithm}, never {@code null}.
+     * @throws java.lang.NullPointerException
+     *         if {@code source} or {@code algorithms} parameter is {@code null}.
+     */
+    public static List<String> hash(ByteSource source, HashAlgorithm... algorithms) {
+        checkNotNull(source);
+        checkNotNull(algorithms);
+
+        final Hasher[] hashers = new Hasher[algorithms.length];
+        for (int i = 0; i < algorithms.length; i++) {
+            hashers[i] = checkNotNull(algorithms[i]).function.newHasher();
+        }
+
+        final byte[] buffer = buffers.get().array();
+        try (InputStream stream = source.openStream()) {
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                for (Hasher oneHasher : hashers) {
+                    oneHasher.putBytes(buffer, 0, read);
+                }
+            }
+
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        final List<String> hashes = new ArrayList<>(hashers.length);
+        for (Hasher oneHasher : hashers) {
+            hashes.add(HEX.encode(oneHasher.hash().asBytes()));
+        }
+        return hashes;
+    }
+
+    /**
+     * Compares two relative resource paths segment by segment, a folder is thus ordered right before its children and its
+     * children before its next sibling. This is the order of a depth first walk visiting the children of each folder sorted
+     * by name, the order in which the {@link com.codenvy.flux.watcher.core.spi.Project} resources are listed.
+     *
+     * @param first
+     *         the first relative resource path.
+     * @param second
+     *         the second relative resource path.
+     * @return a negative integer, zero or a positive integer as the first path is ordered before, equal to or after the second
+     * one.
+     * @throws java.lang.NullPointerException
+     *         if {@code first} or {@code second} parameter is {@code null}.
+     */
+    public static int comparePaths(String first, String second) {
+        checkNotNull(first);
+        checkNotNull(second);
+
+        final int length = Math.min(first.length(), second.length());
+        for (int i = 0; i < length; i++) {
+            final char firstChar = first.charAt(i);
+            final char secondChar = second.charAt(i);
+            if (firstChar != secondChar) {
+                // the end of a segment is ordered before any other character
+                return firstChar == '/' ? -1 : secondChar == '/' ? 1 : firstChar - secondChar;
+            }
+        }
+        return first.length() - second.length();
+    }
+
+    /**
+     * The algorithms available to hash the {@link com.codenvy.flux.watcher.core.Resource} content.
+     * <p/>
+     * The non cryptographic algorithms are much faster and are enough to detect local changes. They are only used for the
+     * checksums, which are never sent to the other Flux participants.
+     */
+    public enum HashAlgorithm {
+        /**
+         * SHA-1, the algorithm used by the Flux protocol.
+         */
+        SHA1(Hashing.sha1()),
+        /**
+         * 128-bit MurmurHash3, a fast non cryptographic algorithm.
+         */
+        MURMUR3_128(Hashing.murmur3_128()),
+        /**
+         * CRC-32, the fastest algorithm but with a high collision rate on large trees.
+         */
+        CRC32(Hashing.crc32());
+
+        private final HashFunction function;
+
+        HashAlgorithm(HashFunction function) {
+            this.function = function;
+        }
     }
 
     /**
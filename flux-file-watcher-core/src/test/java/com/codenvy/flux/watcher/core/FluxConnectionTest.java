@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+
+import static com.codenvy.flux.watcher.core.FluxConnection.BATCH_CAPABILITY;
+import static com.codenvy.flux.watcher.core.FluxConnection.COMPRESSION_CAPABILITY;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CAPABILITIES;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CHANNEL_CAPABILITIES;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CONNECTED_TO_CHANNEL;
+import static org.mockito.Mockito.mock;
+
+/**
+ * {@link com.codenvy.flux.watcher.core.FluxConnection} tests.
+ *
+ * @author Kevin Pollet
+ */
+public final class FluxConnectionTest {
+    private FluxConnection connection;
+
+    @Before
+    public void beforeTest() throws MalformedURLException {
+        connection = new FluxConnection(new URL("http://localhost:3000"), new Credentials("user"), mock(FluxMessageBus.class));
+    }
+
+    @After
+    public void afterTest() {
+        connection.close();
+    }
+
+    @Test
+    public void testCapabilitiesNotSupportedByChannelAreNotUsed() throws JSONException {
+        connection.channelConnected(ack(capabilities(BATCH_CAPABILITY, COMPRESSION_CAPABILITY), null));
+
+        Assert.assertFalse(connection.isBatching());
+        Assert.assertFalse(connection.isCompressing());
+    }
+
+    @Test
+    public void testChannelCapabilitiesNotAcknowledgedAreNotUsed() throws JSONException {
+        connection.channelConnected(ack(null, capabilities(BATCH_CAPABILITY)));
+
+        Assert.assertFalse(connection.isBatching());
+    }
+
+    @Test
+    public void testCapabilitiesSupportedByChannelAreUsed() throws JSONException {
+        connection.channelConnected(ack(capabilities(BATCH_CAPABILITY, COMPRESSION_CAPABILITY), capabilities(BATCH_CAPABILITY)));
+
+        Assert.assertTrue(connection.isBatching());
+        Assert.assertFalse(connection.isCompressing());
+    }
+
+    @Test
+    public void testCapabilitiesFollowChannelCapabilities() throws JSONException {
+        final JSONArray allCapabilities = capabilities(BATCH_CAPABILITY, COMPRESSION_CAPABILITY);
+        connection.channelConnected(ack(allCapabilities, allCapabilities));
+
+        // a client which doesn't support batches joined the channel
+        final JSONArray compressionOnly = capabilities(COMPRESSION_CAPABILITY);
+        connection.channelCapabilitiesChanged(new JSONObject().put(CHANNEL_CAPABILITIES.value(), compressionOnly));
+        Assert.assertFalse(connection.isBatching());
+        Assert.assertTrue(connection.isCompressing());
+
+        // and left it
+        connection.channelCapabilitiesChanged(new JSONObject().put(CHANNEL_CAPABILITIES.value(), allCapabilities));
+        Assert.assertTrue(connection.isBatching());
+        Assert.assertTrue(connection.isCompressing());
+    }
+
+    private static JSONObject ack(JSONArray capabilities, JSONArray channelCapabilities) throws JSONException {
+        return new JSONObject().put(CONNECTED_TO_CHANNEL.value(), true)
+                               .putOpt(CAPABILITIES.value(), capabilities)
+                               .putOpt(CHANNEL_CAPABILITIES.value(), channelCapabilities);
+    }
+
+    private static JSONArray capabilities(String... capabilities) {
+        final JSONArray array = new JSONArray();
+        for (String oneCapability : capabilities) {
+            array.put(oneCapability);
+        }
+        return array;
+    }
+}
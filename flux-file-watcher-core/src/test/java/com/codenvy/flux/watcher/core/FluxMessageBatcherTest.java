@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+import static com.codenvy.flux.watcher.core.BackPressurePolicy.BLOCK;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.MESSAGES;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PROJECT;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.RESOURCE;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.TIMESTAMP;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_PROJECT_REQUEST;
+import static com.codenvy.flux.watcher.core.FluxMessageType.RESOURCES_BATCH;
+import static com.codenvy.flux.watcher.core.FluxMessageType.RESOURCE_CHANGED;
+import static com.codenvy.flux.watcher.core.FluxMessageType.RESOURCE_STORED;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * {@link com.codenvy.flux.watcher.core.FluxMessageBatcher} tests.
+ *
+ * @author Kevin Pollet
+ */
+public final class FluxMessageBatcherTest {
+    private static final String PROJECT_ID = "project-id";
+
+    @Test(expected = NullPointerException.class)
+    public void testNewWithNullQueue() {
+        new FluxMessageBatcher(null, 10, 1024, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNewWithNonPositiveMaxMessages() {
+        new FluxMessageBatcher(new FluxMessageQueue(10, BLOCK), 0, 1024, 10);
+    }
+
+    @Test
+    public void testNextWithEmptyQueue() throws InterruptedException {
+        final FluxMessageBatcher batcher = new FluxMessageBatcher(new FluxMessageQueue(10, BLOCK), 10, 1024, 10);
+
+        Assert.assertTrue(batcher.next(10, MILLISECONDS, true).isEmpty());
+    }
+
+    @Test
+    public void testNextWithoutBatching() throws InterruptedException, JSONException {
+        final FluxMessageQueue queue = new FluxMessageQueue(10, BLOCK);
+        final FluxMessageBatcher batcher = new FluxMessageBatcher(queue, 10, 1024, 10);
+        final FluxMessage first = newMessage(RESOURCE_CHANGED, "foo");
+        queue.put(first);
+        queue.put(newMessage(RESOURCE_STORED, "foo"));
+
+        final List<FluxMessage> messages = batcher.next(10, MILLISECONDS, false);
+
+        Assert.assertEquals(1, messages.size());
+        Assert.assertSame(first, messages.get(0));
+    }
+
+    @Test
+    public void testNextWithSingleMessageIsNotWrapped() throws InterruptedException, JSONException {
+        final FluxMessageQueue queue = new FluxMessageQueue(10, BLOCK);
+        final FluxMessageBatcher batcher = new FluxMessageBatcher(queue, 10, 1024, 10);
+        final FluxMessage message = newMessage(RESOURCE_CHANGED, "foo");
+        queue.put(message);
+
+        final List<FluxMessage> messages = batcher.next(10, MILLISECONDS, true);
+
+        Assert.assertEquals(1, messages.size());
+        Assert.assertSame(message, messages.get(0));
+    }
+
+    @Test
+    public void testNextBatchesAndUnpacks() throws InterruptedException, JSONException {
+        final FluxMessageQueue queue = new FluxMessageQueue(10, BLOCK);
+        final FluxMessageBatcher batcher = new FluxMessageBatcher(queue, 10, 1024, 10);
+        queue.put(newMessage(RESOURCE_CHANGED, "foo"));
+        queue.put(newMessage(RESOURCE_STORED, "foo"));
+        queue.put(newMessage(RESOURCE_CHANGED, "bar"));
+
+        final List<FluxMessage> messages = batcher.next(10, MILLISECONDS, true);
+
+        Assert.assertEquals(1, messages.size());
+        Assert.assertEquals(RESOURCES_BATCH, messages.get(0).type());
+        Assert.assertEquals(3, messages.get(0).content().getJSONArray(MESSAGES.value()).length());
+
+        final List<FluxMessage> unpackedMessages = FluxMessageBatcher.unpack(messages.get(0));
+
+        Assert.assertEquals(3, unpackedMessages.size());
+        Assert.assertEquals(RESOURCE_STORED, unpackedMessages.get(1).type());
+        Assert.assertEquals("bar", unpackedMessages.get(2).content().getString(RESOURCE.value()));
+    }
+
+    @Test
+    public void testNextWithMaxMessages() throws InterruptedException, JSONException {
+        final FluxMessageQueue queue = new FluxMessageQueue(10, BLOCK);
+        final FluxMessageBatcher batcher = new FluxMessageBatcher(queue, 2, 1024, 10);
+        queue.put(newMessage(RESOURCE_CHANGED, "foo"));
+        queue.put(newMessage(RESOURCE_CHANGED, "bar"));
+        queue.put(newMessage(RESOURCE_CHANGED, "baz"));
+
+        Assert.assertEquals(2, batcher.next(10, MILLISECONDS, true).get(0).content().getJSONArray(MESSAGES.value()).length());
+        Assert.assertEquals(RESOURCE_CHANGED, batcher.next(10, MILLISECONDS, true).get(0).type());
+    }
+
+    @Test
+    public void testNextWithMaxBytesCarriesMessage() throws InterruptedException, JSONException {
+        final FluxMessageQueue queue = new FluxMessageQueue(10, BLOCK);
+        final FluxMessage first = newMessage(RESOURCE_CHANGED, "foo");
+        final FluxMessage second = newMessage(RESOURCE_CHANGED, "bar");
+        final FluxMessageBatcher batcher = new FluxMessageBatcher(queue, 10, first.content().toString().length() + 1, 10);
+        queue.put(first);
+        queue.put(second);
+
+        Assert.assertSame(first, batcher.next(10, MILLISECONDS, true).get(0));
+        Assert.assertSame(second, batcher.next(10, MILLISECONDS, true).get(0));
+    }
+
+    @Test
+    public void testNextKeepsOrderWithNonBatchableMessage() throws InterruptedException, JSONException {
+        final FluxMessageQueue queue = new FluxMessageQueue(10, BLOCK);
+        final FluxMessageBatcher batcher = new FluxMessageBatcher(queue, 10, 1024, 10);
+        final FluxMessage request = new FluxMessage(GET_PROJECT_REQUEST, new JSONObject().put(PROJECT.value(), PROJECT_ID));
+        queue.put(newMessage(RESOURCE_CHANGED, "foo"));
+        queue.put(newMessage(RESOURCE_CHANGED, "bar"));
+        queue.put(request);
+
+        final List<FluxMessage> messages = batcher.next(10, MILLISECONDS, true);
+
+        Assert.assertEquals(2, messages.size());
+        Assert.assertEquals(RESOURCES_BATCH, messages.get(0).type());
+        Assert.assertSame(request, messages.get(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnpackWithNonBatchMessage() throws JSONException {
+        FluxMessageBatcher.unpack(newMessage(RESOURCE_CHANGED, "foo"));
+    }
+
+    private FluxMessage newMessage(FluxMessageType type, String resourcePath) throws JSONException {
+        final JSONObject content = new JSONObject().put(PROJECT.value(), PROJECT_ID)
+                                                   .put(RESOURCE.value(), resourcePath)
+                                                   .put(TIMESTAMP.value(), 1);
+        return new FluxMessage(type, content);
+    }
+}
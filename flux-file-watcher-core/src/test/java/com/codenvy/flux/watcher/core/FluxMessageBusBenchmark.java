@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core;
+
+import com.codenvy.flux.watcher.core.spi.Project;
+import com.codenvy.flux.watcher.core.spi.ProjectFactory;
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CALLBACK_ID;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.HASH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PROJECT;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.REQUEST_SENDER_ID;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.RESOURCE;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.TIMESTAMP;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.TYPE;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_PROJECT_REQUEST;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_RESOURCE_REQUEST;
+import static com.codenvy.flux.watcher.core.FluxMessageType.RESOURCE_CHANGED;
+import static com.codenvy.flux.watcher.core.FluxMessageType.RESOURCE_CREATED;
+import static com.codenvy.flux.watcher.core.FluxMessageType.RESOURCE_DELETED;
+import static com.codenvy.flux.watcher.core.FluxMessageType.RESOURCE_STORED;
+
+/**
+ * {@link com.codenvy.flux.watcher.core.FluxMessageBus} dispatch benchmark with the built-in handlers of {@link
+ * com.codenvy.flux.watcher.core.RepositoryModule}. The {@code reflectiveDispatch} benchmark reproduces the former handler
+ * lookup, reading the {@link com.codenvy.flux.watcher.core.FluxMessageTypes} annotations on each message, as a baseline.
+ * <p/>
+ * Run it with the {@link #main(String[])} method from the test classpath.
+ *
+ * @author Kevin Pollet
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FluxMessageBusBenchmark {
+    private static final int MESSAGES_PER_INVOCATION = 6;
+
+    private FluxMessageBus          messageBus;
+    private Set<FluxMessageHandler> messageHandlers;
+    private Repository              repository;
+    private FluxMessage[]           messages;
+
+    @Setup
+    public void setUp() throws JSONException {
+        final Injector injector = Guice.createInjector(new RepositoryModule(), new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(ProjectFactory.class).toInstance(new ProjectFactory() {
+                    @Override
+                    public Project newProject(String projectId, String projectPath) {
+                        throw new UnsupportedOperationException();
+                    }
+                });
+            }
+        });
+
+        messageBus = injector.getInstance(FluxMessageBus.class);
+        messageHandlers = injector.getInstance(Key.get(new TypeLiteral<Set<FluxMessageHandler>>() {
+        }));
+        repository = injector.getInstance(Repository.class);
+
+        // the project is unknown, the handlers return once the message content is read
+        final JSONObject content = new JSONObject().put(CALLBACK_ID.value(), 0)
+                                                   .put(REQUEST_SENDER_ID.value(), "sender")
+                                                   .put(PROJECT.value(), "project")
+                                                   .put(RESOURCE.value(), "src/Main.java")
+                                                   .put(TIMESTAMP.value(), 0L)
+                                                   .put(HASH.value(), "0")
+                                                   .put(TYPE.value(), "file");
+
+        messages = new FluxMessage[]{new FluxMessage(RESOURCE_CHANGED, content),
+                                     new FluxMessage(RESOURCE_CREATED, content),
+                                     new FluxMessage(RESOURCE_DELETED, content),
+                                     new FluxMessage(RESOURCE_STORED, content),
+                                     new FluxMessage(GET_PROJECT_REQUEST, content),
+                                     new FluxMessage(GET_RESOURCE_REQUEST, content)};
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_INVOCATION)
+    public void dispatch() {
+        for (FluxMessage oneMessage : messages) {
+            messageBus.messageReceived(oneMessage);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_INVOCATION)
+    public void reflectiveDispatch() throws Exception {
+        for (FluxMessage oneMessage : messages) {
+            for (FluxMessageHandler oneMessageHandler : getMessageHandlersFor(oneMessage.type().value())) {
+                oneMessageHandler.onMessage(oneMessage, repository);
+            }
+        }
+    }
+
+    private Set<FluxMessageHandler> getMessageHandlersFor(final String messageType) {
+        return ImmutableSet.copyOf(FluentIterable.from(messageHandlers)
+                                                 .filter(new Predicate<FluxMessageHandler>() {
+                                                     @Override
+                                                     public boolean apply(FluxMessageHandler messageHandler) {
+                                                         return getMessageTypesFor(messageHandler).contains(messageType);
+                                                     }
+                                                 }));
+    }
+
+    private static Set<String> getMessageTypesFor(FluxMessageHandler messageHandler) {
+        final FluxMessageTypes types = messageHandler.getClass().getAnnotation(FluxMessageTypes.class);
+        if (types == null) {
+            return Collections.emptySet();
+        }
+
+        return ImmutableSet.copyOf(FluentIterable.from(Arrays.asList(types.value()))
+                                                 .transform(new Function<FluxMessageType, String>() {
+                                                     @Override
+                                                     public String apply(FluxMessageType messageType) {
+                                                         return messageType.value();
+                                                     }
+                                                 }));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FluxMessageBusBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core;
+
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.inject.Provider;
+import java.util.Collections;
+import java.util.EnumSet;
+
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CALLBACK_ID;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_PROJECT_RESPONSE;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_PROJECT_SUMMARY_RESPONSE;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_RESOURCE_CHUNK_RESPONSE;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_RESOURCE_RESPONSE;
+import static com.codenvy.flux.watcher.core.FluxMessageType.RESOURCE_CHANGED;
+import static com.codenvy.flux.watcher.core.FluxMessageType.RESOURCE_CREATED;
+import static com.codenvy.flux.watcher.core.FluxMessageType.RESOURCE_DELETED;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link com.codenvy.flux.watcher.core.FluxMessageBus} tests
+ *
+ * @author Kevin Pollet
+ */
+public final class FluxMessageBusTest {
+    private FluxMessageBus messageBus;
+
+    @SuppressWarnings("unchecked")
+    @Before
+    public void beforeTest() {
+        final Provider<Repository> repositoryProviderMock = mock(Provider.class);
+        when(repositoryProviderMock.get()).thenReturn(mock(Repository.class));
+
+        this.messageBus = new FluxMessageBus(Collections.<FluxMessageHandler>emptySet(), repositoryProviderMock);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test(expected = NullPointerException.class)
+    public void testNewWithNullMessageHandlers() {
+        new FluxMessageBus(null, mock(Provider.class));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testAddMessageHandlerWithNullHandler() {
+        messageBus.addMessageHandler(null);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testRemoveMessageHandlerWithNullHandler() {
+        messageBus.removeMessageHandler(null);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testMessageReceivedWithNullMessage() {
+        messageBus.messageReceived(null);
+    }
+
+    @Test
+    public void testAddMessageHandler() {
+        final ResourceCreatedHandler handler = new ResourceCreatedHandler();
+
+        Assert.assertTrue(messageBus.addMessageHandler(handler));
+        Assert.assertFalse(messageBus.addMessageHandler(handler));
+    }
+
+    @Test
+    public void testMessageReceived() throws Exception {
+        final ResourceCreatedHandler resourceCreatedHandler = new ResourceCreatedHandler();
+        messageBus.addMessageHandler(resourceCreatedHandler);
+
+        final ResourceDeletedHandler resourceDeletedHandler = new ResourceDeletedHandler();
+        messageBus.addMessageHandler(resourceDeletedHandler);
+
+        final ResourceCreatedAndDeletedHandler resourceCreatedAndDeletedHandler = new ResourceCreatedAndDeletedHandler();
+        messageBus.addMessageHandler(resourceCreatedAndDeletedHandler);
+
+        final NotAnnotatedHandler notAnnotatedHandler = new NotAnnotatedHandler();
+        messageBus.addMessageHandler(notAnnotatedHandler);
+
+        sendAllMessageTypes();
+
+        verify(resourceCreatedHandler.mock, times(1)).onMessage(any(FluxMessage.class), any(Repository.class));
+        verify(resourceDeletedHandler.mock, times(1)).onMessage(any(FluxMessage.class), any(Repository.class));
+        verify(resourceCreatedAndDeletedHandler.mock, times(2)).onMessage(any(FluxMessage.class), any(Repository.class));
+        verify(notAnnotatedHandler.mock, never()).onMessage(any(FluxMessage.class), any(Repository.class));
+    }
+
+    @Test
+    public void testMessageReceivedWithRemovedHandler() throws Exception {
+        final ResourceCreatedHandler resourceCreatedHandler = new ResourceCreatedHandler();
+        messageBus.addMessageHandler(resourceCreatedHandler);
+
+        Assert.assertTrue(messageBus.removeMessageHandler(resourceCreatedHandler));
+        Assert.assertFalse(messageBus.removeMessageHandler(resourceCreatedHandler));
+
+        sendAllMessageTypes();
+
+        verify(resourceCreatedHandler.mock, never()).onMessage(any(FluxMessage.class), any(Repository.class));
+    }
+
+    @Test
+    public void testMessageReceivedWithResponseToAnotherBus() throws Exception {
+        final ResponseHandler responseHandler = new ResponseHandler();
+        messageBus.addMessageHandler(responseHandler);
+
+        for (FluxMessageType oneType : EnumSet.of(GET_RESOURCE_RESPONSE, GET_PROJECT_RESPONSE, GET_RESOURCE_CHUNK_RESPONSE,
+                                                  GET_PROJECT_SUMMARY_RESPONSE)) {
+            messageBus.messageReceived(new FluxMessage(oneType, new JSONObject().put(CALLBACK_ID.value(), messageBus.id() + 1)));
+            messageBus.messageReceived(new FluxMessage(oneType, new JSONObject().put(CALLBACK_ID.value(), messageBus.id())));
+        }
+
+        verify(responseHandler.mock, times(4)).onMessage(any(FluxMessage.class), any(Repository.class));
+    }
+
+    private void sendAllMessageTypes() {
+        messageBus.messageReceived(new FluxMessage(RESOURCE_CREATED, new JSONObject()));
+        messageBus.messageReceived(new FluxMessage(RESOURCE_DELETED, new JSONObject()));
+        messageBus.messageReceived(new FluxMessage(RESOURCE_CHANGED, new JSONObject()));
+    }
+
+    public static class AbstractMessageHandler implements FluxMessageHandler {
+        public final FluxMessageHandler mock;
+
+        public AbstractMessageHandler() {
+            this.mock = mock(FluxMessageHandler.class);
+        }
+
+        @Override
+        public void onMessage(FluxMessage message, Repository repository) throws Exception {
+            mock.onMessage(message, repository);
+        }
+    }
+
+    @FluxMessageTypes({GET_RESOURCE_RESPONSE, GET_PROJECT_RESPONSE, GET_RESOURCE_CHUNK_RESPONSE, GET_PROJECT_SUMMARY_RESPONSE})
+    public static class ResponseHandler extends AbstractMessageHandler {
+    }
+
+    @FluxMessageTypes(RESOURCE_CREATED)
+    public static class ResourceCreatedHandler extends AbstractMessageHandler {
+    }
+
+    @FluxMessageTypes(RESOURCE_DELETED)
+    public static class ResourceDeletedHandler extends AbstractMessageHandler {
+    }
+
+    @FluxMessageTypes({RESOURCE_CREATED, RESOURCE_DELETED})
+    public static class ResourceCreatedAndDeletedHandler extends AbstractMessageHandler {
+    }
+
+    public static class NotAnnotatedHandler extends AbstractMessageHandler {
+    }
+}
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core;
+
+import com.google.common.base.Strings;
+import com.google.common.io.BaseEncoding;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CALLBACK_ID;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CONTENT;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CONTENT_LENGTH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PROJECT;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.RESOURCE;
+import static com.codenvy.flux.watcher.core.FluxMessageType.COMPRESSED_MESSAGE;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_RESOURCE_RESPONSE;
+import static java.util.zip.Deflater.DEFAULT_COMPRESSION;
+
+/**
+ * {@link com.codenvy.flux.watcher.core.FluxMessageCompressor} tests.
+ *
+ * @author Kevin Pollet
+ */
+public final class FluxMessageCompressorTest {
+    private static final String PROJECT_ID = "project-id";
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNewWithNegativeThreshold() {
+        new FluxMessageCompressor(-1, DEFAULT_COMPRESSION);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNewWithInvalidLevel() {
+        new FluxMessageCompressor(1024, 10);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testCompressWithNullMessage() {
+        new FluxMessageCompressor(1024, DEFAULT_COMPRESSION).compress(null);
+    }
+
+    @Test
+    public void testCompressWithMessageBelowThreshold() throws JSONException {
+        final FluxMessageCompressor compressor = new FluxMessageCompressor(1024, DEFAULT_COMPRESSION);
+        final FluxMessage message = newMessage("foo");
+
+        Assert.assertSame(message, compressor.compress(message));
+        Assert.assertEquals(0, compressor.compressedMessageCount());
+    }
+
+    @Test
+    public void testCompressWithIncompressibleMessage() throws JSONException {
+        final FluxMessageCompressor compressor = new FluxMessageCompressor(1024, DEFAULT_COMPRESSION);
+        final byte[] bytes = new byte[8192];
+        new Random(42).nextBytes(bytes);
+        final FluxMessage message = newMessage(BaseEncoding.base64().encode(bytes));
+
+        Assert.assertSame(message, compressor.compress(message));
+        Assert.assertEquals(0, compressor.compressedMessageCount());
+    }
+
+    @Test
+    public void testCompressAfterClose() throws JSONException {
+        final FluxMessageCompressor compressor = new FluxMessageCompressor(1024, DEFAULT_COMPRESSION);
+        final FluxMessage message = newMessage(Strings.repeat("foo", 1000));
+        compressor.close();
+        compressor.close();
+
+        Assert.assertSame(message, compressor.compress(message));
+        Assert.assertEquals(0, compressor.compressedMessageCount());
+    }
+
+    @Test
+    public void testCompressKeepsRoutingFields() throws JSONException {
+        final FluxMessageCompressor compressor = new FluxMessageCompressor(1024, DEFAULT_COMPRESSION);
+        final FluxMessage message = newMessage(Strings.repeat("foo", 1000));
+        message.content().put(CALLBACK_ID.value(), 42);
+
+        final FluxMessage compressedMessage = compressor.compress(message);
+
+        Assert.assertEquals(COMPRESSED_MESSAGE, compressedMessage.type());
+        Assert.assertEquals(PROJECT_ID, compressedMessage.content().getString(PROJECT.value()));
+        Assert.assertEquals(42, compressedMessage.content().getInt(CALLBACK_ID.value()));
+        Assert.assertFalse(compressedMessage.content().has(RESOURCE.value()));
+    }
+
+    @Test
+    public void testCompressWithCompressedMessage() throws JSONException {
+        final FluxMessageCompressor compressor = new FluxMessageCompressor(0, DEFAULT_COMPRESSION);
+        final FluxMessage compressedMessage = compressor.compress(newMessage(Strings.repeat("foo", 1000)));
+
+        Assert.assertSame(compressedMessage, compressor.compress(compressedMessage));
+    }
+
+    @Test
+    public void testDecompress() throws JSONException {
+        final FluxMessageCompressor compressor = new FluxMessageCompressor(1024, DEFAULT_COMPRESSION);
+        final FluxMessage message = newMessage(Strings.repeat("foo", 1000));
+
+        final FluxMessage decompressedMessage = compressor.decompress(compressor.compress(message));
+
+        Assert.assertEquals(GET_RESOURCE_RESPONSE, decompressedMessage.type());
+        Assert.assertEquals(message.content().toString(), decompressedMessage.content().toString());
+        Assert.assertEquals(1, compressor.compressedMessageCount());
+        Assert.assertEquals(1, compressor.decompressedMessageCount());
+        Assert.assertTrue(compressor.compressionRatio() > 10);
+        Assert.assertTrue(compressor.compressionCpuTime() >= 0);
+        Assert.assertTrue(compressor.decompressionCpuTime() >= 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecompressWithUncompressedMessage() throws JSONException {
+        new FluxMessageCompressor(1024, DEFAULT_COMPRESSION).decompress(newMessage("foo"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecompressWithWrongContentLength() throws JSONException {
+        final FluxMessageCompressor compressor = new FluxMessageCompressor(1024, DEFAULT_COMPRESSION);
+        final FluxMessage compressedMessage = compressor.compress(newMessage(Strings.repeat("foo", 1000)));
+        compressedMessage.content().put(CONTENT_LENGTH.value(), compressedMessage.content().getInt(CONTENT_LENGTH.value()) - 1);
+
+        compressor.decompress(compressedMessage);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecompressWithCorruptedContent() throws JSONException {
+        final FluxMessageCompressor compressor = new FluxMessageCompressor(1024, DEFAULT_COMPRESSION);
+        final FluxMessage compressedMessage = compressor.compress(newMessage(Strings.repeat("foo", 1000)));
+        compressedMessage.content().put(CONTENT.value(), BaseEncoding.base64().encode(new byte[]{1, 2, 3, 4}));
+
+        compressor.decompress(compressedMessage);
+    }
+
+    @Test
+    public void testCompressionRatioWithoutCompressedMessage() {
+        Assert.assertEquals(1, new FluxMessageCompressor(1024, DEFAULT_COMPRESSION).compressionRatio(), 0);
+    }
+
+    private FluxMessage newMessage(String content) throws JSONException {
+        return new FluxMessage(GET_RESOURCE_RESPONSE, new JSONObject().put(PROJECT.value(), PROJECT_ID)
+                                                                     .put(RESOURCE.value(), "foo")
+                                                                     .put(CONTENT.value(), content));
+    }
+}
@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.codenvy.flux.watcher.core.BackPressurePolicy.BLOCK;
+import static com.codenvy.flux.watcher.core.BackPressurePolicy.COALESCE;
+import static com.codenvy.flux.watcher.core.BackPressurePolicy.DROP_OLDEST;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.OFFSET;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PROJECT;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.REQUEST_SENDER_ID;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.RESOURCE;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.TIMESTAMP;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_RESOURCE_CHUNK_REQUEST;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_RESOURCE_CHUNK_RESPONSE;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_RESOURCE_RESPONSE;
+import static com.codenvy.flux.watcher.core.FluxMessageType.RESOURCE_CHANGED;
+import static com.codenvy.flux.watcher.core.FluxMessageType.RESOURCE_DELETED;
+import static com.codenvy.flux.watcher.core.FluxMessageType.RESOURCE_STORED;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * {@link com.codenvy.flux.watcher.core.FluxMessageQueue} tests.
+ *
+ * @author Kevin Pollet
+ */
+public final class FluxMessageQueueTest {
+    private static final String PROJECT_ID = "project-id";
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNewWithNonPositiveCapacity() {
+        new FluxMessageQueue(0, BLOCK);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNewWithNullPolicy() {
+        new FluxMessageQueue(1, null);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testPutWithNullMessage() throws InterruptedException {
+        new FluxMessageQueue(1, BLOCK).put(null);
+    }
+
+    @Test
+    public void testPollWithEmptyQueue() throws InterruptedException {
+        Assert.assertNull(new FluxMessageQueue(1, BLOCK).poll(10, MILLISECONDS));
+    }
+
+    @Test
+    public void testPutAndPoll() throws InterruptedException, JSONException {
+        final FluxMessageQueue queue = new FluxMessageQueue(10, BLOCK);
+        final FluxMessage first = newMessage(RESOURCE_CHANGED, "foo", 1);
+        final FluxMessage second = newMessage(RESOURCE_CHANGED, "bar", 2);
+
+        queue.put(first);
+        queue.put(second);
+
+        Assert.assertEquals(2, queue.size());
+        Assert.assertSame(first, queue.poll(10, MILLISECONDS));
+        Assert.assertSame(second, queue.poll(10, MILLISECONDS));
+        Assert.assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testPutWithBlockPolicy() throws InterruptedException, JSONException {
+        final FluxMessageQueue queue = new FluxMessageQueue(1, BLOCK);
+        queue.put(newMessage(RESOURCE_CHANGED, "foo", 1));
+
+        final CountDownLatch putLatch = new CountDownLatch(1);
+        final Thread producer = new Thread() {
+            @Override
+            public void run() {
+                try {
+
+                    queue.put(newMessage(RESOURCE_CHANGED, "bar", 2));
+                    putLatch.countDown();
+
+                } catch (InterruptedException | JSONException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        producer.start();
+
+        Assert.assertFalse(putLatch.await(100, MILLISECONDS));
+        Assert.assertNotNull(queue.poll(10, MILLISECONDS));
+        Assert.assertTrue(putLatch.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(1, queue.size());
+        Assert.assertEquals(0, queue.droppedMessageCount());
+    }
+
+    @Test
+    public void testPutWithDropOldestPolicy() throws InterruptedException, JSONException {
+        final FluxMessageQueue queue = new FluxMessageQueue(2, DROP_OLDEST);
+        final FluxMessage second = newMessage(RESOURCE_CHANGED, "bar", 2);
+        final FluxMessage third = newMessage(RESOURCE_CHANGED, "baz", 3);
+
+        queue.put(newMessage(RESOURCE_CHANGED, "foo", 1));
+        queue.put(second);
+        queue.put(third);
+
+        Assert.assertEquals(2, queue.size());
+        Assert.assertEquals(1, queue.droppedMessageCount());
+        Assert.assertSame(second, queue.poll(10, MILLISECONDS));
+        Assert.assertSame(third, queue.poll(10, MILLISECONDS));
+    }
+
+    @Test
+    public void testPutWithCoalescePolicy() throws InterruptedException, JSONException {
+        final FluxMessageQueue queue = new FluxMessageQueue(10, COALESCE);
+        final FluxMessage other = newMessage(RESOURCE_CHANGED, "bar", 2);
+        final FluxMessage latest = newMessage(RESOURCE_CHANGED, "foo", 3);
+
+        queue.put(newMessage(RESOURCE_CHANGED, "foo", 1));
+        queue.put(other);
+        queue.put(latest);
+
+        Assert.assertEquals(2, queue.size());
+        Assert.assertEquals(1, queue.coalescedMessageCount());
+        Assert.assertSame(latest, queue.poll(10, MILLISECONDS));
+        Assert.assertSame(other, queue.poll(10, MILLISECONDS));
+    }
+
+    @Test
+    public void testPutWithCoalescePolicyKeepsOrderPerResource() throws InterruptedException, JSONException {
+        final FluxMessageQueue queue = new FluxMessageQueue(10, COALESCE);
+        final FluxMessage changed = newMessage(RESOURCE_CHANGED, "foo", 1);
+        final FluxMessage deleted = newMessage(RESOURCE_DELETED, "foo", 2);
+        final FluxMessage changedAgain = newMessage(RESOURCE_CHANGED, "foo", 3);
+
+        queue.put(changed);
+        queue.put(deleted);
+        queue.put(changedAgain);
+
+        Assert.assertEquals(3, queue.size());
+        Assert.assertEquals(0, queue.coalescedMessageCount());
+        Assert.assertSame(changed, queue.poll(10, MILLISECONDS));
+        Assert.assertSame(deleted, queue.poll(10, MILLISECONDS));
+        Assert.assertSame(changedAgain, queue.poll(10, MILLISECONDS));
+    }
+
+    @Test
+    public void testPutWithCoalescePolicyKeepsChunkRequests() throws InterruptedException, JSONException {
+        final FluxMessageQueue queue = new FluxMessageQueue(10, COALESCE);
+
+        for (int i = 0; i < 3; i++) {
+            final FluxMessage chunkRequest = newMessage(GET_RESOURCE_CHUNK_REQUEST, "foo", 1);
+            chunkRequest.content().put(OFFSET.value(), i * 1024);
+            queue.put(chunkRequest);
+        }
+
+        Assert.assertEquals(3, queue.size());
+        Assert.assertEquals(0, queue.coalescedMessageCount());
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(i * 1024, queue.poll(10, MILLISECONDS).content().getInt(OFFSET.value()));
+        }
+    }
+
+    @Test
+    public void testPutWithCoalescePolicyKeepsResponsesToDifferentRequesters() throws InterruptedException, JSONException {
+        final FluxMessageQueue queue = new FluxMessageQueue(10, COALESCE);
+        final FluxMessage firstResponse = newMessage(GET_RESOURCE_RESPONSE, "foo", 1);
+        firstResponse.content().put(REQUEST_SENDER_ID.value(), "first");
+        final FluxMessage firstChunkResponse = newMessage(GET_RESOURCE_CHUNK_RESPONSE, "foo", 1);
+        firstChunkResponse.content().put(REQUEST_SENDER_ID.value(), "first");
+        final FluxMessage secondResponse = newMessage(GET_RESOURCE_RESPONSE, "foo", 1);
+        secondResponse.content().put(REQUEST_SENDER_ID.value(), "second");
+        final FluxMessage secondChunkResponse = newMessage(GET_RESOURCE_CHUNK_RESPONSE, "foo", 1);
+        secondChunkResponse.content().put(REQUEST_SENDER_ID.value(), "second");
+
+        queue.put(firstResponse);
+        queue.put(firstChunkResponse);
+        queue.put(secondResponse);
+        queue.put(secondChunkResponse);
+
+        Assert.assertEquals(4, queue.size());
+        Assert.assertEquals(0, queue.coalescedMessageCount());
+        Assert.assertSame(firstResponse, queue.poll(10, MILLISECONDS));
+        Assert.assertSame(firstChunkResponse, queue.poll(10, MILLISECONDS));
+        Assert.assertSame(secondResponse, queue.poll(10, MILLISECONDS));
+        Assert.assertSame(secondChunkResponse, queue.poll(10, MILLISECONDS));
+    }
+
+    @Test
+    public void testPutWithCoalescePolicyCoalescesChangedAndStoredPairs() throws InterruptedException, JSONException {
+        final FluxMessageQueue queue = new FluxMessageQueue(10, COALESCE);
+        final FluxMessage lastChanged = newMessage(RESOURCE_CHANGED, "foo", 3);
+        final FluxMessage lastStored = newMessage(RESOURCE_STORED, "foo", 3);
+
+        queue.put(newMessage(RESOURCE_CHANGED, "foo", 1));
+        queue.put(newMessage(RESOURCE_STORED, "foo", 1));
+        queue.put(newMessage(RESOURCE_CHANGED, "foo", 2));
+        queue.put(newMessage(RESOURCE_STORED, "foo", 2));
+        queue.put(lastChanged);
+        queue.put(lastStored);
+
+        Assert.assertEquals(2, queue.size());
+        Assert.assertEquals(4, queue.coalescedMessageCount());
+        Assert.assertSame(lastChanged, queue.poll(10, MILLISECONDS));
+        Assert.assertSame(lastStored, queue.poll(10, MILLISECONDS));
+    }
+
+    @Test
+    public void testClear() throws InterruptedException, JSONException {
+        final FluxMessageQueue queue = new FluxMessageQueue(10, BLOCK);
+        queue.put(newMessage(RESOURCE_CHANGED, "foo", 1));
+
+        queue.clear();
+
+        Assert.assertEquals(0, queue.size());
+    }
+
+    private FluxMessage newMessage(FluxMessageType type, String resourcePath, long timestamp) throws JSONException {
+        final JSONObject content = new JSONObject().put(PROJECT.value(), PROJECT_ID)
+                                                   .put(RESOURCE.value(), resourcePath)
+                                                   .put(TIMESTAMP.value(), timestamp);
+        return new FluxMessage(type, content);
+    }
+}
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core;
+
+import com.codenvy.flux.watcher.core.codec.FluxMessageCodecs;
+import com.codenvy.flux.watcher.core.codec.GetProjectRequest;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONString;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.CALLBACK_ID;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.INCLUDE_DELETED;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PROJECT;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_PROJECT_REQUEST;
+
+/**
+ * {@link com.codenvy.flux.watcher.core.FluxMessage} tests.
+ *
+ * @author Kevin Pollet
+ */
+public final class FluxMessageTest {
+    private static final String PROJECT_ID = "project-id";
+
+    @Test(expected = NullPointerException.class)
+    public void testNewWithNullRecord() {
+        new FluxMessage(new JSONObject(), null, FluxMessageCodecs.GET_PROJECT_REQUEST);
+    }
+
+    @Test
+    public void testNewWithRecord() {
+        final FluxMessage message = newRecordMessage();
+
+        Assert.assertEquals(GET_PROJECT_REQUEST, message.type());
+        Assert.assertTrue(message.payload() instanceof JSONString);
+    }
+
+    @Test
+    public void testPayloadWithRecord() throws JSONException {
+        final JSONObject payload = new JSONObject(((JSONString)newRecordMessage().payload()).toJSONString());
+
+        Assert.assertEquals(42, payload.getInt(CALLBACK_ID.value()));
+        Assert.assertEquals(PROJECT_ID, payload.getString(PROJECT.value()));
+        Assert.assertTrue(payload.getBoolean(INCLUDE_DELETED.value()));
+    }
+
+    @Test
+    public void testPayloadWithJSONObject() throws JSONException {
+        final JSONObject content = new JSONObject().put(PROJECT.value(), PROJECT_ID);
+
+        Assert.assertSame(content, new FluxMessage(GET_PROJECT_REQUEST, content).payload());
+    }
+
+    @Test
+    public void testContentWithRecord() throws JSONException {
+        final JSONObject content = newRecordMessage().content();
+
+        Assert.assertEquals(42, content.getInt(CALLBACK_ID.value()));
+        Assert.assertEquals(PROJECT_ID, content.getString(PROJECT.value()));
+    }
+
+    @Test
+    public void testRecordWithRecord() throws JSONException {
+        final FluxMessage message = newRecordMessage();
+
+        Assert.assertSame(message.record(FluxMessageCodecs.GET_PROJECT_REQUEST), message.record(FluxMessageCodecs.GET_PROJECT_REQUEST));
+    }
+
+    @Test
+    public void testRecordWithJSONObject() throws JSONException {
+        final FluxMessage message = new FluxMessage(GET_PROJECT_REQUEST, new JSONObject().put(PROJECT.value(), PROJECT_ID));
+
+        final GetProjectRequest request = message.record(FluxMessageCodecs.GET_PROJECT_REQUEST);
+
+        Assert.assertEquals(PROJECT_ID, request.project());
+        Assert.assertFalse(request.includeDeleted());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRecordWithOtherType() throws JSONException {
+        newRecordMessage().record(FluxMessageCodecs.GET_PROJECT_RESPONSE);
+    }
+
+    @Test
+    public void testWithHeaders() throws JSONException {
+        final FluxMessage message = newRecordMessage().withHeaders(null, new JSONObject().put(CALLBACK_ID.value(), 7));
+
+        Assert.assertEquals(7, message.content().getInt(CALLBACK_ID.value()));
+        Assert.assertEquals(PROJECT_ID, message.content().getString(PROJECT.value()));
+    }
+
+    private static FluxMessage newRecordMessage() {
+        try {
+
+            return new FluxMessage(new JSONObject().put(CALLBACK_ID.value(), 42), new GetProjectRequest(PROJECT_ID, true),
+                                   FluxMessageCodecs.GET_PROJECT_REQUEST);
+
+        } catch (JSONException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core;
+
+import com.codenvy.flux.watcher.core.internal.ProjectSummaries;
+import com.codenvy.flux.watcher.core.spi.Project;
+import com.codenvy.flux.watcher.core.spi.ProjectFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.inject.Provider;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.codenvy.flux.watcher.core.RepositoryEventType.PROJECT_RESOURCE_CREATED;
+import static com.codenvy.flux.watcher.core.RepositoryEventType.PROJECT_RESOURCE_DELETED;
+import static com.codenvy.flux.watcher.core.RepositoryEventType.PROJECT_RESOURCE_MODIFIED;
+
+/**
+ * {@link com.codenvy.flux.watcher.core.RepositoryEventBus} benchmark firing a burst of 100k events, spread over the projects of
+ * the {@link com.codenvy.flux.watcher.core.Repository}, to listeners doing no work.
+ * <p/>
+ * Run it with the {@link #main(String[])} method from the test classpath.
+ *
+ * @author Kevin Pollet
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RepositoryEventBusBenchmark {
+    private static final int BURST_SIZE = 100000;
+
+    @Param({"1", "1000"})
+    public int projectCount;
+
+    private RepositoryEventBus repositoryEventBus;
+    private RepositoryEvent[]  events;
+    private long               eventCount;
+
+    @Setup
+    public void setUp() {
+        final Repository[] repository = new Repository[1];
+        final Provider<Repository> repositoryProvider = new Provider<Repository>() {
+            @Override
+            public Repository get() {
+                return repository[0];
+            }
+        };
+
+        repositoryEventBus = new RepositoryEventBus(Collections.<RepositoryListener>emptySet(), repositoryProvider);
+        repositoryEventBus.addRepositoryListener(new ResourceCreatedListener());
+        repositoryEventBus.addRepositoryListener(new ResourceModifiedListener());
+        repositoryEventBus.addRepositoryListener(new ResourceDeletedListener());
+
+        final FluxMessageBus messageBus = new FluxMessageBus(Collections.<FluxMessageHandler>emptySet(), repositoryProvider);
+        final ProjectSummaries projectSummaries = new ProjectSummaries(new Provider<FluxMessageBus>() {
+            @Override
+            public FluxMessageBus get() {
+                return messageBus;
+            }
+        });
+        repository[0] = new Repository(messageBus, new ProjectFactory() {
+            @Override
+            public Project newProject(String projectId, String projectPath) {
+                return new BenchmarkProject(projectId, projectPath);
+            }
+        }, repositoryEventBus, projectSummaries);
+
+        final Project[] projects = new Project[projectCount];
+        for (int i = 0; i < projectCount; i++) {
+            projects[i] = repository[0].addProject("project-" + i, "/project-" + i);
+        }
+
+        final RepositoryEventType[] types = {PROJECT_RESOURCE_CREATED, PROJECT_RESOURCE_MODIFIED, PROJECT_RESOURCE_DELETED};
+        events = new RepositoryEvent[BURST_SIZE];
+        for (int i = 0; i < BURST_SIZE; i++) {
+            final Resource resource = Resource.newUnknown("src/File" + i + ".java", i);
+            events[i] = new RepositoryEvent(types[i % types.length], resource, projects[i % projectCount]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST_SIZE)
+    public long fireBurst() {
+        for (RepositoryEvent oneEvent : events) {
+            repositoryEventBus.fireRepositoryEvent(oneEvent);
+        }
+        return eventCount;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RepositoryEventBusBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private abstract class CountingListener implements RepositoryListener {
+        @Override
+        public void onEvent(RepositoryEvent event) {
+            eventCount++;
+        }
+    }
+
+    @RepositoryEventTypes(PROJECT_RESOURCE_CREATED)
+    private class ResourceCreatedListener extends CountingListener {
+    }
+
+    @RepositoryEventTypes(PROJECT_RESOURCE_MODIFIED)
+    private class ResourceModifiedListener extends CountingListener {
+    }
+
+    @RepositoryEventTypes(PROJECT_RESOURCE_DELETED)
+    private class ResourceDeletedListener extends CountingListener {
+    }
+
+    private static class BenchmarkProject implements Project {
+        private final String id;
+        private final String path;
+
+        BenchmarkProject(String id, String path) {
+            this.id = id;
+            this.path = path;
+        }
+
+        @Override
+        public String id() {
+            return id;
+        }
+
+        @Override
+        public String path() {
+            return path;
+        }
+
+        @Override
+        public void setSynchronized(boolean synchronize) {
+        }
+
+        @Override
+        public boolean getSynchronized() {
+            return true;
+        }
+
+        @Override
+        public Set<Resource> getResources() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public Iterator<Resource> getResourcesAfter(String resourcePath) {
+            return Collections.emptyIterator();
+        }
+
+        @Override
+        public Resource getResource(String resourcePath) {
+            return null;
+        }
+
+        @Override
+        public void createResource(Resource resource) {
+        }
+
+        @Override
+        public void updateResource(Resource resource) {
+        }
+
+        @Override
+        public void deleteResource(Resource resource) {
+        }
+    }
+}
@@ -12,6 +12,7 @@ package com.codenvy.flux.watcher.core;
 
 import com.codenvy.flux.watcher.core.spi.Project;
 
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
@@ -25,6 +26,7 @@ import static com.codenvy.flux.watcher.core.RepositoryEventType.PROJECT_RESOURCE
 import static com.codenvy.flux.watcher.core.RepositoryEventType.PROJECT_RESOURCE_MODIFIED;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -111,6 +113,29 @@ public final class RepositoryEventBusTest {
         verify(entryCreatedAndModifiedListener.mock, times(2)).onEvent(any(RepositoryEvent.class));
     }
 
+    @Test
+    public void testFireRepositoryEventWithRemovedListener() throws Exception {
+        final EntryCreatedListener entryCreatedListener = new EntryCreatedListener();
+        repositoryEventBus.addRepositoryListener(entryCreatedListener);
+
+        Assert.assertTrue(repositoryEventBus.removeRepositoryListener(entryCreatedListener));
+        Assert.assertFalse(repositoryEventBus.removeRepositoryListener(entryCreatedListener));
+
+        fireAllEventTypes();
+
+        verify(entryCreatedListener.mock, never()).onEvent(any(RepositoryEvent.class));
+    }
+
+    @Test
+    public void testFireRepositoryEventWithNotAnnotatedListener() throws Exception {
+        final NotAnnotatedListener notAnnotatedListener = new NotAnnotatedListener();
+        repositoryEventBus.addRepositoryListener(notAnnotatedListener);
+
+        fireAllEventTypes();
+
+        verify(notAnnotatedListener.mock, never()).onEvent(any(RepositoryEvent.class));
+    }
+
     private void fireAllEventTypes() {
         final Project projectMock = mock(Project.class);
         when(projectMock.id()).thenReturn(PROJECT_ID);
@@ -153,4 +178,7 @@ public final class RepositoryEventBusTest {
     @RepositoryEventTypes({PROJECT_RESOURCE_CREATED, PROJECT_RESOURCE_MODIFIED})
     public static class EntryCreatedAndModifiedListener extends AbstractRepositoryListener {
     }
+
+    public static class NotAnnotatedListener extends AbstractRepositoryListener {
+    }
 }
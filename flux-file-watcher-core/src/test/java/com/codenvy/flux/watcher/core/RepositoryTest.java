@@ -10,15 +10,25 @@
  *******************************************************************************/
 package com.codenvy.flux.watcher.core;
 
+import com.codenvy.flux.watcher.core.internal.ProjectSummaries;
 import com.codenvy.flux.watcher.core.spi.Project;
 import com.codenvy.flux.watcher.core.spi.ProjectFactory;
 
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
@@ -35,8 +45,9 @@ public final class RepositoryTest {
     private final static String PROJECT_ID   = "project-id";
     private final static String PROJECT_PATH = "/project-id";
 
-    private Repository     repository;
-    private FluxMessageBus fluxMessageBusMock;
+    private Repository       repository;
+    private FluxMessageBus   fluxMessageBusMock;
+    private ProjectSummaries projectSummariesMock;
 
     @Before
     public void beforeTest() {
@@ -46,25 +57,32 @@ public final class RepositoryTest {
 
         final ProjectFactory projectFactoryMock = mock(ProjectFactory.class);
         when(projectFactoryMock.newProject(anyString(), anyString())).thenReturn(projectMock);
+        when(projectFactoryMock.newProject("foo", "/foo")).thenReturn(mock(Project.class));
 
         fluxMessageBusMock = mock(FluxMessageBus.class);
+        projectSummariesMock = mock(ProjectSummaries.class);
 
-        repository = new Repository(fluxMessageBusMock, projectFactoryMock, mock(RepositoryEventBus.class));
+        repository = new Repository(fluxMessageBusMock, projectFactoryMock, mock(RepositoryEventBus.class), projectSummariesMock);
     }
 
     @Test(expected = NullPointerException.class)
     public void testNewWithNullMessageBus() {
-        new Repository(null, mock(ProjectFactory.class), mock(RepositoryEventBus.class));
+        new Repository(null, mock(ProjectFactory.class), mock(RepositoryEventBus.class), mock(ProjectSummaries.class));
     }
 
     @Test(expected = NullPointerException.class)
     public void testNewWithNullProjectFactory() {
-        new Repository(mock(FluxMessageBus.class), null, mock(RepositoryEventBus.class));
+        new Repository(mock(FluxMessageBus.class), null, mock(RepositoryEventBus.class), mock(ProjectSummaries.class));
     }
 
     @Test(expected = NullPointerException.class)
     public void testNewWithNullRepositoryEventBus() {
-        new Repository(mock(FluxMessageBus.class), mock(ProjectFactory.class), null);
+        new Repository(mock(FluxMessageBus.class), mock(ProjectFactory.class), null, mock(ProjectSummaries.class));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNewWithNullProjectSummaries() {
+        new Repository(mock(FluxMessageBus.class), mock(ProjectFactory.class), mock(RepositoryEventBus.class), null);
     }
 
     @Test(expected = NullPointerException.class)
@@ -127,6 +145,14 @@ public final class RepositoryTest {
         Assert.assertSame(project, removedProject);
     }
 
+    @Test
+    public void testAddProjectRequestsSummary() {
+        final Project project = repository.addProject(PROJECT_ID, PROJECT_PATH);
+        repository.addProject(PROJECT_ID, PROJECT_PATH);
+
+        verify(projectSummariesMock, times(1)).requestSummary(project);
+    }
+
     @Test
     public void testAddProjectWithAlreadyAddedProject() {
         final Project project = repository.addProject(PROJECT_ID, PROJECT_PATH);
@@ -166,4 +192,84 @@ public final class RepositoryTest {
         Assert.assertEquals(PROJECT_ID, currentProject.id());
         Assert.assertEquals(PROJECT_PATH, currentProject.path());
     }
+
+    @Test
+    public void testGetSynchronizedProjects() {
+        Assert.assertTrue(repository.getSynchronizedProjects().isEmpty());
+
+        final Project project = repository.addProject(PROJECT_ID, PROJECT_PATH);
+        when(project.getSynchronized()).thenReturn(true);
+        repository.addProject("foo", "/foo");
+
+        final Set<Project> synchronizedProjects = repository.getSynchronizedProjects();
+
+        Assert.assertEquals(1, synchronizedProjects.size());
+        Assert.assertTrue(synchronizedProjects.contains(project));
+        Assert.assertSame(synchronizedProjects, repository.getSynchronizedProjects());
+
+        repository.removeProject(PROJECT_ID);
+
+        Assert.assertTrue(repository.getSynchronizedProjects().isEmpty());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testGetSynchronizedProjectWithNullPath() {
+        repository.getSynchronizedProject(null);
+    }
+
+    @Test
+    public void testGetSynchronizedProject() {
+        final Project project = repository.addProject(PROJECT_ID, PROJECT_PATH);
+        when(project.getSynchronized()).thenReturn(true);
+        repository.addProject("foo", "/foo");
+
+        Assert.assertSame(project, repository.getSynchronizedProject(PROJECT_PATH));
+        Assert.assertSame(project, repository.getSynchronizedProject(PROJECT_PATH + "/src/Main.java"));
+        Assert.assertNull(repository.getSynchronizedProject(PROJECT_PATH + "-foo/src"));
+        Assert.assertNull(repository.getSynchronizedProject("/foo/bar"));
+
+        repository.removeProject(PROJECT_ID);
+
+        Assert.assertNull(repository.getSynchronizedProject(PROJECT_PATH + "/src/Main.java"));
+    }
+
+    @Test
+    public void testAddProjectConcurrently() throws InterruptedException {
+        final ProjectFactory projectFactoryMock = mock(ProjectFactory.class);
+        when(projectFactoryMock.newProject(anyString(), anyString())).thenAnswer(new Answer<Project>() {
+            @Override
+            public Project answer(InvocationOnMock invocationOnMock) throws Throwable {
+                return mock(Project.class);
+            }
+        });
+        final Repository repository = new Repository(fluxMessageBusMock, projectFactoryMock, mock(RepositoryEventBus.class),
+                                                     mock(ProjectSummaries.class));
+
+        final int threadCount = 8;
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final Set<Project> addedProjects = Collections.newSetFromMap(new ConcurrentHashMap<Project, Boolean>());
+
+        for (int i = 0; i < threadCount; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+
+                        startLatch.await();
+                        addedProjects.add(repository.addProject(PROJECT_ID, PROJECT_PATH));
+
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+        startLatch.countDown();
+        executor.shutdown();
+
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        Assert.assertEquals(1, addedProjects.size());
+        Assert.assertSame(repository.getProject(PROJECT_ID), addedProjects.iterator().next());
+    }
 }
@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core;
+
+import com.codenvy.flux.watcher.core.utils.ResourceHelper;
+import com.codenvy.flux.watcher.core.utils.ResourceHelper.HashAlgorithm;
+import com.google.common.base.Charsets;
+import com.google.common.collect.Sets;
+import com.google.common.io.ByteSource;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FILE;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FOLDER;
+
+/**
+ * {@link com.codenvy.flux.watcher.core.ResourceIndex} tests.
+ *
+ * @author Kevin Pollet
+ */
+public final class ResourceIndexTest {
+    private Path stateDirectory;
+
+    @Before
+    public void beforeTest() throws IOException {
+        stateDirectory = Files.createTempDirectory("flux-index");
+    }
+
+    @After
+    public void afterTest() throws IOException {
+        Files.deleteIfExists(stateDirectory.resolve("project.index"));
+        Files.deleteIfExists(stateDirectory);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testGetWithNullPath() {
+        new ResourceIndex().get(null);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testPutWithNullEntry() {
+        new ResourceIndex().put(null);
+    }
+
+    @Test
+    public void testGetIfUpToDate() {
+        final ResourceIndex index = new ResourceIndex();
+        index.put(new ResourceIndex.Entry("readme", FILE, 1000, 10, "hash"));
+
+        Assert.assertNotNull(index.getIfUpToDate("readme", FILE, 1000, 10));
+        Assert.assertNull(index.getIfUpToDate("readme", FILE, 2000, 10));
+        Assert.assertNull(index.getIfUpToDate("readme", FILE, 1000, 20));
+        Assert.assertNull(index.getIfUpToDate("readme", FOLDER, 1000, 10));
+        Assert.assertNull(index.getIfUpToDate("foo", FILE, 1000, 10));
+    }
+
+    @Test
+    public void testIndexFileHashesOutdatedFilesOnly() throws IOException {
+        final ResourceIndex index = new ResourceIndex();
+        final byte[] content = "hello".getBytes(Charsets.UTF_8);
+        final ByteSource contentSource = ByteSource.wrap(content);
+
+        final Resource file = index.indexFile("readme", 1000, content.length, contentSource);
+
+        Assert.assertEquals(ResourceHelper.sha1(content), file.hash());
+        Assert.assertEquals(file.hash(), index.get("readme").hash());
+
+        final ByteSource unreadableSource = new ByteSource() {
+            @Override
+            public InputStream openStream() throws IOException {
+                throw new IOException("content must not be read");
+            }
+        };
+        Assert.assertEquals(file.hash(), index.indexFile("readme", 1000, content.length, unreadableSource).hash());
+    }
+
+    @Test
+    public void testIndexFileKeepsSha1OfTouchedFile() {
+        final ResourceIndex index = new ResourceIndex(null, HashAlgorithm.CRC32);
+        final byte[] content = "hello".getBytes(Charsets.UTF_8);
+        final AtomicInteger reads = new AtomicInteger();
+        final ByteSource contentSource = new ByteSource() {
+            @Override
+            public InputStream openStream() throws IOException {
+                reads.incrementAndGet();
+                return new ByteArrayInputStream(content);
+            }
+        };
+
+        final Resource file = index.indexFile("readme", 1000, content.length, contentSource);
+
+        Assert.assertEquals(ResourceHelper.sha1(content), file.hash());
+        Assert.assertEquals(ResourceHelper.hash(HashAlgorithm.CRC32, content), index.get("readme").checksum());
+        Assert.assertEquals(1, reads.get());
+
+        final Resource touchedFile = index.indexFile("readme", 2000, content.length, contentSource);
+
+        Assert.assertEquals(file.hash(), touchedFile.hash());
+        Assert.assertEquals(2000, index.get("readme").timestamp());
+        Assert.assertEquals(2, reads.get());
+    }
+
+    @Test
+    public void testIndexFileReadsResizedFileOnce() {
+        final ResourceIndex index = new ResourceIndex(null, HashAlgorithm.CRC32);
+        final AtomicInteger reads = new AtomicInteger();
+        final AtomicReference<byte[]> content = new AtomicReference<>("hello".getBytes(Charsets.UTF_8));
+        final ByteSource contentSource = new ByteSource() {
+            @Override
+            public InputStream openStream() throws IOException {
+                reads.incrementAndGet();
+                return new ByteArrayInputStream(content.get());
+            }
+        };
+        index.indexFile("readme", 1000, content.get().length, contentSource);
+
+        content.set("hello world".getBytes(Charsets.UTF_8));
+        final Resource modifiedFile = index.indexFile("readme", 2000, content.get().length, contentSource);
+
+        Assert.assertEquals(ResourceHelper.sha1(content.get()), modifiedFile.hash());
+        Assert.assertEquals(ResourceHelper.hash(HashAlgorithm.CRC32, content.get()), index.get("readme").checksum());
+        Assert.assertEquals(2, reads.get());
+    }
+
+    @Test
+    public void testLoadWithAnotherChecksumAlgorithm() {
+        final Path indexFile = stateDirectory.resolve("project.index");
+
+        final ResourceIndex index = new ResourceIndex(indexFile, HashAlgorithm.CRC32);
+        index.put(new ResourceIndex.Entry("src/hello", FILE, 2000, 5, "hash", "checksum"));
+        index.save();
+
+        final ResourceIndex loadedIndex = new ResourceIndex(indexFile, HashAlgorithm.MURMUR3_128);
+        loadedIndex.load();
+
+        Assert.assertEquals(new ResourceIndex.Entry("src/hello", FILE, 2000, 5, "hash"), loadedIndex.get("src/hello"));
+    }
+
+    @Test
+    public void testIndexFolder() {
+        final ResourceIndex index = new ResourceIndex();
+        final Resource folder = index.indexFolder("src", 1000);
+
+        Assert.assertEquals(FOLDER, folder.type());
+        Assert.assertNotNull(index.getIfUpToDate("src", FOLDER, 1000, 0));
+    }
+
+    @Test
+    public void testRemoveRemovesChildren() {
+        final ResourceIndex index = new ResourceIndex();
+        index.put(new ResourceIndex.Entry("src", FOLDER, 1000, 0, "0"));
+        index.put(new ResourceIndex.Entry("src/main", FOLDER, 1000, 0, "0"));
+        index.put(new ResourceIndex.Entry("src/main/hello", FILE, 1000, 5, "hash"));
+        index.put(new ResourceIndex.Entry("srcfoo", FILE, 1000, 5, "hash"));
+
+        index.remove("src");
+
+        Assert.assertEquals(1, index.size());
+        Assert.assertNotNull(index.get("srcfoo"));
+    }
+
+    @Test
+    public void testChildren() {
+        final ResourceIndex index = new ResourceIndex();
+        index.put(new ResourceIndex.Entry("src", FOLDER, 1000, 0, "0"));
+        index.put(new ResourceIndex.Entry("src/main", FOLDER, 1000, 0, "0"));
+        index.put(new ResourceIndex.Entry("src/main/hello", FILE, 1000, 5, "hash"));
+        index.put(new ResourceIndex.Entry("src/readme", FILE, 1000, 5, "hash"));
+        index.put(new ResourceIndex.Entry("srcfoo", FILE, 1000, 5, "hash"));
+
+        Assert.assertEquals(2, index.children("").size());
+        Assert.assertEquals("src/main", index.children("src").get(0).path());
+        Assert.assertEquals("src/readme", index.children("src").get(1).path());
+        Assert.assertEquals(2, index.children("src").size());
+        Assert.assertTrue(index.children("srcfoo").isEmpty());
+    }
+
+    @Test
+    public void testRetain() {
+        final ResourceIndex index = new ResourceIndex();
+        index.put(new ResourceIndex.Entry("src", FOLDER, 1000, 0, "0"));
+        index.put(new ResourceIndex.Entry("readme", FILE, 1000, 5, "hash"));
+
+        index.retain(Sets.newHashSet("readme"));
+
+        Assert.assertEquals(1, index.size());
+        Assert.assertNotNull(index.get("readme"));
+    }
+
+    @Test
+    public void testSaveAndLoad() {
+        final Path indexFile = stateDirectory.resolve("project.index");
+
+        final ResourceIndex index = new ResourceIndex(indexFile);
+        index.put(new ResourceIndex.Entry("src", FOLDER, 1000, 0, "0"));
+        index.put(new ResourceIndex.Entry("src/hello", FILE, 2000, 5, "hash", "checksum"));
+        index.save();
+
+        Assert.assertTrue(Files.exists(indexFile));
+
+        final ResourceIndex loadedIndex = new ResourceIndex(indexFile);
+        loadedIndex.load();
+
+        Assert.assertEquals(2, loadedIndex.size());
+        Assert.assertEquals(new ResourceIndex.Entry("src", FOLDER, 1000, 0, "0"), loadedIndex.get("src"));
+        Assert.assertEquals(new ResourceIndex.Entry("src/hello", FILE, 2000, 5, "hash", "checksum"), loadedIndex.get("src/hello"));
+    }
+
+    @Test
+    public void testLoadCorruptedFile() throws IOException {
+        final Path indexFile = stateDirectory.resolve("project.index");
+        Files.write(indexFile, "corrupted".getBytes());
+
+        final ResourceIndex index = new ResourceIndex(indexFile);
+        index.load();
+
+        Assert.assertEquals(0, index.size());
+    }
+}
@@ -11,14 +11,21 @@
 package com.codenvy.flux.watcher.core;
 
 
+import com.codenvy.flux.watcher.core.utils.ResourceHelper;
+import com.google.common.io.ByteSource;
+
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.IOException;
 import java.util.Arrays;
 
 import static com.codenvy.flux.watcher.core.Resource.ResourceType.FILE;
 import static com.codenvy.flux.watcher.core.Resource.ResourceType.FOLDER;
 import static com.codenvy.flux.watcher.core.Resource.ResourceType.UNKNOWN;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
 /**
  * {@link com.codenvy.flux.watcher.core.Resource} tests.
@@ -82,4 +89,36 @@ public final class ResourceTest {
         Assert.assertEquals(FILE, resource.type());
         Assert.assertNotNull(resource.hash());
     }
+
+    @Test(expected = NullPointerException.class)
+    public void testNewLazyFileWithNullContentSource() {
+        Resource.newFile(RESOURCE_PATH, System.currentTimeMillis(), (ByteSource)null);
+    }
+
+    @Test
+    public void testNewLazyFile() {
+        final byte[] content = "content".getBytes();
+        final long timestamp = System.currentTimeMillis();
+        final ByteSource contentSource = spy(ByteSource.wrap(content));
+        final Resource resource = Resource.newFile(RESOURCE_PATH, timestamp, contentSource);
+
+        Assert.assertNotNull(resource);
+        Assert.assertEquals(timestamp, resource.timestamp());
+        Assert.assertEquals(RESOURCE_PATH, resource.path());
+        Assert.assertEquals(FILE, resource.type());
+        verifyZeroInteractions(contentSource);
+
+        Assert.assertEquals(ResourceHelper.sha1(content), resource.hash());
+        Assert.assertTrue(Arrays.equals(content, resource.content()));
+        Assert.assertSame(contentSource, resource.contentSource());
+    }
+
+    @Test
+    public void testNewLazyFileWithHash() throws IOException {
+        final ByteSource contentSource = mock(ByteSource.class);
+        final Resource resource = Resource.newFile(RESOURCE_PATH, System.currentTimeMillis(), "hash", contentSource);
+
+        Assert.assertEquals("hash", resource.hash());
+        verifyZeroInteractions(contentSource);
+    }
 }
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.codec;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.FILES;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.HASH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PATH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PROJECT;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.TIMESTAMP;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.TYPE;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FILE;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FOLDER;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.UNKNOWN;
+
+/**
+ * Encode and decode benchmark of a {@link com.codenvy.flux.watcher.core.FluxMessageType#GET_PROJECT_RESPONSE} listing {@value
+ * #ENTRIES} resources. The {@code jsonObject} benchmarks reproduce the former handlers, building and walking a {@link
+ * org.json.JSONObject} per resource, as a baseline. The {@code codecDecodeTree} benchmark decodes the content already parsed
+ * by the socket.io transport.
+ * <p/>
+ * Run it with the {@link #main(String[])} method from the test classpath.
+ *
+ * @author Kevin Pollet
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FluxMessageCodecsBenchmark {
+    private static final int    ENTRIES    = 10000;
+    private static final String PROJECT_ID = "project";
+
+    private GetProjectResponse response;
+    private String             json;
+    private JSONObject         content;
+
+    @Setup
+    public void setUp() throws JSONException {
+        final List<ResourceEntry> files = new ArrayList<>(ENTRIES);
+        for (int i = 0; i < ENTRIES; i++) {
+            files.add(i % 10 == 0 ? new ResourceEntry("src/main/java/folder" + i, 1400000000000L + i, FOLDER, "0")
+                                  : new ResourceEntry("src/main/java/folder" + (i - i % 10) + "/Class" + i + ".java",
+                                                      1400000000000L + i, FILE, "da39a3ee5e6b4b0d3255bfef95601890afd8070" + i % 10));
+        }
+
+        response = new GetProjectResponse(PROJECT_ID, files, Collections.<ResourceEntry>emptyList());
+        json = codecEncode();
+        content = new JSONObject(json);
+    }
+
+    @Benchmark
+    public String jsonObjectEncode() throws JSONException {
+        final JSONArray files = new JSONArray();
+        for (ResourceEntry oneEntry : response.files()) {
+            files.put(new JSONObject()
+                              .put(PATH.value(), oneEntry.path())
+                              .put(TIMESTAMP.value(), oneEntry.timestamp())
+                              .put(HASH.value(), oneEntry.hash())
+                              .put(TYPE.value(), oneEntry.type().name().toLowerCase()));
+        }
+        return new JSONObject().put(PROJECT.value(), PROJECT_ID).put(FILES.value(), files).toString();
+    }
+
+    @Benchmark
+    public String codecEncode() {
+        final StringBuilder builder = new StringBuilder();
+        final JsonWriter writer = new JsonWriter(builder).beginObject();
+        FluxMessageCodecs.GET_PROJECT_RESPONSE.encode(response, writer);
+        writer.endObject();
+        return builder.toString();
+    }
+
+    @Benchmark
+    public List<ResourceEntry> jsonObjectDecode() throws JSONException {
+        return jsonObjectDecode(new JSONObject(json));
+    }
+
+    @Benchmark
+    public GetProjectResponse codecDecode() throws JSONException {
+        return FluxMessageCodecs.GET_PROJECT_RESPONSE.decode(JsonReader.of(json));
+    }
+
+    @Benchmark
+    public List<ResourceEntry> jsonObjectDecodeTree() throws JSONException {
+        return jsonObjectDecode(content);
+    }
+
+    @Benchmark
+    public GetProjectResponse codecDecodeTree() throws JSONException {
+        return FluxMessageCodecs.GET_PROJECT_RESPONSE.decode(JsonReader.of(content));
+    }
+
+    private static List<ResourceEntry> jsonObjectDecode(JSONObject content) throws JSONException {
+        final JSONArray files = content.getJSONArray(FILES.value());
+        final List<ResourceEntry> entries = new ArrayList<>(files.length());
+        for (int i = 0; i < files.length(); i++) {
+            final JSONObject file = files.getJSONObject(i);
+            entries.add(new ResourceEntry(file.getString(PATH.value()),
+                                          file.getLong(TIMESTAMP.value()),
+                                          ResourceType.valueOf(file.optString(TYPE.value(), UNKNOWN.name()).toUpperCase()),
+                                          file.optString(HASH.value(), "0")));
+        }
+        return entries;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FluxMessageCodecsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
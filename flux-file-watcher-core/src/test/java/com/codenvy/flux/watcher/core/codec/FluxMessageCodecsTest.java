@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.codec;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FILE;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FOLDER;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.UNKNOWN;
+
+/**
+ * {@link com.codenvy.flux.watcher.core.codec.FluxMessageCodecs} tests.
+ *
+ * @author Kevin Pollet
+ */
+public final class FluxMessageCodecsTest {
+    private static final String PROJECT_ID = "project-id";
+
+    @Test
+    public void testEncodeGetProjectRequest() throws JSONException {
+        final JSONObject content = new JSONObject(encode(FluxMessageCodecs.GET_PROJECT_REQUEST, new GetProjectRequest(PROJECT_ID, true)));
+
+        Assert.assertEquals(PROJECT_ID, content.getString("project"));
+        Assert.assertTrue(content.getBoolean("includeDeleted"));
+    }
+
+    @Test
+    public void testDecodeGetProjectRequest() throws JSONException {
+        final GetProjectRequest request = FluxMessageCodecs.GET_PROJECT_REQUEST.decode(
+                JsonReader.of("{\"callback_id\":0,\"project\":\"" + PROJECT_ID + "\"}"));
+
+        Assert.assertEquals(PROJECT_ID, request.project());
+        Assert.assertFalse(request.includeDeleted());
+        Assert.assertNull(request.continuation());
+        Assert.assertEquals(0, request.pageSize());
+    }
+
+    @Test
+    public void testEncodeDecodeGetProjectRequestWithPage() throws JSONException {
+        final String json = encode(FluxMessageCodecs.GET_PROJECT_REQUEST, new GetProjectRequest(PROJECT_ID, true, "src/main", 100));
+        final GetProjectRequest request = FluxMessageCodecs.GET_PROJECT_REQUEST.decode(JsonReader.of(json));
+
+        Assert.assertEquals("src/main", request.continuation());
+        Assert.assertEquals(100, request.pageSize());
+    }
+
+    @Test(expected = JSONException.class)
+    public void testDecodeGetProjectRequestWithNegativePageSize() throws JSONException {
+        FluxMessageCodecs.GET_PROJECT_REQUEST.decode(JsonReader.of("{\"project\":\"" + PROJECT_ID + "\",\"pageSize\":-1}"));
+    }
+
+    @Test(expected = JSONException.class)
+    public void testDecodeGetProjectRequestWithoutProject() throws JSONException {
+        FluxMessageCodecs.GET_PROJECT_REQUEST.decode(JsonReader.of("{\"includeDeleted\":true}"));
+    }
+
+    @Test
+    public void testEncodeDecodeGetProjectResponse() throws JSONException {
+        final GetProjectResponse response = new GetProjectResponse(PROJECT_ID,
+                                                                   Arrays.asList(new ResourceEntry("src", 1, FOLDER, "0"),
+                                                                                 new ResourceEntry("src/Main.java", 2, FILE, "abc")),
+                                                                   Collections.singletonList(new ResourceEntry("old", 3, FILE, "0")));
+        final String json = encode(FluxMessageCodecs.GET_PROJECT_RESPONSE, response);
+
+        assertResponse(FluxMessageCodecs.GET_PROJECT_RESPONSE.decode(JsonReader.of(json)));
+        assertResponse(FluxMessageCodecs.GET_PROJECT_RESPONSE.decode(JsonReader.of(new JSONObject(json))));
+    }
+
+    @Test
+    public void testEncodeDecodeGetProjectResponseWithContinuation() throws JSONException {
+        final GetProjectResponse response = new GetProjectResponse(PROJECT_ID, Collections.singletonList(new ResourceEntry("src", 1, FOLDER, "0")),
+                                                                   Collections.<ResourceEntry>emptyList(), "src");
+        final String json = encode(FluxMessageCodecs.GET_PROJECT_RESPONSE, response);
+
+        Assert.assertEquals("src", FluxMessageCodecs.GET_PROJECT_RESPONSE.decode(JsonReader.of(json)).continuation());
+        Assert.assertEquals("src", FluxMessageCodecs.GET_PROJECT_RESPONSE.decode(JsonReader.of(new JSONObject(json))).continuation());
+    }
+
+    @Test
+    public void testEncodeGetProjectResponseWithoutDeleted() throws JSONException {
+        final GetProjectResponse response = new GetProjectResponse(PROJECT_ID, Collections.<ResourceEntry>emptyList(),
+                                                                   Collections.<ResourceEntry>emptyList());
+
+        final JSONObject content = new JSONObject(encode(FluxMessageCodecs.GET_PROJECT_RESPONSE, response));
+
+        Assert.assertEquals(0, content.getJSONArray("files").length());
+        Assert.assertFalse(content.has("deleted"));
+        Assert.assertFalse(content.has("continuation"));
+    }
+
+    @Test
+    public void testDecodeGetProjectResponseWithDefaults() throws JSONException {
+        final GetProjectResponse response = FluxMessageCodecs.GET_PROJECT_RESPONSE.decode(
+                JsonReader.of("{\"project\":\"" + PROJECT_ID + "\",\"files\":[{\"path\":\"foo\",\"timestamp\":\"4\",\"extra\":{}}]}"));
+
+        Assert.assertEquals(1, response.files().size());
+        Assert.assertEquals(4, response.files().get(0).timestamp());
+        Assert.assertEquals(UNKNOWN, response.files().get(0).type());
+        Assert.assertEquals("0", response.files().get(0).hash());
+        Assert.assertTrue(response.deleted().isEmpty());
+    }
+
+    @Test(expected = JSONException.class)
+    public void testDecodeGetProjectResponseWithUnknownType() throws JSONException {
+        FluxMessageCodecs.GET_PROJECT_RESPONSE.decode(
+                JsonReader.of("{\"project\":\"" + PROJECT_ID + "\",\"files\":[{\"path\":\"foo\",\"timestamp\":4,\"type\":\"bar\"}]}"));
+    }
+
+    private static <T> String encode(FluxMessageCodec<T> codec, T record) {
+        final StringBuilder builder = new StringBuilder();
+        final JsonWriter writer = new JsonWriter(builder).beginObject();
+        codec.encode(record, writer);
+        writer.endObject();
+        return builder.toString();
+    }
+
+    private static void assertResponse(GetProjectResponse response) {
+        Assert.assertEquals(PROJECT_ID, response.project());
+        Assert.assertEquals(2, response.files().size());
+        Assert.assertEquals("src/Main.java", response.files().get(1).path());
+        Assert.assertEquals(2, response.files().get(1).timestamp());
+        Assert.assertEquals(FILE, response.files().get(1).type());
+        Assert.assertEquals("abc", response.files().get(1).hash());
+        Assert.assertEquals(FOLDER, response.files().get(0).type());
+        Assert.assertEquals(1, response.deleted().size());
+        Assert.assertEquals("old", response.deleted().get(0).path());
+    }
+}
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.codec;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static com.codenvy.flux.watcher.core.codec.JsonReader.Token;
+
+/**
+ * {@link com.codenvy.flux.watcher.core.codec.JsonReader} tests, run against the streaming and the tree readers.
+ *
+ * @author Kevin Pollet
+ */
+public final class JsonReaderTest {
+    private static final String JSON = "{ \"string\" : \"f\\\"o\\u00e9o\", \"number\": -42, \"boolean\": true, \"null\": null,"
+                                       + " \"array\": [1, {\"nested\": [[]]}, \"bar\"] }";
+
+    @Test(expected = NullPointerException.class)
+    public void testOfWithNullString() {
+        JsonReader.of((String)null);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testOfWithNullJSONObject() {
+        JsonReader.of((JSONObject)null);
+    }
+
+    @Test
+    public void testReadStream() throws JSONException {
+        assertRead(JsonReader.of(JSON));
+    }
+
+    @Test
+    public void testReadTree() throws JSONException {
+        assertRead(JsonReader.of(new JSONObject(JSON)));
+    }
+
+    @Test
+    public void testReadEmptyObject() throws JSONException {
+        final JsonReader reader = JsonReader.of(" {\n} ");
+
+        reader.beginObject();
+        Assert.assertFalse(reader.hasNext());
+        reader.endObject();
+
+        Assert.assertEquals(Token.END_DOCUMENT, reader.peek());
+    }
+
+    @Test
+    public void testSkipValue() throws JSONException {
+        final JsonReader reader = JsonReader.of(JSON);
+
+        reader.skipValue();
+
+        Assert.assertEquals(Token.END_DOCUMENT, reader.peek());
+    }
+
+    @Test
+    public void testReadStringAsLong() throws JSONException {
+        final JsonReader reader = JsonReader.of("[\"12\", 1e3]");
+        reader.beginArray();
+
+        Assert.assertEquals(12, reader.nextLong());
+        Assert.assertEquals(1000, reader.nextLong());
+    }
+
+    @Test(expected = JSONException.class)
+    public void testReadUnexpectedToken() throws JSONException {
+        JsonReader.of(JSON).beginArray();
+    }
+
+    @Test(expected = JSONException.class)
+    public void testReadMissingComma() throws JSONException {
+        final JsonReader reader = JsonReader.of("[1 2]");
+        reader.beginArray();
+        reader.nextLong();
+        reader.nextLong();
+    }
+
+    @Test(expected = JSONException.class)
+    public void testReadUnterminatedString() throws JSONException {
+        JsonReader.of("[\"foo").skipValue();
+    }
+
+    @Test(expected = JSONException.class)
+    public void testReadTrailingCharacters() throws JSONException {
+        final JsonReader reader = JsonReader.of("{} {}");
+        reader.skipValue();
+        reader.peek();
+    }
+
+    private static void assertRead(JsonReader reader) throws JSONException {
+        boolean string = false, number = false, bool = false, nil = false, array = false;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            switch (name) {
+                case "string":
+                    Assert.assertEquals("f\"o\u00e9o", reader.nextString());
+                    string = true;
+                    break;
+                case "number":
+                    Assert.assertEquals(Token.NUMBER, reader.peek());
+                    Assert.assertEquals(-42, reader.nextLong());
+                    number = true;
+                    break;
+                case "boolean":
+                    Assert.assertTrue(reader.nextBoolean());
+                    bool = true;
+                    break;
+                case "null":
+                    reader.nextNull();
+                    nil = true;
+                    break;
+                case "array":
+                    reader.beginArray();
+                    Assert.assertEquals("1", reader.nextString());
+                    reader.skipValue();
+                    Assert.assertEquals("bar", reader.nextString());
+                    Assert.assertFalse(reader.hasNext());
+                    reader.endArray();
+                    array = true;
+                    break;
+                default:
+                    Assert.fail("Unexpected field " + name);
+            }
+        }
+        reader.endObject();
+
+        Assert.assertTrue(string && number && bool && nil && array);
+        Assert.assertEquals(Token.END_DOCUMENT, reader.peek());
+    }
+}
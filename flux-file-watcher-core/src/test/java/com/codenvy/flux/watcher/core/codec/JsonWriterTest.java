@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.codec;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * {@link com.codenvy.flux.watcher.core.codec.JsonWriter} tests.
+ *
+ * @author Kevin Pollet
+ */
+public final class JsonWriterTest {
+    @Test(expected = NullPointerException.class)
+    public void testNewWithNullBuilder() {
+        new JsonWriter(null);
+    }
+
+    @Test
+    public void testWriteObject() {
+        final StringBuilder builder = new StringBuilder();
+
+        new JsonWriter(builder).beginObject()
+                               .name("string").value("foo")
+                               .name("number").value(42L)
+                               .name("boolean").value(true)
+                               .name("null").value((String)null)
+                               .name("array").beginArray().value(1L).value("bar").beginObject().endObject().endArray()
+                               .endObject();
+
+        Assert.assertEquals("{\"string\":\"foo\",\"number\":42,\"boolean\":true,\"null\":null,\"array\":[1,\"bar\",{}]}",
+                            builder.toString());
+    }
+
+    @Test
+    public void testWriteEscapedString() throws JSONException {
+        final String value = "quote\" backslash\\ newline\n tab\t control\u0001 separator\u2028 unicode\u00e9";
+        final StringBuilder builder = new StringBuilder();
+
+        new JsonWriter(builder).beginObject().name("value").value(value).endObject();
+
+        Assert.assertFalse(builder.toString().contains("\u2028"));
+        Assert.assertEquals(value, new JSONObject(builder.toString()).getString("value"));
+    }
+
+    @Test
+    public void testWriteJSONValues() throws JSONException {
+        final StringBuilder builder = new StringBuilder();
+
+        new JsonWriter(builder).beginArray()
+                               .value((Object)3)
+                               .value((Object)1.5d)
+                               .value((Object)Boolean.FALSE)
+                               .value(JSONObject.NULL)
+                               .value(new JSONObject().put("foo", "bar"))
+                               .value(new JSONArray().put(1))
+                               .endArray();
+
+        Assert.assertEquals("[3,1.5,false,null,{\"foo\":\"bar\"},[1]]", builder.toString());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWriteValueWithoutName() {
+        new JsonWriter(new StringBuilder()).beginObject().value("foo");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWriteNameInArray() {
+        new JsonWriter(new StringBuilder()).beginArray().name("foo");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEndArrayInObject() {
+        new JsonWriter(new StringBuilder()).beginObject().endArray();
+    }
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.internal;
+
+import com.codenvy.flux.watcher.core.FluxConnection;
+import com.codenvy.flux.watcher.core.FluxMessage;
+import com.codenvy.flux.watcher.core.Repository;
+import com.codenvy.flux.watcher.core.codec.FluxMessageCodecs;
+import com.codenvy.flux.watcher.core.codec.GetProjectRequest;
+import com.codenvy.flux.watcher.core.codec.GetProjectResponse;
+import com.codenvy.flux.watcher.core.codec.ResourceEntry;
+import com.codenvy.flux.watcher.core.spi.Project;
+
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_PROJECT_REQUEST;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link com.codenvy.flux.watcher.core.internal.GetProjectResponseHandler} tests.
+ *
+ * @author Kevin Pollet
+ */
+public final class GetProjectResponseHandlerTest {
+    private static final String PROJECT_ID = "project-id";
+
+    private GetProjectResponseHandler getProjectResponseHandler;
+    private FluxConnection            connection;
+    private Repository                repository;
+
+    @Before
+    public void beforeTest() {
+        getProjectResponseHandler = new GetProjectResponseHandler(new ProjectSynchronizer(1, 1, 60000));
+        connection = mock(FluxConnection.class);
+        repository = mock(Repository.class);
+
+        final Project project = mock(Project.class);
+        when(project.id()).thenReturn(PROJECT_ID);
+        when(repository.getProject(PROJECT_ID)).thenReturn(project);
+    }
+
+    @Test
+    public void testNextPageIsRequestedOnceWithTwoRespondingPeers() throws Exception {
+        for (String oneContinuation : new String[]{"a", "b"}) {
+            // the same page is answered by the two peers
+            getProjectResponseHandler.onMessage(newPage(oneContinuation), repository);
+            getProjectResponseHandler.onMessage(newPage(oneContinuation), repository);
+        }
+        getProjectResponseHandler.onMessage(newPage(null), repository);
+        getProjectResponseHandler.onMessage(newPage(null), repository);
+
+        Assert.assertEquals(2, pageRequests().size());
+        Assert.assertEquals("a", pageRequests().get(0).continuation());
+        Assert.assertEquals("b", pageRequests().get(1).continuation());
+    }
+
+    private FluxMessage newPage(String continuation) {
+        final GetProjectResponse response = new GetProjectResponse(PROJECT_ID, Collections.<ResourceEntry>emptyList(),
+                                                                   Collections.<ResourceEntry>emptyList(), continuation);
+        return new FluxMessage(connection, new JSONObject(), response, FluxMessageCodecs.GET_PROJECT_RESPONSE);
+    }
+
+    private List<GetProjectRequest> pageRequests() throws Exception {
+        final ArgumentCaptor<FluxMessage> messageCaptor = ArgumentCaptor.forClass(FluxMessage.class);
+        verify(connection, atLeastOnce()).sendMessage(messageCaptor.capture());
+
+        final List<GetProjectRequest> pageRequests = new ArrayList<>();
+        for (FluxMessage oneMessage : messageCaptor.getAllValues()) {
+            if (oneMessage.type() == GET_PROJECT_REQUEST) {
+                pageRequests.add(oneMessage.record(FluxMessageCodecs.GET_PROJECT_REQUEST));
+            }
+        }
+        return pageRequests;
+    }
+}
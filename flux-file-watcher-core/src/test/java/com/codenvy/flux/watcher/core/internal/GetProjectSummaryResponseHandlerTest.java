@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.internal;
+
+import com.codenvy.flux.watcher.core.FluxConnection;
+import com.codenvy.flux.watcher.core.FluxMessage;
+import com.codenvy.flux.watcher.core.FluxMessageBus;
+import com.codenvy.flux.watcher.core.Repository;
+import com.codenvy.flux.watcher.core.Resource;
+import com.codenvy.flux.watcher.core.spi.Project;
+import com.google.common.collect.ImmutableSet;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import javax.inject.Provider;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.FILES;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.HASH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PATH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.PROJECT;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.TIMESTAMP;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.TYPE;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_PROJECT_SUMMARY_REQUEST;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_PROJECT_SUMMARY_RESPONSE;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link com.codenvy.flux.watcher.core.internal.GetProjectSummaryResponseHandler} tests.
+ *
+ * @author Kevin Pollet
+ */
+public final class GetProjectSummaryResponseHandlerTest {
+    private static final String PROJECT_ID = "project-id";
+
+    private GetProjectSummaryResponseHandler getProjectSummaryResponseHandler;
+    private FluxConnection                   connection;
+    private Repository                       repository;
+
+    @Before
+    public void beforeTest() {
+        final Project project = mock(Project.class);
+        when(project.id()).thenReturn(PROJECT_ID);
+        when(project.getResources()).thenReturn(ImmutableSet.of(Resource.newFolder("src", 1000),
+                                                                Resource.newFile("src/hello", 1000, "hello".getBytes())));
+
+        final ProjectSummaries projectSummaries = new ProjectSummaries(new Provider<FluxMessageBus>() {
+            @Override
+            public FluxMessageBus get() {
+                return mock(FluxMessageBus.class);
+            }
+        }, 60000);
+        getProjectSummaryResponseHandler = new GetProjectSummaryResponseHandler(projectSummaries, new ProjectSynchronizer(1, 1, 60000));
+        connection = mock(FluxConnection.class);
+        repository = mock(Repository.class);
+        when(repository.getProject(PROJECT_ID)).thenReturn(project);
+    }
+
+    @Test
+    public void testSubtreeSummaryIsRequestedOnceWithTwoRespondingPeers() throws Exception {
+        // the root summary is answered by the two peers
+        getProjectSummaryResponseHandler.onMessage(newRootSummary(), repository);
+        getProjectSummaryResponseHandler.onMessage(newRootSummary(), repository);
+
+        final List<JSONObject> summaryRequests = summaryRequests();
+        Assert.assertEquals(1, summaryRequests.size());
+        Assert.assertEquals("src", summaryRequests.get(0).getString(PATH.value()));
+    }
+
+    private FluxMessage newRootSummary() throws JSONException {
+        final JSONArray files = new JSONArray().put(new JSONObject().put(PATH.value(), "src")
+                                                                    .put(TIMESTAMP.value(), 2000)
+                                                                    .put(HASH.value(), "remote-src-hash")
+                                                                    .put(TYPE.value(), "folder"));
+        final JSONObject content = new JSONObject().put(PROJECT.value(), PROJECT_ID)
+                                                   .put(PATH.value(), "")
+                                                   .put(HASH.value(), "remote-root-hash")
+                                                   .put(FILES.value(), files);
+        return new FluxMessage(connection, GET_PROJECT_SUMMARY_RESPONSE, content);
+    }
+
+    private List<JSONObject> summaryRequests() {
+        final ArgumentCaptor<FluxMessage> messageCaptor = ArgumentCaptor.forClass(FluxMessage.class);
+        verify(connection, atLeastOnce()).sendMessage(messageCaptor.capture());
+
+        final List<JSONObject> summaryRequests = new ArrayList<>();
+        for (FluxMessage oneMessage : messageCaptor.getAllValues()) {
+            if (oneMessage.type() == GET_PROJECT_SUMMARY_REQUEST) {
+                summaryRequests.add(oneMessage.content());
+            }
+        }
+        return summaryRequests;
+    }
+}
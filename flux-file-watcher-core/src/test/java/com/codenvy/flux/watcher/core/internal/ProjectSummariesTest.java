@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.internal;
+
+import com.codenvy.flux.watcher.core.FluxMessage;
+import com.codenvy.flux.watcher.core.FluxMessageBus;
+import com.codenvy.flux.watcher.core.RepositoryEvent;
+import com.codenvy.flux.watcher.core.Resource;
+import com.codenvy.flux.watcher.core.spi.Project;
+import com.google.common.collect.ImmutableSet;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import javax.inject.Provider;
+
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.HASH;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_PROJECT_REQUEST;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_PROJECT_SUMMARY_REQUEST;
+import static com.codenvy.flux.watcher.core.RepositoryEventType.PROJECT_RESOURCE_CREATED;
+import static com.codenvy.flux.watcher.core.RepositoryEventType.PROJECT_RESOURCE_DELETED;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link com.codenvy.flux.watcher.core.internal.ProjectSummaries} tests.
+ *
+ * @author Kevin Pollet
+ */
+public final class ProjectSummariesTest {
+    private static final String PROJECT_ID = "project-id";
+
+    private FluxMessageBus messageBus;
+    private Project        project;
+
+    @Before
+    public void beforeTest() {
+        messageBus = mock(FluxMessageBus.class);
+        project = mock(Project.class);
+        when(project.id()).thenReturn(PROJECT_ID);
+        when(project.getResources()).thenReturn(ImmutableSet.of(Resource.newFolder("src", 1000),
+                                                                Resource.newFile("src/hello", 1000, "hello".getBytes())));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNewWithNonPositiveTimeout() {
+        new ProjectSummaries(provider(), 0);
+    }
+
+    @Test
+    public void testSummaryIsUpdatedByEvents() throws Exception {
+        final ProjectSummaries projectSummaries = new ProjectSummaries(provider(), 60000);
+        final String rootHash = projectSummaries.summary(project, "").hash();
+
+        projectSummaries.onEvent(new RepositoryEvent(PROJECT_RESOURCE_CREATED, Resource.newFile("readme", 2000, "hi".getBytes()), project));
+
+        Assert.assertNotEquals(rootHash, projectSummaries.summary(project, "").hash());
+        Assert.assertNotNull(projectSummaries.summary(project, "readme"));
+
+        projectSummaries.onEvent(new RepositoryEvent(PROJECT_RESOURCE_DELETED, Resource.newUnknown("readme", 3000), project));
+
+        Assert.assertEquals(rootHash, projectSummaries.summary(project, "").hash());
+    }
+
+    @Test
+    public void testRequestSummary() throws Exception {
+        final ProjectSummaries projectSummaries = new ProjectSummaries(provider(), 60000);
+
+        projectSummaries.requestSummary(project);
+
+        final ArgumentCaptor<FluxMessage> message = ArgumentCaptor.forClass(FluxMessage.class);
+        verify(messageBus, times(1)).sendMessages(message.capture());
+        Assert.assertEquals(GET_PROJECT_SUMMARY_REQUEST, message.getValue().type());
+        Assert.assertEquals(projectSummaries.summary(project, "").hash(), message.getValue().content().getString(HASH.value()));
+    }
+
+    @Test
+    public void testRequestListingWhenNoSummaryIsReceived() {
+        final ProjectSummaries projectSummaries = new ProjectSummaries(provider(), 10);
+
+        projectSummaries.requestSummary(project);
+
+        final ArgumentCaptor<FluxMessage> message = ArgumentCaptor.forClass(FluxMessage.class);
+        verify(messageBus, timeout(5000).times(2)).sendMessages(message.capture());
+        Assert.assertEquals(GET_PROJECT_REQUEST, message.getValue().type());
+    }
+
+    @Test
+    public void testNoListingWhenSummaryIsReceived() throws InterruptedException {
+        final ProjectSummaries projectSummaries = new ProjectSummaries(provider(), 100);
+
+        projectSummaries.requestSummary(project);
+        projectSummaries.summaryReceived(project);
+        Thread.sleep(300);
+
+        verify(messageBus, times(1)).sendMessages(any(FluxMessage.class));
+    }
+
+    private Provider<FluxMessageBus> provider() {
+        return new Provider<FluxMessageBus>() {
+            @Override
+            public FluxMessageBus get() {
+                return messageBus;
+            }
+        };
+    }
+}
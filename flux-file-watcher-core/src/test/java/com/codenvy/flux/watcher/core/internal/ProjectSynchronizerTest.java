@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.internal;
+
+import com.codenvy.flux.watcher.core.FluxConnection;
+import com.codenvy.flux.watcher.core.FluxMessage;
+import com.codenvy.flux.watcher.core.Resource;
+import com.codenvy.flux.watcher.core.spi.Project;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.RESOURCE;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_RESOURCE_REQUEST;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FILE;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FOLDER;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link com.codenvy.flux.watcher.core.internal.ProjectSynchronizer} tests.
+ *
+ * @author Kevin Pollet
+ */
+public final class ProjectSynchronizerTest {
+    private static final String PROJECT_ID = "project-id";
+    private static final int    WINDOW     = 2;
+
+    private ProjectSynchronizer projectSynchronizer;
+    private FluxConnection      connection;
+    private Project             project;
+
+    @Before
+    public void beforeTest() {
+        projectSynchronizer = new ProjectSynchronizer(2, WINDOW, 60000);
+        connection = mock(FluxConnection.class);
+        project = mock(Project.class);
+        when(project.id()).thenReturn(PROJECT_ID);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNewWithNonPositiveWindow() {
+        new ProjectSynchronizer(1, 0, 1000);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testSynchronizeWithNullProject() {
+        projectSynchronizer.synchronize(connection, null, Collections.<ProjectSynchronizer.RemoteResource>emptyList(),
+                                        Collections.<ProjectSynchronizer.RemoteResource>emptyList());
+    }
+
+    @Test
+    public void testSynchronizeWithUpToDateProject() throws InterruptedException {
+        when(project.getResource("file0")).thenReturn(Resource.newFile("file0", 2000, new byte[0]));
+
+        projectSynchronizer.synchronize(connection, project, remoteFiles(1), Collections.<ProjectSynchronizer.RemoteResource>emptyList());
+
+        final ProjectSynchronizer.Progress progress = awaitDone();
+        Assert.assertEquals(1, progress.compared());
+        Assert.assertEquals(0, progress.requested());
+        verify(connection, never()).sendMessage(any(FluxMessage.class));
+    }
+
+    @Test
+    public void testSynchronizeCreatesMissingFolders() throws InterruptedException {
+        final List<ProjectSynchronizer.RemoteResource> files = new ArrayList<>();
+        files.add(new ProjectSynchronizer.RemoteResource("src", 1000, FOLDER, "0"));
+
+        projectSynchronizer.synchronize(connection, project, files, Collections.<ProjectSynchronizer.RemoteResource>emptyList());
+
+        awaitDone();
+        final ArgumentCaptor<Resource> resourceCaptor = ArgumentCaptor.forClass(Resource.class);
+        verify(project).createResource(resourceCaptor.capture());
+        Assert.assertEquals("src", resourceCaptor.getValue().path());
+        Assert.assertEquals(FOLDER, resourceCaptor.getValue().type());
+    }
+
+    @Test
+    public void testSynchronizeKeepsWindowOfInFlightRequests() throws InterruptedException {
+        projectSynchronizer.synchronize(connection, project, remoteFiles(5), Collections.<ProjectSynchronizer.RemoteResource>emptyList());
+
+        final ArgumentCaptor<FluxMessage> messageCaptor = ArgumentCaptor.forClass(FluxMessage.class);
+        verify(connection, timeout(10000).times(WINDOW)).sendMessage(messageCaptor.capture());
+        Thread.sleep(100);
+        verify(connection, times(WINDOW)).sendMessage(any(FluxMessage.class));
+
+        for (int i = 0; i < 5; i++) {
+            projectSynchronizer.resourceFetched(connection, PROJECT_ID, "file" + i);
+        }
+
+        verify(connection, timeout(10000).times(5)).sendMessage(messageCaptor.capture());
+        final Set<String> requestedPaths = new HashSet<>();
+        for (FluxMessage oneMessage : messageCaptor.getAllValues()) {
+            Assert.assertEquals(GET_RESOURCE_REQUEST, oneMessage.type());
+            requestedPaths.add(oneMessage.content().optString(RESOURCE.value()));
+        }
+        Assert.assertEquals(5, requestedPaths.size());
+
+        final ProjectSynchronizer.Progress progress = awaitDone();
+        Assert.assertEquals(5, progress.total());
+        Assert.assertEquals(5, progress.requested());
+        Assert.assertEquals(5, progress.fetched());
+        Assert.assertEquals(0, progress.expired());
+    }
+
+    @Test
+    public void testResourceFetchedDoesNotReadLocalResources() throws InterruptedException {
+        final Thread testThread = Thread.currentThread();
+        final AtomicBoolean readInTestThread = new AtomicBoolean();
+        when(project.getResource(anyString())).thenAnswer(new Answer<Resource>() {
+            @Override
+            public Resource answer(InvocationOnMock invocation) {
+                if (Thread.currentThread() == testThread) {
+                    readInTestThread.set(true);
+                }
+                return null;
+            }
+        });
+
+        projectSynchronizer.synchronize(connection, project, remoteFiles(3), Collections.<ProjectSynchronizer.RemoteResource>emptyList());
+        verify(connection, timeout(10000).times(WINDOW)).sendMessage(any(FluxMessage.class));
+
+        projectSynchronizer.resourceFetched(connection, PROJECT_ID, "file0");
+        projectSynchronizer.resourceFetched(connection, PROJECT_ID, "file1");
+
+        verify(connection, timeout(10000).times(3)).sendMessage(any(FluxMessage.class));
+        Assert.assertFalse(readInTestThread.get());
+    }
+
+    @Test
+    public void testResourceFetchedWithUnknownProject() {
+        projectSynchronizer.resourceFetched(connection, "foo", "readme");
+
+        Assert.assertNull(projectSynchronizer.progress(connection, "foo"));
+    }
+
+    private List<ProjectSynchronizer.RemoteResource> remoteFiles(int count) {
+        final List<ProjectSynchronizer.RemoteResource> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            files.add(new ProjectSynchronizer.RemoteResource("file" + i, 1000, FILE, "hash" + i));
+        }
+        return files;
+    }
+
+    private ProjectSynchronizer.Progress awaitDone() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            final ProjectSynchronizer.Progress progress = projectSynchronizer.progress(connection, PROJECT_ID);
+            if (progress != null && progress.isDone()) {
+                return progress;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("synchronization not done");
+    }
+}
@@ -0,0 +1,249 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.internal;
+
+import com.codenvy.flux.watcher.core.FluxConnection;
+import com.codenvy.flux.watcher.core.FluxMessage;
+import com.codenvy.flux.watcher.core.Resource;
+import com.codenvy.flux.watcher.core.spi.Project;
+import com.codenvy.flux.watcher.core.utils.ResourceHelper;
+import com.google.common.io.ByteSource;
+
+import org.json.JSONException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.HASH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.LENGTH;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.OFFSET;
+import static com.codenvy.flux.watcher.core.FluxMessage.Fields.RESOURCE;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_RESOURCE_CHUNK_REQUEST;
+import static com.codenvy.flux.watcher.core.FluxMessageType.GET_RESOURCE_REQUEST;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FILE;
+import static com.codenvy.flux.watcher.core.utils.ContentEncoding.BASE64;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link com.codenvy.flux.watcher.core.internal.ResourceTransfers} tests.
+ *
+ * @author Kevin Pollet
+ */
+public final class ResourceTransfersTest {
+    private static final String PROJECT_ID    = "project-id";
+    private static final String RESOURCE_PATH = "asset.bin";
+    private static final int    CHUNK_SIZE    = 4;
+
+    private Path                    transferDirectory;
+    private ProjectSynchronizer     projectSynchronizer;
+    private ResourceTransfers       resourceTransfers;
+    private FluxConnection          connection;
+    private Project                 project;
+    private AtomicReference<byte[]> storedContent;
+    private byte[]                  content;
+    private String                  resourceHash;
+
+    @Before
+    public void beforeTest() throws IOException {
+        transferDirectory = Files.createTempDirectory("flux-transfers");
+        projectSynchronizer = new ProjectSynchronizer(1, 1, 60000);
+        resourceTransfers = new ResourceTransfers(projectSynchronizer, CHUNK_SIZE, transferDirectory, 60000);
+        connection = mock(FluxConnection.class);
+        project = mock(Project.class);
+        storedContent = new AtomicReference<>();
+        content = new byte[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9, (byte)0xff, (byte)0xfe, 42, 43, 44, 45, 46, 47, 48, 49, 50, 51, 52, 53};
+        resourceHash = ResourceHelper.sha1(content);
+
+        when(project.id()).thenReturn(PROJECT_ID);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                storedContent.set(((Resource)invocation.getArguments()[0]).contentSource().read());
+                return null;
+            }
+        }).when(project).createResource(any(Resource.class));
+    }
+
+    @After
+    public void afterTest() throws IOException {
+        resourceTransfers.close();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(transferDirectory)) {
+            for (Path oneFile : files) {
+                Files.delete(oneFile);
+            }
+        }
+        Files.delete(transferDirectory);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNewWithNonPositiveChunkSize() {
+        new ResourceTransfers(projectSynchronizer, 0, transferDirectory, 1000);
+    }
+
+    @Test
+    public void testStartRequestsWindowOfChunks() throws JSONException {
+        resourceTransfers.start(connection, project, RESOURCE_PATH, 1000, resourceHash, content.length);
+
+        final List<FluxMessage> requests = chunkRequests(4);
+        Assert.assertEquals(GET_RESOURCE_CHUNK_REQUEST, requests.get(0).type());
+        Assert.assertEquals(0, requests.get(0).content().getLong(OFFSET.value()));
+        Assert.assertEquals(CHUNK_SIZE, requests.get(0).content().getLong(LENGTH.value()));
+        Assert.assertEquals(3 * CHUNK_SIZE, requests.get(3).content().getLong(OFFSET.value()));
+    }
+
+    @Test
+    public void testTransferStoresFileOnceAllChunksAreReceived() throws IOException {
+        resourceTransfers.start(connection, project, RESOURCE_PATH, 1000, resourceHash, content.length);
+
+        // the chunks can be received in any order
+        for (int chunk = content.length / CHUNK_SIZE - 1; chunk >= 0; chunk--) {
+            sendChunk(chunk * CHUNK_SIZE);
+        }
+
+        Assert.assertArrayEquals(content, storedContent.get());
+        Assert.assertEquals(0, resourceTransfers.size());
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(transferDirectory)) {
+            Assert.assertFalse(files.iterator().hasNext());
+        }
+    }
+
+    @Test
+    public void testCloseCancelsTransfers() throws IOException {
+        resourceTransfers.start(connection, project, RESOURCE_PATH, 1000, resourceHash, content.length);
+        resourceTransfers.close();
+
+        Assert.assertEquals(0, resourceTransfers.size());
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(transferDirectory)) {
+            Assert.assertFalse(files.iterator().hasNext());
+        }
+    }
+
+    @Test
+    public void testCorruptedChunkIsIgnored() throws IOException {
+        resourceTransfers.start(connection, project, RESOURCE_PATH, 1000, resourceHash, CHUNK_SIZE);
+
+        final ByteSource chunk = ByteSource.wrap(content).slice(0, CHUNK_SIZE);
+        resourceTransfers.chunkReceived(connection, PROJECT_ID, RESOURCE_PATH, resourceHash, 0, BASE64.encode(chunk), "bad-hash");
+
+        Assert.assertEquals(1, resourceTransfers.size());
+        verify(project, never()).createResource(any(Resource.class));
+    }
+
+    @Test
+    public void testStartSameVersionResumesTransfer() throws IOException {
+        resourceTransfers.start(connection, project, RESOURCE_PATH, 1000, resourceHash, content.length);
+        sendChunk(0);
+        sendChunk(CHUNK_SIZE);
+
+        resourceTransfers.start(connection, project, RESOURCE_PATH, 1000, resourceHash, content.length);
+
+        // 4 initial requests, 2 more after the received chunks and 4 missing chunks requested again
+        chunkRequests(10);
+        Assert.assertEquals(1, resourceTransfers.size());
+        for (int offset = 2 * CHUNK_SIZE; offset < content.length; offset += CHUNK_SIZE) {
+            sendChunk(offset);
+        }
+        Assert.assertArrayEquals(content, storedContent.get());
+    }
+
+    @Test
+    public void testTransferStoresFileWithAnnouncedHash() throws IOException {
+        resourceTransfers.start(connection, project, RESOURCE_PATH, 1000, resourceHash, content.length);
+        for (int offset = 0; offset < content.length; offset += CHUNK_SIZE) {
+            sendChunk(offset);
+        }
+
+        final ArgumentCaptor<Resource> resourceCaptor = ArgumentCaptor.forClass(Resource.class);
+        verify(project).createResource(resourceCaptor.capture());
+        Assert.assertEquals(resourceHash, resourceCaptor.getValue().hash());
+    }
+
+    @Test
+    public void testTransferNotMatchingHashIsRequestedAgain() throws IOException, JSONException {
+        resourceHash = ResourceHelper.sha1(new byte[]{42});
+        resourceTransfers.start(connection, project, RESOURCE_PATH, 1000, resourceHash, content.length);
+        for (int offset = 0; offset < content.length; offset += CHUNK_SIZE) {
+            sendChunk(offset);
+        }
+
+        // 6 chunk requests and the whole file requested again
+        final List<FluxMessage> requests = chunkRequests(7);
+        final FluxMessage request = requests.get(6);
+        Assert.assertEquals(GET_RESOURCE_REQUEST, request.type());
+        Assert.assertEquals(RESOURCE_PATH, request.content().getString(RESOURCE.value()));
+        Assert.assertEquals(resourceHash, request.content().getString(HASH.value()));
+        verify(project, never()).createResource(any(Resource.class));
+        Assert.assertEquals(0, resourceTransfers.size());
+    }
+
+    @Test
+    public void testTransferHoldsWindowSlotUntilCompleted() throws IOException {
+        final List<ProjectSynchronizer.RemoteResource> files = new ArrayList<>();
+        files.add(new ProjectSynchronizer.RemoteResource(RESOURCE_PATH, 1000, FILE, resourceHash));
+        projectSynchronizer.synchronize(connection, project, files, Collections.<ProjectSynchronizer.RemoteResource>emptyList());
+        verify(connection, timeout(10000)).sendMessage(any(FluxMessage.class));
+
+        resourceTransfers.start(connection, project, RESOURCE_PATH, 1000, resourceHash, content.length);
+        sendChunk(0);
+        Assert.assertEquals(0, projectSynchronizer.progress(connection, PROJECT_ID).fetched());
+
+        for (int offset = CHUNK_SIZE; offset < content.length; offset += CHUNK_SIZE) {
+            sendChunk(offset);
+        }
+        Assert.assertEquals(1, projectSynchronizer.progress(connection, PROJECT_ID).fetched());
+    }
+
+    @Test
+    public void testCancelledTransferReleasesWindowSlot() throws IOException {
+        final List<ProjectSynchronizer.RemoteResource> files = new ArrayList<>();
+        files.add(new ProjectSynchronizer.RemoteResource(RESOURCE_PATH, 1000, FILE, resourceHash));
+        projectSynchronizer.synchronize(connection, project, files, Collections.<ProjectSynchronizer.RemoteResource>emptyList());
+        verify(connection, timeout(10000)).sendMessage(any(FluxMessage.class));
+
+        resourceTransfers.start(connection, project, RESOURCE_PATH, 1000, resourceHash, content.length);
+        resourceTransfers.close();
+
+        Assert.assertEquals(1, projectSynchronizer.progress(connection, PROJECT_ID).fetched());
+    }
+
+    private void sendChunk(int offset) throws IOException {
+        final byte[] chunk = Arrays.copyOfRange(content, offset, Math.min(offset + CHUNK_SIZE, content.length));
+        resourceTransfers.chunkReceived(connection, PROJECT_ID, RESOURCE_PATH, resourceHash, offset, BASE64.encode(ByteSource.wrap(chunk)),
+                                        ResourceHelper.sha1(chunk));
+    }
+
+    private List<FluxMessage> chunkRequests(int count) {
+        final ArgumentCaptor<FluxMessage> messageCaptor = ArgumentCaptor.forClass(FluxMessage.class);
+        verify(connection, times(count)).sendMessage(messageCaptor.capture());
+        return messageCaptor.getAllValues();
+    }
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.internal;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FILE;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FOLDER;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.UNKNOWN;
+
+/**
+ * {@link com.codenvy.flux.watcher.core.internal.ResourceTree} tests.
+ *
+ * @author Kevin Pollet
+ */
+public final class ResourceTreeTest {
+    @Test(expected = IllegalArgumentException.class)
+    public void testPutWithUnknownType() {
+        new ResourceTree().put("foo", UNKNOWN, 1000, "hash");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPutFileWithNullHash() {
+        new ResourceTree().put("foo", FILE, 1000, null);
+    }
+
+    @Test
+    public void testSameContentHasSameRootHash() {
+        final ResourceTree tree = new ResourceTree();
+        tree.put("src", FOLDER, 1000, null);
+        tree.put("src/hello", FILE, 1000, "hash1");
+        tree.put("readme", FILE, 1000, "hash2");
+
+        final ResourceTree otherTree = new ResourceTree();
+        otherTree.put("readme", FILE, 5000, "hash2");
+        otherTree.put("src/hello", FILE, 5000, "hash1");
+
+        Assert.assertEquals(tree.summary("").hash(), otherTree.summary("").hash());
+        Assert.assertEquals(tree.summary("src").hash(), otherTree.summary("src").hash());
+    }
+
+    @Test
+    public void testPutInvalidatesAncestorsOnly() {
+        final ResourceTree tree = new ResourceTree();
+        tree.put("src/main/hello", FILE, 1000, "hash1");
+        tree.put("doc/readme", FILE, 1000, "hash2");
+
+        final String rootHash = tree.summary("").hash();
+        final String srcHash = tree.summary("src").hash();
+        final String docHash = tree.summary("doc").hash();
+
+        tree.put("src/main/hello", FILE, 2000, "hash3");
+
+        Assert.assertNotEquals(rootHash, tree.summary("").hash());
+        Assert.assertNotEquals(srcHash, tree.summary("src").hash());
+        Assert.assertEquals(docHash, tree.summary("doc").hash());
+        Assert.assertEquals("hash3", tree.summary("src/main/hello").hash());
+    }
+
+    @Test
+    public void testRemove() {
+        final ResourceTree tree = new ResourceTree();
+        tree.put("readme", FILE, 1000, "hash1");
+        final String rootHash = tree.summary("").hash();
+
+        tree.put("src/main/hello", FILE, 1000, "hash2");
+        tree.remove("src");
+
+        Assert.assertNull(tree.summary("src"));
+        Assert.assertNull(tree.summary("src/main/hello"));
+        Assert.assertEquals(rootHash, tree.summary("").hash());
+    }
+
+    @Test
+    public void testSummaryChildren() {
+        final ResourceTree tree = new ResourceTree();
+        tree.put("src", FOLDER, 1000, null);
+        tree.put("src/hello", FILE, 2000, "hash1");
+        tree.put("readme", FILE, 3000, "hash2");
+
+        final ResourceTree.Summary summary = tree.summary("");
+
+        Assert.assertEquals(2, summary.children().size());
+        Assert.assertEquals("readme", summary.children().get(0).path());
+        Assert.assertEquals(FILE, summary.children().get(0).type());
+        Assert.assertEquals(3000, summary.children().get(0).timestamp());
+        Assert.assertEquals("hash2", summary.children().get(0).hash());
+        Assert.assertEquals("src", summary.children().get(1).path());
+        Assert.assertEquals(FOLDER, summary.children().get(1).type());
+        Assert.assertEquals(tree.summary("src").hash(), summary.children().get(1).hash());
+        Assert.assertEquals("src/hello", tree.summary("src").children().get(0).path());
+    }
+
+    @Test
+    public void testEmptyFolderDiffersFromFile() {
+        final ResourceTree tree = new ResourceTree();
+        tree.put("foo", FOLDER, 1000, null);
+
+        final ResourceTree otherTree = new ResourceTree();
+        otherTree.put("foo", FILE, 1000, tree.summary("foo").hash());
+
+        Assert.assertNotEquals(tree.summary("").hash(), otherTree.summary("").hash());
+    }
+}
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.utils;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteSource;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static com.codenvy.flux.watcher.core.utils.ContentEncoding.BASE64;
+import static com.codenvy.flux.watcher.core.utils.ContentEncoding.TEXT;
+
+/**
+ * {@link com.codenvy.flux.watcher.core.utils.ContentEncoding} tests.
+ *
+ * @author Kevin Pollet
+ */
+public final class ContentEncodingTest {
+    private static final byte[] BINARY_CONTENT = {(byte)0xca, (byte)0xfe, (byte)0xba, (byte)0xbe, 0, (byte)0xff, (byte)0x80};
+
+    @Test
+    public void testFromValue() {
+        Assert.assertEquals(BASE64, ContentEncoding.fromValue("base64"));
+        Assert.assertEquals(TEXT, ContentEncoding.fromValue("text"));
+        Assert.assertEquals(TEXT, ContentEncoding.fromValue("foo"));
+        Assert.assertEquals(TEXT, ContentEncoding.fromValue(null));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testEncodeWithNullSource() throws IOException {
+        BASE64.encode(null);
+    }
+
+    @Test
+    public void testBase64RoundTripWithBinaryContent() throws IOException {
+        final String encodedContent = BASE64.encode(ByteSource.wrap(BINARY_CONTENT));
+
+        Assert.assertEquals(BINARY_CONTENT.length, BASE64.decodedLength(encodedContent));
+        Assert.assertArrayEquals(BINARY_CONTENT, BASE64.decode(encodedContent).read());
+    }
+
+    @Test
+    public void testBase64DecodedLength() throws IOException {
+        for (int length = 0; length < 8; length++) {
+            final String encodedContent = BASE64.encode(ByteSource.wrap(new byte[length]));
+
+            Assert.assertEquals(length, BASE64.decodedLength(encodedContent));
+        }
+    }
+
+    @Test
+    public void testTextRoundTrip() throws IOException {
+        final byte[] content = "h\u00e9llo \u20ac".getBytes(Charsets.UTF_8);
+        final String encodedContent = TEXT.encode(ByteSource.wrap(content));
+
+        Assert.assertEquals("h\u00e9llo \u20ac", encodedContent);
+        Assert.assertEquals(content.length, TEXT.decodedLength(encodedContent));
+        Assert.assertArrayEquals(content, TEXT.decode(encodedContent).read());
+    }
+}
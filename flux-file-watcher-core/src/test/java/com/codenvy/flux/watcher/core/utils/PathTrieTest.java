@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * {@link com.codenvy.flux.watcher.core.utils.PathTrie} tests.
+ *
+ * @author Kevin Pollet
+ */
+public final class PathTrieTest {
+    @Test(expected = NullPointerException.class)
+    public void testPutWithNullPath() {
+        new PathTrie<String>().put(null, "foo");
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testPutWithNullValue() {
+        new PathTrie<String>().put("/foo", null);
+    }
+
+    @Test
+    public void testPutAndGet() {
+        final PathTrie<String> trie = new PathTrie<>();
+
+        Assert.assertNull(trie.put("/foo", "foo"));
+        Assert.assertEquals("foo", trie.put("/foo/", "bar"));
+
+        Assert.assertEquals(1, trie.size());
+        Assert.assertEquals("bar", trie.get("/foo"));
+        Assert.assertEquals("bar", trie.get("foo//"));
+        Assert.assertNull(trie.get("/foo/bar"));
+        Assert.assertNull(trie.get("/"));
+    }
+
+    @Test
+    public void testGetClosestMatchesSegmentBoundaries() {
+        final PathTrie<String> trie = new PathTrie<>();
+        trie.put("/foo", "foo");
+        trie.put("/foo/bar/baz", "baz");
+
+        Assert.assertEquals("foo", trie.getClosest("/foo"));
+        Assert.assertEquals("foo", trie.getClosest("/foo/bar"));
+        Assert.assertEquals("baz", trie.getClosest("/foo/bar/baz/file"));
+        Assert.assertNull(trie.getClosest("/foobar"));
+        Assert.assertNull(trie.getClosest("/"));
+    }
+
+    @Test
+    public void testGetClosestWithRoot() {
+        final PathTrie<String> trie = new PathTrie<>();
+        trie.put("/", "root");
+
+        Assert.assertEquals("root", trie.getClosest("/foobar"));
+    }
+
+    @Test
+    public void testRemove() {
+        final PathTrie<String> trie = new PathTrie<>();
+        trie.put("/foo", "foo");
+        trie.put("/foo/bar", "bar");
+
+        Assert.assertNull(trie.remove("/fo"));
+        Assert.assertEquals("foo", trie.remove("//foo"));
+        Assert.assertNull(trie.remove("/foo"));
+
+        Assert.assertEquals(1, trie.size());
+        Assert.assertEquals("bar", trie.getClosest("/foo/bar/baz"));
+        Assert.assertNull(trie.getClosest("/foo/baz"));
+
+        Assert.assertEquals("bar", trie.remove("/foo/bar"));
+        Assert.assertEquals(0, trie.size());
+    }
+}
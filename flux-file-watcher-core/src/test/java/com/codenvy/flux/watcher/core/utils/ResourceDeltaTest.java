@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.utils;
+
+import com.google.common.io.ByteSource;
+import com.google.common.primitives.Bytes;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * {@link com.codenvy.flux.watcher.core.utils.ResourceDelta} tests.
+ *
+ * @author Kevin Pollet
+ */
+public final class ResourceDeltaTest {
+    private static final int BLOCK_SIZE = 2048;
+
+    @Test
+    public void testBlockSize() {
+        Assert.assertEquals(2048, ResourceDelta.blockSize(0));
+        Assert.assertEquals(4096, ResourceDelta.blockSize(16 * 1024 * 1024));
+        Assert.assertEquals(64 * 1024, ResourceDelta.blockSize(Long.MAX_VALUE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSignaturesWithTooLargeBlockSize() throws IOException {
+        ResourceDelta.signatures(ByteSource.empty(), 1024 * 1024);
+    }
+
+    @Test
+    public void testSignaturesSkipTrailingPartialBlock() throws IOException {
+        Assert.assertEquals(2 * 12, ResourceDelta.signatures(ByteSource.wrap(randomBytes(2 * BLOCK_SIZE + 10, 1)), BLOCK_SIZE).length);
+    }
+
+    @Test
+    public void testDeltaOfUnchangedContent() throws IOException {
+        final byte[] content = randomBytes(100 * BLOCK_SIZE, 1);
+
+        final byte[] delta = assertRoundTrip(content, content);
+        Assert.assertTrue(delta.length < 32);
+    }
+
+    @Test
+    public void testDeltaWithInsertedBytes() throws IOException {
+        final byte[] oldContent = randomBytes(100 * BLOCK_SIZE + 100, 1);
+        final byte[] newContent = Bytes.concat(Arrays.copyOf(oldContent, 5000), "inserted".getBytes(),
+                                               Arrays.copyOfRange(oldContent, 5000, oldContent.length));
+
+        final byte[] delta = assertRoundTrip(oldContent, newContent);
+        Assert.assertTrue(delta.length < 3 * BLOCK_SIZE);
+    }
+
+    @Test
+    public void testDeltaWithAppendedBytes() throws IOException {
+        final byte[] oldContent = randomBytes(100 * BLOCK_SIZE, 1);
+        final byte[] newContent = Bytes.concat(oldContent, randomBytes(100, 2));
+
+        final byte[] delta = assertRoundTrip(oldContent, newContent);
+        Assert.assertTrue(delta.length < 200);
+    }
+
+    @Test
+    public void testDeltaWithRemovedAndMovedBlocks() throws IOException {
+        final byte[] oldContent = randomBytes(10 * BLOCK_SIZE, 1);
+        final byte[] newContent = Bytes.concat(Arrays.copyOfRange(oldContent, 6 * BLOCK_SIZE, 8 * BLOCK_SIZE),
+                                               Arrays.copyOfRange(oldContent, 0, 3 * BLOCK_SIZE + 7));
+
+        final byte[] delta = assertRoundTrip(oldContent, newContent);
+        Assert.assertTrue(delta.length < 64);
+    }
+
+    @Test
+    public void testDeltaFromEmptyContent() throws IOException {
+        assertRoundTrip(new byte[0], randomBytes(3 * BLOCK_SIZE, 1));
+        assertRoundTrip(randomBytes(3 * BLOCK_SIZE, 1), new byte[0]);
+    }
+
+    @Test
+    public void testDeltaLongerThanMaxLength() throws IOException {
+        final byte[] signatures = ResourceDelta.signatures(ByteSource.wrap(randomBytes(10 * BLOCK_SIZE, 1)), BLOCK_SIZE);
+
+        Assert.assertNull(ResourceDelta.delta(ByteSource.wrap(randomBytes(10 * BLOCK_SIZE, 2)), signatures, BLOCK_SIZE, BLOCK_SIZE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDeltaWithMalformedSignatures() throws IOException {
+        ResourceDelta.delta(ByteSource.empty(), new byte[5], BLOCK_SIZE, Integer.MAX_VALUE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPatchWithMalformedDelta() {
+        ResourceDelta.patch(ByteSource.empty(), new byte[]{2, 0, 0, 0, 9, 0, 0, 1, 0}, BLOCK_SIZE);
+    }
+
+    private byte[] assertRoundTrip(byte[] oldContent, byte[] newContent) throws IOException {
+        final byte[] signatures = ResourceDelta.signatures(ByteSource.wrap(oldContent), BLOCK_SIZE);
+        final byte[] delta = ResourceDelta.delta(ByteSource.wrap(newContent), signatures, BLOCK_SIZE, Integer.MAX_VALUE);
+
+        Assert.assertNotNull(delta);
+        Assert.assertArrayEquals(newContent, ResourceDelta.patch(ByteSource.wrap(oldContent), delta, BLOCK_SIZE).read());
+        return delta;
+    }
+
+    private byte[] randomBytes(int length, long seed) {
+        final byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.core.utils;
+
+import com.google.common.io.ByteSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.codenvy.flux.watcher.core.utils.ResourceHelper.HashAlgorithm;
+
+/**
+ * {@link com.codenvy.flux.watcher.core.utils.ResourceHelper} benchmark comparing the {@link HashAlgorithm} throughput on
+ * 1 KB to 100 MB contents, hashed in memory and streamed from a {@link com.google.common.io.ByteSource}.
+ * <p/>
+ * Run it with the {@link #main(String[])} method from the test classpath.
+ *
+ * @author Kevin Pollet
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ResourceHelperBenchmark {
+    @Param({"1024", "65536", "1048576", "104857600"})
+    public int size;
+
+    @Param({"SHA1", "MURMUR3_128", "CRC32"})
+    public HashAlgorithm algorithm;
+
+    private byte[] content;
+
+    @Setup
+    public void setUp() {
+        content = new byte[size];
+        new Random(42).nextBytes(content);
+    }
+
+    @Benchmark
+    public String hashBytes() {
+        return ResourceHelper.hash(algorithm, content);
+    }
+
+    @Benchmark
+    public String hashStream() {
+        return ResourceHelper.hash(ByteSource.wrap(content), algorithm).get(0);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ResourceHelperBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -11,16 +11,34 @@
 package com.codenvy.flux.watcher.core.utils;
 
 
+import com.google.common.io.ByteSource;
+
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.codenvy.flux.watcher.core.utils.ResourceHelper.HashAlgorithm;
+
 /**
  * @author Kevin Pollet
  */
 public final class ResourceHelperTest {
     @Test(expected = NullPointerException.class)
     public void testSHA1WithNullBytes() {
-        ResourceHelper.sha1(null);
+        ResourceHelper.sha1((byte[])null);
     }
 
     @Test
@@ -35,4 +53,101 @@ public final class ResourceHelperTest {
         Assert.assertNotNull(helloWorldHash);
         Assert.assertNotEquals(helloHash, helloWorldHash);
     }
+
+    @Test(expected = NullPointerException.class)
+    public void testSHA1WithNullByteSource() {
+        ResourceHelper.sha1((ByteSource)null);
+    }
+
+    @Test
+    public void testSHA1WithByteSource() {
+        final byte[] hello = "hello".getBytes();
+
+        Assert.assertEquals(ResourceHelper.sha1(hello), ResourceHelper.sha1(ByteSource.wrap(hello)));
+    }
+
+    @Test
+    public void testSHA1Value() {
+        Assert.assertEquals("AAF4C61DDCC5E8A2DABEDE0F3B482CD9AEA9434D", ResourceHelper.sha1("hello".getBytes()));
+    }
+
+    @Test
+    public void testHashWithAllAlgorithms() throws IOException {
+        final byte[] content = new byte[200 * 1024];
+        new Random(42).nextBytes(content);
+
+        for (HashAlgorithm oneAlgorithm : HashAlgorithm.values()) {
+            final String hash = ResourceHelper.hash(oneAlgorithm, content);
+
+            Assert.assertNotNull(hash);
+            Assert.assertEquals(hash, ResourceHelper.hash(oneAlgorithm, ByteSource.wrap(content)));
+            Assert.assertEquals(hash, ResourceHelper.hash(ByteSource.wrap(content), oneAlgorithm).get(0));
+            Assert.assertNotEquals(hash, ResourceHelper.hash(oneAlgorithm, "hello".getBytes()));
+        }
+    }
+
+    @Test
+    public void testHashWithSeveralAlgorithmsReadsContentOnce() {
+        final byte[] content = new byte[200 * 1024];
+        new Random(42).nextBytes(content);
+        final AtomicInteger reads = new AtomicInteger();
+        final ByteSource source = new ByteSource() {
+            @Override
+            public InputStream openStream() throws IOException {
+                reads.incrementAndGet();
+                return new ByteArrayInputStream(content);
+            }
+        };
+
+        final List<String> hashes = ResourceHelper.hash(source, HashAlgorithm.SHA1, HashAlgorithm.CRC32);
+
+        Assert.assertEquals(Arrays.asList(ResourceHelper.sha1(content), ResourceHelper.hash(HashAlgorithm.CRC32, content)), hashes);
+        Assert.assertEquals(1, reads.get());
+    }
+
+    @Test
+    public void testChecksumWithDefaultAlgorithm() {
+        final byte[] hello = "hello".getBytes();
+
+        Assert.assertEquals(HashAlgorithm.SHA1, ResourceHelper.checksumAlgorithm());
+        Assert.assertEquals(ResourceHelper.sha1(hello), ResourceHelper.checksum(hello));
+        Assert.assertEquals(ResourceHelper.sha1(hello), ResourceHelper.checksum(ByteSource.wrap(hello)));
+    }
+
+    @Test
+    public void testConcurrentHash() throws InterruptedException, ExecutionException {
+        final byte[] content = new byte[64 * 1024];
+        new Random(42).nextBytes(content);
+        final String expectedHash = ResourceHelper.sha1(content);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+
+            final List<Future<String>> hashes = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                hashes.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return ResourceHelper.hash(ByteSource.wrap(content), HashAlgorithm.SHA1).get(0);
+                    }
+                }));
+            }
+
+            for (Future<String> oneHash : hashes) {
+                Assert.assertEquals(expectedHash, oneHash.get());
+            }
+
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testComparePaths() {
+        Assert.assertEquals(0, ResourceHelper.comparePaths("src/main", "src/main"));
+        Assert.assertTrue(ResourceHelper.comparePaths("src", "src/main") < 0);
+        Assert.assertTrue(ResourceHelper.comparePaths("src/main", "src-gen") < 0);
+        Assert.assertTrue(ResourceHelper.comparePaths("src-gen", "src/main") > 0);
+        Assert.assertTrue(ResourceHelper.comparePaths("readme", "src") < 0);
+    }
 }
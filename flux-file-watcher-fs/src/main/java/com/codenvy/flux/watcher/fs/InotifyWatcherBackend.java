@@ -0,0 +1,416 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.fs;
+
+import com.sun.jna.Library;
+import com.sun.jna.Native;
+import com.sun.jna.NativeLong;
+import com.sun.jna.Structure;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileVisitResult;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.file.FileVisitResult.CONTINUE;
+import static java.nio.file.FileVisitResult.SKIP_SUBTREE;
+import static java.nio.file.Files.walkFileTree;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * {@link com.codenvy.flux.watcher.fs.WatcherBackend} implementation calling the Linux inotify API through JNA.
+ * <p/>
+ * inotify has no recursive mode, one watch is still added per folder, but each one costs a single system call instead of a
+ * round trip to the JDK poller thread and a {@link java.nio.file.WatchKey}. The watches only report the events of the folder
+ * children, the folders are not followed through symbolic links and the events of unlinked files are not reported. When the
+ * system limit is reached an {@link java.io.IOException} tells to raise {@code fs.inotify.max_user_watches}.
+ * <p/>
+ * The watch descriptors are kept in a {@link com.codenvy.flux.watcher.fs.WatchRegistry}, the folders are watched and unwatched
+ * concurrently while the events are taken. The inotify descriptor is only guarded against its closing by a read write lock.
+ *
+ * @author Kevin Pollet
+ */
+final class InotifyWatcherBackend implements WatcherBackend {
+    private static final int IN_NONBLOCK    = 04000;
+    private static final int IN_CLOEXEC     = 02000000;
+    private static final int IN_MODIFY      = 0x00000002;
+    private static final int IN_ATTRIB      = 0x00000004;
+    private static final int IN_MOVED_FROM  = 0x00000040;
+    private static final int IN_MOVED_TO    = 0x00000080;
+    private static final int IN_CREATE      = 0x00000100;
+    private static final int IN_DELETE      = 0x00000200;
+    private static final int IN_Q_OVERFLOW  = 0x00004000;
+    private static final int IN_IGNORED     = 0x00008000;
+    private static final int IN_ONLYDIR     = 0x01000000;
+    private static final int IN_DONT_FOLLOW = 0x02000000;
+    private static final int IN_EXCL_UNLINK = 0x04000000;
+    private static final int IN_ISDIR       = 0x40000000;
+    private static final int WATCH_MASK     = IN_MODIFY | IN_ATTRIB | IN_MOVED_FROM | IN_MOVED_TO | IN_CREATE | IN_DELETE
+                                              | IN_ONLYDIR | IN_DONT_FOLLOW | IN_EXCL_UNLINK;
+
+    private static final int     POLLIN       = 0x0001;
+    private static final int     ENOENT       = 2;
+    private static final int     EINTR        = 4;
+    private static final int     EAGAIN       = 11;
+    private static final int     ENOTDIR      = 20;
+    private static final int     ENOSPC       = 28;
+    private static final int     EVENT_HEADER = 16;
+    private static final int     BUFFER_SIZE  = 64 * 1024;
+    private static final long    POLL_SLICE   = 200;
+    private static final Charset NAME_CHARSET = Charset.forName(System.getProperty("sun.jnu.encoding", "UTF-8"));
+
+    private final FileSystem             fileSystem;
+    private final int                    fd;
+    private final byte[]                 buffer;
+    private final WatchRegistry<Integer> registry;
+    private final ReadWriteLock          closeLock;
+    private boolean                      taking;
+    private volatile boolean             closed;
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.fs.InotifyWatcherBackend}.
+     *
+     * @param fileSystem
+     *         the default {@link java.nio.file.FileSystem}.
+     * @throws java.lang.NullPointerException
+     *         if {@code fileSystem} parameter is {@code null}.
+     * @throws java.lang.IllegalStateException
+     *         if inotify is not supported.
+     * @throws java.io.IOException
+     *         if the inotify instance cannot be created.
+     */
+    InotifyWatcherBackend(FileSystem fileSystem) throws IOException {
+        this.fileSystem = checkNotNull(fileSystem);
+        if (!isSupported()) {
+            throw new IllegalStateException("inotify is not supported");
+        }
+
+        this.fd = LibC.INSTANCE.inotify_init1(IN_NONBLOCK | IN_CLOEXEC);
+        if (fd < 0) {
+            throw new IOException("Unable to create the inotify instance, errno " + Native.getLastError());
+        }
+        this.buffer = new byte[BUFFER_SIZE];
+        this.registry = new WatchRegistry<>();
+        this.closeLock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Returns whether or not inotify can be used, that is the system is Linux and the C library can be loaded.
+     *
+     * @return {@code true} if inotify is supported, {@code false} otherwise.
+     */
+    static boolean isSupported() {
+        if (!System.getProperty("os.name", "").startsWith("Linux")) {
+            return false;
+        }
+        try {
+
+            return LibC.INSTANCE != null;
+
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void watch(Path folder) throws IOException {
+        checkNotNull(folder);
+        checkArgument(folder.getFileSystem() == fileSystem);
+
+        closeLock.readLock().lock();
+        try {
+
+            checkOpen();
+            walkFileTree(folder, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    return addWatch(dir) ? CONTINUE : SKIP_SUBTREE;
+                }
+            });
+
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean watchFolder(Path folder) throws IOException {
+        checkNotNull(folder);
+        checkArgument(folder.getFileSystem() == fileSystem);
+
+        closeLock.readLock().lock();
+        try {
+
+            checkOpen();
+            return addWatch(folder);
+
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void unwatch(Path folder) {
+        checkNotNull(folder);
+
+        closeLock.readLock().lock();
+        try {
+
+            for (Integer oneWatchDescriptor : registry.removeTree(folder)) {
+                if (!closed) {
+                    LibC.INSTANCE.inotify_rm_watch(fd, oneWatchDescriptor);
+                }
+            }
+
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Event> take(long timeout, TimeUnit unit) throws InterruptedException {
+        synchronized (this) {
+            checkOpen();
+            taking = true;
+        }
+
+        try {
+
+            // the inotify descriptor is polled by slices, so that the interruption and the closing are seen
+            final long deadline = timeout < 0 ? Long.MAX_VALUE : System.nanoTime() + unit.toNanos(timeout);
+            while (true) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                synchronized (this) {
+                    checkOpen();
+                }
+
+                final long remaining = timeout < 0 ? POLL_SLICE : NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (LibC.INSTANCE.poll(new PollFd(fd, POLLIN), 1, (int)Math.max(0, Math.min(remaining, POLL_SLICE))) > 0) {
+                    final int length = LibC.INSTANCE.read(fd, buffer, new NativeLong(buffer.length)).intValue();
+                    if (length > 0) {
+                        return parseEvents(length);
+                    }
+
+                    final int errno = Native.getLastError();
+                    if (length < 0 && errno != EAGAIN && errno != EINTR) {
+                        throw new RuntimeException(new IOException("Unable to read the inotify events, errno " + errno));
+                    }
+                }
+
+                if (remaining <= POLL_SLICE && timeout >= 0) {
+                    return Collections.emptyList();
+                }
+            }
+
+        } finally {
+            synchronized (this) {
+                taking = false;
+                if (closed) {
+                    LibC.INSTANCE.close(fd);
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        // the watches being added or removed are completed before the descriptor is released
+        closeLock.writeLock().lock();
+        try {
+
+            if (!closed) {
+                closed = true;
+                registry.clear();
+
+                // the descriptor is released by the taking thread once it stops polling it
+                if (!taking) {
+                    LibC.INSTANCE.close(fd);
+                }
+            }
+
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a watch on the given folder.
+     *
+     * @param folder
+     *         the folder {@link java.nio.file.Path}.
+     * @return {@code true} if the folder is watched, {@code false} if it has been deleted or replaced meanwhile.
+     * @throws java.io.IOException
+     *         if the watch cannot be added.
+     */
+    private boolean addWatch(Path folder) throws IOException {
+        if (registry.contains(folder)) {
+            return true;
+        }
+
+        final int watchDescriptor = LibC.INSTANCE.inotify_add_watch(fd, folder.toString(), WATCH_MASK);
+        if (watchDescriptor < 0) {
+            final int errno = Native.getLastError();
+            if (errno == ENOENT || errno == ENOTDIR) {
+                return false;
+            }
+            if (errno == ENOSPC) {
+                throw new IOException("The inotify watch limit is reached while watching " + folder
+                                      + ", raise fs.inotify.max_user_watches");
+            }
+            throw new IOException("Unable to watch " + folder + ", errno " + errno);
+        }
+
+        // the watch descriptors are per inode: a folder moved at a new path keeps its descriptor, a folder recreated at the
+        // same path gets a new one once the previous one is ignored
+        registry.put(watchDescriptor, folder);
+        return true;
+    }
+
+    /**
+     * Parses the events read in the buffer, and watches the folders created or moved into the watched trees.
+     *
+     * @param length
+     *         the number of bytes read.
+     * @return the {@link java.util.List} of parsed {@link com.codenvy.flux.watcher.fs.WatcherBackend.Event}, never {@code null}.
+     */
+    private List<Event> parseEvents(int length) {
+        final List<Event> events = new ArrayList<>();
+        final ByteBuffer eventBuffer = ByteBuffer.wrap(buffer, 0, length).order(ByteOrder.nativeOrder());
+        while (eventBuffer.remaining() >= EVENT_HEADER) {
+            final int watchDescriptor = eventBuffer.getInt();
+            final int mask = eventBuffer.getInt();
+            eventBuffer.getInt(); // cookie
+            final int nameLength = eventBuffer.getInt();
+            final String name = nameLength > 0 ? readName(eventBuffer.position(), nameLength) : null;
+            eventBuffer.position(eventBuffer.position() + nameLength);
+
+            if ((mask & IN_Q_OVERFLOW) != 0) {
+                events.add(new Event(OVERFLOW, null));
+                continue;
+            }
+            if ((mask & IN_IGNORED) != 0) {
+                registry.remove(watchDescriptor);
+                continue;
+            }
+
+            final Path folder = registry.folder(watchDescriptor);
+            if (folder == null || name == null) {
+                continue;
+            }
+
+            final Path resourcePath = folder.resolve(name);
+            final boolean isFolder = (mask & IN_ISDIR) != 0;
+            if ((mask & (IN_CREATE | IN_MOVED_TO)) != 0) {
+                if (isFolder) {
+                    watchCreatedFolder(resourcePath);
+                }
+                events.add(new Event(ENTRY_CREATE, resourcePath));
+
+            } else if ((mask & (IN_DELETE | IN_MOVED_FROM)) != 0) {
+                // the watches of a folder moved out keep following it, they are removed
+                if (isFolder && (mask & IN_MOVED_FROM) != 0) {
+                    unwatch(resourcePath);
+                }
+                events.add(new Event(ENTRY_DELETE, resourcePath));
+
+            } else if ((mask & (IN_MODIFY | IN_ATTRIB)) != 0) {
+                events.add(new Event(ENTRY_MODIFY, resourcePath));
+            }
+        }
+        return events;
+    }
+
+    private void watchCreatedFolder(Path folder) {
+        try {
+
+            watch(folder);
+
+        } catch (NoSuchFileException e) {
+            // the folder has already been deleted, its deletion is notified by a later event
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private String readName(int offset, int length) {
+        int end = offset;
+        while (end < offset + length && buffer[end] != 0) {
+            end++;
+        }
+        return new String(buffer, offset, end - offset, NAME_CHARSET);
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new ClosedWatchServiceException();
+        }
+    }
+
+    /**
+     * The C library functions used by {@link com.codenvy.flux.watcher.fs.InotifyWatcherBackend}.
+     */
+    interface LibC extends Library {
+        LibC INSTANCE = (LibC)Native.loadLibrary("c", LibC.class);
+
+        int inotify_init1(int flags);
+
+        int inotify_add_watch(int fd, String pathname, int mask);
+
+        int inotify_rm_watch(int fd, int wd);
+
+        int poll(PollFd fds, int nfds, int timeout);
+
+        NativeLong read(int fd, byte[] buf, NativeLong count);
+
+        int close(int fd);
+    }
+
+    /**
+     * The {@code pollfd} structure.
+     */
+    public static final class PollFd extends Structure {
+        public int   fd;
+        public short events;
+        public short revents;
+
+        public PollFd(int fd, int events) {
+            this.fd = fd;
+            this.events = (short)events;
+        }
+
+        @Override
+        protected List<String> getFieldOrder() {
+            return Arrays.asList("fd", "events", "revents");
+        }
+    }
+}
@@ -11,34 +11,68 @@
 package com.codenvy.flux.watcher.fs;
 
 import com.codenvy.flux.watcher.core.Resource;
+import com.codenvy.flux.watcher.core.ResourceIndex;
 import com.codenvy.flux.watcher.core.spi.Project;
+import com.codenvy.flux.watcher.core.utils.ResourceHelper;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.io.ByteSource;
 
 import javax.inject.Singleton;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileSystem;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import static com.codenvy.flux.watcher.core.Resource.ResourceType;
 import static com.codenvy.flux.watcher.core.Resource.ResourceType.FILE;
 import static com.codenvy.flux.watcher.core.Resource.ResourceType.FOLDER;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.UNKNOWN;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.nio.file.FileVisitResult.CONTINUE;
+import static java.nio.file.Files.createDirectories;
 import static java.nio.file.Files.createDirectory;
+import static java.nio.file.Files.createTempFile;
 import static java.nio.file.Files.delete;
+import static java.nio.file.Files.deleteIfExists;
 import static java.nio.file.Files.exists;
-import static java.nio.file.Files.getLastModifiedTime;
 import static java.nio.file.Files.isDirectory;
-import static java.nio.file.Files.readAllBytes;
+import static java.nio.file.Files.move;
+import static java.nio.file.Files.newDirectoryStream;
+import static java.nio.file.Files.newInputStream;
+import static java.nio.file.Files.newOutputStream;
+import static java.nio.file.Files.readAttributes;
 import static java.nio.file.Files.setLastModifiedTime;
+import static java.nio.file.Files.size;
 import static java.nio.file.Files.walkFileTree;
 import static java.nio.file.Files.write;
+import static java.nio.file.LinkOption.NOFOLLOW_LINKS;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 /**
@@ -48,9 +82,19 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
  */
 @Singleton
 public class JDKProject implements Project {
+    private static final Comparator<Path> NAME_COMPARATOR = new Comparator<Path>() {
+        @Override
+        public int compare(Path first, Path second) {
+            return first.getFileName().toString().compareTo(second.getFileName().toString());
+        }
+    };
+
     private final String                 id;
     private final Path                   path;
     private final JDKProjectWatchService watchService;
+    private final ResourceIndex          index;
+    private final Path                   transferDirectory;
+    private volatile boolean             synchronize;
 
     /**
      * Constructs an instance of {@link com.codenvy.flux.watcher.fs.JDKProject}.
@@ -69,12 +113,67 @@ public class JDKProject implements Project {
      *         if {@code path} parameter is not absolute, doesn't exist or is not a folder.
      */
     JDKProject(FileSystem fileSystem, JDKProjectWatchService watchService, String id, String path) {
+        this(fileSystem, watchService, id, path, new ResourceIndex());
+    }
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.fs.JDKProject}.
+     *
+     * @param fileSystem
+     *         the {@link java.nio.file.FileSystem}
+     * @param watchService
+     *         the {@link JDKProjectWatchService}.
+     * @param id
+     *         the project id.
+     * @param path
+     *         the project absolute path.
+     * @param index
+     *         the {@link com.codenvy.flux.watcher.core.ResourceIndex} of the project resources.
+     * @throws java.lang.NullPointerException
+     *         if {@code fileSystem}, {@code watchService}, {@code id}, {@code path} or {@code index} parameter is {@code null}.
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code path} parameter is not absolute, doesn't exist or is not a folder.
+     */
+    JDKProject(FileSystem fileSystem, JDKProjectWatchService watchService, String id, String path, ResourceIndex index) {
+        this(fileSystem, watchService, id, path, index, checkNotNull(fileSystem).getPath(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.fs.JDKProject}.
+     *
+     * @param fileSystem
+     *         the {@link java.nio.file.FileSystem}
+     * @param watchService
+     *         the {@link JDKProjectWatchService}.
+     * @param id
+     *         the project id.
+     * @param path
+     *         the project absolute path.
+     * @param index
+     *         the {@link com.codenvy.flux.watcher.core.ResourceIndex} of the project resources.
+     * @param transferDirectory
+     *         the folder where the received files are written before being moved into the project, outside of the project so
+     *         that the partially written files are never watched.
+     * @throws java.lang.NullPointerException
+     *         if {@code fileSystem}, {@code watchService}, {@code id}, {@code path}, {@code index} or {@code transferDirectory}
+     *         parameter is {@code null}.
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code path} parameter is not absolute, doesn't exist or is not a folder.
+     */
+    JDKProject(FileSystem fileSystem, JDKProjectWatchService watchService, String id, String path, ResourceIndex index,
+               Path transferDirectory) {
         this.id = checkNotNull(id);
         this.watchService = checkNotNull(watchService);
+        this.index = checkNotNull(index);
+        this.transferDirectory = checkNotNull(transferDirectory);
+        this.synchronize = false;
 
         this.path = checkNotNull(fileSystem).getPath(checkNotNull(path));
         checkArgument(exists(this.path) && isDirectory(this.path) && this.path.isAbsolute());
 
+        // restore the persisted index, hashes are only recomputed for files modified since
+        this.index.load();
+
         // start the watch service
         this.watchService.start();
     }
@@ -92,53 +191,93 @@ public class JDKProject implements Project {
     @Override
     public void setSynchronized(boolean synchronize) {
         if (synchronize) {
-            watchService.watch(this);
+            // the tree is indexed by the scan watching it, the index is kept up to date by the watch service from now on
+            if (!watchService.watch(this)) {
+                indexResources(false);
+            }
+            this.synchronize = true;
+
         } else {
+            this.synchronize = false;
             watchService.unwatch(this);
         }
+        index.save();
     }
-    
+
     @Override
     public boolean getSynchronized() {
-        // TODO Auto-generated method stub
-        return false;
+        return synchronize;
     }
 
     @Override
     public Set<Resource> getResources() {
-        final Set<Resource> resources = new HashSet<>();
-        try {
+        if (!synchronize) {
+            indexResources(false);
+        }
 
-            walkFileTree(path, new SimpleFileVisitor<Path>() {
-                @Override
-                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                    if (!dir.equals(path)) {
-                        final long timestamp = getLastModifiedTime(dir).toMillis();
-                        final String relativeResourcePath = path.relativize(dir).toString();
+        final Set<Resource> resources = new HashSet<>();
+        for (ResourceIndex.Entry oneEntry : index.entries()) {
+            if (oneEntry.type() == FOLDER) {
+                resources.add(Resource.newFolder(oneEntry.path(), oneEntry.timestamp()));
+            } else {
+                resources.add(Resource.newFile(oneEntry.path(), oneEntry.timestamp(), oneEntry.hash(),
+                                               asByteSource(path.resolve(oneEntry.path()))));
+            }
+        }
+        return resources;
+    }
 
-                        resources.add(Resource.newFolder(relativeResourcePath, timestamp));
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The project tree is walked depth first with the children of each folder sorted by name, only the children of the folders
+     * being walked are held in memory. The folders and files listed before the given path are skipped without reading their
+     * attributes. The {@link com.codenvy.flux.watcher.core.ResourceIndex} is updated with the walked resources, so that only the
+     * files modified since they were indexed are hashed.
+     */
+    @Override
+    public Iterator<Resource> getResourcesAfter(final String resourcePath) {
+        return new AbstractIterator<Resource>() {
+            private final Deque<Iterator<Path>> folders = new ArrayDeque<>(Collections.singleton(sortedChildren(path)));
+
+            @Override
+            protected Resource computeNext() {
+                while (!folders.isEmpty()) {
+                    final Iterator<Path> children = folders.peek();
+                    if (!children.hasNext()) {
+                        folders.pop();
+                        continue;
                     }
 
-                    return CONTINUE;
-                }
+                    final Path child = children.next();
+                    final String relativeResourcePath = path.relativize(child).toString();
 
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                    final long timestamp = getLastModifiedTime(file).toMillis();
-                    final String relativeResourcePath = path.relativize(file).toString();
-                    final byte[] content = readAllBytes(file);
-
-                    resources.add(Resource.newFile(relativeResourcePath, timestamp, content));
+                    // a listed folder is only walked if it is or contains the last listed resource
+                    final boolean listed =
+                            resourcePath != null && ResourceHelper.comparePaths(relativeResourcePath, resourcePath) <= 0;
+                    if (listed && !(resourcePath + '/').startsWith(relativeResourcePath + '/')) {
+                        continue;
+                    }
 
-                    return CONTINUE;
-                }
-            });
+                    try {
 
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+                        final BasicFileAttributes attributes = readAttributes(child, BasicFileAttributes.class, NOFOLLOW_LINKS);
+                        if (attributes.isDirectory()) {
+                            folders.push(sortedChildren(child));
+                        }
+                        if (!listed) {
+                            return toResource(child, relativeResourcePath, attributes);
+                        }
 
-        return resources;
+                    } catch (NoSuchFileException e) {
+                        // the resource has been deleted since its folder was read
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                return endOfData();
+            }
+        };
     }
 
     @Override
@@ -148,17 +287,22 @@ public class JDKProject implements Project {
         final Path resource = path.resolve(resourcePath);
         if (exists(resource)) {
             try {
-                final boolean isDirectory = isDirectory(resource);
-                final long timestamp = getLastModifiedTime(resource).toMillis();
 
-                return isDirectory ? Resource.newFolder(resourcePath, timestamp)
-                                   : Resource.newFile(resourcePath, timestamp, readAllBytes(resource));
+                final BasicFileAttributes attributes = readAttributes(resource, BasicFileAttributes.class);
+                final long timestamp = attributes.lastModifiedTime().toMillis();
+                if (attributes.isDirectory()) {
+                    return index.indexFolder(resourcePath, timestamp);
+                }
+
+                return index.indexFile(resourcePath, timestamp, attributes.size(), asByteSource(resource));
 
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
         }
 
+        // the resource doesn't exist anymore
+        index.remove(resourcePath);
         return null;
     }
 
@@ -173,10 +317,12 @@ public class JDKProject implements Project {
                 if (resource.type() == FOLDER) {
                     createDirectory(resourcePath);
                     setLastModifiedTime(resourcePath, FileTime.from(resource.timestamp(), MILLISECONDS));
+                    index.put(new ResourceIndex.Entry(resource.path(), FOLDER, resource.timestamp(), 0, resource.hash()));
 
                 } else if (resource.type() == FILE) {
-                    write(resourcePath, resource.content());
+                    writeContent(resourcePath, resource);
                     setLastModifiedTime(resourcePath, FileTime.from(resource.timestamp(), MILLISECONDS));
+                    index.put(new ResourceIndex.Entry(resource.path(), FILE, resource.timestamp(), size(resourcePath), resource.hash()));
                 }
 
             } catch (IOException e) {
@@ -194,8 +340,9 @@ public class JDKProject implements Project {
         if (exists(resourcePath)) {
             try {
 
-                write(resourcePath, resource.content());
+                writeContent(resourcePath, resource);
                 setLastModifiedTime(resourcePath, FileTime.from(resource.timestamp(), MILLISECONDS));
+                index.put(new ResourceIndex.Entry(resource.path(), FILE, resource.timestamp(), size(resourcePath), resource.hash()));
 
             } catch (IOException e) {
                 throw new RuntimeException(e);
@@ -224,6 +371,7 @@ public class JDKProject implements Project {
                         return CONTINUE;
                     }
                 });
+                index.remove(resource.path());
 
             } catch (IOException e) {
                 throw new RuntimeException(e);
@@ -231,6 +379,260 @@ public class JDKProject implements Project {
         }
     }
 
+    /**
+     * Returns the type of the given resource in the {@link com.codenvy.flux.watcher.core.ResourceIndex}, without reading the file
+     * system. It is still the type of a deleted resource until its deletion is fired.
+     *
+     * @param resource
+     *         the absolute resource {@link java.nio.file.Path}.
+     * @return the indexed {@link com.codenvy.flux.watcher.core.Resource.ResourceType} or {@link
+     * com.codenvy.flux.watcher.core.Resource.ResourceType#UNKNOWN} if the resource is not indexed.
+     * @throws java.lang.NullPointerException
+     *         if {@code resource} parameter is {@code null}.
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code resource} parameter is not in this project.
+     */
+    ResourceType indexedType(Path resource) {
+        checkArgument(checkNotNull(resource).startsWith(path));
+
+        final ResourceIndex.Entry entry = index.get(path.relativize(resource).toString());
+        return entry == null ? UNKNOWN : entry.type();
+    }
+
+    /**
+     * Compares the children of the given folder with the {@link com.codenvy.flux.watcher.core.ResourceIndex} to find the changes
+     * whose events have been lost. The index is not updated, it is updated when the changes are fired.
+     * <p/>
+     * A file is modified if its timestamp or size differs from the indexed ones. The content of a new folder is reported as
+     * created, the indexed sub folders are only compared if the rescan is recursive.
+     *
+     * @param folder
+     *         the absolute folder {@link java.nio.file.Path}.
+     * @param recursive
+     *         {@code true} to compare the indexed sub folders too, {@code false} otherwise.
+     * @return the {@link java.util.List} of missed {@link com.codenvy.flux.watcher.fs.WatcherBackend.Event}, never {@code null}.
+     * @throws java.lang.NullPointerException
+     *         if {@code folder} parameter is {@code null}.
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code folder} parameter is not in this project.
+     */
+    List<WatcherBackend.Event> rescan(Path folder, boolean recursive) {
+        checkArgument(checkNotNull(folder).startsWith(path));
+
+        final List<WatcherBackend.Event> events = new ArrayList<>();
+        rescan(folder, recursive, events);
+        return events;
+    }
+
+    private void rescan(Path folder, boolean recursive, List<WatcherBackend.Event> events) {
+        final Map<String, ResourceIndex.Entry> indexedChildren = new LinkedHashMap<>();
+        for (ResourceIndex.Entry oneEntry : index.children(path.relativize(folder).toString())) {
+            indexedChildren.put(oneEntry.path(), oneEntry);
+        }
+
+        final Iterator<Path> children = sortedChildren(folder);
+        while (children.hasNext()) {
+            final Path child = children.next();
+            final String relativeResourcePath = path.relativize(child).toString();
+
+            final BasicFileAttributes attributes;
+            try {
+
+                attributes = readAttributes(child, BasicFileAttributes.class, NOFOLLOW_LINKS);
+
+            } catch (NoSuchFileException e) {
+                // deleted since the folder was read, reported as deleted if it was indexed
+                continue;
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+
+            final ResourceIndex.Entry entry = indexedChildren.remove(relativeResourcePath);
+            final ResourceType type = attributes.isDirectory() ? FOLDER : FILE;
+            if (entry == null || entry.type() != type) {
+                if (entry != null) {
+                    events.add(new WatcherBackend.Event(ENTRY_DELETE, child));
+                }
+                events.add(new WatcherBackend.Event(ENTRY_CREATE, child));
+                if (type == FOLDER) {
+                    rescan(child, true, events);
+                }
+
+            } else if (type == FILE) {
+                if (entry.timestamp() != attributes.lastModifiedTime().toMillis() || entry.size() != attributes.size()) {
+                    events.add(new WatcherBackend.Event(ENTRY_MODIFY, child));
+                }
+
+            } else if (recursive) {
+                rescan(child, true, events);
+            }
+        }
+
+        for (String oneDeletedPath : indexedChildren.keySet()) {
+            events.add(new WatcherBackend.Event(ENTRY_DELETE, path.resolve(oneDeletedPath)));
+        }
+    }
+
+    /**
+     * Returns the {@link com.codenvy.flux.watcher.core.Resource} read from the given file and its attributes, and updates the
+     * {@link com.codenvy.flux.watcher.core.ResourceIndex} entry of the file.
+     *
+     * @param file
+     *         the file {@link java.nio.file.Path}.
+     * @param relativeResourcePath
+     *         the relative resource path.
+     * @param attributes
+     *         the file attributes.
+     * @return the {@link com.codenvy.flux.watcher.core.Resource}, never {@code null}.
+     * @throws java.io.IOException
+     *         if an I/O error occurs.
+     */
+    private Resource toResource(Path file, String relativeResourcePath, BasicFileAttributes attributes) throws IOException {
+        final long timestamp = attributes.lastModifiedTime().toMillis();
+        if (attributes.isDirectory()) {
+            return index.indexFolder(relativeResourcePath, timestamp);
+        }
+
+        return index.indexFile(relativeResourcePath, timestamp, attributes.size(), asByteSource(file));
+    }
+
+    /**
+     * Returns the children of the given folder sorted by name, the children of a folder deleted meanwhile are empty.
+     *
+     * @param folder
+     *         the folder {@link java.nio.file.Path}.
+     * @return the {@link java.util.Iterator} over the sorted children, never {@code null}.
+     */
+    private static Iterator<Path> sortedChildren(Path folder) {
+        final List<Path> children = new ArrayList<>();
+        try (DirectoryStream<Path> stream = newDirectoryStream(folder)) {
+            for (Path oneChild : stream) {
+                children.add(oneChild);
+            }
+
+        } catch (NoSuchFileException e) {
+            return Collections.emptyIterator();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        Collections.sort(children, NAME_COMPARATOR);
+        return children.iterator();
+    }
+
+    /**
+     * Scans the project tree to bring the {@link com.codenvy.flux.watcher.core.ResourceIndex} up to date. Only the files whose
+     * timestamp or size changed since they were indexed are read and hashed. The folders can be watched in the same scan, each
+     * folder being watched before its children are listed so that no later change is missed.
+     *
+     * @param watch
+     *         {@code true} to watch the scanned folders, {@code false} otherwise.
+     */
+    void indexResources(boolean watch) {
+        final Set<String> indexedPaths = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        try {
+
+            JDKTreeScanner.shared().scan(path, newIndexingVisitor(indexedPaths, watch));
+
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        // forget the resources deleted since the last scan
+        index.retain(indexedPaths);
+    }
+
+    /**
+     * Returns a {@link com.codenvy.flux.watcher.fs.JDKTreeScanner.Visitor} updating the {@link
+     * com.codenvy.flux.watcher.core.ResourceIndex} with the scanned resources, the attributes read by the scan are reused.
+     *
+     * @param indexedPaths
+     *         the concurrent {@link java.util.Set} collecting the relative paths of the scanned resources.
+     * @param watch
+     *         {@code true} to watch the scanned folders, {@code false} otherwise.
+     * @return the {@link com.codenvy.flux.watcher.fs.JDKTreeScanner.Visitor}, never {@code null}.
+     */
+    private JDKTreeScanner.Visitor newIndexingVisitor(final Set<String> indexedPaths, final boolean watch) {
+        return new JDKTreeScanner.Visitor() {
+            @Override
+            public boolean visitFolder(Path folder, BasicFileAttributes attributes) throws IOException {
+                if (watch) {
+                    watchService.watchFolder(folder);
+                }
+                if (!folder.equals(path)) {
+                    final String relativeResourcePath = path.relativize(folder).toString();
+
+                    index.indexFolder(relativeResourcePath, attributes.lastModifiedTime().toMillis());
+                    indexedPaths.add(relativeResourcePath);
+                }
+                return true;
+            }
+
+            @Override
+            public void visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                final String relativeResourcePath = path.relativize(file).toString();
+                final long timestamp = attributes.lastModifiedTime().toMillis();
+
+                index.indexFile(relativeResourcePath, timestamp, attributes.size(), asByteSource(file));
+                indexedPaths.add(relativeResourcePath);
+            }
+        };
+    }
+
+    /**
+     * Writes the content of the given {@link com.codenvy.flux.watcher.core.Resource} to the given file. The content of a lazy
+     * {@link com.codenvy.flux.watcher.core.Resource} is streamed into a temporary file of the transfer directory which is then
+     * atomically moved into place, so that the file is never seen partially written and the temporary file is never seen in
+     * the project. The move is not atomic if the transfer directory is on another file store.
+     *
+     * @param file
+     *         the file {@link java.nio.file.Path}.
+     * @param resource
+     *         the {@link com.codenvy.flux.watcher.core.Resource}.
+     * @throws java.io.IOException
+     *         if an I/O error occurs.
+     */
+    private void writeContent(Path file, Resource resource) throws IOException {
+        final ByteSource contentSource = resource.contentSource();
+        if (contentSource == null) {
+            write(file, new byte[0]);
+            return;
+        }
+
+        createDirectories(transferDirectory);
+        final Path tempFile = createTempFile(transferDirectory, null, ".flux-tmp");
+        try {
+
+            try (OutputStream output = newOutputStream(tempFile)) {
+                contentSource.copyTo(output);
+            }
+            try {
+                move(tempFile, file, REPLACE_EXISTING, ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                move(tempFile, file, REPLACE_EXISTING);
+            }
+
+        } finally {
+            deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Returns a {@link com.google.common.io.ByteSource} reading the content of the given file on demand.
+     *
+     * @param file
+     *         the file {@link java.nio.file.Path}.
+     * @return the {@link com.google.common.io.ByteSource}, never {@code null}.
+     */
+    private static ByteSource asByteSource(final Path file) {
+        return new ByteSource() {
+            @Override
+            public InputStream openStream() throws IOException {
+                return newInputStream(file);
+            }
+        };
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
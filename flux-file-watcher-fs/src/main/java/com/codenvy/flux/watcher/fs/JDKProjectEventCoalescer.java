@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.fs;
+
+import com.codenvy.flux.watcher.core.Resource.ResourceType;
+import com.codenvy.flux.watcher.core.spi.Project;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.UNKNOWN;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.WatchEvent.Kind;
+
+/**
+ * Merges the raw watch events of each path into their net change. The pending changes are released, in the order their paths
+ * were first seen, once no event has been received for the quiet period or once the oldest pending change reached the maximum
+ * latency.
+ * <p/>
+ * The merge rules are:
+ * <ul>
+ * <li>CREATE + MODIFY -> CREATE</li>
+ * <li>CREATE + DELETE -> nothing</li>
+ * <li>MODIFY + DELETE -> DELETE</li>
+ * <li>DELETE + CREATE -> MODIFY, or DELETE then CREATE if the resource type changed, for example a file replaced by a
+ * folder</li>
+ * </ul>
+ * <p/>
+ * This class is not thread safe, it is meant to be used by the watching thread only.
+ *
+ * @author Kevin Pollet
+ */
+final class JDKProjectEventCoalescer {
+    private final long                      quietPeriod;
+    private final long                      maxLatency;
+    private final Map<Path, PendingEvent>   pendingEvents;
+    private long                            firstEventTime;
+    private long                            lastEventTime;
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.fs.JDKProjectEventCoalescer}.
+     *
+     * @param quietPeriod
+     *         the time in milliseconds without event after which the pending changes are released, {@code 0} to release them
+     *         right away.
+     * @param maxLatency
+     *         the maximum time in milliseconds a change can be pending.
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code quietPeriod} or {@code maxLatency} is negative.
+     */
+    JDKProjectEventCoalescer(long quietPeriod, long maxLatency) {
+        checkArgument(quietPeriod >= 0 && maxLatency >= 0);
+
+        this.quietPeriod = quietPeriod;
+        this.maxLatency = maxLatency;
+        this.pendingEvents = new LinkedHashMap<>();
+    }
+
+    /**
+     * Merges a raw watch event with the pending change of its path.
+     *
+     * @param project
+     *         the {@link com.codenvy.flux.watcher.core.spi.Project} containing the path.
+     * @param kind
+     *         the watch event {@link java.nio.file.WatchEvent.Kind}.
+     * @param path
+     *         the absolute {@link java.nio.file.Path} concerned by the event.
+     * @param type
+     *         the {@link com.codenvy.flux.watcher.core.Resource.ResourceType} of the path, before its deletion for a {@link
+     *         java.nio.file.StandardWatchEventKinds#ENTRY_DELETE}, {@link
+     *         com.codenvy.flux.watcher.core.Resource.ResourceType#UNKNOWN} if unknown.
+     * @param now
+     *         the current time in milliseconds.
+     * @throws java.lang.NullPointerException
+     *         if {@code project}, {@code kind}, {@code path} or {@code type} parameter is {@code null}.
+     */
+    void add(Project project, Kind<Path> kind, Path path, ResourceType type, long now) {
+        checkNotNull(project);
+        checkNotNull(kind);
+        checkNotNull(path);
+        checkNotNull(type);
+
+        if (pendingEvents.isEmpty()) {
+            firstEventTime = now;
+        }
+        lastEventTime = now;
+
+        final PendingEvent pendingEvent = pendingEvents.get(path);
+        if (pendingEvent == null) {
+            pendingEvents.put(path, new PendingEvent(project, kind, path, type));
+        } else if (!pendingEvent.merge(kind, type)) {
+            pendingEvents.remove(path);
+        }
+    }
+
+    /**
+     * Returns the time to wait before the pending changes are released.
+     *
+     * @param now
+     *         the current time in milliseconds.
+     * @return the time to wait in milliseconds, {@code 0} if the changes are due or {@code -1} if there is no pending change.
+     */
+    long nextReleaseDelay(long now) {
+        if (pendingEvents.isEmpty()) {
+            return -1;
+        }
+
+        final long releaseTime = Math.min(lastEventTime + quietPeriod, firstEventTime + maxLatency);
+        return Math.max(0, releaseTime - now);
+    }
+
+    /**
+     * Releases the pending changes if they are due.
+     *
+     * @param now
+     *         the current time in milliseconds.
+     * @return the released {@link PendingEvent} in the order their paths were first seen, never {@code null}. A replaced
+     * resource is released as its deletion followed by its creation.
+     */
+    List<PendingEvent> release(long now) {
+        if (nextReleaseDelay(now) != 0) {
+            return Collections.emptyList();
+        }
+
+        final List<PendingEvent> releasedEvents = new ArrayList<>(pendingEvents.size());
+        for (PendingEvent onePendingEvent : pendingEvents.values()) {
+            if (onePendingEvent.replacedType != null) {
+                releasedEvents.add(new PendingEvent(onePendingEvent.project, ENTRY_DELETE, onePendingEvent.path,
+                                                    onePendingEvent.replacedType));
+            }
+            releasedEvents.add(onePendingEvent);
+        }
+        pendingEvents.clear();
+        return releasedEvents;
+    }
+
+    /**
+     * Returns the number of paths with a pending change.
+     *
+     * @return the number of pending changes.
+     */
+    int size() {
+        return pendingEvents.size();
+    }
+
+    /**
+     * The net change of a path.
+     */
+    static final class PendingEvent {
+        private final Project project;
+        private final Path    path;
+        private Kind<Path>    kind;
+        private ResourceType  type;
+        private ResourceType  replacedType;
+
+        PendingEvent(Project project, Kind<Path> kind, Path path, ResourceType type) {
+            this.project = project;
+            this.kind = kind;
+            this.path = path;
+            this.type = type;
+        }
+
+        /**
+         * Merges the next watch event of the same path into this change.
+         *
+         * @return {@code false} if the changes cancel each other, {@code true} otherwise.
+         */
+        boolean merge(Kind<Path> nextKind, ResourceType nextType) {
+            if (kind == ENTRY_CREATE) {
+                if (nextKind != ENTRY_DELETE) {
+                    return true;
+                }
+                if (replacedType == null) {
+                    return false;
+                }
+
+                // the replacing resource is gone, only the deletion of the replaced one remains
+                kind = ENTRY_DELETE;
+                type = replacedType;
+                replacedType = null;
+                return true;
+            }
+
+            if (kind == ENTRY_DELETE && nextKind != ENTRY_DELETE) {
+                if (nextKind == ENTRY_CREATE && type != UNKNOWN && nextType != UNKNOWN && type != nextType) {
+                    kind = ENTRY_CREATE;
+                    replacedType = type;
+                } else {
+                    kind = ENTRY_MODIFY;
+                }
+            } else {
+                kind = nextKind == ENTRY_DELETE ? ENTRY_DELETE : ENTRY_MODIFY;
+            }
+
+            if (nextType != UNKNOWN) {
+                type = nextType;
+            }
+            return true;
+        }
+
+        Project project() {
+            return project;
+        }
+
+        Kind<Path> kind() {
+            return kind;
+        }
+
+        Path path() {
+            return path;
+        }
+    }
+}
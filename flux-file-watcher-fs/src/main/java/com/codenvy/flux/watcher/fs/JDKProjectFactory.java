@@ -11,11 +11,14 @@
 package com.codenvy.flux.watcher.fs;
 
 import com.codenvy.flux.watcher.core.RepositoryEventBus;
+import com.codenvy.flux.watcher.core.ResourceIndex;
 import com.codenvy.flux.watcher.core.spi.Project;
 import com.codenvy.flux.watcher.core.spi.ProjectFactory;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
 import java.nio.file.FileSystem;
 import java.nio.file.Path;
 
@@ -26,13 +29,24 @@ import static java.nio.file.Files.isDirectory;
 
 /**
  * {@link com.codenvy.flux.watcher.core.spi.ProjectFactory} implementation.
+ * <p/>
+ * The resource index of each project is persisted in the directory given by the {@value #STATE_DIRECTORY_PROPERTY} system
+ * property, {@code ~/.flux-file-watcher} by default. The received files are written in its {@code transfers} sub folder before
+ * being moved into the projects, it has to be on the same file store as the projects for the files to be moved atomically.
  *
  * @author Kevin Pollet
  */
 @Singleton
 public class JDKProjectFactory implements ProjectFactory {
+    public static final String STATE_DIRECTORY_PROPERTY = "flux.watcher.state.dir";
+
+    private static final String DEFAULT_STATE_DIRECTORY = System.getProperty("user.home") + "/.flux-file-watcher";
+    private static final String INDEX_FILE_EXTENSION    = ".index";
+    private static final String TRANSFER_DIRECTORY      = "transfers";
+
     private final FileSystem             fileSystem;
     private final JDKProjectWatchService watchService;
+    private final Path                   stateDirectory;
 
     /**
      * Constructs an instance of {@link com.codenvy.flux.watcher.fs.JDKProjectFactory}.
@@ -48,6 +62,7 @@ public class JDKProjectFactory implements ProjectFactory {
     public JDKProjectFactory(FileSystem fileSystem, RepositoryEventBus repositoryEventBus) {
         this.fileSystem = checkNotNull(fileSystem);
         this.watchService = new JDKProjectWatchService(fileSystem, checkNotNull(repositoryEventBus));
+        this.stateDirectory = fileSystem.getPath(System.getProperty(STATE_DIRECTORY_PROPERTY, DEFAULT_STATE_DIRECTORY));
     }
 
     @Override
@@ -58,6 +73,24 @@ public class JDKProjectFactory implements ProjectFactory {
         final Path path = fileSystem.getPath(projectPath);
         checkArgument(exists(path) && isDirectory(path) && path.isAbsolute());
 
-        return new JDKProject(fileSystem, watchService, projectId, projectPath);
+        return new JDKProject(fileSystem, watchService, projectId, projectPath, new ResourceIndex(indexFile(projectId)),
+                              stateDirectory.resolve(TRANSFER_DIRECTORY));
+    }
+
+    /**
+     * Returns the {@link java.nio.file.Path} of the file used to persist the resource index of the given project.
+     *
+     * @param projectId
+     *         the project id.
+     * @return the index file {@link java.nio.file.Path}, never {@code null}.
+     */
+    private Path indexFile(String projectId) {
+        try {
+
+            return stateDirectory.resolve(URLEncoder.encode(projectId, "UTF-8") + INDEX_FILE_EXTENSION);
+
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
     }
 }
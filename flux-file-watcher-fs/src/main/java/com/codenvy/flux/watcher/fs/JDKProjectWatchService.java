@@ -15,54 +15,110 @@ import com.codenvy.flux.watcher.core.RepositoryEventBus;
 import com.codenvy.flux.watcher.core.RepositoryEventType;
 import com.codenvy.flux.watcher.core.Resource;
 import com.codenvy.flux.watcher.core.spi.Project;
-import com.google.common.collect.BiMap;
-import com.google.common.collect.HashBiMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.FileSystem;
-import java.nio.file.FileVisitResult;
+import java.nio.file.FileSystems;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.WatchEvent;
-import java.nio.file.WatchKey;
-import java.nio.file.WatchService;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.codenvy.flux.watcher.core.RepositoryEventType.PROJECT_RESOURCE_CREATED;
 import static com.codenvy.flux.watcher.core.RepositoryEventType.PROJECT_RESOURCE_DELETED;
 import static com.codenvy.flux.watcher.core.RepositoryEventType.PROJECT_RESOURCE_MODIFIED;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FILE;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FOLDER;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.UNKNOWN;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
-import static java.nio.file.FileVisitResult.CONTINUE;
 import static java.nio.file.Files.exists;
-import static java.nio.file.Files.getLastModifiedTime;
 import static java.nio.file.Files.isDirectory;
-import static java.nio.file.Files.readAllBytes;
-import static java.nio.file.Files.walkFileTree;
+import static java.nio.file.LinkOption.NOFOLLOW_LINKS;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
 import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
 import static java.nio.file.WatchEvent.Kind;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 /**
  * Thread watching the file system to notify clients about modifications.
+ * <p/>
+ * The raw watch events are coalesced per path before being fired, for example a file created and then written is notified as
+ * a single creation and a file created and deleted right away is not notified at all. The coalescing window can be configured
+ * with the following system properties:
+ * <ul>
+ * <li>{@value #COALESCING_QUIET_PERIOD_PROPERTY}: the time in milliseconds without event after which the changes are fired,
+ * {@code 0} disables the coalescing. Defaults to {@value #DEFAULT_COALESCING_QUIET_PERIOD}.</li>
+ * <li>{@value #COALESCING_MAX_LATENCY_PROPERTY}: the maximum time in milliseconds a change can be delayed when events keep
+ * coming. Defaults to {@value #DEFAULT_COALESCING_MAX_LATENCY}.</li>
+ * </ul>
+ * <p/>
+ * The file system is watched through a {@link com.codenvy.flux.watcher.fs.WatcherBackend} selected with the {@value
+ * #WATCHER_BACKEND_PROPERTY} system property: {@value #INOTIFY_WATCHER_BACKEND} to use inotify, {@value #JDK_WATCHER_BACKEND}
+ * to use the {@link java.nio.file.WatchService} of the file system. By default inotify is used for the default file system on
+ * Linux, the {@link java.nio.file.WatchService} otherwise.
+ * <p/>
+ * When the events of a folder are lost because the watch queue overflowed, the folder is rescanned and compared with the
+ * resource index of its project to fire the missed changes. An overflow of the whole queue rescans all the watched projects.
+ * <p/>
+ * This thread only takes and coalesces the events. The released changes are handed to a pool of workers which read the
+ * resources and fire the {@link com.codenvy.flux.watcher.core.RepositoryEvent}, so that reading, hashing and the listeners don't
+ * delay the watching. The changes are striped by project and parent folder, each stripe being processed in order by a single
+ * worker: the changes of a path, and of the resources of a same folder, are fired in the order they were released, while the
+ * changes of different folders of a large tree are fired in parallel. The number of workers is configured with the {@value
+ * #WORKER_THREADS_PROPERTY} system property, the number of processors by default.
+ * <p/>
+ * The tree of a watched project is registered folder by folder during a parallel {@link
+ * com.codenvy.flux.watcher.fs.JDKTreeScanner} scan, the same scan indexing the project resources when it is synchronized. The
+ * number of scanning threads is configured with the {@value #SCANNER_THREADS_PROPERTY} system property, the number of
+ * processors by default. The watched projects are kept in a concurrent map, a project is watched or unwatched without
+ * blocking the events of the other projects.
  *
  * @author Kevin Pollet
  */
 public class JDKProjectWatchService extends Thread {
-    private final WatchService          watchService;
-    private final BiMap<WatchKey, Path> watchKeyToPath;
-    private final Map<Path, Project>    pathToProject;
-    private final Object                mutex;
-    private final RepositoryEventBus    repositoryEventBus;
-    private final FileSystem            fileSystem;
+    public static final String COALESCING_QUIET_PERIOD_PROPERTY = "flux.watcher.coalescing.quiet.period";
+    public static final String COALESCING_MAX_LATENCY_PROPERTY  = "flux.watcher.coalescing.max.latency";
+    public static final long   DEFAULT_COALESCING_QUIET_PERIOD  = 100;
+    public static final long   DEFAULT_COALESCING_MAX_LATENCY   = 1000;
+    public static final String WATCHER_BACKEND_PROPERTY         = "flux.watcher.backend";
+    public static final String INOTIFY_WATCHER_BACKEND          = "inotify";
+    public static final String JDK_WATCHER_BACKEND              = "jdk";
+    public static final String WORKER_THREADS_PROPERTY          = "flux.watcher.worker.threads";
+    public static final String SCANNER_THREADS_PROPERTY         = "flux.watcher.scanner.threads";
+
+    private static final Logger LOG = LoggerFactory.getLogger(JDKProjectWatchService.class);
+
+    private final WatcherBackend               watcherBackend;
+    private final ConcurrentMap<Path, Project> pathToProject;
+    private final RepositoryEventBus           repositoryEventBus;
+    private final ExecutorService[]            workers;
+    private final FileSystem                   fileSystem;
+    private final JDKProjectEventCoalescer     eventCoalescer;
+    private final AtomicLong                   rawEventCount;
+    private final AtomicLong                   emittedEventCount;
+    private final AtomicLong                   rescanCount;
+    private final AtomicLong                   rescannedEventCount;
 
     /**
-     * Constructs an instance of {@link JDKProjectWatchService}.
+     * Constructs an instance of {@link JDKProjectWatchService} using the {@link com.codenvy.flux.watcher.fs.WatcherBackend}
+     * configured with the system properties.
      *
      * @param fileSystem
      *         the {@link java.nio.file.FileSystem} to watch.
@@ -72,52 +128,129 @@ public class JDKProjectWatchService extends Thread {
      *         if {@code repositoryEventBus} or {@code fileSystem} parameter is {@code null}.
      */
     JDKProjectWatchService(FileSystem fileSystem, RepositoryEventBus repositoryEventBus) {
-        this.watchKeyToPath = HashBiMap.create();
-        this.pathToProject = new HashMap<>();
-        this.mutex = new Object();
+        this(fileSystem, repositoryEventBus, newWatcherBackend(checkNotNull(fileSystem)));
+    }
+
+    /**
+     * Constructs an instance of {@link JDKProjectWatchService}.
+     *
+     * @param fileSystem
+     *         the {@link java.nio.file.FileSystem} to watch.
+     * @param repositoryEventBus
+     *         the {@link com.codenvy.flux.watcher.core.RepositoryEvent} bus.
+     * @param watcherBackend
+     *         the {@link com.codenvy.flux.watcher.fs.WatcherBackend} watching the file system.
+     * @throws java.lang.NullPointerException
+     *         if {@code repositoryEventBus}, {@code fileSystem} or {@code watcherBackend} parameter is {@code null}.
+     */
+    JDKProjectWatchService(FileSystem fileSystem, RepositoryEventBus repositoryEventBus, WatcherBackend watcherBackend) {
+        this.watcherBackend = checkNotNull(watcherBackend);
+        this.pathToProject = new ConcurrentHashMap<>();
         this.repositoryEventBus = checkNotNull(repositoryEventBus);
         this.fileSystem = checkNotNull(fileSystem);
+        this.workers = new ExecutorService[Math.max(1, Integer.getInteger(WORKER_THREADS_PROPERTY,
+                                                                           Runtime.getRuntime().availableProcessors()))];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("flux-watcher-worker-" + i)
+                                                                                    .setDaemon(true)
+                                                                                    .build());
+        }
+        this.eventCoalescer = new JDKProjectEventCoalescer(Long.getLong(COALESCING_QUIET_PERIOD_PROPERTY, DEFAULT_COALESCING_QUIET_PERIOD),
+                                                           Long.getLong(COALESCING_MAX_LATENCY_PROPERTY, DEFAULT_COALESCING_MAX_LATENCY));
+        this.rawEventCount = new AtomicLong();
+        this.emittedEventCount = new AtomicLong();
+        this.rescanCount = new AtomicLong();
+        this.rescannedEventCount = new AtomicLong();
+    }
 
-        try {
+    /**
+     * Creates the {@link com.codenvy.flux.watcher.fs.WatcherBackend} configured with the {@value #WATCHER_BACKEND_PROPERTY}
+     * system property, the {@link java.nio.file.WatchService} is used if inotify is not available.
+     *
+     * @param fileSystem
+     *         the {@link java.nio.file.FileSystem} to watch.
+     * @return the {@link com.codenvy.flux.watcher.fs.WatcherBackend}, never {@code null}.
+     */
+    static WatcherBackend newWatcherBackend(FileSystem fileSystem) {
+        final String backend = System.getProperty(WATCHER_BACKEND_PROPERTY);
+        final boolean inotifyAvailable = fileSystem == FileSystems.getDefault() && InotifyWatcherBackend.isSupported();
+        if (!JDK_WATCHER_BACKEND.equals(backend) && inotifyAvailable) {
+            try {
 
-            this.watchService = fileSystem.newWatchService();
+                return new InotifyWatcherBackend(fileSystem);
 
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            } catch (IOException e) {
+                if (INOTIFY_WATCHER_BACKEND.equals(backend)) {
+                    throw new RuntimeException(e);
+                }
+            }
         }
+        return new JDKWatcherBackend(fileSystem);
     }
 
-    public void watch(Project project) {
+    /**
+     * Watches the tree of the given {@link com.codenvy.flux.watcher.core.spi.Project}. The tree is scanned in parallel and each
+     * folder is watched before its children are listed, so that no later change is missed. The resources of a {@link
+     * com.codenvy.flux.watcher.fs.JDKProject} are indexed in the same scan.
+     *
+     * @param project
+     *         the {@link com.codenvy.flux.watcher.core.spi.Project} to watch.
+     * @return {@code true} if the project resources have been indexed by the scan, {@code false} otherwise.
+     * @throws java.lang.NullPointerException
+     *         if {@code project} parameter is {@code null}.
+     * @throws java.lang.IllegalArgumentException
+     *         if the project path is not absolute, doesn't exist or is not a folder.
+     */
+    public boolean watch(Project project) {
         checkNotNull(project);
-        watch(project, fileSystem.getPath(project.path()));
-    }
 
-    private void watch(final Project project, Path path) {
-        checkNotNull(path);
+        final Path path = fileSystem.getPath(project.path());
         checkArgument(exists(path) && isDirectory(path) && path.isAbsolute());
 
-        synchronized (mutex) {
-            try {
-
-                walkFileTree(path, new SimpleFileVisitor<Path>() {
-                    @Override
-                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                        if (!watchKeyToPath.containsValue(dir)) {
-                            final WatchKey watchKey = dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+        // the events of the folders registered during the scan are dispatched right away
+        pathToProject.put(path, project);
 
-                            watchKeyToPath.put(watchKey, dir);
-                            pathToProject.put(dir, project);
-                        }
-                        return CONTINUE;
-                    }
-                });
+        try {
 
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+            if (project instanceof JDKProject) {
+                ((JDKProject)project).indexResources(true);
+                return true;
             }
+
+            JDKTreeScanner.shared().scan(path, new JDKTreeScanner.Visitor() {
+                @Override
+                public boolean visitFolder(Path folder, BasicFileAttributes attributes) throws IOException {
+                    return watcherBackend.watchFolder(folder);
+                }
+
+                @Override
+                public void visitFile(Path file, BasicFileAttributes attributes) {
+                }
+            });
+            return false;
+
+        } catch (IOException | RuntimeException e) {
+            pathToProject.remove(path, project);
+            watcherBackend.unwatch(path);
+            throw e instanceof RuntimeException ? (RuntimeException)e : new RuntimeException(e);
         }
     }
 
+    /**
+     * Watches the given folder of a {@link com.codenvy.flux.watcher.core.spi.Project} being watched, its sub folders are not
+     * watched. A folder deleted meanwhile is ignored.
+     *
+     * @param folder
+     *         the absolute folder {@link java.nio.file.Path}.
+     * @throws java.lang.NullPointerException
+     *         if {@code folder} parameter is {@code null}.
+     * @throws java.io.IOException
+     *         if an I/O error occurs or if the system watch resources are exhausted.
+     */
+    void watchFolder(Path folder) throws IOException {
+        watcherBackend.watchFolder(checkNotNull(folder));
+    }
+
     public void unwatch(Project project) {
         checkNotNull(project);
         unwatch(fileSystem.getPath(project.path()));
@@ -127,76 +260,249 @@ public class JDKProjectWatchService extends Thread {
         checkNotNull(path);
         checkArgument(exists(path) && isDirectory(path) && path.isAbsolute());
 
-        synchronized (mutex) {
-            try {
+        pathToProject.remove(path);
+        watcherBackend.unwatch(path);
+    }
 
-                walkFileTree(path, new SimpleFileVisitor<Path>() {
-                    @Override
-                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                        final WatchKey watchKey = watchKeyToPath.inverse().get(dir);
-                        if (watchKey != null) {
-                            watchKeyToPath.inverse().remove(dir);
-                            pathToProject.remove(dir);
-                            watchKey.cancel();
-                        }
-                        return CONTINUE;
-                    }
-                });
+    /**
+     * Returns the number of raw watch events received from the file system.
+     *
+     * @return the number of raw watch events.
+     */
+    public long rawEventCount() {
+        return rawEventCount.get();
+    }
 
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
+    /**
+     * Returns the number of {@link com.codenvy.flux.watcher.core.RepositoryEvent} fired after coalescing.
+     *
+     * @return the number of fired events.
+     */
+    public long emittedEventCount() {
+        return emittedEventCount.get();
+    }
+
+    /**
+     * Returns the number of folders rescanned after an overflow of the watch queue.
+     *
+     * @return the number of rescans.
+     */
+    public long rescanCount() {
+        return rescanCount.get();
+    }
+
+    /**
+     * Returns the number of missed changes found by the rescans.
+     *
+     * @return the number of changes found by the rescans.
+     */
+    public long rescannedEventCount() {
+        return rescannedEventCount.get();
+    }
+
+    /**
+     * Starts the watching, the calls after the first one are ignored since the service is shared by the projects.
+     */
+    @Override
+    public synchronized void start() {
+        if (getState() == State.NEW) {
+            super.start();
         }
     }
 
     /**
-     * Process all events for keys queued to the watcher.
+     * Process all events taken from the watcher backend. The workers are stopped once the watching stops.
      */
     @Override
     public void run() {
-        while (!isInterrupted()) {
-            try {
+        try {
 
-                final WatchKey watchKey = watchService.take();
-                synchronized (mutex) {
-                    if (!watchKeyToPath.containsKey(watchKey)) {
-                        continue;
-                    }
+            while (!isInterrupted()) {
+                final long releaseDelay = eventCoalescer.nextReleaseDelay(now());
+                for (WatcherBackend.Event oneEvent : watcherBackend.take(releaseDelay, MILLISECONDS)) {
+                    processEvent(oneEvent);
                 }
 
-                for (WatchEvent<?> oneEvent : watchKey.pollEvents()) {
-                    final Path watchablePath = (Path)watchKey.watchable();
-                    final WatchEvent<Path> pathEvent = cast(oneEvent);
-                    final Path resourcePath = watchablePath.resolve(pathEvent.context());
+                dispatchRepositoryEvents(eventCoalescer.release(now()));
+            }
 
-                    if (oneEvent.kind() == OVERFLOW) {
-                        continue;
-                    }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // the watching is stopped
+        } finally {
+            for (ExecutorService oneWorker : workers) {
+                oneWorker.shutdown();
+            }
+        }
+    }
 
-                    if (oneEvent.kind() == ENTRY_CREATE && isDirectory(resourcePath)) {
-                        watch(pathToProject.get(watchablePath), resourcePath);
-                    }
+    /**
+     * Feeds the given {@link com.codenvy.flux.watcher.fs.WatcherBackend.Event} to the coalescer.
+     *
+     * @param event
+     *         the {@link com.codenvy.flux.watcher.fs.WatcherBackend.Event} to process.
+     */
+    private void processEvent(WatcherBackend.Event event) {
+        if (event.kind() == OVERFLOW) {
+            rescan(event.path());
+            return;
+        }
 
-                    final Project project = pathToProject.get(watchablePath);
-                    final RepositoryEventType repositoryEventType = kindToRepositoryEventType(pathEvent.kind());
-                    final Resource resource = pathToResource(pathEvent.kind(), project, resourcePath);
-                    repositoryEventBus.fireRepositoryEvent(new RepositoryEvent(repositoryEventType, resource, project));
+        final Project project = projectOf(event.path().getParent());
+        if (project != null) {
+            rawEventCount.incrementAndGet();
+            eventCoalescer.add(project, cast(event.kind()), event.path(), resourceTypeOf(project, event), now());
+        }
+    }
+
+    /**
+     * Rescans the given folder, or all the watched projects, and feeds the missed changes to the coalescer. The folders created
+     * meanwhile are watched.
+     *
+     * @param folder
+     *         the absolute folder {@link java.nio.file.Path} whose events have been lost, {@code null} if the events of any
+     *         folder may have been lost.
+     */
+    private void rescan(Path folder) {
+        final Map<Path, Project> folderToProject = new HashMap<>();
+        if (folder == null) {
+            folderToProject.putAll(pathToProject);
+        } else {
+            folderToProject.put(folder, projectOf(folder));
+        }
+
+        for (Map.Entry<Path, Project> oneEntry : folderToProject.entrySet()) {
+            final Project project = oneEntry.getValue();
+            if (!(project instanceof JDKProject) || !exists(oneEntry.getKey())) {
+                continue;
+            }
+
+            rescanCount.incrementAndGet();
+            for (WatcherBackend.Event oneEvent : ((JDKProject)project).rescan(oneEntry.getKey(), folder == null)) {
+                if (oneEvent.kind() == ENTRY_CREATE && isDirectory(oneEvent.path(), NOFOLLOW_LINKS)) {
+                    watchCreatedFolder(oneEvent.path());
                 }
 
-                final boolean isValid = watchKey.reset();
-                if (!isValid) {
-                    synchronized (mutex) {
-                        final Path path = watchKeyToPath.remove(watchKey);
-                        if (path != null) {
-                            pathToProject.remove(path);
-                        }
+                rescannedEventCount.incrementAndGet();
+                eventCoalescer.add(project, cast(oneEvent.kind()), oneEvent.path(), resourceTypeOf(project, oneEvent), now());
+            }
+        }
+    }
+
+    /**
+     * Returns the type of the resource of the given {@link com.codenvy.flux.watcher.fs.WatcherBackend.Event}, so that the
+     * coalescer can tell a replaced resource from a modified one. A deleted resource is not on the file system anymore, its
+     * type is read from the project index.
+     *
+     * @param project
+     *         the {@link com.codenvy.flux.watcher.core.spi.Project} containing the resource.
+     * @param event
+     *         the {@link com.codenvy.flux.watcher.fs.WatcherBackend.Event}.
+     * @return the {@link com.codenvy.flux.watcher.core.Resource.ResourceType} of a created or deleted resource, {@link
+     * com.codenvy.flux.watcher.core.Resource.ResourceType#UNKNOWN} otherwise.
+     */
+    private static ResourceType resourceTypeOf(Project project, WatcherBackend.Event event) {
+        if (event.kind() == ENTRY_DELETE && project instanceof JDKProject) {
+            return ((JDKProject)project).indexedType(event.path());
+        }
+        if (event.kind() == ENTRY_CREATE) {
+            if (isDirectory(event.path(), NOFOLLOW_LINKS)) {
+                return FOLDER;
+            }
+            return exists(event.path(), NOFOLLOW_LINKS) ? FILE : UNKNOWN;
+        }
+        return UNKNOWN;
+    }
+
+    private void watchCreatedFolder(Path folder) {
+        try {
+
+            watcherBackend.watch(folder);
+
+        } catch (NoSuchFileException e) {
+            // the folder has already been deleted
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Returns the watched {@link com.codenvy.flux.watcher.core.spi.Project} containing the given path.
+     *
+     * @param path
+     *         the absolute {@link java.nio.file.Path}.
+     * @return the {@link com.codenvy.flux.watcher.core.spi.Project} or {@code null} if the path is not in a watched project.
+     */
+    private Project projectOf(Path path) {
+        for (Path onePath = path; onePath != null; onePath = onePath.getParent()) {
+            final Project project = pathToProject.get(onePath);
+            if (project != null) {
+                return project;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Hands the given coalesced changes to the worker of their stripe.
+     *
+     * @param pendingEvents
+     *         the coalesced changes to fire.
+     */
+    private void dispatchRepositoryEvents(List<JDKProjectEventCoalescer.PendingEvent> pendingEvents) {
+        for (final JDKProjectEventCoalescer.PendingEvent onePendingEvent : pendingEvents) {
+            workers[stripeOf(onePendingEvent.project(), onePendingEvent.path())].execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+
+                        fireRepositoryEvent(onePendingEvent);
+
+                    } catch (RuntimeException e) {
+                        LOG.error("Unable to fire the change of " + onePendingEvent.path(), e);
                     }
                 }
+            });
+        }
+    }
 
-            } catch (ClosedWatchServiceException | InterruptedException e) {
-                return;
-            }
+    /**
+     * Returns the stripe of the given resource. The resources of a project sharing their parent folder are in the same stripe,
+     * so that all the changes of a path are in the same stripe whatever their kind.
+     *
+     * @param project
+     *         the {@link com.codenvy.flux.watcher.core.spi.Project} containing the resource.
+     * @param resourcePath
+     *         the absolute resource {@link java.nio.file.Path}.
+     * @return the stripe index, between {@code 0} and the number of workers.
+     */
+    int stripeOf(Project project, Path resourcePath) {
+        final Path relativeParentPath = fileSystem.getPath(project.path()).relativize(resourcePath).getParent();
+        final String parentPath = relativeParentPath == null ? "" : relativeParentPath.toString();
+
+        return ((31 * project.id().hashCode() + parentPath.hashCode()) & Integer.MAX_VALUE) % workers.length;
+    }
+
+    /**
+     * Fires the {@link com.codenvy.flux.watcher.core.RepositoryEvent} corresponding to the given coalesced change. A creation or
+     * a modification of a resource which does not exist anymore is skipped, its deletion is notified by a later event.
+     *
+     * @param pendingEvent
+     *         the coalesced change to fire.
+     */
+    private void fireRepositoryEvent(JDKProjectEventCoalescer.PendingEvent pendingEvent) {
+        if (pendingEvent.kind() != ENTRY_DELETE && !exists(pendingEvent.path())) {
+            return;
         }
+
+        final Project project = pendingEvent.project();
+        final RepositoryEventType repositoryEventType = kindToRepositoryEventType(pendingEvent.kind());
+        final Resource resource = pathToResource(pendingEvent.kind(), project, pendingEvent.path());
+        repositoryEventBus.fireRepositoryEvent(new RepositoryEvent(repositoryEventType, resource, project));
+        emittedEventCount.incrementAndGet();
+    }
+
+    private static long now() {
+        return NANOSECONDS.toMillis(System.nanoTime());
     }
 
     /**
@@ -242,40 +548,32 @@ public class JDKProjectWatchService extends Thread {
         checkNotNull(resourcePath);
         checkArgument(resourcePath.isAbsolute());
 
-        try {
-
-            final boolean exists = exists(resourcePath);
-            checkArgument(kind == ENTRY_DELETE || exists);
-
-            final Path projectPath = fileSystem.getPath(project.path());
-            final String relativeResourcePath = projectPath.relativize(resourcePath).toString();
-            final long timestamp = exists ? getLastModifiedTime(resourcePath).toMillis() : System.currentTimeMillis();
-
-            if (exists) {
-                final boolean isDirectory = isDirectory(resourcePath);
-                return isDirectory ? Resource.newFolder(relativeResourcePath, timestamp)
-                                   : Resource.newFile(relativeResourcePath, timestamp, readAllBytes(resourcePath));
+        final boolean exists = exists(resourcePath);
+        checkArgument(kind == ENTRY_DELETE || exists);
 
-            } else {
-                return Resource.newUnknown(relativeResourcePath, timestamp);
-            }
+        final Path projectPath = fileSystem.getPath(project.path());
+        final String relativeResourcePath = projectPath.relativize(resourcePath).toString();
 
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        // resolving the resource through the project keeps its resource index up to date
+        final Resource resource = project.getResource(relativeResourcePath);
+        if (kind == ENTRY_DELETE || resource == null) {
+            return Resource.newUnknown(relativeResourcePath, System.currentTimeMillis());
         }
+        return resource;
     }
 
     /**
-     * Cast the given {@link java.nio.file.WatchEvent} to a {@link java.nio.file.Path} {@link java.nio.file.WatchEvent}.
+     * Cast the given {@link java.nio.file.WatchEvent.Kind} to a {@link java.nio.file.Path} {@link
+     * java.nio.file.WatchEvent.Kind}.
      *
-     * @param event
-     *         the {@link java.nio.file.WatchEvent} to cast.
-     * @return the casted {@link java.nio.file.WatchEvent}.
+     * @param kind
+     *         the {@link java.nio.file.WatchEvent.Kind} to cast.
+     * @return the casted {@link java.nio.file.WatchEvent.Kind}.
      * @throws java.lang.NullPointerException
-     *         if {@code event} parameter is {@code null}.
+     *         if {@code kind} parameter is {@code null}.
      */
     @SuppressWarnings("unchecked")
-    private WatchEvent<Path> cast(WatchEvent<?> event) {
-        return (WatchEvent<Path>)checkNotNull(event);
+    private static Kind<Path> cast(Kind<?> kind) {
+        return (Kind<Path>)checkNotNull(kind);
     }
 }
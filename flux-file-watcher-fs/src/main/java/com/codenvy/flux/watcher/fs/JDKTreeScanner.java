@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.fs;
+
+import com.google.common.base.Throwables;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.file.Files.newDirectoryStream;
+import static java.nio.file.Files.readAttributes;
+import static java.nio.file.LinkOption.NOFOLLOW_LINKS;
+
+/**
+ * Scans a file tree in parallel with a work-stealing {@link java.util.concurrent.ForkJoinPool}. Each folder is listed with a
+ * {@link java.nio.file.DirectoryStream} by its own task, the sub folders are forked while the files are visited. The attributes
+ * of each resource are read once and handed to the {@link com.codenvy.flux.watcher.fs.JDKTreeScanner.Visitor}.
+ * <p/>
+ * The links are not followed, they are visited as files. The resources deleted during the scan are skipped.
+ *
+ * @author Kevin Pollet
+ */
+final class JDKTreeScanner {
+    private final ForkJoinPool pool;
+
+    /**
+     * Returns the {@link com.codenvy.flux.watcher.fs.JDKTreeScanner} shared by the projects, its number of threads is
+     * configured with the {@value com.codenvy.flux.watcher.fs.JDKProjectWatchService#SCANNER_THREADS_PROPERTY} system property.
+     *
+     * @return the shared {@link com.codenvy.flux.watcher.fs.JDKTreeScanner}, never {@code null}.
+     */
+    static JDKTreeScanner shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.fs.JDKTreeScanner}.
+     *
+     * @param parallelism
+     *         the number of threads scanning the trees.
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code parallelism} is not positive.
+     */
+    JDKTreeScanner(int parallelism) {
+        checkArgument(parallelism > 0);
+
+        this.pool = new ForkJoinPool(parallelism, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+            @Override
+            public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("flux-watcher-scanner-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            }
+        }, null, false);
+    }
+
+    /**
+     * Scans the tree rooted at the given folder, the root folder is visited first.
+     *
+     * @param root
+     *         the root folder {@link java.nio.file.Path}.
+     * @param visitor
+     *         the {@link com.codenvy.flux.watcher.fs.JDKTreeScanner.Visitor}, called concurrently.
+     * @throws java.lang.NullPointerException
+     *         if {@code root} or {@code visitor} parameter is {@code null}.
+     * @throws java.io.IOException
+     *         if an I/O error occurs while the tree is scanned or visited.
+     */
+    void scan(Path root, Visitor visitor) throws IOException {
+        checkNotNull(visitor);
+
+        final BasicFileAttributes attributes = readAttributes(checkNotNull(root), BasicFileAttributes.class, NOFOLLOW_LINKS);
+        try {
+
+            pool.invoke(new FolderTask(root, attributes, visitor));
+
+        } catch (RuntimeException e) {
+            for (Throwable oneCause : Throwables.getCausalChain(e)) {
+                if (oneCause instanceof IOException) {
+                    throw (IOException)oneCause;
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Visitor of the resources of a scanned tree. The methods are called concurrently by the scanning threads, a folder is
+     * visited before its children.
+     */
+    interface Visitor {
+        /**
+         * Visits a folder.
+         *
+         * @param folder
+         *         the folder {@link java.nio.file.Path}.
+         * @param attributes
+         *         the folder attributes.
+         * @return {@code true} to scan the folder children, {@code false} to skip them.
+         * @throws java.io.IOException
+         *         if an I/O error occurs.
+         */
+        boolean visitFolder(Path folder, BasicFileAttributes attributes) throws IOException;
+
+        /**
+         * Visits a file.
+         *
+         * @param file
+         *         the file {@link java.nio.file.Path}.
+         * @param attributes
+         *         the file attributes.
+         * @throws java.io.IOException
+         *         if an I/O error occurs.
+         */
+        void visitFile(Path file, BasicFileAttributes attributes) throws IOException;
+    }
+
+    /**
+     * Scans a folder: its sub folders are forked as new tasks, then its files are visited and the sub folder tasks are joined.
+     */
+    private static final class FolderTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Path                folder;
+        private final BasicFileAttributes attributes;
+        private final Visitor             visitor;
+
+        FolderTask(Path folder, BasicFileAttributes attributes, Visitor visitor) {
+            this.folder = folder;
+            this.attributes = attributes;
+            this.visitor = visitor;
+        }
+
+        @Override
+        protected void compute() {
+            final List<FolderTask> subTasks = new ArrayList<>();
+            try {
+
+                if (!visitor.visitFolder(folder, attributes)) {
+                    return;
+                }
+
+                try (DirectoryStream<Path> stream = newDirectoryStream(folder)) {
+                    for (Path oneChild : stream) {
+                        try {
+
+                            final BasicFileAttributes childAttributes = readAttributes(oneChild, BasicFileAttributes.class,
+                                                                                       NOFOLLOW_LINKS);
+                            if (childAttributes.isDirectory()) {
+                                final FolderTask subTask = new FolderTask(oneChild, childAttributes, visitor);
+                                subTask.fork();
+                                subTasks.add(subTask);
+                            } else {
+                                visitor.visitFile(oneChild, childAttributes);
+                            }
+
+                        } catch (NoSuchFileException e) {
+                            // the resource has been deleted meanwhile
+                        }
+                    }
+                }
+
+            } catch (NoSuchFileException e) {
+                // the folder has been deleted meanwhile
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+
+            for (int i = subTasks.size() - 1; i >= 0; i--) {
+                subTasks.get(i).join();
+            }
+        }
+    }
+
+    /**
+     * Holder of the shared {@link com.codenvy.flux.watcher.fs.JDKTreeScanner}, created on first use.
+     */
+    private static final class SharedHolder {
+        private static final JDKTreeScanner INSTANCE = new JDKTreeScanner(
+                Math.max(1, Integer.getInteger(JDKProjectWatchService.SCANNER_THREADS_PROPERTY,
+                                               Runtime.getRuntime().availableProcessors())));
+    }
+}
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.fs;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileVisitResult;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.file.FileVisitResult.CONTINUE;
+import static java.nio.file.FileVisitResult.SKIP_SUBTREE;
+import static java.nio.file.Files.isDirectory;
+import static java.nio.file.Files.walkFileTree;
+import static java.nio.file.LinkOption.NOFOLLOW_LINKS;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * {@link com.codenvy.flux.watcher.fs.WatcherBackend} implementation backed by the {@link java.nio.file.WatchService} of a
+ * {@link java.nio.file.FileSystem}. One {@link java.nio.file.WatchKey} is registered per watched folder, the keys are kept in a
+ * {@link com.codenvy.flux.watcher.fs.WatchRegistry} so that the folders are watched and unwatched while the events are taken.
+ *
+ * @author Kevin Pollet
+ */
+final class JDKWatcherBackend implements WatcherBackend {
+    private final WatchService            watchService;
+    private final WatchRegistry<WatchKey> registry;
+
+    /**
+     * Constructs an instance of {@link com.codenvy.flux.watcher.fs.JDKWatcherBackend}.
+     *
+     * @param fileSystem
+     *         the {@link java.nio.file.FileSystem} to watch.
+     * @throws java.lang.NullPointerException
+     *         if {@code fileSystem} parameter is {@code null}.
+     */
+    JDKWatcherBackend(FileSystem fileSystem) {
+        this.registry = new WatchRegistry<>();
+
+        try {
+
+            this.watchService = checkNotNull(fileSystem).newWatchService();
+
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void watch(Path folder) throws IOException {
+        checkNotNull(folder);
+
+        walkFileTree(folder, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                return watchFolder(dir) ? CONTINUE : SKIP_SUBTREE;
+            }
+        });
+    }
+
+    @Override
+    public boolean watchFolder(Path folder) throws IOException {
+        checkNotNull(folder);
+
+        // a folder registered concurrently gets the same key from the watch service
+        if (!registry.contains(folder)) {
+            try {
+
+                registry.put(folder.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), folder);
+
+            } catch (NoSuchFileException | NotDirectoryException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void unwatch(Path folder) {
+        for (WatchKey oneWatchKey : registry.removeTree(checkNotNull(folder))) {
+            oneWatchKey.cancel();
+        }
+    }
+
+    @Override
+    public List<Event> take(long timeout, TimeUnit unit) throws InterruptedException {
+        final WatchKey watchKey = timeout < 0 ? watchService.take() : watchService.poll(timeout, unit);
+        if (watchKey == null) {
+            return Collections.emptyList();
+        }
+
+        final Path folder = registry.folder(watchKey);
+        if (folder == null) {
+            return Collections.emptyList();
+        }
+
+        final List<Event> events = new ArrayList<>();
+        for (WatchEvent<?> oneEvent : watchKey.pollEvents()) {
+            if (oneEvent.kind() == OVERFLOW) {
+                events.add(new Event(OVERFLOW, folder));
+                continue;
+            }
+
+            final WatchEvent<Path> pathEvent = cast(oneEvent);
+            final Path resourcePath = folder.resolve(pathEvent.context());
+
+            // the created folders are watched right away to not miss the events of their children
+            if (pathEvent.kind() == ENTRY_CREATE && isDirectory(resourcePath, NOFOLLOW_LINKS)) {
+                try {
+
+                    watch(resourcePath);
+
+                } catch (NoSuchFileException e) {
+                    // the folder has already been deleted, its deletion is notified by a later event
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            events.add(new Event(pathEvent.kind(), resourcePath));
+        }
+
+        if (!watchKey.reset()) {
+            registry.remove(watchKey);
+        }
+        return events;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        registry.clear();
+    }
+
+    /**
+     * Returns the number of watched folders.
+     *
+     * @return the number of watched folders.
+     */
+    int watchedFolderCount() {
+        return registry.size();
+    }
+
+    /**
+     * Cast the given {@link java.nio.file.WatchEvent} to a {@link java.nio.file.Path} {@link java.nio.file.WatchEvent}.
+     *
+     * @param event
+     *         the {@link java.nio.file.WatchEvent} to cast.
+     * @return the casted {@link java.nio.file.WatchEvent}.
+     * @throws java.lang.NullPointerException
+     *         if {@code event} parameter is {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    private static WatchEvent<Path> cast(WatchEvent<?> event) {
+        return (WatchEvent<Path>)checkNotNull(event);
+    }
+}
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.fs;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Bidirectional index between the watch keys of a {@link com.codenvy.flux.watcher.fs.WatcherBackend} and the watched folders.
+ * Both directions are {@link java.util.concurrent.ConcurrentHashMap}, so that folders are registered and unregistered while
+ * the events are looked up without any lock.
+ * <p/>
+ * The two directions are updated one after the other, a lookup racing with an update may see the key without its folder and
+ * the other way round. The entries of a key or a folder are only removed if they still map to each other, so that a stale
+ * update never removes a newer registration.
+ *
+ * @param <K>
+ *         the watch key type.
+ * @author Kevin Pollet
+ */
+final class WatchRegistry<K> {
+    private final ConcurrentMap<K, Path> keyToFolder;
+    private final ConcurrentMap<Path, K> folderToKey;
+
+    /**
+     * Constructs an empty instance of {@link com.codenvy.flux.watcher.fs.WatchRegistry}.
+     */
+    WatchRegistry() {
+        this.keyToFolder = new ConcurrentHashMap<>();
+        this.folderToKey = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Maps the given key to the given folder. The previous folder of the key and the previous key of the folder are unmapped.
+     *
+     * @param key
+     *         the watch key.
+     * @param folder
+     *         the watched folder {@link java.nio.file.Path}.
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code folder} parameter is {@code null}.
+     */
+    void put(K key, Path folder) {
+        checkNotNull(key);
+        checkNotNull(folder);
+
+        final Path previousFolder = keyToFolder.put(key, folder);
+        if (previousFolder != null && !previousFolder.equals(folder)) {
+            folderToKey.remove(previousFolder, key);
+        }
+
+        final K previousKey = folderToKey.put(folder, key);
+        if (previousKey != null && !previousKey.equals(key)) {
+            keyToFolder.remove(previousKey, folder);
+        }
+    }
+
+    /**
+     * Returns the folder mapped to the given key.
+     *
+     * @param key
+     *         the watch key.
+     * @return the folder {@link java.nio.file.Path} or {@code null} if the key is not mapped.
+     * @throws java.lang.NullPointerException
+     *         if {@code key} parameter is {@code null}.
+     */
+    Path folder(K key) {
+        return keyToFolder.get(checkNotNull(key));
+    }
+
+    /**
+     * Returns whether or not the given folder is mapped to a key.
+     *
+     * @param folder
+     *         the folder {@link java.nio.file.Path}.
+     * @return {@code true} if the folder is mapped, {@code false} otherwise.
+     * @throws java.lang.NullPointerException
+     *         if {@code folder} parameter is {@code null}.
+     */
+    boolean contains(Path folder) {
+        return folderToKey.containsKey(checkNotNull(folder));
+    }
+
+    /**
+     * Unmaps the given key.
+     *
+     * @param key
+     *         the watch key.
+     * @return the folder {@link java.nio.file.Path} which was mapped to the key or {@code null} if none.
+     * @throws java.lang.NullPointerException
+     *         if {@code key} parameter is {@code null}.
+     */
+    Path remove(K key) {
+        final Path folder = keyToFolder.remove(checkNotNull(key));
+        if (folder != null) {
+            folderToKey.remove(folder, key);
+        }
+        return folder;
+    }
+
+    /**
+     * Unmaps the given folder and all its sub folders.
+     *
+     * @param folder
+     *         the root folder {@link java.nio.file.Path} of the tree.
+     * @return the {@link java.util.List} of unmapped keys, never {@code null}.
+     * @throws java.lang.NullPointerException
+     *         if {@code folder} parameter is {@code null}.
+     */
+    List<K> removeTree(Path folder) {
+        checkNotNull(folder);
+
+        final List<K> keys = new ArrayList<>();
+        for (Map.Entry<Path, K> oneEntry : folderToKey.entrySet()) {
+            if (oneEntry.getKey().startsWith(folder) && folderToKey.remove(oneEntry.getKey(), oneEntry.getValue())) {
+                keyToFolder.remove(oneEntry.getValue(), oneEntry.getKey());
+                keys.add(oneEntry.getValue());
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Unmaps all the keys.
+     */
+    void clear() {
+        keyToFolder.clear();
+        folderToKey.clear();
+    }
+
+    /**
+     * Returns the number of watched folders.
+     *
+     * @return the number of watched folders.
+     */
+    int size() {
+        return folderToKey.size();
+    }
+}
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.fs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.file.WatchEvent.Kind;
+
+/**
+ * Backend used by the {@link com.codenvy.flux.watcher.fs.JDKProjectWatchService} to watch the file system. A folder is watched
+ * recursively, the folders created afterwards in a watched tree are watched by the backend itself.
+ * <p/>
+ * The implementations must be thread safe, the events are meant to be taken by a single thread.
+ *
+ * @author Kevin Pollet
+ */
+public interface WatcherBackend extends Closeable {
+    /**
+     * Watches the given folder and all its sub folders. Watching an already watched folder has no effect.
+     *
+     * @param folder
+     *         the absolute folder {@link java.nio.file.Path}.
+     * @throws java.lang.NullPointerException
+     *         if {@code folder} parameter is {@code null}.
+     * @throws java.nio.file.ClosedWatchServiceException
+     *         if the backend is closed.
+     * @throws java.io.IOException
+     *         if an I/O error occurs or if the system watch resources are exhausted.
+     */
+    void watch(Path folder) throws IOException;
+
+    /**
+     * Watches the given folder only, its sub folders are not watched. Watching an already watched folder has no effect.
+     *
+     * @param folder
+     *         the absolute folder {@link java.nio.file.Path}.
+     * @return {@code true} if the folder is watched, {@code false} if it doesn't exist anymore.
+     * @throws java.lang.NullPointerException
+     *         if {@code folder} parameter is {@code null}.
+     * @throws java.nio.file.ClosedWatchServiceException
+     *         if the backend is closed.
+     * @throws java.io.IOException
+     *         if an I/O error occurs or if the system watch resources are exhausted.
+     */
+    boolean watchFolder(Path folder) throws IOException;
+
+    /**
+     * Stops watching the given folder and all its sub folders, the folders don't need to exist anymore.
+     *
+     * @param folder
+     *         the absolute folder {@link java.nio.file.Path}.
+     * @throws java.lang.NullPointerException
+     *         if {@code folder} parameter is {@code null}.
+     */
+    void unwatch(Path folder);
+
+    /**
+     * Returns the next events, waiting up to the given time if none is available.
+     *
+     * @param timeout
+     *         the maximum time to wait, a negative value to wait until an event is available.
+     * @param unit
+     *         the {@link java.util.concurrent.TimeUnit} of the {@code timeout} parameter.
+     * @return the {@link java.util.List} of {@link com.codenvy.flux.watcher.fs.WatcherBackend.Event} in the order they happened,
+     * empty if none is available in time.
+     * @throws java.nio.file.ClosedWatchServiceException
+     *         if the backend is closed.
+     * @throws java.lang.InterruptedException
+     *         if the thread is interrupted while waiting.
+     */
+    List<Event> take(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * A change of a resource in a watched tree.
+     *
+     * @author Kevin Pollet
+     */
+    final class Event {
+        private final Kind<?> kind;
+        private final Path    path;
+
+        /**
+         * Constructs an instance of {@link com.codenvy.flux.watcher.fs.WatcherBackend.Event}.
+         *
+         * @param kind
+         *         the event {@link java.nio.file.WatchEvent.Kind}, {@link java.nio.file.StandardWatchEventKinds#OVERFLOW} if
+         *         events have been lost.
+         * @param path
+         *         the absolute resource {@link java.nio.file.Path}, the watched folder whose events have been lost or {@code
+         *         null} if the events of any folder may have been lost.
+         * @throws java.lang.NullPointerException
+         *         if {@code kind} parameter is {@code null}.
+         */
+        public Event(Kind<?> kind, Path path) {
+            this.kind = checkNotNull(kind);
+            this.path = path;
+        }
+
+        /**
+         * Returns the event kind.
+         *
+         * @return the event {@link java.nio.file.WatchEvent.Kind}, never {@code null}.
+         */
+        public Kind<?> kind() {
+            return kind;
+        }
+
+        /**
+         * Returns the absolute resource path.
+         *
+         * @return the resource {@link java.nio.file.Path}, {@code null} for an overflow of any folder.
+         */
+        public Path path() {
+            return path;
+        }
+    }
+}
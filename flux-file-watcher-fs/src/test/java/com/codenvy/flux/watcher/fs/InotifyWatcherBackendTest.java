@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.fs;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.file.FileVisitResult.CONTINUE;
+import static java.nio.file.Files.createDirectory;
+import static java.nio.file.Files.createFile;
+import static java.nio.file.Files.createTempDirectory;
+import static java.nio.file.Files.delete;
+import static java.nio.file.Files.move;
+import static java.nio.file.Files.walkFileTree;
+import static java.nio.file.Files.write;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.WatchEvent.Kind;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * {@link com.codenvy.flux.watcher.fs.InotifyWatcherBackend} tests, run on Linux only.
+ *
+ * @author Kevin Pollet
+ */
+public final class InotifyWatcherBackendTest {
+    private Path                  root;
+    private InotifyWatcherBackend watcherBackend;
+
+    @Before
+    public void beforeTest() throws IOException {
+        Assume.assumeTrue(InotifyWatcherBackend.isSupported());
+
+        root = createTempDirectory("inotify-watcher-backend");
+        watcherBackend = new InotifyWatcherBackend(FileSystems.getDefault());
+        watcherBackend.watch(root);
+    }
+
+    @After
+    public void afterTest() throws IOException {
+        if (watcherBackend != null) {
+            watcherBackend.close();
+        }
+        if (root != null) {
+            walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    delete(file);
+                    return CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                    delete(dir);
+                    return CONTINUE;
+                }
+            });
+        }
+    }
+
+    @Test
+    public void testFileEvents() throws IOException, InterruptedException {
+        final Path file = root.resolve("readme");
+        createFile(file);
+        write(file, "readme".getBytes());
+        delete(file);
+
+        final List<WatcherBackend.Event> events = takeEvents(3);
+        assertEvent(events.get(0), ENTRY_CREATE, file);
+        assertEvent(events.get(1), ENTRY_MODIFY, file);
+        assertEvent(events.get(events.size() - 1), ENTRY_DELETE, file);
+    }
+
+    @Test
+    public void testCreatedFolderIsWatched() throws IOException, InterruptedException {
+        final Path folder = root.resolve("src");
+        createDirectory(folder);
+        assertEvent(takeEvents(1).get(0), ENTRY_CREATE, folder);
+
+        final Path file = folder.resolve("Main.java");
+        createFile(file);
+        assertEvent(takeEvents(1).get(0), ENTRY_CREATE, file);
+    }
+
+    @Test
+    public void testMovedOutFolderIsUnwatched() throws IOException, InterruptedException {
+        final Path folder = root.resolve("src");
+        createDirectory(folder);
+        takeEvents(1);
+
+        final Path outside = createTempDirectory("inotify-watcher-backend-outside");
+        try {
+
+            move(folder, outside.resolve("src"));
+            assertEvent(takeEvents(1).get(0), ENTRY_DELETE, folder);
+
+            createFile(outside.resolve("src").resolve("Main.java"));
+            Assert.assertTrue(watcherBackend.take(500, MILLISECONDS).isEmpty());
+
+        } finally {
+            delete(outside.resolve("src").resolve("Main.java"));
+            delete(outside.resolve("src"));
+            delete(outside);
+        }
+    }
+
+    @Test
+    public void testUnwatch() throws IOException, InterruptedException {
+        watcherBackend.unwatch(root);
+        createFile(root.resolve("readme"));
+
+        Assert.assertTrue(watcherBackend.take(500, MILLISECONDS).isEmpty());
+    }
+
+    @Test
+    public void testTakeTimeout() throws InterruptedException {
+        final long start = System.nanoTime();
+
+        Assert.assertTrue(watcherBackend.take(300, MILLISECONDS).isEmpty());
+        Assert.assertTrue(System.nanoTime() - start >= MILLISECONDS.toNanos(250));
+    }
+
+    private List<WatcherBackend.Event> takeEvents(int count) throws InterruptedException {
+        final List<WatcherBackend.Event> events = new ArrayList<>();
+        final long deadline = System.nanoTime() + SECONDS.toNanos(10);
+        while (events.size() < count && System.nanoTime() < deadline) {
+            events.addAll(watcherBackend.take(100, MILLISECONDS));
+        }
+        Assert.assertTrue(events.size() >= count);
+        return events;
+    }
+
+    private static void assertEvent(WatcherBackend.Event event, Kind<?> kind, Path path) {
+        Assert.assertEquals(kind, event.kind());
+        Assert.assertEquals(path, event.path());
+    }
+}
@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.fs;
+
+import com.codenvy.flux.watcher.core.spi.Project;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FILE;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.FOLDER;
+import static com.codenvy.flux.watcher.core.Resource.ResourceType.UNKNOWN;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static org.mockito.Mockito.mock;
+
+/**
+ * {@link com.codenvy.flux.watcher.fs.JDKProjectEventCoalescer} tests.
+ *
+ * @author Kevin Pollet
+ */
+public final class JDKProjectEventCoalescerTest extends AbstractTest {
+    private Project project;
+    private Path    readmePath;
+    private Path    helloPath;
+
+    @Before
+    public void beforeTest() {
+        project = mock(Project.class);
+        readmePath = fileSystem().getPath(PROJECT_PATH).resolve(RELATIVE_PROJECT_README_FILE_PATH);
+        helloPath = fileSystem().getPath(PROJECT_PATH).resolve(RELATIVE_PROJECT_HELLO_FILE_PATH);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNewCoalescerWithNegativeQuietPeriod() {
+        new JDKProjectEventCoalescer(-1, 1000);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testAddWithNullPath() {
+        new JDKProjectEventCoalescer(100, 1000).add(project, ENTRY_CREATE, null, FILE, 0);
+    }
+
+    @Test
+    public void testCreateAndModifyIsCreate() {
+        final JDKProjectEventCoalescer coalescer = new JDKProjectEventCoalescer(100, 1000);
+        coalescer.add(project, ENTRY_CREATE, helloPath, FILE, 0);
+        coalescer.add(project, ENTRY_MODIFY, helloPath, UNKNOWN, 10);
+        coalescer.add(project, ENTRY_MODIFY, helloPath, UNKNOWN, 20);
+
+        final List<JDKProjectEventCoalescer.PendingEvent> events = coalescer.release(120);
+
+        Assert.assertEquals(1, events.size());
+        Assert.assertEquals(ENTRY_CREATE, events.get(0).kind());
+        Assert.assertEquals(helloPath, events.get(0).path());
+        Assert.assertEquals(project, events.get(0).project());
+    }
+
+    @Test
+    public void testCreateAndDeleteIsNothing() {
+        final JDKProjectEventCoalescer coalescer = new JDKProjectEventCoalescer(100, 1000);
+        coalescer.add(project, ENTRY_CREATE, helloPath, FILE, 0);
+        coalescer.add(project, ENTRY_MODIFY, helloPath, UNKNOWN, 10);
+        coalescer.add(project, ENTRY_DELETE, helloPath, FILE, 20);
+
+        Assert.assertEquals(0, coalescer.size());
+        Assert.assertEquals(-1, coalescer.nextReleaseDelay(20));
+        Assert.assertTrue(coalescer.release(1000).isEmpty());
+    }
+
+    @Test
+    public void testModifyAndDeleteIsDelete() {
+        final JDKProjectEventCoalescer coalescer = new JDKProjectEventCoalescer(100, 1000);
+        coalescer.add(project, ENTRY_MODIFY, readmePath, UNKNOWN, 0);
+        coalescer.add(project, ENTRY_DELETE, readmePath, FILE, 10);
+
+        final List<JDKProjectEventCoalescer.PendingEvent> events = coalescer.release(110);
+
+        Assert.assertEquals(1, events.size());
+        Assert.assertEquals(ENTRY_DELETE, events.get(0).kind());
+    }
+
+    @Test
+    public void testDeleteAndCreateIsModify() {
+        final JDKProjectEventCoalescer coalescer = new JDKProjectEventCoalescer(100, 1000);
+        coalescer.add(project, ENTRY_DELETE, readmePath, FILE, 0);
+        coalescer.add(project, ENTRY_CREATE, readmePath, FILE, 10);
+
+        final List<JDKProjectEventCoalescer.PendingEvent> events = coalescer.release(110);
+
+        Assert.assertEquals(1, events.size());
+        Assert.assertEquals(ENTRY_MODIFY, events.get(0).kind());
+    }
+
+    @Test
+    public void testDeleteAndCreateWithAnotherTypeIsDeleteThenCreate() {
+        final JDKProjectEventCoalescer coalescer = new JDKProjectEventCoalescer(100, 1000);
+        coalescer.add(project, ENTRY_DELETE, readmePath, FILE, 0);
+        coalescer.add(project, ENTRY_CREATE, readmePath, FOLDER, 10);
+        coalescer.add(project, ENTRY_MODIFY, readmePath, UNKNOWN, 20);
+
+        final List<JDKProjectEventCoalescer.PendingEvent> events = coalescer.release(120);
+
+        Assert.assertEquals(2, events.size());
+        Assert.assertEquals(ENTRY_DELETE, events.get(0).kind());
+        Assert.assertEquals(readmePath, events.get(0).path());
+        Assert.assertEquals(ENTRY_CREATE, events.get(1).kind());
+        Assert.assertEquals(readmePath, events.get(1).path());
+    }
+
+    @Test
+    public void testDeleteCreateAndDeleteWithAnotherTypeIsDelete() {
+        final JDKProjectEventCoalescer coalescer = new JDKProjectEventCoalescer(100, 1000);
+        coalescer.add(project, ENTRY_DELETE, readmePath, FOLDER, 0);
+        coalescer.add(project, ENTRY_CREATE, readmePath, FILE, 10);
+        coalescer.add(project, ENTRY_DELETE, readmePath, FILE, 20);
+
+        final List<JDKProjectEventCoalescer.PendingEvent> events = coalescer.release(120);
+
+        Assert.assertEquals(1, events.size());
+        Assert.assertEquals(ENTRY_DELETE, events.get(0).kind());
+    }
+
+    @Test
+    public void testReleaseKeepsFirstSeenOrder() {
+        final JDKProjectEventCoalescer coalescer = new JDKProjectEventCoalescer(100, 1000);
+        coalescer.add(project, ENTRY_MODIFY, readmePath, UNKNOWN, 0);
+        coalescer.add(project, ENTRY_CREATE, helloPath, FILE, 10);
+        coalescer.add(project, ENTRY_MODIFY, readmePath, UNKNOWN, 20);
+
+        final List<JDKProjectEventCoalescer.PendingEvent> events = coalescer.release(120);
+
+        Assert.assertEquals(2, events.size());
+        Assert.assertEquals(readmePath, events.get(0).path());
+        Assert.assertEquals(helloPath, events.get(1).path());
+    }
+
+    @Test
+    public void testReleaseAfterQuietPeriod() {
+        final JDKProjectEventCoalescer coalescer = new JDKProjectEventCoalescer(100, 1000);
+        coalescer.add(project, ENTRY_MODIFY, readmePath, UNKNOWN, 0);
+        coalescer.add(project, ENTRY_MODIFY, readmePath, UNKNOWN, 50);
+
+        Assert.assertEquals(100, coalescer.nextReleaseDelay(50));
+        Assert.assertTrue(coalescer.release(149).isEmpty());
+        Assert.assertEquals(1, coalescer.release(150).size());
+        Assert.assertEquals(0, coalescer.size());
+    }
+
+    @Test
+    public void testReleaseAfterMaxLatency() {
+        final JDKProjectEventCoalescer coalescer = new JDKProjectEventCoalescer(100, 200);
+        for (long time = 0; time < 200; time += 50) {
+            coalescer.add(project, ENTRY_MODIFY, readmePath, UNKNOWN, time);
+            Assert.assertTrue(coalescer.release(time).isEmpty());
+        }
+
+        Assert.assertEquals(0, coalescer.nextReleaseDelay(200));
+        Assert.assertEquals(1, coalescer.release(200).size());
+    }
+
+    @Test
+    public void testReleaseRightAwayWithoutQuietPeriod() {
+        final JDKProjectEventCoalescer coalescer = new JDKProjectEventCoalescer(0, 0);
+        coalescer.add(project, ENTRY_CREATE, helloPath, FILE, 0);
+
+        Assert.assertEquals(1, coalescer.release(0).size());
+    }
+}
@@ -12,17 +12,26 @@ package com.codenvy.flux.watcher.fs;
 
 
 import com.codenvy.flux.watcher.core.Resource;
+import com.codenvy.flux.watcher.core.ResourceIndex;
 import com.codenvy.flux.watcher.core.spi.Project;
 import com.google.common.collect.Sets;
+import com.google.common.io.ByteSource;
 
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 import static com.codenvy.flux.watcher.core.Resource.ResourceType.FILE;
@@ -32,6 +41,9 @@ import static java.nio.file.Files.exists;
 import static java.nio.file.Files.getLastModifiedTime;
 import static java.nio.file.Files.isDirectory;
 import static java.nio.file.Files.readAllBytes;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -83,6 +95,109 @@ public final class JDKProjectTest extends AbstractTest {
         Assert.assertTrue(paths.isEmpty());
     }
 
+    @Test
+    public void testGetResourcesWithModifiedFile() throws IOException {
+        final Path absoluteFilePath = fileSystem().getPath(PROJECT_PATH).resolve(RELATIVE_PROJECT_README_FILE_PATH);
+        final String hash = getResourceFrom(project.getResources(), RELATIVE_PROJECT_README_FILE_PATH).hash();
+
+        Files.write(absoluteFilePath, "readme".getBytes());
+        final Resource resource = getResourceFrom(project.getResources(), RELATIVE_PROJECT_README_FILE_PATH);
+
+        Assert.assertNotNull(resource);
+        Assert.assertNotEquals(hash, resource.hash());
+        Assert.assertEquals(project.getResource(RELATIVE_PROJECT_README_FILE_PATH).hash(), resource.hash());
+    }
+
+    @Test
+    public void testGetResourcesWithDeletedFile() throws IOException {
+        Assert.assertNotNull(getResourceFrom(project.getResources(), RELATIVE_PROJECT_README_FILE_PATH));
+
+        Files.delete(fileSystem().getPath(PROJECT_PATH).resolve(RELATIVE_PROJECT_README_FILE_PATH));
+
+        Assert.assertNull(getResourceFrom(project.getResources(), RELATIVE_PROJECT_README_FILE_PATH));
+    }
+
+    @Test
+    public void testGetResourcesWithPersistedIndex() throws IOException {
+        final Path indexFile = fileSystem().getPath("/state/" + PROJECT_ID + ".index");
+        final JDKProject indexedProject =
+                new JDKProject(fileSystem(), jdkProjectWatchServiceMock, PROJECT_ID, PROJECT_PATH, new ResourceIndex(indexFile));
+        indexedProject.setSynchronized(true);
+        indexedProject.setSynchronized(false);
+
+        Assert.assertTrue(exists(indexFile));
+
+        final ResourceIndex index = new ResourceIndex(indexFile);
+        index.load();
+
+        Assert.assertEquals(2, index.size());
+        Assert.assertNotNull(index.get(RELATIVE_PROJECT_README_FILE_PATH));
+        Assert.assertNotNull(index.get(RELATIVE_PROJECT_SRC_FOLDER_PATH));
+    }
+
+    @Test
+    public void testGetResourcesAfter() throws IOException {
+        createFile(fileSystem().getPath(PROJECT_PATH).resolve(RELATIVE_PROJECT_HELLO_FILE_PATH));
+        Files.createDirectory(fileSystem().getPath(PROJECT_PATH).resolve(RELATIVE_PROJECT_MAIN_FOLDER_PATH));
+        Files.createDirectory(fileSystem().getPath(PROJECT_PATH).resolve("src-gen"));
+
+        final List<String> paths = new ArrayList<>();
+        for (Iterator<Resource> resources = project.getResourcesAfter(null); resources.hasNext(); ) {
+            paths.add(resources.next().path());
+        }
+
+        Assert.assertEquals(Arrays.asList(RELATIVE_PROJECT_README_FILE_PATH, RELATIVE_PROJECT_SRC_FOLDER_PATH,
+                                          RELATIVE_PROJECT_HELLO_FILE_PATH, RELATIVE_PROJECT_MAIN_FOLDER_PATH, "src-gen"), paths);
+
+        // resumes inside a folder and after a deleted resource
+        final Iterator<Resource> resources = project.getResourcesAfter(RELATIVE_PROJECT_HELLO_FILE_PATH);
+        Assert.assertEquals(RELATIVE_PROJECT_MAIN_FOLDER_PATH, resources.next().path());
+        Assert.assertEquals(RELATIVE_PROJECT_MAIN_FOLDER_PATH, project.getResourcesAfter("src/i").next().path());
+        Assert.assertEquals("src-gen", project.getResourcesAfter("src/zzz").next().path());
+        Assert.assertEquals(RELATIVE_PROJECT_HELLO_FILE_PATH, project.getResourcesAfter(RELATIVE_PROJECT_SRC_FOLDER_PATH).next().path());
+        Assert.assertFalse(project.getResourcesAfter("src-gen").hasNext());
+    }
+
+    @Test
+    public void testRescan() throws IOException {
+        final Path projectPath = fileSystem().getPath(PROJECT_PATH);
+        project.getResources();
+
+        Files.write(projectPath.resolve(RELATIVE_PROJECT_README_FILE_PATH), "readme".getBytes());
+        Files.createDirectory(projectPath.resolve(RELATIVE_PROJECT_MAIN_FOLDER_PATH));
+        createFile(projectPath.resolve(RELATIVE_PROJECT_MAIN_FOLDER_PATH).resolve("hello"));
+        Files.createDirectory(projectPath.resolve("doc"));
+        Files.delete(projectPath.resolve("doc"));
+
+        final List<WatcherBackend.Event> rootEvents = project.rescan(projectPath, false);
+        Assert.assertEquals(1, rootEvents.size());
+        Assert.assertEquals(ENTRY_MODIFY, rootEvents.get(0).kind());
+        Assert.assertEquals(projectPath.resolve(RELATIVE_PROJECT_README_FILE_PATH), rootEvents.get(0).path());
+
+        final List<WatcherBackend.Event> events = project.rescan(projectPath, true);
+        Assert.assertEquals(3, events.size());
+        Assert.assertEquals(ENTRY_CREATE, events.get(1).kind());
+        Assert.assertEquals(projectPath.resolve(RELATIVE_PROJECT_MAIN_FOLDER_PATH), events.get(1).path());
+        Assert.assertEquals(ENTRY_CREATE, events.get(2).kind());
+        Assert.assertEquals(projectPath.resolve(RELATIVE_PROJECT_MAIN_FOLDER_PATH).resolve("hello"), events.get(2).path());
+
+        Files.delete(projectPath.resolve(RELATIVE_PROJECT_README_FILE_PATH));
+        final List<WatcherBackend.Event> deleteEvents = project.rescan(projectPath, false);
+        Assert.assertEquals(1, deleteEvents.size());
+        Assert.assertEquals(ENTRY_DELETE, deleteEvents.get(0).kind());
+    }
+
+    @Test
+    public void testGetSynchronized() {
+        Assert.assertFalse(project.getSynchronized());
+
+        project.setSynchronized(true);
+        Assert.assertTrue(project.getSynchronized());
+
+        project.setSynchronized(false);
+        Assert.assertFalse(project.getSynchronized());
+    }
+
     @Test(expected = NullPointerException.class)
     public void testGetResourceWithNullResourcePath() {
         project.getResource(null);
@@ -183,6 +298,36 @@ public final class JDKProjectTest extends AbstractTest {
         Assert.assertArrayEquals(readmeContent, readAllBytes(resourcePath));
     }
 
+    @Test
+    public void testUpdateResourceWritesTemporaryFileOutsideProject() throws IOException {
+        final byte[] readmeContent = "readme".getBytes();
+        final Path projectPath = fileSystem().getPath(PROJECT_PATH);
+        final Path transferDirectory = fileSystem().getPath("/transfers");
+        final List<Path> transferredFiles = new ArrayList<>();
+        final List<Path> projectFiles = new ArrayList<>();
+        final ByteSource contentSource = new ByteSource() {
+            @Override
+            public InputStream openStream() throws IOException {
+                if (transferredFiles.isEmpty()) {
+                    addChildren(transferDirectory, transferredFiles);
+                    addChildren(projectPath, projectFiles);
+                }
+                return new ByteArrayInputStream(readmeContent);
+            }
+        };
+
+        final Project project = new JDKProject(fileSystem(), jdkProjectWatchServiceMock, PROJECT_ID, PROJECT_PATH,
+                                               new ResourceIndex(), transferDirectory);
+        project.updateResource(Resource.newFile(RELATIVE_PROJECT_README_FILE_PATH, System.currentTimeMillis(), contentSource));
+
+        Assert.assertEquals(1, transferredFiles.size());
+        Assert.assertEquals(Sets.newHashSet(projectPath.resolve(RELATIVE_PROJECT_README_FILE_PATH),
+                                            projectPath.resolve(RELATIVE_PROJECT_SRC_FOLDER_PATH)),
+                            Sets.newHashSet(projectFiles));
+        Assert.assertArrayEquals(readmeContent, readAllBytes(projectPath.resolve(RELATIVE_PROJECT_README_FILE_PATH)));
+        Assert.assertFalse(exists(transferredFiles.get(0)));
+    }
+
     @Test(expected = NullPointerException.class)
     public void testDeleteResourceWithNullResource() {
         project.deleteResource(null);
@@ -215,4 +360,21 @@ public final class JDKProjectTest extends AbstractTest {
 
         Assert.assertFalse(exists(absoluteFilePath));
     }
-}
\ No newline at end of file
+
+    private Resource getResourceFrom(Set<Resource> resources, String resourcePath) {
+        for (Resource oneResource : resources) {
+            if (oneResource.path().equals(resourcePath)) {
+                return oneResource;
+            }
+        }
+        return null;
+    }
+
+    private static void addChildren(Path folder, List<Path> children) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+            for (Path oneChild : stream) {
+                children.add(oneChild);
+            }
+        }
+    }
+}
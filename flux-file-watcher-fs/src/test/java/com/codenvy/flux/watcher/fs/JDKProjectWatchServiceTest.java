@@ -32,8 +32,21 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.nio.file.Path;
 import java.nio.file.WatchEvent;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.codenvy.flux.watcher.core.RepositoryEventType.PROJECT_RESOURCE_CREATED;
 import static com.codenvy.flux.watcher.core.RepositoryEventType.PROJECT_RESOURCE_DELETED;
@@ -50,6 +63,7 @@ import static java.nio.file.Files.write;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
 import static java.nio.file.WatchEvent.Kind;
 import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
@@ -128,12 +142,12 @@ public final class JDKProjectWatchServiceTest extends AbstractTest {
 
     @Test(expected = NullPointerException.class)
     public void testCastWithNullEvent() throws Throwable {
-        final Method castMethod = JDKProjectWatchService.class.getDeclaredMethod("cast", WatchEvent.class);
+        final Method castMethod = JDKWatcherBackend.class.getDeclaredMethod("cast", WatchEvent.class);
         castMethod.setAccessible(true);
 
         try {
 
-            castMethod.invoke(jdkProjectWatchService, (WatchEvent)null);
+            castMethod.invoke(null, (WatchEvent)null);
 
         } catch (InvocationTargetException e) {
             throw e.getCause();
@@ -332,6 +346,145 @@ public final class JDKProjectWatchServiceTest extends AbstractTest {
         Assert.assertNull(projectResourceDeletedListener.repositoryEvent);
     }
 
+    @Test
+    public void testOverflowRescansFolder() throws InterruptedException, IOException {
+        final QueueWatcherBackend watcherBackend = new QueueWatcherBackend();
+        final JDKProjectWatchService watchService = new JDKProjectWatchService(fileSystem(), repositoryEventBus, watcherBackend);
+        final JDKProject project = new JDKProject(fileSystem(), watchService, PROJECT_ID, PROJECT_PATH);
+        project.setSynchronized(true);
+
+        final CountDownLatch countDownLatch = new CountDownLatch(1);
+        final ProjectResourceCreatedListener projectResourceCreatedListener = new ProjectResourceCreatedListener(countDownLatch);
+        repositoryEventBus.addRepositoryListener(projectResourceCreatedListener);
+
+        // the creation event is lost
+        final Path absoluteFilePath = fileSystem().getPath(PROJECT_PATH).resolve(RELATIVE_PROJECT_HELLO_FILE_PATH);
+        createFile(absoluteFilePath);
+        watcherBackend.events.put(new WatcherBackend.Event(OVERFLOW, absoluteFilePath.getParent()));
+
+        countDownLatch.await(1, MINUTES);
+        watchService.interrupt();
+
+        Assert.assertNotNull(projectResourceCreatedListener.repositoryEvent);
+        Assert.assertEquals(RELATIVE_PROJECT_HELLO_FILE_PATH, projectResourceCreatedListener.repositoryEvent.resource().path());
+        Assert.assertEquals(1, watchService.rescanCount());
+        Assert.assertEquals(1, watchService.rescannedEventCount());
+    }
+
+    @Test
+    public void testWatchAndUnwatchProjectsWhileEventsFlow() throws Exception {
+        final JDKWatcherBackend jdkWatcherBackend = new JDKWatcherBackend(fileSystem());
+        final QueueWatcherBackend watcherBackend = new RegisteringQueueWatcherBackend(jdkWatcherBackend);
+        final JDKProjectWatchService watchService = new JDKProjectWatchService(fileSystem(), repositoryEventBus, watcherBackend);
+        final JDKProject project = new JDKProject(fileSystem(), watchService, PROJECT_ID, PROJECT_PATH);
+        project.setSynchronized(true);
+
+        final Path readmePath = fileSystem().getPath(PROJECT_PATH).resolve(RELATIVE_PROJECT_README_FILE_PATH);
+        final int threads = 8;
+        final int projectsPerThread = 25;
+        final AtomicBoolean running = new AtomicBoolean(true);
+
+        // the events of the watched project and of the projects being added and removed keep flowing
+        final Thread eventProducer = new Thread() {
+            @Override
+            public void run() {
+                final Random random = new Random(42);
+                while (running.get()) {
+                    final Path otherReadmePath = fileSystem().getPath("/stress-" + random.nextInt(threads) + "-"
+                                                                      + random.nextInt(projectsPerThread))
+                                                             .resolve(RELATIVE_PROJECT_README_FILE_PATH);
+
+                    watcherBackend.events.add(new WatcherBackend.Event(ENTRY_MODIFY, readmePath));
+                    watcherBackend.events.add(new WatcherBackend.Event(ENTRY_MODIFY, otherReadmePath));
+                    Thread.yield();
+                }
+            }
+        };
+        eventProducer.start();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                final int thread = i;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        for (int j = 0; j < projectsPerThread; j++) {
+                            final Path projectPath = createDirectory(fileSystem().getPath("/stress-" + thread + "-" + j));
+                            createDirectory(projectPath.resolve(RELATIVE_PROJECT_SRC_FOLDER_PATH));
+                            createDirectory(projectPath.resolve(RELATIVE_PROJECT_MAIN_FOLDER_PATH));
+                            createFile(projectPath.resolve(RELATIVE_PROJECT_README_FILE_PATH));
+
+                            final JDKProject otherProject = new JDKProject(fileSystem(), watchService, "stress-" + thread + "-" + j,
+                                                                           projectPath.toString());
+                            otherProject.setSynchronized(true);
+                            otherProject.setSynchronized(false);
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<?> oneFuture : futures) {
+                oneFuture.get(1, MINUTES);
+            }
+
+        } finally {
+            running.set(false);
+            eventProducer.join();
+            executor.shutdown();
+        }
+
+        final CountDownLatch countDownLatch = new CountDownLatch(1);
+        final ProjectResourceCreatedListener projectResourceCreatedListener = new ProjectResourceCreatedListener(countDownLatch);
+        repositoryEventBus.addRepositoryListener(projectResourceCreatedListener);
+
+        final Path absoluteFilePath = fileSystem().getPath(PROJECT_PATH).resolve(RELATIVE_PROJECT_HELLO_FILE_PATH);
+        createFile(absoluteFilePath);
+        watcherBackend.events.put(new WatcherBackend.Event(ENTRY_CREATE, absoluteFilePath));
+
+        countDownLatch.await(1, MINUTES);
+        watchService.interrupt();
+
+        Assert.assertNotNull(projectResourceCreatedListener.repositoryEvent);
+        Assert.assertEquals(PROJECT_ID, projectResourceCreatedListener.repositoryEvent.project().id());
+        Assert.assertEquals(RELATIVE_PROJECT_HELLO_FILE_PATH, projectResourceCreatedListener.repositoryEvent.resource().path());
+        Assert.assertTrue(watchService.rawEventCount() > 0);
+
+        // only the folders of the project still watched are left
+        Assert.assertEquals(2, jdkWatcherBackend.watchedFolderCount());
+    }
+
+    @Test
+    public void testStripeOfKeepsSiblingsTogether() {
+        System.setProperty(JDKProjectWatchService.WORKER_THREADS_PROPERTY, "16");
+        try {
+
+            final JDKProjectWatchService watchService = new JDKProjectWatchService(fileSystem(), repositoryEventBus);
+            final Path projectPath = fileSystem().getPath(PROJECT_PATH);
+            final Path srcPath = projectPath.resolve(RELATIVE_PROJECT_SRC_FOLDER_PATH);
+            final int srcStripe = watchService.stripeOf(jdkProject, projectPath.resolve(RELATIVE_PROJECT_MAIN_FOLDER_PATH));
+
+            Assert.assertEquals(srcStripe, watchService.stripeOf(jdkProject, projectPath.resolve(RELATIVE_PROJECT_HELLO_FILE_PATH)));
+            Assert.assertEquals(watchService.stripeOf(jdkProject, projectPath.resolve(RELATIVE_PROJECT_README_FILE_PATH)),
+                                watchService.stripeOf(jdkProject, srcPath));
+
+            // the resources of the sub folders of a same top level folder are spread over the workers
+            final Set<Integer> stripes = new HashSet<>();
+            for (int i = 0; i < 64; i++) {
+                final int stripe = watchService.stripeOf(jdkProject, srcPath.resolve("folder" + i).resolve("file"));
+                Assert.assertTrue(stripe >= 0 && stripe < 16);
+                stripes.add(stripe);
+            }
+            Assert.assertTrue(stripes.size() > 1);
+
+        } finally {
+            System.clearProperty(JDKProjectWatchService.WORKER_THREADS_PROPERTY);
+        }
+    }
+
     private RepositoryEventType kindToRepositoryEventType(Kind<?> kind) throws Exception {
         final Method kindToRepositoryEventTypeMethod =
                 JDKProjectWatchService.class.getDeclaredMethod("kindToRepositoryEventType", Kind.class);
@@ -360,6 +513,75 @@ public final class JDKProjectWatchServiceTest extends AbstractTest {
         }
     }
 
+    /**
+     * {@link com.codenvy.flux.watcher.fs.WatcherBackend} reporting the events put in its queue.
+     */
+    private static class QueueWatcherBackend implements WatcherBackend {
+        private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+
+        @Override
+        public void watch(Path folder) {
+        }
+
+        @Override
+        public boolean watchFolder(Path folder) {
+            return true;
+        }
+
+        @Override
+        public void unwatch(Path folder) {
+        }
+
+        @Override
+        public List<Event> take(long timeout, TimeUnit unit) throws InterruptedException {
+            final Event event = timeout < 0 ? events.take() : events.poll(timeout, unit);
+            return event == null ? Collections.<Event>emptyList() : Collections.singletonList(event);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * {@link com.codenvy.flux.watcher.fs.WatcherBackend} watching the folders with another backend and reporting the events
+     * put in its queue.
+     */
+    private static class RegisteringQueueWatcherBackend extends QueueWatcherBackend {
+        private final WatcherBackend delegate;
+
+        RegisteringQueueWatcherBackend(WatcherBackend delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void watch(Path folder) {
+            try {
+
+                delegate.watch(folder);
+
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public boolean watchFolder(Path folder) {
+            try {
+
+                return delegate.watchFolder(folder);
+
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public void unwatch(Path folder) {
+            delegate.unwatch(folder);
+        }
+    }
+
     private static abstract class AbstractRepositoryListener implements RepositoryListener {
         private final CountDownLatch  countDownLatch;
         public        RepositoryEvent repositoryEvent;
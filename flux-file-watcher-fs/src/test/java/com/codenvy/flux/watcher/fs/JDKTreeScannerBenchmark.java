@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.fs;
+
+import com.google.common.jimfs.Jimfs;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.file.FileVisitResult.CONTINUE;
+import static java.nio.file.Files.createDirectory;
+import static java.nio.file.Files.createTempDirectory;
+import static java.nio.file.Files.delete;
+import static java.nio.file.Files.walkFileTree;
+import static java.nio.file.Files.write;
+
+/**
+ * {@link com.codenvy.flux.watcher.fs.JDKTreeScanner} benchmark comparing the parallel scan of a tree with a sequential {@link
+ * java.nio.file.Files#walkFileTree(java.nio.file.Path, java.nio.file.FileVisitor)}. The tree is a synthetic tree of 100000
+ * files in 1000 folders, created in memory with Jimfs and on the default file system. The default file system tree can be
+ * replaced by a real tree with the {@value #TREE_PROPERTY} system property.
+ * <p/>
+ * Run it with the {@link #main(String[])} method from the test classpath.
+ *
+ * @author Kevin Pollet
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JDKTreeScannerBenchmark {
+    public static final String TREE_PROPERTY = "flux.watcher.benchmark.tree";
+
+    private static final int TOP_FOLDERS      = 100;
+    private static final int SUB_FOLDERS      = 10;
+    private static final int FILES_PER_FOLDER = 100;
+
+    @Param({"jimfs", "default"})
+    public String fileSystemType;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private FileSystem     fileSystem;
+    private Path           root;
+    private boolean        syntheticTree;
+    private JDKTreeScanner scanner;
+
+    @Setup
+    public void setUp() throws IOException {
+        scanner = new JDKTreeScanner(parallelism);
+
+        final String treePath = System.getProperty(TREE_PROPERTY);
+        if ("jimfs".equals(fileSystemType)) {
+            fileSystem = Jimfs.newFileSystem();
+            root = createDirectory(fileSystem.getPath("/tree"));
+        } else if (treePath != null) {
+            root = Paths.get(treePath);
+            return;
+        } else {
+            root = createTempDirectory("flux-tree");
+        }
+
+        syntheticTree = true;
+        final byte[] content = "content".getBytes();
+        for (int i = 0; i < TOP_FOLDERS; i++) {
+            final Path topFolder = createDirectory(root.resolve("folder" + i));
+            for (int j = 0; j < SUB_FOLDERS; j++) {
+                final Path subFolder = createDirectory(topFolder.resolve("folder" + j));
+                for (int k = 0; k < FILES_PER_FOLDER; k++) {
+                    write(subFolder.resolve("file" + k), content);
+                }
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (fileSystem != null) {
+            fileSystem.close();
+
+        } else if (syntheticTree) {
+            walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    delete(file);
+                    return CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                    delete(dir);
+                    return CONTINUE;
+                }
+            });
+        }
+    }
+
+    @Benchmark
+    public long walkFileTreeScan() throws IOException {
+        final AtomicLong size = new AtomicLong();
+        walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                size.addAndGet(attrs.size());
+                return CONTINUE;
+            }
+        });
+        return size.get();
+    }
+
+    @Benchmark
+    public long treeScannerScan() throws IOException {
+        final AtomicLong size = new AtomicLong();
+        scanner.scan(root, new JDKTreeScanner.Visitor() {
+            @Override
+            public boolean visitFolder(Path folder, BasicFileAttributes attributes) {
+                return true;
+            }
+
+            @Override
+            public void visitFile(Path file, BasicFileAttributes attributes) {
+                size.addAndGet(attributes.size());
+            }
+        });
+        return size.get();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JDKTreeScannerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
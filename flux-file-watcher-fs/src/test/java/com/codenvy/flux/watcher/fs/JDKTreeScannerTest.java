@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.fs;
+
+import com.google.common.collect.Sets;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.file.Files.createDirectory;
+import static java.nio.file.Files.createFile;
+
+/**
+ * {@link com.codenvy.flux.watcher.fs.JDKTreeScanner} tests.
+ *
+ * @author Kevin Pollet
+ */
+public final class JDKTreeScannerTest extends AbstractTest {
+    private JDKTreeScanner scanner;
+    private Path           projectPath;
+
+    @Before
+    public void beforeTest() throws IOException {
+        scanner = new JDKTreeScanner(4);
+        projectPath = fileSystem().getPath(PROJECT_PATH);
+
+        createDirectory(projectPath.resolve(RELATIVE_PROJECT_MAIN_FOLDER_PATH));
+        createFile(projectPath.resolve(RELATIVE_PROJECT_HELLO_FILE_PATH));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNewJDKTreeScannerWithZeroParallelism() {
+        new JDKTreeScanner(0);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testScanWithNullRoot() throws IOException {
+        scanner.scan(null, new RecordingVisitor(true));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testScanWithNullVisitor() throws IOException {
+        scanner.scan(projectPath, null);
+    }
+
+    @Test
+    public void testScan() throws IOException {
+        final RecordingVisitor visitor = new RecordingVisitor(true);
+        scanner.scan(projectPath, visitor);
+
+        Assert.assertEquals(Sets.newHashSet(projectPath,
+                                            projectPath.resolve(RELATIVE_PROJECT_SRC_FOLDER_PATH),
+                                            projectPath.resolve(RELATIVE_PROJECT_MAIN_FOLDER_PATH)), visitor.folders);
+        Assert.assertEquals(Sets.newHashSet(projectPath.resolve(RELATIVE_PROJECT_README_FILE_PATH),
+                                            projectPath.resolve(RELATIVE_PROJECT_HELLO_FILE_PATH)), visitor.files);
+    }
+
+    @Test
+    public void testScanWithSkippedFolder() throws IOException {
+        final RecordingVisitor visitor = new RecordingVisitor(false);
+        scanner.scan(projectPath, visitor);
+
+        Assert.assertEquals(Collections.singleton(projectPath), visitor.folders);
+        Assert.assertTrue(visitor.files.isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void testScanWithFailingVisitor() throws IOException {
+        scanner.scan(projectPath, new RecordingVisitor(true) {
+            @Override
+            public void visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                throw new IOException();
+            }
+        });
+    }
+
+    @Test(expected = IOException.class)
+    public void testScanWithNonExistentRoot() throws IOException {
+        scanner.scan(projectPath.resolve("foo"), new RecordingVisitor(true));
+    }
+
+    private static class RecordingVisitor implements JDKTreeScanner.Visitor {
+        private final boolean   scanChildren;
+        private final Set<Path> folders;
+        private final Set<Path> files;
+
+        RecordingVisitor(boolean scanChildren) {
+            this.scanChildren = scanChildren;
+            this.folders = Collections.newSetFromMap(new ConcurrentHashMap<Path, Boolean>());
+            this.files = Collections.newSetFromMap(new ConcurrentHashMap<Path, Boolean>());
+        }
+
+        @Override
+        public boolean visitFolder(Path folder, BasicFileAttributes attributes) {
+            Assert.assertTrue(attributes.isDirectory());
+            folders.add(folder);
+            return scanChildren;
+        }
+
+        @Override
+        public void visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+            Assert.assertFalse(attributes.isDirectory());
+            files.add(file);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Codenvy, S.A.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Codenvy, S.A. - initial API and implementation
+ *******************************************************************************/
+package com.codenvy.flux.watcher.fs;
+
+import com.google.common.collect.Sets;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Path;
+
+/**
+ * {@link com.codenvy.flux.watcher.fs.WatchRegistry} tests.
+ *
+ * @author Kevin Pollet
+ */
+public final class WatchRegistryTest extends AbstractTest {
+    private WatchRegistry<Integer> registry;
+    private Path                   projectPath;
+
+    @Before
+    public void beforeTest() {
+        registry = new WatchRegistry<>();
+        projectPath = fileSystem().getPath(PROJECT_PATH);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testPutWithNullKey() {
+        registry.put(null, projectPath);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testPutWithNullFolder() {
+        registry.put(1, null);
+    }
+
+    @Test
+    public void testPut() {
+        registry.put(1, projectPath);
+
+        Assert.assertEquals(projectPath, registry.folder(1));
+        Assert.assertTrue(registry.contains(projectPath));
+        Assert.assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void testPutWithKeyOfAnotherFolder() {
+        final Path srcPath = projectPath.resolve(RELATIVE_PROJECT_SRC_FOLDER_PATH);
+        registry.put(1, projectPath);
+        registry.put(1, srcPath);
+
+        Assert.assertEquals(srcPath, registry.folder(1));
+        Assert.assertFalse(registry.contains(projectPath));
+        Assert.assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void testPutWithFolderOfAnotherKey() {
+        registry.put(1, projectPath);
+        registry.put(2, projectPath);
+
+        Assert.assertNull(registry.folder(1));
+        Assert.assertEquals(projectPath, registry.folder(2));
+        Assert.assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void testRemove() {
+        registry.put(1, projectPath);
+
+        Assert.assertEquals(projectPath, registry.remove(1));
+        Assert.assertNull(registry.remove(1));
+        Assert.assertFalse(registry.contains(projectPath));
+        Assert.assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void testRemoveTree() {
+        final Path otherPath = fileSystem().getPath(PROJECT_PATH + "-other");
+        registry.put(1, projectPath);
+        registry.put(2, projectPath.resolve(RELATIVE_PROJECT_SRC_FOLDER_PATH));
+        registry.put(3, projectPath.resolve(RELATIVE_PROJECT_MAIN_FOLDER_PATH));
+        registry.put(4, otherPath);
+
+        Assert.assertEquals(Sets.newHashSet(1, 2, 3), Sets.newHashSet(registry.removeTree(projectPath)));
+        Assert.assertNull(registry.folder(1));
+        Assert.assertEquals(otherPath, registry.folder(4));
+        Assert.assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void testClear() {
+        registry.put(1, projectPath);
+        registry.clear();
+
+        Assert.assertNull(registry.folder(1));
+        Assert.assertEquals(0, registry.size());
+    }
+}